@@ -0,0 +1,117 @@
+package pl.qprogramming.daily.service.calendar;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.qprogramming.daily.dto.CalendarEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calendar events path, from Google {@link Event}s of several calendars to the single ordered
+ * list returned by the API, by stage and end to end.
+ * <p>
+ * {@link #merge} is the aggregation done by {@code CalendarApiDelegateImpl}, {@link #sortWithComparator}
+ * the concatenate-and-sort with {@link CalendarEventComparator} it replaced, kept for comparison.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalendarEventsBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int events;
+
+    @Param({"12"})
+    private int calendars;
+
+    private final CalendarMapper calendarMapper = new CalendarMapperImpl();
+    private final CalendarEventComparator comparator = new CalendarEventComparator();
+
+    private List<List<Event>> googleEvents;
+    private List<DateTime> allDayStarts;
+    private List<DateTime> timedStarts;
+    private List<List<CalendarEvent>> eventsPerCalendar;
+
+    @Setup
+    public void setUp() {
+        googleEvents = CalendarFixtures.eventsPerCalendar(events, calendars);
+        allDayStarts = new ArrayList<>();
+        timedStarts = new ArrayList<>();
+        for (List<Event> calendarEvents : googleEvents) {
+            for (Event event : calendarEvents) {
+                if (event.getStart().getDate() != null) {
+                    allDayStarts.add(event.getStart().getDate());
+                } else {
+                    timedStarts.add(event.getStart().getDateTime());
+                }
+            }
+        }
+        eventsPerCalendar = map();
+    }
+
+    /**
+     * {@link CalendarMapper#toDto(Event, String)} of every event, as done per page of each calendar.
+     */
+    @Benchmark
+    public List<List<CalendarEvent>> map() {
+        List<List<CalendarEvent>> mapped = new ArrayList<>(googleEvents.size());
+        for (int calendar = 0; calendar < googleEvents.size(); calendar++) {
+            String calendarId = CalendarFixtures.calendarId(calendar);
+            List<Event> calendarEvents = googleEvents.get(calendar);
+            List<CalendarEvent> dtos = new ArrayList<>(calendarEvents.size());
+            for (Event event : calendarEvents) {
+                dtos.add(calendarMapper.toDto(event, calendarId));
+            }
+            mapped.add(dtos);
+        }
+        return mapped;
+    }
+
+    /**
+     * Dates of all-day events, through {@code toStringRfc3339().substring}.
+     */
+    @Benchmark
+    public void dateTimeToLocalDate(Blackhole blackhole) {
+        for (DateTime date : allDayStarts) {
+            blackhole.consume(calendarMapper.dateTimeToLocalDate(date));
+        }
+    }
+
+    /**
+     * Start times of timed events, through {@code toStringRfc3339()} and parsing.
+     */
+    @Benchmark
+    public void dateTimeToOffsetDateTime(Blackhole blackhole) {
+        for (DateTime dateTime : timedStarts) {
+            blackhole.consume(calendarMapper.dateTimeToOffsetDateTime(dateTime));
+        }
+    }
+
+    @Benchmark
+    public List<CalendarEvent> sortWithComparator() {
+        List<CalendarEvent> all = new ArrayList<>(events);
+        for (List<CalendarEvent> calendarEvents : eventsPerCalendar) {
+            all.addAll(calendarEvents);
+        }
+        all.sort(comparator);
+        return all;
+    }
+
+    @Benchmark
+    public List<CalendarEvent> merge() {
+        return CalendarEventMerger.merge(eventsPerCalendar);
+    }
+
+    @Benchmark
+    public List<CalendarEvent> mapAndMerge() {
+        return CalendarEventMerger.merge(map());
+    }
+}
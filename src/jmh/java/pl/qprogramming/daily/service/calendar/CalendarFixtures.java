@@ -0,0 +1,101 @@
+package pl.qprogramming.daily.service.calendar;
+
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Google Calendar events for the benchmarks, cloned from the timed and all-day events of
+ * {@code src/test/resources/calendar/events.json} and spread over several calendars.
+ * <p>
+ * Events are generated from a fixed seed, so runs are comparable, and each calendar's list is in
+ * the order Google returns with {@code orderBy=startTime}, where all-day events sit at midnight
+ * between timed ones.
+ * </p>
+ */
+final class CalendarFixtures {
+
+    private static final long START_MILLIS = 1755468000000L; // 2025-08-18T00:00+02:00
+    private static final int OFFSET_MINUTES = 120;
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 86_400_000L;
+    private static final int DAYS = 30;
+    private static final int ALL_DAY_PERCENT = 15;
+
+    private CalendarFixtures() {
+    }
+
+    /**
+     * @param events    total number of events
+     * @param calendars number of calendars to spread them over
+     * @return event lists, one per calendar, each in Google's start time order
+     */
+    static List<List<Event>> eventsPerCalendar(int events, int calendars) {
+        Event timedTemplate;
+        Event allDayTemplate;
+        try (InputStream in = new ClassPathResource("calendar/events.json").getInputStream()) {
+            List<Event> templates = GsonFactory.getDefaultInstance()
+                    .fromInputStream(in, StandardCharsets.UTF_8, Events.class).getItems();
+            timedTemplate = templates.stream().filter(event -> event.getStart().getDateTime() != null).findFirst().orElseThrow();
+            allDayTemplate = templates.stream().filter(event -> event.getStart().getDate() != null).findFirst().orElseThrow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Random random = new Random(events);
+        List<List<Event>> eventsPerCalendar = new ArrayList<>(calendars);
+        for (int calendar = 0; calendar < calendars; calendar++) {
+            eventsPerCalendar.add(new ArrayList<>(events / calendars + 1));
+        }
+        for (int i = 0; i < events; i++) {
+            long day = random.nextInt(DAYS);
+            Event event;
+            if (random.nextInt(100) < ALL_DAY_PERCENT) {
+                event = allDayTemplate.clone();
+                long date = START_MILLIS + OFFSET_MINUTES * MINUTE + day * DAY;
+                event.setStart(new EventDateTime().setDate(new DateTime(true, date, 0)));
+                event.setEnd(new EventDateTime().setDate(new DateTime(true, date + DAY, 0)));
+            } else {
+                event = timedTemplate.clone();
+                // Starts on quarter hours between 07:00 and 20:45
+                long start = START_MILLIS + day * DAY + (7 * 60 + random.nextInt(56) * 15) * MINUTE;
+                long duration = (1 + random.nextInt(8)) * 15 * MINUTE;
+                event.setStart(new EventDateTime().setDateTime(new DateTime(start, OFFSET_MINUTES)).setTimeZone("Europe/Warsaw"));
+                event.setEnd(new EventDateTime().setDateTime(new DateTime(start + duration, OFFSET_MINUTES)).setTimeZone("Europe/Warsaw"));
+            }
+            event.setId("event" + i);
+            eventsPerCalendar.get(random.nextInt(calendars)).add(event);
+        }
+        for (List<Event> calendarEvents : eventsPerCalendar) {
+            calendarEvents.sort(Comparator.comparingLong(CalendarFixtures::googleOrder));
+        }
+        return eventsPerCalendar;
+    }
+
+    /**
+     * @param calendar index of the calendar
+     * @return ID of the calendar
+     */
+    static String calendarId(int calendar) {
+        return calendar == 0 ? "primary" : "calendar" + calendar + "@group.calendar.google.com";
+    }
+
+    private static long googleOrder(Event event) {
+        if (event.getStart().getDateTime() != null) {
+            return event.getStart().getDateTime().getValue();
+        }
+        // Local midnight of the date
+        return event.getStart().getDate().getValue() - OFFSET_MINUTES * MINUTE;
+    }
+}
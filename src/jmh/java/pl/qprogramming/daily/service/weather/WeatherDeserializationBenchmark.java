@@ -0,0 +1,58 @@
+package pl.qprogramming.daily.service.weather;
+
+import org.openjdk.jmh.annotations.*;
+import pl.qprogramming.daily.service.weather.model.GeocodingResponse;
+import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoAirQuality;
+import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoWeatherResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static pl.qprogramming.daily.service.weather.WeatherFixtures.UPSTREAM_MAPPER;
+import static pl.qprogramming.daily.service.weather.WeatherFixtures.fixture;
+
+/**
+ * Reading of the Open-Meteo responses in {@code src/test/resources/weather}, as the weather
+ * services do after each upstream call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherDeserializationBenchmark {
+
+    private byte[] currentWeather;
+    private byte[] forecast;
+    private byte[] airQuality;
+    private byte[] geocoding;
+
+    @Setup
+    public void setUp() {
+        currentWeather = fixture("current_weather.json");
+        forecast = fixture("weather_forecast.json");
+        airQuality = fixture("air_quality.json");
+        geocoding = fixture("geocoding_response.json");
+    }
+
+    @Benchmark
+    public OpenMeteoWeatherResponse currentWeather() throws IOException {
+        return UPSTREAM_MAPPER.readValue(currentWeather, OpenMeteoWeatherResponse.class);
+    }
+
+    @Benchmark
+    public OpenMeteoWeatherResponse forecast() throws IOException {
+        return UPSTREAM_MAPPER.readValue(forecast, OpenMeteoWeatherResponse.class);
+    }
+
+    @Benchmark
+    public OpenMeteoAirQuality airQuality() throws IOException {
+        return UPSTREAM_MAPPER.readValue(airQuality, OpenMeteoAirQuality.class);
+    }
+
+    @Benchmark
+    public GeocodingResponse geocoding() throws IOException {
+        return UPSTREAM_MAPPER.readValue(geocoding, GeocodingResponse.class);
+    }
+}
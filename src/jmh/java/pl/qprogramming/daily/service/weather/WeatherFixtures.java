@@ -0,0 +1,199 @@
+package pl.qprogramming.daily.service.weather;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import pl.qprogramming.daily.config.JacksonConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+/**
+ * Weather API responses for the benchmarks: the test fixtures as shipped, and synthetic responses
+ * of a given forecast horizon generated from a fixed seed, so runs are comparable.
+ */
+final class WeatherFixtures {
+
+    /**
+     * Same settings as the converter of {@code new RestTemplate()} used by the weather services.
+     */
+    static final ObjectMapper UPSTREAM_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    /**
+     * Same settings as the application's mapper writing API responses.
+     */
+    static final ObjectMapper API_MAPPER = new JacksonConfig().objectMapper(Jackson2ObjectMapperBuilder.json());
+
+    private static final LocalDate START = LocalDate.of(2025, 8, 18);
+    private static final ZoneOffset OFFSET = ZoneOffset.ofHours(2);
+
+    private WeatherFixtures() {
+    }
+
+    /**
+     * @param name file name in {@code src/test/resources/weather}
+     * @return fixture content
+     */
+    static byte[] fixture(String name) {
+        try (InputStream in = new ClassPathResource("weather/" + name).getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Open-Meteo forecast response based on {@code weather_forecast.json}, with the daily and
+     * hourly series extended to the given horizon.
+     *
+     * @param days number of forecast days, with 24 hourly entries each
+     * @return response content
+     */
+    static byte[] openMeteoForecast(int days) {
+        try {
+            ObjectNode response = (ObjectNode) UPSTREAM_MAPPER.readTree(fixture("weather_forecast.json"));
+            Random random = new Random(days);
+            ObjectNode daily = response.putObject("daily");
+            ArrayNode dailyTime = daily.putArray("time");
+            ArrayNode dailyCode = daily.putArray("weather_code");
+            ArrayNode tempMax = daily.putArray("temperature_2m_max");
+            ArrayNode tempMin = daily.putArray("temperature_2m_min");
+            for (int day = 0; day < days; day++) {
+                double min = round(10 + random.nextDouble() * 10);
+                dailyTime.add(START.plusDays(day).toString());
+                dailyCode.add(weatherCode(random));
+                tempMin.add(min);
+                tempMax.add(round(min + 3 + random.nextDouble() * 10));
+            }
+            ObjectNode hourly = response.putObject("hourly");
+            ArrayNode hourlyTime = hourly.putArray("time");
+            ArrayNode hourlyCode = hourly.putArray("weather_code");
+            ArrayNode temperature = hourly.putArray("temperature_2m");
+            ArrayNode windSpeed = hourly.putArray("wind_speed_10m");
+            ArrayNode humidity = hourly.putArray("relative_humidity_2m");
+            for (int hour = 0; hour < days * 24; hour++) {
+                hourlyTime.add(START.atStartOfDay().plusHours(hour).toString());
+                hourlyCode.add(weatherCode(random));
+                temperature.add(round(10 + random.nextDouble() * 15));
+                windSpeed.add(round(random.nextDouble() * 30));
+                humidity.add(40 + random.nextInt(60));
+            }
+            return UPSTREAM_MAPPER.writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static byte[] accuWeatherLocation() {
+        ObjectNode location = UPSTREAM_MAPPER.createObjectNode();
+        location.put("Key", "274663");
+        location.put("LocalizedName", "Warsaw");
+        location.putObject("Country").put("ID", "PL").put("LocalizedName", "Poland");
+        location.putObject("AdministrativeArea").put("ID", "14").put("LocalizedName", "Masovia");
+        location.putObject("GeoPosition").put("Latitude", 52.2316).put("Longitude", 21.0062);
+        return write(location);
+    }
+
+    /**
+     * @return current conditions response, an array with a single observation
+     */
+    static byte[] accuWeatherCurrentConditions() {
+        ArrayNode response = UPSTREAM_MAPPER.createArrayNode();
+        ObjectNode conditions = response.addObject();
+        conditions.put("LocalObservationDateTime", START.atTime(10, 30).atOffset(OFFSET).toString());
+        conditions.put("WeatherText", "Mostly sunny");
+        conditions.put("WeatherIcon", 2);
+        conditions.put("RelativeHumidity", 65);
+        conditions.put("UVIndex", 5);
+        ObjectNode temperature = conditions.putObject("Temperature");
+        temperature.putObject("Metric").put("Value", 22.5).put("Unit", "C");
+        temperature.putObject("Imperial").put("Value", 72.5).put("Unit", "F");
+        ObjectNode wind = conditions.putObject("Wind");
+        wind.putObject("Direction").put("Degrees", 270).put("Localized", "W");
+        ObjectNode speed = wind.putObject("Speed");
+        speed.putObject("Metric").put("Value", 15.2).put("Unit", "km/h");
+        speed.putObject("Imperial").put("Value", 9.4).put("Unit", "mi/h");
+        return write(response);
+    }
+
+    /**
+     * @param days number of daily forecasts
+     * @return daily forecast response
+     */
+    static byte[] accuWeatherDailyForecast(int days) {
+        Random random = new Random(days);
+        ObjectNode response = UPSTREAM_MAPPER.createObjectNode();
+        response.putObject("Headline").put("Text", "Pleasant this week").put("Category", "mild");
+        ArrayNode forecasts = response.putArray("DailyForecasts");
+        for (int day = 0; day < days; day++) {
+            ObjectNode forecast = forecasts.addObject();
+            double min = round(10 + random.nextDouble() * 10);
+            forecast.put("Date", START.plusDays(day).atTime(7, 0).atOffset(OFFSET).toString());
+            ObjectNode temperature = forecast.putObject("Temperature");
+            temperature.putObject("Minimum").put("Value", min).put("Unit", "C");
+            temperature.putObject("Maximum").put("Value", round(min + 3 + random.nextDouble() * 10)).put("Unit", "C");
+            dayNight(forecast.putObject("Day"), random);
+            dayNight(forecast.putObject("Night"), random);
+        }
+        return write(response);
+    }
+
+    /**
+     * @param hours number of hourly forecasts
+     * @return hourly forecast response, an array of forecasts
+     */
+    static byte[] accuWeatherHourlyForecast(int hours) {
+        Random random = new Random(hours);
+        ArrayNode response = UPSTREAM_MAPPER.createArrayNode();
+        OffsetDateTime start = START.atTime(11, 0).atOffset(OFFSET);
+        for (int hour = 0; hour < hours; hour++) {
+            ObjectNode forecast = response.addObject();
+            forecast.put("DateTime", start.plusHours(hour).toString());
+            forecast.put("WeatherIcon", 1 + random.nextInt(44));
+            forecast.put("IconPhrase", "Partly sunny");
+            forecast.put("HasPrecipitation", random.nextInt(4) == 0);
+            forecast.put("IsDaylight", (hour + 11) % 24 >= 6 && (hour + 11) % 24 < 21);
+            forecast.putObject("Temperature").put("Value", round(10 + random.nextDouble() * 15)).put("Unit", "C");
+            ObjectNode wind = forecast.putObject("Wind");
+            wind.putObject("Speed").put("Value", round(random.nextDouble() * 30)).put("Unit", "km/h");
+            wind.putObject("Direction").put("Degrees", random.nextInt(360)).put("Localized", "W");
+            forecast.put("RelativeHumidity", 40 + random.nextInt(60));
+        }
+        return write(response);
+    }
+
+    private static void dayNight(ObjectNode dayNight, Random random) {
+        boolean precipitation = random.nextInt(3) == 0;
+        dayNight.put("Icon", 1 + random.nextInt(44));
+        dayNight.put("IconPhrase", precipitation ? "Showers" : "Partly sunny");
+        dayNight.put("HasPrecipitation", precipitation);
+        if (precipitation) {
+            dayNight.put("PrecipitationType", "Rain");
+            dayNight.put("PrecipitationIntensity", "Light");
+        }
+    }
+
+    private static int weatherCode(Random random) {
+        int[] codes = {0, 1, 2, 3, 45, 61, 63, 80, 95};
+        return codes[random.nextInt(codes.length)];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static byte[] write(Object node) {
+        try {
+            return UPSTREAM_MAPPER.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
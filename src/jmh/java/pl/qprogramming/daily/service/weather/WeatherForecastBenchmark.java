@@ -0,0 +1,111 @@
+package pl.qprogramming.daily.service.weather;
+
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.qprogramming.daily.dto.WeatherForecast;
+import pl.qprogramming.daily.service.weather.mapper.AccuWeatherMapper;
+import pl.qprogramming.daily.service.weather.mapper.WeatherMapper;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherCurrentConditions;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherDailyForecast;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherHourlyForecast;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation;
+import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoWeatherResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static pl.qprogramming.daily.service.weather.WeatherFixtures.*;
+
+/**
+ * Forecast path of both providers, from upstream response bytes to API response bytes, by stage
+ * and end to end.
+ * <p>
+ * The horizon is a number of days with 24 hourly entries each; 16 days (384 hours) is the longest
+ * forecast Open-Meteo serves. AccuWeather responses are generated to the same horizon, beyond what
+ * its API returns, so both providers can be compared as the horizon grows.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeatherForecastBenchmark {
+
+    @Param({"1", "5", "16"})
+    private int days;
+
+    private final WeatherMapper weatherMapper = Mappers.getMapper(WeatherMapper.class);
+    private final AccuWeatherMapper accuWeatherMapper = Mappers.getMapper(AccuWeatherMapper.class);
+
+    private byte[] openMeteoResponse;
+    private byte[] accuWeatherLocation;
+    private byte[] accuWeatherCurrentConditions;
+    private byte[] accuWeatherDailyForecast;
+    private byte[] accuWeatherHourlyForecast;
+
+    private OpenMeteoWeatherResponse openMeteoForecast;
+    private AccuWeatherLocation location;
+    private AccuWeatherCurrentConditions currentConditions;
+    private AccuWeatherDailyForecast dailyForecast;
+    private AccuWeatherHourlyForecast hourlyForecast;
+    private WeatherForecast forecast;
+
+    @Setup
+    public void setUp() throws IOException {
+        openMeteoResponse = openMeteoForecast(days);
+        accuWeatherLocation = WeatherFixtures.accuWeatherLocation();
+        accuWeatherCurrentConditions = WeatherFixtures.accuWeatherCurrentConditions();
+        accuWeatherDailyForecast = WeatherFixtures.accuWeatherDailyForecast(days);
+        accuWeatherHourlyForecast = WeatherFixtures.accuWeatherHourlyForecast(days * 24);
+
+        openMeteoForecast = openMeteoDeserialize();
+        location = UPSTREAM_MAPPER.readValue(accuWeatherLocation, AccuWeatherLocation.class);
+        currentConditions = UPSTREAM_MAPPER.readValue(accuWeatherCurrentConditions, AccuWeatherCurrentConditions[].class)[0];
+        dailyForecast = UPSTREAM_MAPPER.readValue(accuWeatherDailyForecast, AccuWeatherDailyForecast.class);
+        hourlyForecast = new AccuWeatherHourlyForecast();
+        hourlyForecast.setHourlyForecasts(Arrays.asList(
+                UPSTREAM_MAPPER.readValue(accuWeatherHourlyForecast, AccuWeatherHourlyForecast.HourlyForecastItem[].class)));
+        forecast = openMeteoMap();
+    }
+
+    @Benchmark
+    public OpenMeteoWeatherResponse openMeteoDeserialize() throws IOException {
+        return UPSTREAM_MAPPER.readValue(openMeteoResponse, OpenMeteoWeatherResponse.class);
+    }
+
+    @Benchmark
+    public WeatherForecast openMeteoMap() {
+        return weatherMapper.toWeatherForecast(openMeteoForecast,
+                new WeatherMapper.DaysContext(days), new WeatherMapper.HoursContext(days * 24));
+    }
+
+    @Benchmark
+    public void accuWeatherDeserialize(Blackhole blackhole) throws IOException {
+        blackhole.consume(UPSTREAM_MAPPER.readValue(accuWeatherLocation, AccuWeatherLocation.class));
+        blackhole.consume(UPSTREAM_MAPPER.readValue(accuWeatherCurrentConditions, AccuWeatherCurrentConditions[].class));
+        blackhole.consume(UPSTREAM_MAPPER.readValue(accuWeatherDailyForecast, AccuWeatherDailyForecast.class));
+        blackhole.consume(UPSTREAM_MAPPER.readValue(accuWeatherHourlyForecast, AccuWeatherHourlyForecast.HourlyForecastItem[].class));
+    }
+
+    @Benchmark
+    public WeatherForecast accuWeatherMap() {
+        return accuWeatherMapper.createWeatherForecast(location, currentConditions, dailyForecast, hourlyForecast);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return API_MAPPER.writeValueAsBytes(forecast);
+    }
+
+    @Benchmark
+    public byte[] openMeteoEndToEnd() throws IOException {
+        OpenMeteoWeatherResponse response = UPSTREAM_MAPPER.readValue(openMeteoResponse, OpenMeteoWeatherResponse.class);
+        WeatherForecast mapped = weatherMapper.toWeatherForecast(response,
+                new WeatherMapper.DaysContext(days), new WeatherMapper.HoursContext(days * 24));
+        return API_MAPPER.writeValueAsBytes(mapped);
+    }
+}
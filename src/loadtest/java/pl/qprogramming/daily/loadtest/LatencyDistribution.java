@@ -0,0 +1,96 @@
+package pl.qprogramming.daily.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response time of a stubbed upstream, in milliseconds.
+ * <p>
+ * Parsed from one of:
+ * <ul>
+ *     <li>{@code fixed:<ms>} - always the same delay</li>
+ *     <li>{@code uniform:<min>:<max>} - evenly spread between two delays</li>
+ *     <li>{@code lognormal:<median>:<p99>} - long tailed, as observed from real APIs, with the given
+ *     median and 99th percentile</li>
+ * </ul>
+ * </p>
+ */
+abstract class LatencyDistribution {
+
+    /**
+     * z-score of the 99th percentile of the standard normal distribution
+     */
+    private static final double Z_99 = 2.3263;
+
+    /**
+     * @return next delay in milliseconds
+     */
+    abstract long sample();
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed":
+                    return fixed(Long.parseLong(parts[1]));
+                case "uniform":
+                    return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "lognormal":
+                    return lognormal(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        return new LatencyDistribution() {
+            @Override
+            long sample() {
+                return millis;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed " + millis + " ms";
+            }
+        };
+    }
+
+    static LatencyDistribution uniform(long min, long max) {
+        if (max < min) {
+            throw new IllegalArgumentException("Uniform latency maximum " + max + " below minimum " + min);
+        }
+        return new LatencyDistribution() {
+            @Override
+            long sample() {
+                return ThreadLocalRandom.current().nextLong(min, max + 1);
+            }
+
+            @Override
+            public String toString() {
+                return "uniform " + min + "-" + max + " ms";
+            }
+        };
+    }
+
+    static LatencyDistribution lognormal(double median, double p99) {
+        if (median <= 0 || p99 < median) {
+            throw new IllegalArgumentException("Lognormal latency needs 0 < median <= p99, got " + median + " and " + p99);
+        }
+        double mu = Math.log(median);
+        double sigma = (Math.log(p99) - mu) / Z_99;
+        return new LatencyDistribution() {
+            @Override
+            long sample() {
+                return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+
+            @Override
+            public String toString() {
+                return "lognormal median " + median + " ms, p99 " + p99 + " ms";
+            }
+        };
+    }
+}
@@ -0,0 +1,305 @@
+package pl.qprogramming.daily.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for a running application, see the Load testing section of the README.
+ * <p>
+ * Every virtual user signs in through the application's OAuth2 login against the {@link StubServer}
+ * and keeps its own session cookie, so requests pass the real security chain, session store and
+ * token handling. Workers then send requests of the {@link Scenario} back to back, one at a time
+ * each, and the response times after the warmup are reported per request name as throughput and
+ * percentiles. With {@code users=0} nobody signs in and each worker sends requests as an anonymous
+ * browser, keeping only the cookies the application sets, to measure the public endpoints alone.
+ * </p>
+ * <p>
+ * Back to back requests slow down with the application, so a stall delays the requests that would
+ * have been sent meanwhile instead of timing them. With {@code rate} set, requests are instead
+ * scheduled at fixed intervals whether earlier ones completed or not, and timed from the time they
+ * were due, so waiting for a free worker counts as part of the response time.
+ * </p>
+ * Options, as {@code key=value} arguments:
+ * <ul>
+ *     <li>{@code target} - application URL including the context path, default {@code http://localhost:8080/daily}</li>
+ *     <li>{@code users} - signed in users, default 20, or 0 for anonymous requests</li>
+ *     <li>{@code concurrency} - requests in flight, default 20, spread over the users</li>
+ *     <li>{@code rate} - requests per second sent at fixed intervals, default 0 to send them back to back</li>
+ *     <li>{@code warmup}, {@code duration} - e.g. {@code 30s} or {@code 2m}, default 10s and 60s</li>
+ *     <li>{@code scenario} - file path or {@code classpath:} resource, default {@code classpath:loadtest/scenario.txt}</li>
+ *     <li>{@code places} - distinct locations in weather requests, 1 to 20, default 20</li>
+ *     <li>{@code stub} - start the {@link StubServer} in this process, default true, with its options</li>
+ * </ul>
+ */
+@Slf4j
+public final class LoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final String target;
+    private final Scenario scenario;
+    private final HttpClient client;
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    private LoadTest(String target, Scenario scenario) {
+        this.target = target;
+        this.scenario = scenario;
+        // Redirects are followed by hand, so each user's cookies are sent with every hop
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build();
+        scenario.names().forEach(name -> endpoints.put(name, new Endpoint()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        StubServer stub = null;
+        if (options.getBoolean("stub", true)) {
+            stub = new StubServer(options);
+            stub.start();
+        }
+        try {
+            LoadTest loadTest = new LoadTest(options.get("target", "http://localhost:8080/daily"),
+                    Scenario.load(options.get("scenario", "classpath:loadtest/scenario.txt"), options.getInt("places", 20)));
+            loadTest.awaitApplication();
+            int users = options.getInt("users", 20);
+            int concurrency = options.getInt("concurrency", 20);
+            List<Session> sessions = users > 0 ? loadTest.signIn(users) : anonymous(concurrency);
+            loadTest.run(sessions, concurrency, options.getDouble("rate", 0),
+                    options.getDuration("warmup", Duration.ofSeconds(10)),
+                    options.getDuration("duration", Duration.ofSeconds(60)));
+        } finally {
+            if (stub != null) {
+                stub.stop();
+            }
+        }
+    }
+
+    private void awaitApplication() throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        log.info("Waiting for {}", target);
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(target + "/actuator/health"))
+                        .timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                log.debug("Application not up yet: {}", e.getMessage());
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("Application at " + target + " did not come up within " + STARTUP_TIMEOUT);
+    }
+
+    private List<Session> signIn(int users) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(users, 16));
+        try {
+            List<Future<Session>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                String user = "user" + i;
+                futures.add(executor.submit(() -> signIn(user)));
+            }
+            List<Session> sessions = new ArrayList<>();
+            for (Future<Session> future : futures) {
+                sessions.add(future.get());
+            }
+            log.info("Signed in {} users", users);
+            return sessions;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static List<Session> anonymous(int concurrency) {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            sessions.add(new Session());
+        }
+        log.info("Sending anonymous requests");
+        return sessions;
+    }
+
+    /**
+     * Authorization code flow as a browser does it: application, stub consent, application callback.
+     */
+    private Session signIn(String user) throws IOException, InterruptedException {
+        Session session = new Session();
+        String authorization = redirect(session, URI.create(target + "/oauth2/authorization/google"));
+        String callback = redirect(session, URI.create(authorization + "&login_hint=" + user));
+        redirect(session, URI.create(callback));
+        HttpResponse<String> response = session.send(client, URI.create(target + "/api/auth/user"), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || !response.body().contains("\"authenticated\":true")) {
+            throw new IllegalStateException("Sign in of " + user + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return session;
+    }
+
+    private String redirect(Session session, URI uri) throws IOException, InterruptedException {
+        HttpResponse<String> response = session.send(client, uri, HttpResponse.BodyHandlers.ofString());
+        Optional<String> location = response.headers().firstValue("Location");
+        if (response.statusCode() != 302 || location.isEmpty()) {
+            throw new IllegalStateException("Expected redirect from " + uri + ", got " + response.statusCode() + " " + response.body());
+        }
+        return uri.resolve(location.get()).toString();
+    }
+
+    private void run(List<Session> sessions, int concurrency, double rate, Duration warmup, Duration duration)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Thread generator = null;
+        if (rate > 0) {
+            log.info("Sending {} requests/s with up to {} in flight for {} after {} warmup", rate, concurrency, duration, warmup);
+            generator = new Thread(() -> schedule(sessions, workers, rate, stopped), "load-generator");
+            generator.start();
+        } else {
+            log.info("Running {} workers for {} after {} warmup", concurrency, duration, warmup);
+            for (int i = 0; i < concurrency; i++) {
+                Session session = sessions.get(i % sessions.size());
+                workers.execute(() -> {
+                    while (stopped.getCount() > 0) {
+                        send(session, scenario.next(), System.nanoTime());
+                    }
+                });
+            }
+        }
+        Thread.sleep(warmup.toMillis());
+        endpoints.values().forEach(Endpoint::reset);
+        long start = System.nanoTime();
+        Thread.sleep(duration.toMillis());
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        endpoints.forEach((name, endpoint) -> histograms.put(name, endpoint.recorder.getIntervalHistogram()));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Map<String, Long> errors = new LinkedHashMap<>();
+        endpoints.forEach((name, endpoint) -> errors.put(name, endpoint.errors.sumThenReset()));
+        stopped.countDown();
+        if (generator != null) {
+            generator.join();
+            int unsent = workers.shutdownNow().size();
+            if (unsent > 0) {
+                log.warn("{} due requests were still waiting for a worker, the application did not keep up with the rate", unsent);
+            }
+        } else {
+            workers.shutdown();
+        }
+        workers.awaitTermination(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+        report(histograms, errors, seconds);
+    }
+
+    /**
+     * Hands a request to the workers every {@code 1 / rate} seconds until stopped, each with the
+     * time it was due.
+     */
+    private void schedule(List<Session> sessions, ExecutorService workers, double rate, CountDownLatch stopped) {
+        long interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / rate));
+        long due = System.nanoTime();
+        try {
+            for (long i = 0; !stopped.await(due - System.nanoTime(), TimeUnit.NANOSECONDS); i++) {
+                Session session = sessions.get((int) (i % sessions.size()));
+                Scenario.Request request = scenario.next();
+                long intended = due;
+                workers.execute(() -> send(session, request, intended));
+                due += interval;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param start time the request was due, response times are measured from it
+     */
+    private void send(Session session, Scenario.Request request, long start) {
+        Endpoint endpoint = endpoints.get(request.name);
+        try {
+            HttpResponse<Void> response = session.send(client, URI.create(target + request.path), HttpResponse.BodyHandlers.discarding());
+            endpoint.recorder.recordValue((System.nanoTime() - start) / 1000);
+            if (response.statusCode() >= 400) {
+                endpoint.errors.increment();
+            }
+        } catch (IOException e) {
+            endpoint.errors.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void report(Map<String, Histogram> histograms, Map<String, Long> errors, double seconds) {
+        StringBuilder report = new StringBuilder(String.format("%nMeasured %.1f s%n%-20s %10s %8s %10s %10s %10s %10s %10s%n",
+                seconds, "request", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            long endpointErrors = errors.get(entry.getKey());
+            report.append(row(entry.getKey(), entry.getValue(), endpointErrors, seconds));
+            total.add(entry.getValue());
+            totalErrors += endpointErrors;
+        }
+        report.append(row("total", total, totalErrors, seconds));
+        log.info(report.toString());
+    }
+
+    private static String row(String name, Histogram histogram, long errors, double seconds) {
+        return String.format(Locale.ROOT, "%-20s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Response times in microseconds and failed requests of one request name.
+     */
+    private static final class Endpoint {
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+
+        private void reset() {
+            recorder.getIntervalHistogram();
+            errors.reset();
+        }
+    }
+
+    /**
+     * Cookies of one user, sent with each of its requests.
+     */
+    private static final class Session {
+        private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+        private <T> HttpResponse<T> send(HttpClient client, URI uri, HttpResponse.BodyHandler<T> bodyHandler)
+                throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(REQUEST_TIMEOUT);
+            if (!cookies.isEmpty()) {
+                StringJoiner cookie = new StringJoiner("; ");
+                cookies.forEach((name, value) -> cookie.add(name + "=" + value));
+                request.header("Cookie", cookie.toString());
+            }
+            HttpResponse<T> response = client.send(request.build(), bodyHandler);
+            for (String setCookie : response.headers().allValues("Set-Cookie")) {
+                for (HttpCookie cookie : HttpCookie.parse(setCookie)) {
+                    if (cookie.hasExpired() || cookie.getValue().isEmpty()) {
+                        cookies.remove(cookie.getName());
+                    } else {
+                        cookies.put(cookie.getName(), cookie.getValue());
+                    }
+                }
+            }
+            return response;
+        }
+    }
+}
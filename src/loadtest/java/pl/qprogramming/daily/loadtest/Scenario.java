@@ -0,0 +1,134 @@
+package pl.qprogramming.daily.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted mix of requests sent by the load test, read from a scenario file such as
+ * {@code src/loadtest/resources/loadtest/scenario.txt}.
+ */
+final class Scenario {
+
+    /**
+     * City, latitude and longitude of the places substituted into request paths
+     */
+    private static final Object[][] PLACES = {
+            {"Warsaw", 52.2297, 21.0122}, {"Krakow", 50.0647, 19.9450}, {"Gdansk", 54.3520, 18.6466},
+            {"Wroclaw", 51.1079, 17.0385}, {"Poznan", 52.4064, 16.9252}, {"Lodz", 51.7592, 19.4560},
+            {"Szczecin", 53.4285, 14.5528}, {"Lublin", 51.2465, 22.5684}, {"Bialystok", 53.1325, 23.1688},
+            {"Katowice", 50.2649, 19.0238}, {"Berlin", 52.5200, 13.4050}, {"Prague", 50.0755, 14.4378},
+            {"Vienna", 48.2082, 16.3738}, {"Vilnius", 54.6872, 25.2797}, {"Budapest", 47.4979, 19.0402},
+            {"Paris", 48.8566, 2.3522}, {"London", 51.5074, -0.1278}, {"Madrid", 40.4168, -3.7038},
+            {"Rome", 41.9028, 12.4964}, {"Oslo", 59.9139, 10.7522}
+    };
+
+    private final List<Step> steps = new ArrayList<>();
+    private final int places;
+    private int totalWeight;
+
+    private Scenario(int places) {
+        if (places < 1 || places > PLACES.length) {
+            throw new IllegalArgumentException("Places must be between 1 and " + PLACES.length);
+        }
+        this.places = places;
+    }
+
+    /**
+     * @param location file path, or {@code classpath:} resource
+     * @param places   number of distinct places used in requests
+     * @return parsed scenario
+     */
+    static Scenario load(String location, int places) {
+        String content;
+        try {
+            if (location.startsWith("classpath:")) {
+                try (InputStream in = Scenario.class.getClassLoader().getResourceAsStream(location.substring("classpath:".length()))) {
+                    if (in == null) {
+                        throw new IllegalArgumentException("Scenario not found: " + location);
+                    }
+                    content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            } else {
+                content = Files.readString(Path.of(location));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read scenario " + location, e);
+        }
+        Scenario scenario = new Scenario(places);
+        for (String line : content.split("\\R")) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Expected <weight> <name> <path> in scenario line: " + line);
+            }
+            int weight = Integer.parseInt(fields[0]);
+            scenario.totalWeight += weight;
+            scenario.steps.add(new Step(fields[1], fields[2], scenario.totalWeight));
+        }
+        if (scenario.steps.isEmpty()) {
+            throw new IllegalArgumentException("Scenario " + location + " has no requests");
+        }
+        return scenario;
+    }
+
+    List<String> names() {
+        List<String> names = new ArrayList<>();
+        steps.forEach(step -> names.add(step.name));
+        return names;
+    }
+
+    /**
+     * @return random request, as name and path with placeholders filled in
+     */
+    Request next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(totalWeight);
+        Step step = steps.get(0);
+        for (Step candidate : steps) {
+            if (pick < candidate.cumulativeWeight) {
+                step = candidate;
+                break;
+            }
+        }
+        Object[] place = PLACES[random.nextInt(places)];
+        String path = step.path
+                .replace("{city}", URLEncoder.encode((String) place[0], StandardCharsets.UTF_8))
+                .replace("{lat}", String.format(Locale.ROOT, "%.4f", (Double) place[1]))
+                .replace("{lon}", String.format(Locale.ROOT, "%.4f", (Double) place[2]));
+        return new Request(step.name, path);
+    }
+
+    static final class Request {
+        final String name;
+        final String path;
+
+        private Request(String name, String path) {
+            this.name = name;
+            this.path = path;
+        }
+    }
+
+    private static final class Step {
+        private final String name;
+        private final String path;
+        private final int cumulativeWeight;
+
+        private Step(String name, String path, int cumulativeWeight) {
+            this.name = name;
+            this.path = path;
+            this.cumulativeWeight = cumulativeWeight;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package pl.qprogramming.daily.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stand-in for the upstream APIs of the application, so it can be load tested without calling
+ * Open-Meteo, AccuWeather or Google, see {@code application-loadtest.yml} for the URLs it serves.
+ * <p>
+ * Each provider answers after a delay drawn from its {@link LatencyDistribution} and fails with
+ * {@code 503} at its error rate, set with {@code <provider>.latency} and {@code <provider>.error-rate}
+ * options, where provider is {@code open-meteo}, {@code accuweather} or {@code google}.
+ * Weather and calendar responses are the test fixtures; Google sign-in issues codes, tokens and
+ * RS256 signed ID tokens for whichever user is given as {@code login_hint}, so every virtual user
+ * of {@link LoadTest} goes through the application's real OAuth2 login.
+ * </p>
+ * Run on its own with {@code mvn -Ploadtest test -Dloadtest.main=pl.qprogramming.daily.loadtest.StubServer}.
+ */
+@Slf4j
+final class StubServer {
+
+    static final String OPEN_METEO = "open-meteo";
+    static final String ACCUWEATHER = "accuweather";
+    static final String GOOGLE = "google";
+
+    private static final Map<String, String> DEFAULT_LATENCIES = Map.of(
+            OPEN_METEO, "lognormal:60:300",
+            ACCUWEATHER, "lognormal:120:800",
+            GOOGLE, "lognormal:80:500");
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final long TOKEN_EXPIRY_SECONDS = 3600;
+    private static final String SCOPE = "openid https://www.googleapis.com/auth/calendar.readonly";
+    /**
+     * Issuer the application expects in Google ID tokens
+     */
+    private static final String ISSUER = "https://accounts.google.com";
+
+    private final int port;
+    private final String clientId;
+    private final Map<String, LatencyDistribution> latencies = new HashMap<>();
+    private final Map<String, Double> errorRates = new HashMap<>();
+    private final Map<String, byte[]> fixtures = new HashMap<>();
+    private final Map<String, Grant> grants = new ConcurrentHashMap<>();
+    private final RSAKey signingKey;
+    private final byte[] jwks;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StubServer(Options options) {
+        port = options.getInt("stub.port", 8089);
+        clientId = options.get("stub.client-id", "loadtest-client");
+        DEFAULT_LATENCIES.forEach((provider, latency) -> {
+            latencies.put(provider, LatencyDistribution.parse(options.get(provider + ".latency", latency)));
+            errorRates.put(provider, options.getDouble(provider + ".error-rate", 0));
+        });
+        try {
+            // New key ID on each start, so a running application fetches the new key instead of its cached one
+            signingKey = new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not generate the ID token signing key", e);
+        }
+        jwks = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        for (String name : List.of("weather/current_weather.json", "weather/weather_forecast.json",
+                "weather/air_quality.json", "weather/geocoding_response.json",
+                "calendar/calendar_list.json", "calendar/events.json",
+                "stub/accuweather/location.json", "stub/accuweather/current_conditions.json",
+                "stub/accuweather/daily_forecast.json", "stub/accuweather/hourly_forecast.json")) {
+            fixtures.put(name, resource(name));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        StubServer stub = new StubServer(Options.parse(args));
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        Thread.currentThread().join();
+    }
+
+    void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the stub server on port " + port, e);
+        }
+        // Delays are slept on the handling thread, so every request in flight needs its own
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+
+        route(OPEN_METEO, "/v1/forecast", exchange -> json(exchange, 200, fixture(
+                query(exchange).containsKey("daily") ? "weather/weather_forecast.json" : "weather/current_weather.json")));
+        route(OPEN_METEO, "/v1/search", exchange -> json(exchange, 200, fixture("weather/geocoding_response.json")));
+        route(OPEN_METEO, "/v1/air-quality", exchange -> json(exchange, 200, fixture("weather/air_quality.json")));
+
+        route(ACCUWEATHER, "/locations/v1/cities/geoposition/search",
+                exchange -> json(exchange, 200, fixture("stub/accuweather/location.json")));
+        route(ACCUWEATHER, "/currentconditions/v1/",
+                exchange -> json(exchange, 200, fixture("stub/accuweather/current_conditions.json")));
+        route(ACCUWEATHER, "/forecasts/v1/daily/5day/",
+                exchange -> json(exchange, 200, fixture("stub/accuweather/daily_forecast.json")));
+        route(ACCUWEATHER, "/forecasts/v1/hourly/12hour/",
+                exchange -> json(exchange, 200, fixture("stub/accuweather/hourly_forecast.json")));
+
+        route(GOOGLE, "/o/oauth2/v2/auth", this::authorize);
+        route(GOOGLE, "/token", this::token);
+        route(GOOGLE, "/certs", exchange -> json(exchange, 200, jwks));
+        route(GOOGLE, "/v1/userinfo", this::userInfo);
+        route(GOOGLE, "/calendar/v3/", this::calendar);
+
+        server.start();
+        log.info("Stub server listening on http://localhost:{}", port);
+        latencies.forEach((provider, latency) ->
+                log.info("  {}: {}, error rate {}", provider, latency, errorRates.get(provider)));
+    }
+
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private void route(String provider, String path, Handler handler) {
+        LatencyDistribution latency = latencies.get(provider);
+        double errorRate = errorRates.get(provider);
+        server.createContext(path, exchange -> {
+            try {
+                Thread.sleep(latency.sample());
+                if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                    json(exchange, 503, "{\"error\":\"unavailable\",\"message\":\"Injected by the stub server\"}"
+                            .getBytes(StandardCharsets.UTF_8));
+                } else {
+                    handler.handle(exchange);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Stub {} failed on {}", provider, exchange.getRequestURI(), e);
+                json(exchange, 500, "{\"error\":\"stub failure\"}".getBytes(StandardCharsets.UTF_8));
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    /**
+     * Consent screen answered right away: redirects back with a code for the {@code login_hint} user.
+     */
+    private void authorize(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange);
+        String redirectUri = query.get("redirect_uri");
+        if (redirectUri == null || !clientId.equals(query.get("client_id"))) {
+            json(exchange, 400, "{\"error\":\"invalid_request\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String user = query.getOrDefault("login_hint", "user" + ThreadLocalRandom.current().nextInt(1000));
+        String code = UUID.randomUUID().toString();
+        grants.put(code, new Grant(user, query.get("nonce")));
+        StringBuilder location = new StringBuilder(redirectUri)
+                .append(redirectUri.contains("?") ? '&' : '?')
+                .append("code=").append(code);
+        if (query.containsKey("state")) {
+            location.append("&state=").append(URLEncoder.encode(query.get("state"), StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().set("Location", location.toString());
+        exchange.sendResponseHeaders(302, -1);
+    }
+
+    /**
+     * Authorization code and refresh token grants. Tokens carry the user they were issued to.
+     */
+    private void token(HttpExchange exchange) throws IOException {
+        Map<String, String> form = parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String user;
+        String idToken = null;
+        String refreshToken = null;
+        switch (form.getOrDefault("grant_type", "")) {
+            case "authorization_code":
+                Grant grant = grants.remove(form.getOrDefault("code", ""));
+                if (grant == null) {
+                    json(exchange, 400, "{\"error\":\"invalid_grant\"}".getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                user = grant.user;
+                idToken = idToken(grant);
+                refreshToken = "rt." + user + "." + UUID.randomUUID();
+                break;
+            case "refresh_token":
+                user = user(form.get("refresh_token"));
+                if (user == null) {
+                    json(exchange, 400, "{\"error\":\"invalid_grant\"}".getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                break;
+            default:
+                json(exchange, 400, "{\"error\":\"unsupported_grant_type\"}".getBytes(StandardCharsets.UTF_8));
+                return;
+        }
+        StringBuilder body = new StringBuilder("{\"access_token\":\"at.").append(user).append('.').append(UUID.randomUUID())
+                .append("\",\"token_type\":\"Bearer\",\"expires_in\":").append(TOKEN_EXPIRY_SECONDS)
+                .append(",\"scope\":\"").append(SCOPE).append('"');
+        if (refreshToken != null) {
+            body.append(",\"refresh_token\":\"").append(refreshToken).append('"');
+        }
+        if (idToken != null) {
+            body.append(",\"id_token\":\"").append(idToken).append('"');
+        }
+        body.append('}');
+        json(exchange, 200, body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void userInfo(HttpExchange exchange) throws IOException {
+        String user = user(bearer(exchange));
+        if (user == null) {
+            unauthorized(exchange);
+            return;
+        }
+        json(exchange, 200, ("{\"sub\":\"" + subject(user) + "\",\"name\":\"" + user + "\",\"email\":\""
+                + user + "@loadtest.local\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Calendar list and events of any calendar, for any user with a bearer token.
+     */
+    private void calendar(HttpExchange exchange) throws IOException {
+        if (bearer(exchange) == null) {
+            unauthorized(exchange);
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/users/me/calendarList")) {
+            json(exchange, 200, fixture("calendar/calendar_list.json"));
+        } else if (path.startsWith("/calendar/v3/calendars/") && path.endsWith("/events")) {
+            json(exchange, 200, fixture("calendar/events.json"));
+        } else {
+            json(exchange, 404, "{\"error\":{\"code\":404,\"message\":\"Not Found\"}}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String idToken(Grant grant) {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject(subject(grant.user))
+                .audience(clientId)
+                .claim("azp", clientId)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(TOKEN_EXPIRY_SECONDS)))
+                .claim("name", grant.user)
+                .claim("email", grant.user + "@loadtest.local")
+                .claim("email_verified", true);
+        if (grant.nonce != null) {
+            claims.claim("nonce", grant.nonce);
+        }
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(),
+                claims.build());
+        try {
+            jwt.sign(new RSASSASigner(signingKey));
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not sign ID token", e);
+        }
+        return jwt.serialize();
+    }
+
+    private static String subject(String user) {
+        return "loadtest-" + user;
+    }
+
+    /**
+     * @param token access or refresh token issued by {@link #token}
+     * @return user the token was issued to, or null if it was not issued here
+     */
+    private static String user(String token) {
+        if (token == null) {
+            return null;
+        }
+        String[] parts = token.split("\\.");
+        return parts.length == 3 ? parts[1] : null;
+    }
+
+    private static String bearer(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        return authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+    }
+
+    private static void unauthorized(HttpExchange exchange) throws IOException {
+        json(exchange, 401, "{\"error\":{\"code\":401,\"message\":\"Request is missing required authentication credential\"}}"
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void json(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        return parse(exchange.getRequestURI().getRawQuery());
+    }
+
+    private static Map<String, String> parse(String encoded) {
+        Map<String, String> parameters = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : encoded.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private byte[] fixture(String name) {
+        return fixtures.get(name);
+    }
+
+    private static byte[] resource(String name) {
+        try (InputStream in = StubServer.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing stub response " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static final class Grant {
+        private final String user;
+        private final String nonce;
+
+        private Grant(String user, String nonce) {
+            this.user = user;
+            this.nonce = nonce;
+        }
+    }
+}
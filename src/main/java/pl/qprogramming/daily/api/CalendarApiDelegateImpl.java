@@ -1,9 +1,12 @@
 package pl.qprogramming.daily.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
@@ -11,11 +14,18 @@ import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import pl.qprogramming.daily.dto.Calendar;
 import pl.qprogramming.daily.dto.CalendarEvent;
-import pl.qprogramming.daily.service.calendar.CalendarEventComparator;
+import pl.qprogramming.daily.metrics.MappingEvent;
+import pl.qprogramming.daily.metrics.RequestTimings;
+import pl.qprogramming.daily.service.calendar.CalendarChangeService;
+import pl.qprogramming.daily.service.calendar.CalendarEventMerger;
+import pl.qprogramming.daily.service.calendar.CalendarEventPager;
 import pl.qprogramming.daily.service.calendar.CalendarMapper;
 import pl.qprogramming.daily.service.calendar.CalendarService;
+import pl.qprogramming.daily.service.calendar.CalendarUsageTracker;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
@@ -24,6 +34,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static pl.qprogramming.daily.metrics.RequestTimings.Phase.AUTH;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -32,6 +44,9 @@ public class CalendarApiDelegateImpl implements CalendarApiDelegate {
     private final CalendarService calendarService;
     private final CalendarMapper calendarMapper;
     private final OAuth2AuthorizedClientManager authorizedClientManager;
+    private final ObjectMapper objectMapper;
+    private final CalendarUsageTracker usageTracker;
+    private final CalendarChangeService calendarChangeService;
 
     @Override
     public ResponseEntity<List<Calendar>> getCalendarList() {
@@ -48,9 +63,9 @@ public class CalendarApiDelegateImpl implements CalendarApiDelegate {
             log.debug("Calling calendar list with access token: {}, expires at: {}, refresh token present: {}",
                     accessToken, expiresAt, refreshToken != null);
             List<CalendarListEntry> googleCalendars = calendarService.getCalendarList(accessToken, expiresAt, refreshToken);
-            List<Calendar> calendars = googleCalendars.stream()
+            List<Calendar> calendars = MappingEvent.time("CalendarMapper.toDto", () -> googleCalendars.stream()
                     .map(calendarMapper::toDto)
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toList()));
             return ResponseEntity.ok(calendars);
         } catch (GeneralSecurityException | IOException e) {
             log.error("Error fetching calendar list", e);
@@ -84,22 +99,106 @@ public class CalendarApiDelegateImpl implements CalendarApiDelegate {
             val calendarsToFetch = calendarIds != null && !calendarIds.isEmpty() ?
                     calendarIds : List.of("primary");
             val daysCount = days != null ? days : 7;
-            val allEvents = new ArrayList<CalendarEvent>();
+            usageTracker.recordVisit(authorizedClient.getClientRegistration().getRegistrationId(),
+                    authorizedClient.getPrincipalName(), calendarsToFetch, daysCount);
+            val eventsPerCalendar = new ArrayList<List<CalendarEvent>>(calendarsToFetch.size());
             // Fetch events from each calendar
             for (String calId : calendarsToFetch) {
-                val googleEvents = calendarService.getCalendarEvents(
-                        accessToken, expiresAt, refreshToken, calId, daysCount);
-                allEvents.addAll(googleEvents);
+                eventsPerCalendar.add(calendarService.getCalendarEvents(
+                        accessToken, expiresAt, refreshToken, calId, daysCount));
             }
-            // Sort all events by start time using a proper Comparator
-            allEvents.sort(new CalendarEventComparator());
-            return ResponseEntity.ok(allEvents);
+            // Merge the already ordered per-calendar lists by their precomputed sort keys
+            return ResponseEntity.ok(MappingEvent.time("CalendarEventMerger.merge", () -> CalendarEventMerger.merge(eventsPerCalendar)));
         } catch (GeneralSecurityException | IOException e) {
             log.error("Error fetching calendar events", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Streams events of several calendars as newline-delimited JSON, one event per line.
+     * <p>
+     * Events are written in the same order as {@link #getAllCalendarEvents}, but each one is sent
+     * as soon as the merge can tell nothing earlier is still to come. Pages are fetched from Google
+     * only when needed and the output is flushed before every fetch, so the client receives the
+     * first events without waiting for the whole time range. The events cache is not used.
+     * </p>
+     *
+     * @param calendarIds IDs of calendars to fetch events from
+     * @param days        number of days to fetch events for
+     * @return streaming response body, 401 if not authenticated or 500 if calendars cannot be opened
+     */
+    public ResponseEntity<StreamingResponseBody> streamAllCalendarEvents(List<String> calendarIds, Integer days) {
+        OAuth2AuthorizedClient authorizedClient = getAuthorizedClient();
+        if (authorizedClient == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            String accessToken = authorizedClient.getAccessToken().getTokenValue();
+            Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
+            String refreshToken = authorizedClient.getRefreshToken() != null ?
+                    authorizedClient.getRefreshToken().getTokenValue() : null;
+            val calendarsToFetch = calendarIds != null && !calendarIds.isEmpty() ?
+                    calendarIds : List.of("primary");
+            val daysCount = days != null ? days : 7;
+            usageTracker.recordVisit(authorizedClient.getClientRegistration().getRegistrationId(),
+                    authorizedClient.getPrincipalName(), calendarsToFetch, daysCount);
+            // Open pagers on the request thread so client creation errors still map to a status code
+            val pagers = new ArrayList<CalendarEventPager>(calendarsToFetch.size());
+            for (String calId : calendarsToFetch) {
+                pagers.add(calendarService.openCalendarEvents(accessToken, expiresAt, refreshToken, calId, daysCount));
+            }
+            StreamingResponseBody body = outputStream -> {
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                    generator.setRootValueSeparator(null);
+                    val sources = new ArrayList<CalendarEventMerger.EventSource>(pagers.size());
+                    for (CalendarEventPager pager : pagers) {
+                        sources.add(() -> {
+                            // Push out what is already known before blocking on Google
+                            generator.flush();
+                            return pager.nextPage();
+                        });
+                    }
+                    CalendarEventMerger.merge(sources, event -> {
+                        generator.writeObject(event);
+                        generator.writeRaw('\n');
+                    });
+                }
+            };
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(body);
+        } catch (GeneralSecurityException | IOException e) {
+            log.error("Error opening calendar events stream", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Opens a Server-Sent Events stream with the snapshot and later changes of the user's calendars.
+     *
+     * @param calendarIds calendars to watch, primary when empty
+     * @param days        number of days ahead to watch
+     * @return emitter of calendar changes
+     */
+    public ResponseEntity<SseEmitter> subscribeCalendarChanges(List<String> calendarIds, Integer days) {
+        OAuth2AuthorizedClient authorizedClient = getAuthorizedClient();
+        if (authorizedClient == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            val calendarsToWatch = calendarIds != null && !calendarIds.isEmpty() ?
+                    calendarIds : List.of("primary");
+            val daysCount = days != null ? days : 7;
+            usageTracker.recordVisit(authorizedClient.getClientRegistration().getRegistrationId(),
+                    authorizedClient.getPrincipalName(), calendarsToWatch, daysCount);
+            return ResponseEntity.ok(calendarChangeService.subscribe(authorizedClient, calendarsToWatch, daysCount));
+        } catch (GeneralSecurityException | IOException e) {
+            log.error("Error opening calendar changes stream", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     private OAuth2AuthorizedClient getAuthorizedClient() {
         if (!(SecurityContextHolder.getContext().getAuthentication() instanceof OAuth2AuthenticationToken)) {
             return null;
@@ -108,6 +207,6 @@ public class CalendarApiDelegateImpl implements CalendarApiDelegate {
         OAuth2AuthorizeRequest request = OAuth2AuthorizeRequest.withClientRegistrationId(oauthToken.getAuthorizedClientRegistrationId())
                 .principal(oauthToken)
                 .build();
-        return authorizedClientManager.authorize(request);
+        return RequestTimings.time(AUTH, () -> authorizedClientManager.authorize(request));
     }
 }
@@ -0,0 +1,43 @@
+package pl.qprogramming.daily.api;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+/**
+ * Opt-in streaming variants of {@code /calendar/all-events}.
+ * <p>
+ * Kept outside the OpenAPI specification because generated controllers return fully built
+ * response bodies, while these endpoints write newline-delimited JSON or Server-Sent Events
+ * straight to the response.
+ * </p>
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("${openapi.daily.base-path:/api}")
+public class CalendarStreamController {
+
+    private final CalendarApiDelegateImpl calendarApiDelegate;
+
+    @GetMapping(value = "/calendar/all-events/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCalendarEvents(
+            @RequestParam(value = "calendarId", required = false) List<String> calendarIds,
+            @RequestParam(value = "days", required = false, defaultValue = "7") Integer days) {
+        return calendarApiDelegate.streamAllCalendarEvents(calendarIds, days);
+    }
+
+    @GetMapping(value = "/calendar/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeCalendarChanges(
+            @RequestParam(value = "calendarId", required = false) List<String> calendarIds,
+            @RequestParam(value = "days", required = false, defaultValue = "7") Integer days) {
+        return calendarApiDelegate.subscribeCalendarChanges(calendarIds, days);
+    }
+}
@@ -4,10 +4,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import pl.qprogramming.daily.config.GazetteerConfig;
 import pl.qprogramming.daily.dto.*;
 import pl.qprogramming.daily.service.weather.AccuWeatherService;
 import pl.qprogramming.daily.service.weather.GeoCodingService;
 import pl.qprogramming.daily.service.weather.OpenWeatherService;
+import pl.qprogramming.daily.service.weather.RegionWeatherService;
+
+import java.util.List;
 
 @Service
 @Slf4j
@@ -16,6 +20,8 @@ class WeatherApiDelegateImpl implements WeatherApiDelegate {
     private final OpenWeatherService openWeatherService;
     private final AccuWeatherService accuWeatherService;
     private final GeoCodingService geoCodingService;
+    private final RegionWeatherService regionWeatherService;
+    private final GazetteerConfig gazetteerConfig;
     private final String weatherProvider;
 
     /**
@@ -25,25 +31,28 @@ class WeatherApiDelegateImpl implements WeatherApiDelegate {
             OpenWeatherService openWeatherService,
             AccuWeatherService accuWeatherService,
             GeoCodingService geoCodingService,
+            RegionWeatherService regionWeatherService,
+            GazetteerConfig gazetteerConfig,
             @Value("${weather.provider:openmeteo}") String weatherProvider) {
         this.openWeatherService = openWeatherService;
         this.accuWeatherService = accuWeatherService;
         this.geoCodingService = geoCodingService;
+        this.regionWeatherService = regionWeatherService;
+        this.gazetteerConfig = gazetteerConfig;
         this.weatherProvider = weatherProvider;
         log.info("Weather API initialized with provider: {}", weatherProvider);
     }
 
     @Override
-    public ResponseEntity<GeocodingResult> geocodeLocation(String name, String language, Integer count) {
+    public ResponseEntity<GeocodingResult> geocodeLocation(String name, String language) {
         if (name == null || name.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
 
         // Use default values if not provided
         String lang = language != null ? language : "en";
-        int limit = count != null ? count : 1;
 
-        GeocodingResult result = geoCodingService.geocodeLocation(name, lang, limit);
+        GeocodingResult result = geoCodingService.geocodeLocation(name, lang);
 
         if (result == null) {
             return ResponseEntity.ok().build(); // Return empty result, not an error
@@ -52,6 +61,18 @@ class WeatherApiDelegateImpl implements WeatherApiDelegate {
         return ResponseEntity.ok(result);
     }
 
+    @Override
+    public ResponseEntity<List<GeocodingResult>> autocompleteLocation(String name, String language, Integer count) {
+        if (name == null || name.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String lang = language != null ? language : "en";
+        int limit = Math.min(count != null ? Math.max(count, 1) : 5, gazetteerConfig.getMaxResults());
+
+        return ResponseEntity.ok(geoCodingService.autocompleteLocation(name, lang, limit));
+    }
+
     @Override
     public ResponseEntity<AirQualityData> getAirQuality(Double lat, Double lon) {
         if (lat == null || lon == null) {
@@ -98,6 +119,10 @@ class WeatherApiDelegateImpl implements WeatherApiDelegate {
         if (shouldUseAccuWeather()) {
             log.debug("Using AccuWeather provider for forecast");
             forecast = accuWeatherService.getWeatherForecast(lat, lon, days, hours);
+            if (forecast == null) {
+                log.debug("AccuWeather forecast failed or is over budget, using OpenMeteo provider for forecast");
+                forecast = openWeatherService.getWeatherForecast(lat, lon, days, hours);
+            }
         } else {
             log.debug("Using OpenMeteo provider for forecast");
             forecast = openWeatherService.getWeatherForecast(lat, lon, days, hours);
@@ -110,6 +135,17 @@ class WeatherApiDelegateImpl implements WeatherApiDelegate {
         return ResponseEntity.ok(forecast);
     }
 
+    @Override
+    public ResponseEntity<RegionWeather> getRegionWeather(Double south, Double west, Double north, Double east) {
+        if (south == null || west == null || north == null || east == null
+                || south < -90 || north > 90 || west < -180 || east > 180 || south >= north || west >= east) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Only Open-Meteo can load many locations in one call
+        return ResponseEntity.ok(regionWeatherService.getRegionWeather(south, west, north, east));
+    }
+
     /**
      * Determines if AccuWeather should be used based on configuration.
      *
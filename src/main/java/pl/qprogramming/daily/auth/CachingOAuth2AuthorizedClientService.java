@@ -0,0 +1,291 @@
+package pl.qprogramming.daily.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-through, in-memory cache in front of a persistent {@link OAuth2AuthorizedClientService}.
+ * <p>
+ * Every calendar and {@code /auth/user} request loads the authorized client of the user, which for
+ * the JDBC store means a SELECT and decoding of the token columns. Loads are served from memory
+ * instead, and only the first load of a user after startup, eviction or expiry reaches the database.
+ * </p>
+ * <p>
+ * Logins and removals are written to the delegate before returning, so other instances sharing
+ * the store and the sessions read them at once. Token refreshes, saves keeping the refresh token
+ * of the cached client, update the cache immediately and are written on a single background
+ * thread, so the request does not wait for the database. Background writes of the same user are
+ * coalesced, so only the latest state is written, and their order is kept. Failed writes are
+ * retried, and writes still pending on shutdown are flushed before the database goes away. Until
+ * a write reaches the database, loads return the pending state.
+ * </p>
+ * <p>
+ * Other instances keep their own cached copy, so a client changed elsewhere is seen once the copy
+ * expires, at the latest {@code expireAfterWrite} after it was loaded; an instance still holding
+ * an access token replaced elsewhere uses it until then, or refreshes it with the same refresh
+ * token. Cache statistics are published as {@code cache.*} metrics of the
+ * {@code authorizedClients} cache, writes as {@code daily.oauth2.client.writes}.
+ * </p>
+ */
+@Slf4j
+public class CachingOAuth2AuthorizedClientService implements OAuth2AuthorizedClientService, MeterBinder {
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 2000;
+
+    private final OAuth2AuthorizedClientService delegate;
+    private final Cache<String, OAuth2AuthorizedClient> cache;
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalescedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+
+    /**
+     * @param delegate          persistent authorized client service
+     * @param maximumSize       maximum number of cached authorized clients
+     * @param expireAfterAccess time after which unused clients are dropped from memory
+     * @param expireAfterWrite  time after which clients are read from the store again, bounding
+     *                          how long changes made by other instances stay unseen
+     */
+    public CachingOAuth2AuthorizedClientService(OAuth2AuthorizedClientService delegate,
+                                                long maximumSize,
+                                                Duration expireAfterAccess,
+                                                Duration expireAfterWrite) {
+        this(delegate, maximumSize, expireAfterAccess, expireAfterWrite, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "authorized-client-writer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    CachingOAuth2AuthorizedClientService(OAuth2AuthorizedClientService delegate,
+                                         long maximumSize,
+                                         Duration expireAfterAccess,
+                                         Duration expireAfterWrite,
+                                         ScheduledExecutorService writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        return (T) cache.get(key(clientRegistrationId, principalName), key -> {
+            PendingWrite pending = pendingWrites.get(key);
+            if (pending != null) {
+                return pending.authorizedClient;
+            }
+            return delegate.loadAuthorizedClient(clientRegistrationId, principalName);
+        });
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        String key = key(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName());
+        boolean refresh = isRefresh(cache.asMap().get(key), authorizedClient);
+        cache.put(key, authorizedClient);
+        enqueue(key, new PendingWrite(authorizedClient, principal), refresh);
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        String key = key(clientRegistrationId, principalName);
+        cache.invalidate(key);
+        enqueue(key, new PendingWrite(clientRegistrationId, principalName), false);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "authorizedClients");
+        bindWriteCounter(registry, "written", writes);
+        bindWriteCounter(registry, "coalesced", coalescedWrites);
+        bindWriteCounter(registry, "failed", failedWrites);
+    }
+
+    /**
+     * Drops the cached client of a user without touching the store, e.g. on logout.
+     * The next load reads the stored client again.
+     *
+     * @param clientRegistrationId client registration ID
+     * @param principalName        name of the user
+     */
+    public void evict(String clientRegistrationId, String principalName) {
+        cache.invalidate(key(clientRegistrationId, principalName));
+    }
+
+    /**
+     * Writes all pending changes to the delegate on the calling thread.
+     */
+    public void flush() {
+        for (String key : pendingWrites.keySet()) {
+            write(key);
+        }
+    }
+
+    /**
+     * Stops the background writer and flushes the remaining changes.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        CacheStats stats = getStats();
+        log.info("Authorized client cache closed. Hits: {}, database loads: {}, writes: {}, coalesced writes: {}, failed writes: {}",
+                stats.hitCount(), stats.loadCount(), writes.get(), coalescedWrites.get(), failedWrites.get());
+    }
+
+    /**
+     * @return cache statistics; hits are database round-trips avoided, loads are the ones made
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return number of writes made to the delegate
+     */
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * @return number of writes skipped because a newer change of the same user replaced them
+     */
+    public long getCoalescedWrites() {
+        return coalescedWrites.get();
+    }
+
+    /**
+     * @return number of writes dropped after all attempts failed
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    /**
+     * Replaces the pending change of a user and writes it, on the calling thread unless it is a refresh.
+     * A write-through that fails is retried in the background like a refresh.
+     */
+    private void enqueue(String key, PendingWrite write, boolean background) {
+        if (pendingWrites.put(key, write) != null) {
+            coalescedWrites.incrementAndGet();
+        }
+        if (background) {
+            schedule(key, 0);
+        } else {
+            write(key);
+        }
+    }
+
+    /**
+     * A refresh renews the access token of the cached client and keeps its refresh token,
+     * a login or another user's consent brings a new one.
+     */
+    private static boolean isRefresh(OAuth2AuthorizedClient cached, OAuth2AuthorizedClient saved) {
+        return cached != null && cached.getRefreshToken() != null && saved.getRefreshToken() != null
+                && cached.getRefreshToken().getTokenValue().equals(saved.getRefreshToken().getTokenValue());
+    }
+
+    private void schedule(String key, long delayMs) {
+        try {
+            writer.schedule(() -> write(key), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the remaining writes are flushed by shutdown()
+            log.debug("Authorized client writer stopped, leaving write of {} for the final flush", key);
+        }
+    }
+
+    private synchronized void write(String key) {
+        PendingWrite pending = pendingWrites.get(key);
+        if (pending == null) {
+            return;
+        }
+        try {
+            if (pending.authorizedClient != null) {
+                delegate.saveAuthorizedClient(pending.authorizedClient, pending.principal);
+            } else {
+                delegate.removeAuthorizedClient(pending.clientRegistrationId, pending.principalName);
+            }
+            writes.incrementAndGet();
+            // Keep a newer change that arrived while writing
+            pendingWrites.remove(key, pending);
+        } catch (RuntimeException e) {
+            if (++pending.attempts < MAX_WRITE_ATTEMPTS) {
+                log.warn("Error writing authorized client {} (attempt {}), retrying: {}", key, pending.attempts, e.getMessage());
+                schedule(key, RETRY_DELAY_MS * pending.attempts);
+            } else {
+                log.error("Error writing authorized client {}, giving up after {} attempts", key, pending.attempts, e);
+                failedWrites.incrementAndGet();
+                pendingWrites.remove(key, pending);
+            }
+        }
+    }
+
+    private static void bindWriteCounter(MeterRegistry registry, String result, AtomicLong counter) {
+        FunctionCounter.builder("daily.oauth2.client.writes", counter, AtomicLong::get)
+                .description("Authorized client changes by how they were persisted")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + "/" + principalName;
+    }
+
+    /**
+     * Latest not yet persisted change of one user's authorized client; a removal when the client is null.
+     */
+    private static final class PendingWrite {
+        private final OAuth2AuthorizedClient authorizedClient;
+        private final Authentication principal;
+        private final String clientRegistrationId;
+        private final String principalName;
+        private int attempts;
+
+        private PendingWrite(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+            this.authorizedClient = authorizedClient;
+            this.principal = principal;
+            this.clientRegistrationId = null;
+            this.principalName = null;
+        }
+
+        private PendingWrite(String clientRegistrationId, String principalName) {
+            this.authorizedClient = null;
+            this.principal = null;
+            this.clientRegistrationId = clientRegistrationId;
+            this.principalName = principalName;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package pl.qprogramming.daily.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2RefreshTokenGrantRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.stereotype.Service;
+import pl.qprogramming.daily.auth.SingleFlightOAuth2AuthorizedClientManager.AuthorizedPrincipal;
+import pl.qprogramming.daily.config.OAuth2TokenConfig;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Refreshes access tokens of active users shortly before they expire.
+ * <p>
+ * Every {@code oauth2.token.check-rate-ms} the service goes over users who made a request within
+ * {@code oauth2.token.active-hours} and renews tokens expiring within
+ * {@code oauth2.token.refresh-lead-minutes} plus one check interval. Request handling refreshes a
+ * token only within the provider's default one minute clock skew, so in steady state it finds the
+ * token already renewed and never waits for Google's token endpoint.
+ * </p>
+ * <p>
+ * Requests that only need to know whether the user is logged in call {@link #checkExpiry} instead
+ * of authorizing, which hands an expiring token to a background thread for refresh. Each user has
+ * at most one such refresh queued. Refreshes of both kinds share the per-user single-flight of
+ * {@link SingleFlightOAuth2AuthorizedClientManager} with request handling.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OAuth2TokenRefreshService {
+
+    private final SingleFlightOAuth2AuthorizedClientManager authorizedClientManager;
+    private final OAuth2AuthorizedClientService authorizedClientService;
+    private final OAuth2AuthorizedClientManager refreshingClientManager;
+    private final OAuth2TokenConfig config;
+    private final Set<AuthorizedPrincipal> pendingRefreshes = ConcurrentHashMap.newKeySet();
+    private final ExecutorService deferredRefreshes = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "oauth2-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OAuth2TokenRefreshService(SingleFlightOAuth2AuthorizedClientManager authorizedClientManager,
+                                     OAuth2AuthorizedClientService authorizedClientService,
+                                     ClientRegistrationRepository clientRegistrationRepository,
+                                     OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient,
+                                     OAuth2TokenConfig config) {
+        this.authorizedClientManager = authorizedClientManager;
+        this.authorizedClientService = authorizedClientService;
+        this.config = config;
+        AuthorizedClientServiceOAuth2AuthorizedClientManager refreshingManager =
+                new AuthorizedClientServiceOAuth2AuthorizedClientManager(clientRegistrationRepository, authorizedClientService);
+        // Same as the request path, but refreshing tokens as soon as they enter the refresh window
+        refreshingManager.setAuthorizedClientProvider(OAuth2AuthorizedClientProviderBuilder.builder()
+                .refreshToken(refreshToken -> refreshToken
+                        .accessTokenResponseClient(refreshTokenResponseClient)
+                        .clockSkew(refreshWindow()))
+                .build());
+        this.refreshingClientManager = refreshingManager;
+    }
+
+    /**
+     * Refreshes tokens of active users which expire before the next check.
+     */
+    @Scheduled(fixedDelayString = "${oauth2.token.check-rate-ms:60000}",
+            initialDelayString = "${oauth2.token.check-rate-ms:60000}")
+    public void refreshExpiringTokens() {
+        Instant now = Instant.now();
+        Instant refreshBefore = now.plus(refreshWindow());
+        int refreshed = 0;
+        for (AuthorizedPrincipal principal : authorizedClientManager.getActivePrincipals(
+                now.minus(Duration.ofHours(config.getActiveHours())))) {
+            if (refreshIfExpiring(principal, refreshBefore)) {
+                refreshed++;
+            }
+        }
+        if (refreshed > 0) {
+            log.debug("Refreshed {} access tokens ahead of expiry", refreshed);
+        }
+    }
+
+    /**
+     * Marks the user as active and, if their token is about to expire, refreshes it in the background.
+     * Only reads the authorized client, which is normally served from memory.
+     *
+     * @param authentication authentication of the current request
+     * @return false if the user has no authorized client or its token has already expired
+     */
+    public boolean checkExpiry(OAuth2AuthenticationToken authentication) {
+        AuthorizedPrincipal principal = new AuthorizedPrincipal(
+                authentication.getAuthorizedClientRegistrationId(), authentication.getName());
+        authorizedClientManager.recordInteractiveUse(principal);
+        OAuth2AuthorizedClient authorizedClient = authorizedClientService.loadAuthorizedClient(
+                principal.getClientRegistrationId(), principal.getPrincipalName());
+        if (authorizedClient == null) {
+            return false;
+        }
+        Instant now = Instant.now();
+        Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
+        if (expiresAt != null && authorizedClient.getRefreshToken() != null
+                && expiresAt.isBefore(now.plus(refreshWindow())) && pendingRefreshes.add(principal)) {
+            deferRefresh(principal);
+        }
+        return expiresAt == null || expiresAt.isAfter(now);
+    }
+
+    /**
+     * Refreshes the user's token if it expires before the given time.
+     *
+     * @param principal     user to check
+     * @param refreshBefore tokens expiring before this time are refreshed
+     * @return true if the token was refreshed
+     */
+    boolean refreshIfExpiring(AuthorizedPrincipal principal, Instant refreshBefore) {
+        OAuth2AuthorizedClient authorizedClient = authorizedClientService.loadAuthorizedClient(
+                principal.getClientRegistrationId(), principal.getPrincipalName());
+        if (authorizedClient == null || authorizedClient.getRefreshToken() == null) {
+            return false;
+        }
+        Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
+        if (expiresAt == null || expiresAt.isAfter(refreshBefore)) {
+            return false;
+        }
+        try {
+            OAuth2AuthorizedClient refreshed = authorizedClientManager.authorizeWith(refreshingClientManager,
+                    OAuth2AuthorizeRequest.withClientRegistrationId(principal.getClientRegistrationId())
+                            .principal(principal.getPrincipalName())
+                            .build());
+            return refreshed != null && refreshed.getAccessToken() != authorizedClient.getAccessToken();
+        } catch (OAuth2AuthorizationException e) {
+            log.warn("Error refreshing access token for user {}: {}", principal.getPrincipalName(), e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deferredRefreshes.shutdownNow();
+    }
+
+    private void deferRefresh(AuthorizedPrincipal principal) {
+        try {
+            deferredRefreshes.execute(() -> {
+                try {
+                    refreshIfExpiring(principal, Instant.now().plus(refreshWindow()));
+                } finally {
+                    pendingRefreshes.remove(principal);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingRefreshes.remove(principal);
+        }
+    }
+
+    private Duration refreshWindow() {
+        return Duration.ofMinutes(config.getRefreshLeadMinutes()).plusMillis(config.getCheckRateMs());
+    }
+}
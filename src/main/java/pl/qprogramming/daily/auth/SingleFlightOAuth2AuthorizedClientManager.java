@@ -0,0 +1,158 @@
+package pl.qprogramming.daily.auth;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Value;
+import pl.qprogramming.daily.metrics.AuthorizeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets only one {@link OAuth2AuthorizedClientManager#authorize} call per user run at a time.
+ * <p>
+ * The frontend issues several API calls at once, and a user may have more than one tab open. When
+ * the access token has expired, each of those calls would otherwise refresh it against Google's
+ * token endpoint. Calls arriving while another call for the same user is in progress wait for it
+ * and share its result, or its exception. Background refreshes go through {@link #authorizeWith}
+ * and share the same calls.
+ * </p>
+ * <p>
+ * It also remembers when each user last made an interactive request, so that
+ * {@link OAuth2TokenRefreshService} refreshes tokens only for users who are actually around.
+ * </p>
+ */
+@Slf4j
+public class SingleFlightOAuth2AuthorizedClientManager implements OAuth2AuthorizedClientManager, MeterBinder {
+
+    private final OAuth2AuthorizedClientManager delegate;
+    private final Map<AuthorizedPrincipal, CompletableFuture<OAuth2AuthorizedClient>> inFlight = new ConcurrentHashMap<>();
+    private final Map<AuthorizedPrincipal, Instant> lastInteractiveUse = new ConcurrentHashMap<>();
+    private final AtomicLong sharedResults = new AtomicLong();
+
+    public SingleFlightOAuth2AuthorizedClientManager(OAuth2AuthorizedClientManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OAuth2AuthorizedClient authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        return authorizeWith(delegate, authorizeRequest);
+    }
+
+    /**
+     * Authorizes with another manager, e.g. one refreshing tokens earlier than the delegate, as
+     * the single call in progress for the user, or waits for the call already in progress.
+     *
+     * @param manager          manager to authorize with
+     * @param authorizeRequest authorize request
+     * @return authorized client, or null if it cannot be authorized
+     */
+    public OAuth2AuthorizedClient authorizeWith(OAuth2AuthorizedClientManager manager, OAuth2AuthorizeRequest authorizeRequest) {
+        AuthorizeEvent event = new AuthorizeEvent();
+        event.begin();
+        AuthorizedPrincipal principal = new AuthorizedPrincipal(
+                authorizeRequest.getClientRegistrationId(), authorizeRequest.getPrincipal().getName());
+        boolean interactive = authorizeRequest.getPrincipal() instanceof OAuth2AuthenticationToken;
+        if (interactive) {
+            recordInteractiveUse(principal);
+        }
+        CompletableFuture<OAuth2AuthorizedClient> own = new CompletableFuture<>();
+        CompletableFuture<OAuth2AuthorizedClient> running = inFlight.putIfAbsent(principal, own);
+        OAuth2AuthorizedClient authorizedClient = null;
+        try {
+            if (running != null) {
+                sharedResults.incrementAndGet();
+                log.debug("Waiting for authorization already in progress for user: {}", principal.getPrincipalName());
+                authorizedClient = await(running);
+                return authorizedClient;
+            }
+            try {
+                authorizedClient = manager.authorize(authorizeRequest);
+                own.complete(authorizedClient);
+                return authorizedClient;
+            } catch (RuntimeException e) {
+                own.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(principal, own);
+            }
+        } finally {
+            commit(event, principal, interactive, running != null, authorizedClient != null);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("daily.oauth2.authorize.shared", sharedResults, AtomicLong::get)
+                .description("Authorize calls which reused the result of a call already in progress")
+                .register(registry);
+    }
+
+    /**
+     * Marks the user as active without authorizing, for requests that do not need the client.
+     *
+     * @param principal user making the request
+     */
+    public void recordInteractiveUse(AuthorizedPrincipal principal) {
+        lastInteractiveUse.put(principal, Instant.now());
+    }
+
+    /**
+     * Returns users who made an interactive request since the given time and forgets the others.
+     *
+     * @param since earliest request time to include
+     * @return recently active users
+     */
+    public List<AuthorizedPrincipal> getActivePrincipals(Instant since) {
+        lastInteractiveUse.values().removeIf(lastUse -> lastUse.isBefore(since));
+        return new ArrayList<>(lastInteractiveUse.keySet());
+    }
+
+    /**
+     * @return number of calls that reused the result of a call already in progress
+     */
+    public long getSharedResults() {
+        return sharedResults.get();
+    }
+
+    private static void commit(AuthorizeEvent event, AuthorizedPrincipal principal, boolean interactive,
+                               boolean shared, boolean authorized) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.set(principal.getClientRegistrationId(), interactive, shared, authorized);
+            event.commit();
+        }
+    }
+
+    private static OAuth2AuthorizedClient await(CompletableFuture<OAuth2AuthorizedClient> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Client registration and name of a user.
+     */
+    @Value
+    public static class AuthorizedPrincipal {
+        String clientRegistrationId;
+        String principalName;
+    }
+}
@@ -0,0 +1,63 @@
+package pl.qprogramming.daily.auth;
+
+import io.opentelemetry.api.trace.Span;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2RefreshTokenGrantRequest;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+import pl.qprogramming.daily.metrics.UpstreamCallEvent;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+
+/**
+ * Records refresh token requests to the token endpoint in {@link UpstreamMetrics}, with a client
+ * span, and as {@link UpstreamCallEvent}s, under the {@value #UPSTREAM} upstream.
+ */
+public class TimedRefreshTokenResponseClient implements OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> {
+
+    static final String UPSTREAM = "oauth2-token";
+
+    private final OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> delegate;
+    private final UpstreamMetrics upstreamMetrics;
+
+    public TimedRefreshTokenResponseClient(OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> delegate,
+                                           UpstreamMetrics upstreamMetrics) {
+        this.delegate = delegate;
+        this.upstreamMetrics = upstreamMetrics;
+    }
+
+    @Override
+    public OAuth2AccessTokenResponse getTokenResponse(OAuth2RefreshTokenGrantRequest authorizationGrantRequest) {
+        String tokenUri = authorizationGrantRequest.getClientRegistration().getProviderDetails().getTokenUri();
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        event.begin();
+        // The request is built by the delegate, so the trace context is not passed on
+        Span span = upstreamMetrics.startSpan(UPSTREAM, "POST", tokenUri, null, null);
+        long start = System.nanoTime();
+        try {
+            OAuth2AccessTokenResponse response = delegate.getTokenResponse(authorizationGrantRequest);
+            record(event, tokenUri, start, Outcome.SUCCESS.name());
+            UpstreamMetrics.endSpan(span, 0, null);
+            return response;
+        } catch (OAuth2AuthorizationException e) {
+            // Error response of the token endpoint, e.g. invalid_grant for a revoked refresh token
+            record(event, tokenUri, start, Outcome.CLIENT_ERROR.name());
+            UpstreamMetrics.endSpan(span, 0, e);
+            throw e;
+        } catch (RuntimeException e) {
+            record(event, tokenUri, start, UpstreamMetrics.IO_ERROR);
+            UpstreamMetrics.endSpan(span, 0, e);
+            throw e;
+        }
+    }
+
+    private void record(UpstreamCallEvent event, String tokenUri, long start, String outcome) {
+        upstreamMetrics.record(UPSTREAM, System.nanoTime() - start, outcome);
+        event.end();
+        if (event.shouldCommit()) {
+            // The status and sizes are not exposed by the response client
+            event.set(UPSTREAM, tokenUri, 0, outcome, -1, -1);
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package pl.qprogramming.daily.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.qprogramming.daily.config.CacheConfig;
+import pl.qprogramming.daily.config.NearbyCacheConfig;
+import pl.qprogramming.daily.quota.QuotaExceededException;
+import pl.qprogramming.daily.quota.UpstreamPriority;
+import pl.qprogramming.daily.quota.UpstreamQuota;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Serves weather cached for a nearby location when a location is not cached yet.
+ * <p>
+ * Weather services {@link #add add} the location of every entry they cache to a {@link SpatialIndex}.
+ * On a miss they ask for a {@link #find nearby} entry within {@code cache.nearby.radius-km}; if one is
+ * still cached, a copy flagged as approximate is returned at once and the exact location is loaded
+ * by a background thread and cached under its own key, so the next request for it is exact.
+ * Each key is loaded by at most one thread at a time, with {@link UpstreamPriority#REFRESH_AHEAD}
+ * calls. Disabled unless {@code cache.nearby.enabled} is set, in which case every lookup is a miss.
+ * </p>
+ * <p>
+ * Whether enabled or not, the last value of each entry is kept for {@code cache.nearby.stale-ttl-hours}
+ * after it expires from the cache, so that when an upstream budget is used up a service can still
+ * serve a {@link #fallback} of the expired entry or of the nearest cached one.
+ * </p>
+ */
+@Slf4j
+@Component
+public class NearbyCache {
+
+    private final NearbyCacheConfig config;
+    private final CacheManager cacheManager;
+    private final SpatialIndex index;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> stale;
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final ExecutorService loader;
+
+    public NearbyCache(NearbyCacheConfig config, CacheManager cacheManager) {
+        this.config = config;
+        this.cacheManager = cacheManager;
+        this.index = new SpatialIndex(config.getRadiusKm());
+        this.stale = Caffeine.newBuilder()
+                .maximumSize(config.getStaleMaximumSize())
+                .expireAfterWrite(CacheConfig.WEATHER_TIME_TO_LIVE.plus(Duration.ofHours(config.getStaleTtlHours())))
+                .build();
+        AtomicInteger threads = new AtomicInteger();
+        int refreshThreads = Math.max(1, config.getRefreshThreads());
+        // Bounded, so a burst of new locations is not queued without limit; loads that do not fit are rejected
+        this.loader = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), runnable -> {
+            Thread thread = new Thread(runnable, "nearby-cache-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Records the location and value of an entry cached by the caller.
+     *
+     * @param cacheName cache of the entry
+     * @param layer     entries that can stand in for each other, e.g. forecasts of one provider and number of days
+     * @param key       cache key of the entry
+     * @param latitude  latitude the entry was loaded for
+     * @param longitude longitude the entry was loaded for
+     * @param value     cached value, kept as a fallback after it expires
+     */
+    public void add(String cacheName, String layer, String key, double latitude, double longitude, Object value) {
+        index.add(cacheName + '/' + layer, key, latitude, longitude,
+                System.currentTimeMillis() + CacheConfig.WEATHER_TIME_TO_LIVE.toMillis());
+        stale.put(cacheName + '/' + key, value);
+    }
+
+    /**
+     * Finds the nearest entry of a layer still in the cache and starts loading the exact entry in
+     * the background.
+     *
+     * @param cacheName   cache of the entries
+     * @param layer       entries that can stand in for each other
+     * @param key         cache key of the exact entry
+     * @param latitude    requested latitude
+     * @param longitude   requested longitude
+     * @param type        type of the cached values
+     * @param approximate copies a nearby value, flagging it as approximate
+     * @param exact       loads the exact value, null if it could not be loaded
+     * @param <T>         type of the cached values
+     * @return approximate value, or null if nothing is cached nearby
+     */
+    public <T> T find(String cacheName, String layer, String key, double latitude, double longitude, Class<T> type,
+                      UnaryOperator<T> approximate, Supplier<T> exact) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return null;
+        }
+        for (SpatialIndex.Point point : index.nearest(cacheName + '/' + layer, latitude, longitude, System.currentTimeMillis())) {
+            T nearby = cache.get(point.getKey(), type);
+            if (nearby != null) {
+                log.debug("Serving {} {} from {} while it is loaded", cacheName, key, point.getKey());
+                load(cache, layer, key, latitude, longitude, exact);
+                return approximate.apply(nearby);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a value to serve instead of an entry that cannot be loaded, e.g. as an upstream budget
+     * is used up: the last value of the entry, even if expired, or the nearest entry of a layer
+     * still in the cache. Nothing is loaded in the background.
+     *
+     * @param cacheName   cache of the entries
+     * @param layer       entries that can stand in for each other
+     * @param key         cache key of the exact entry
+     * @param latitude    requested latitude
+     * @param longitude   requested longitude
+     * @param type        type of the cached values
+     * @param approximate copies a value, flagging it as approximate
+     * @param <T>         type of the cached values
+     * @return approximate value, or null if there is none
+     */
+    public <T> T fallback(String cacheName, String layer, String key, double latitude, double longitude, Class<T> type,
+                          UnaryOperator<T> approximate) {
+        Object last = stale.getIfPresent(cacheName + '/' + key);
+        if (type.isInstance(last)) {
+            log.debug("Serving expired {} {}", cacheName, key);
+            return approximate.apply(type.cast(last));
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return null;
+        }
+        for (SpatialIndex.Point point : index.nearest(cacheName + '/' + layer, latitude, longitude, System.currentTimeMillis())) {
+            T nearby = cache.get(point.getKey(), type);
+            if (nearby != null) {
+                log.debug("Serving {} {} from {}", cacheName, key, point.getKey());
+                return approximate.apply(nearby);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes expired locations from the index.
+     */
+    @Scheduled(fixedDelayString = "${cache.nearby.purge-interval-ms:60000}")
+    public void purge() {
+        index.purge(System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private <T> void load(Cache cache, String layer, String key, double latitude, double longitude, Supplier<T> exact) {
+        String loadingKey = cache.getName() + '/' + key;
+        if (!loading.add(loadingKey)) {
+            return;
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    T value = UpstreamQuota.withPriority(UpstreamPriority.REFRESH_AHEAD, exact);
+                    if (value != null) {
+                        cache.put(key, value);
+                        add(cache.getName(), layer, key, latitude, longitude, value);
+                    }
+                } catch (RuntimeException e) {
+                    if (QuotaExceededException.isCause(e)) {
+                        log.debug("Not loading {} {}, the budget is used up", cache.getName(), key);
+                    } else {
+                        log.warn("Could not load {} {}: {}", cache.getName(), key, e.getMessage());
+                    }
+                } finally {
+                    loading.remove(loadingKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full or shutting down, the key is loaded when it is requested again
+            log.debug("Not loading {} {}, the nearby cache loader is busy", cache.getName(), key);
+            loading.remove(loadingKey);
+        }
+    }
+}
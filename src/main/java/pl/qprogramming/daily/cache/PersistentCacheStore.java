@@ -0,0 +1,295 @@
+package pl.qprogramming.daily.cache;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.qprogramming.daily.config.PersistentCacheConfig;
+import pl.qprogramming.daily.serialization.CompactSerializationConverter;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Database tier below the in-memory weather caches, so that a restarted instance does not have
+ * to call the weather APIs again for every location.
+ * <p>
+ * Puts, evictions and hit counts are collected in memory and written to the {@code cache_entry}
+ * table by {@link #flush()} in the background, so requests only wait on the database when an
+ * entry is missing from memory and is looked up in the table. Entries keep the expiry time of
+ * their first write, expired rows are never loaded and are deleted on flush. When the
+ * application starts, the most used entries of each cache are loaded back into memory.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cache.persistent", name = "enabled", havingValue = "true")
+public class PersistentCacheStore implements DisposableBean {
+
+    static final int MAX_KEY_LENGTH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PersistentCacheConfig config;
+    private final CompactSerializationConverter serializer =
+            new CompactSerializationConverter(PersistentCacheStore.class.getClassLoader());
+    private final Map<String, PersistentCaffeineCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Set<String> cleared = ConcurrentHashMap.newKeySet();
+
+    public PersistentCacheStore(JdbcTemplate jdbcTemplate, PersistentCacheConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+    }
+
+    /**
+     * Registers a cache whose most used entries are loaded when the application starts.
+     *
+     * @param cache cache backed by this store
+     */
+    public void register(PersistentCaffeineCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    /**
+     * Looks up an entry which is not in memory, from the writes waiting for a flush or the table.
+     *
+     * @param cacheName name of the cache
+     * @param key       cache key
+     * @return unexpired entry or null if there is none
+     */
+    public StoredEntry load(String cacheName, String key) {
+        PendingWrite write = pending.get(id(cacheName, key));
+        if (write != null) {
+            return write.value != null && write.expiresAt.isAfter(Instant.now())
+                    ? new StoredEntry(write.value, write.expiresAt)
+                    : null;
+        }
+        if (cleared.contains(cacheName)) {
+            return null;
+        }
+        try {
+            List<StoredEntry> entries = jdbcTemplate.query("SELECT entry_value, expires_at FROM cache_entry "
+                            + "WHERE cache_name = ? AND cache_key = ? AND expires_at > ?",
+                    (rs, rowNum) -> new StoredEntry(serializer.deserialize(rs.getBytes("entry_value")),
+                            rs.getTimestamp("expires_at").toInstant()),
+                    cacheName, key, Timestamp.from(Instant.now()));
+            return entries.isEmpty() ? null : entries.get(0);
+        } catch (DataAccessException e) {
+            log.warn("Could not load {} entry from the persistent cache: {}", cacheName, e.getMessage());
+        } catch (RuntimeException e) {
+            // Stored by an older version of a class, it is overwritten by the next put
+            log.debug("Could not read {} entry {} from the persistent cache: {}", cacheName, key, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Queues an entry to be written on the next flush.
+     *
+     * @param cacheName name of the cache
+     * @param key       cache key
+     * @param value     cached value, skipped if not serializable
+     * @param expiresAt time the entry expires at
+     */
+    public void write(String cacheName, String key, Object value, Instant expiresAt) {
+        if (value instanceof Serializable && key.length() <= MAX_KEY_LENGTH) {
+            pending.put(id(cacheName, key), new PendingWrite(cacheName, key, value, expiresAt));
+        }
+    }
+
+    /**
+     * Queues an entry to be deleted on the next flush.
+     *
+     * @param cacheName name of the cache
+     * @param key       cache key
+     */
+    public void delete(String cacheName, String key) {
+        pending.put(id(cacheName, key), new PendingWrite(cacheName, key, null, Instant.EPOCH));
+    }
+
+    /**
+     * Queues all entries of a cache to be deleted on the next flush.
+     *
+     * @param cacheName name of the cache
+     */
+    public void clear(String cacheName) {
+        cleared.add(cacheName);
+        pending.values().removeIf(write -> write.cacheName.equals(cacheName));
+    }
+
+    /**
+     * Counts a hit of an entry in memory, entries with most hits are loaded on startup.
+     *
+     * @param cacheName name of the cache
+     * @param key       cache key
+     */
+    public void recordHit(String cacheName, String key) {
+        hits.computeIfAbsent(id(cacheName, key), k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Writes queued entries, deletions and hit counts to the database and deletes expired entries.
+     * Writes of a failed batch are queued again unless the entry was written again meanwhile,
+     * entries that cannot be serialized are dropped.
+     */
+    @Scheduled(fixedDelayString = "${cache.persistent.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        for (String cacheName : new ArrayList<>(cleared)) {
+            cleared.remove(cacheName);
+            try {
+                jdbcTemplate.update("DELETE FROM cache_entry WHERE cache_name = ?", cacheName);
+            } catch (DataAccessException e) {
+                // Later writes must not be stored before the cache is cleared
+                cleared.add(cacheName);
+                log.warn("Could not clear {} persistent cache entries: {}", cacheName, e.getMessage());
+                return;
+            }
+        }
+        List<PendingWrite> deleted = new ArrayList<>();
+        List<PendingWrite> merged = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> merges = new ArrayList<>();
+        for (String id : new ArrayList<>(pending.keySet())) {
+            PendingWrite write = pending.remove(id);
+            if (write == null) {
+                continue;
+            }
+            if (write.value == null) {
+                deleted.add(write);
+                deletes.add(new Object[]{write.cacheName, write.key});
+                continue;
+            }
+            try {
+                merges.add(new Object[]{write.cacheName, write.key, serializer.serialize(write.value),
+                        Timestamp.from(write.expiresAt)});
+                merged.add(write);
+            } catch (RuntimeException e) {
+                log.debug("Could not serialize {} entry {} for the persistent cache: {}", write.cacheName, write.key, e.getMessage());
+            }
+        }
+        if (!deletes.isEmpty() && !writeBatch("DELETE FROM cache_entry WHERE cache_name = ? AND cache_key = ?", deletes)) {
+            requeue(deleted);
+        }
+        if (!merges.isEmpty() && !writeBatch("MERGE INTO cache_entry (cache_name, cache_key, entry_value, expires_at) "
+                + "KEY (cache_name, cache_key) VALUES (?, ?, ?, ?)", merges)) {
+            requeue(merged);
+        }
+        List<Object[]> counts = new ArrayList<>();
+        for (String id : new ArrayList<>(hits.keySet())) {
+            LongAdder count = hits.remove(id);
+            int separator = id.indexOf('\n');
+            counts.add(new Object[]{count.intValue(), id.substring(0, separator), id.substring(separator + 1)});
+        }
+        if (!counts.isEmpty() && !writeBatch("UPDATE cache_entry SET hits = hits + ? WHERE cache_name = ? AND cache_key = ?", counts)) {
+            for (Object[] count : counts) {
+                hits.computeIfAbsent(id((String) count[1], (String) count[2]), k -> new LongAdder()).add((Integer) count[0]);
+            }
+        }
+        try {
+            int expired = jdbcTemplate.update("DELETE FROM cache_entry WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+            if (!merges.isEmpty() || expired > 0) {
+                log.debug("Stored {} and deleted {} persistent cache entries, {} expired", merges.size(), deletes.size(), expired);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not delete expired persistent cache entries: {}", e.getMessage());
+        }
+    }
+
+    private boolean writeBatch(String sql, List<Object[]> rows) {
+        try {
+            jdbcTemplate.batchUpdate(sql, rows);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Could not write {} persistent cache entries: {}", rows.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void requeue(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            if (!cleared.contains(write.cacheName)) {
+                pending.putIfAbsent(id(write.cacheName, write.key), write);
+            }
+        }
+    }
+
+    /**
+     * Loads the most used unexpired entries of each cache into memory when the application starts.
+     * Hit counts are halved afterwards, so entries that are no longer used lose their place.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        for (PersistentCaffeineCache cache : caches.values()) {
+            try {
+                List<String> loaded = new ArrayList<>();
+                jdbcTemplate.query("SELECT cache_key, entry_value, expires_at FROM cache_entry "
+                                + "WHERE cache_name = ? AND expires_at > ? ORDER BY hits DESC LIMIT ?",
+                        rs -> {
+                            String key = rs.getString("cache_key");
+                            try {
+                                cache.rehydrate(key, serializer.deserialize(rs.getBytes("entry_value")),
+                                        rs.getTimestamp("expires_at").toInstant());
+                                loaded.add(key);
+                            } catch (RuntimeException e) {
+                                log.debug("Could not read {} entry {} from the persistent cache: {}", cache.getName(), key, e.getMessage());
+                            }
+                        },
+                        cache.getName(), Timestamp.from(Instant.now()), config.getWarmEntries());
+                log.debug("Loaded {} {} entries from the persistent cache", loaded.size(), cache.getName());
+            } catch (DataAccessException e) {
+                log.warn("Could not load {} entries from the persistent cache: {}", cache.getName(), e.getMessage());
+            }
+        }
+        try {
+            jdbcTemplate.update("UPDATE cache_entry SET hits = hits / 2");
+        } catch (DataAccessException e) {
+            log.warn("Could not age persistent cache hit counts: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private static String id(String cacheName, String key) {
+        return cacheName + '\n' + key;
+    }
+
+    /**
+     * Entry read from the store.
+     */
+    @Value
+    public static class StoredEntry {
+        Object value;
+        Instant expiresAt;
+    }
+
+    private static final class PendingWrite {
+        private final String cacheName;
+        private final String key;
+        private final Object value;
+        private final Instant expiresAt;
+
+        private PendingWrite(String cacheName, String key, Object value, Instant expiresAt) {
+            this.cacheName = cacheName;
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package pl.qprogramming.daily.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.opentelemetry.api.trace.Span;
+import pl.qprogramming.daily.cache.PersistentCacheStore.StoredEntry;
+import pl.qprogramming.daily.metrics.RequestTimings;
+import pl.qprogramming.daily.metrics.RequestTimings.Phase;
+import pl.qprogramming.daily.metrics.TimedCaffeineCache;
+import pl.qprogramming.daily.tracing.Tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caffeine cache backed by a {@link PersistentCacheStore}. Puts are written behind to the store
+ * and entries missing from memory are loaded from it, keeping the time left until they expire.
+ * Only entries with string keys are stored, null values are not.
+ * <p>
+ * The native cache must be built with {@link #expireAfterWrite(Duration)}, so that loaded entries
+ * can be given their own expiry.
+ * </p>
+ */
+public class PersistentCaffeineCache extends TimedCaffeineCache {
+
+    static final String TIER = "persistent";
+
+    private final PersistentCacheStore store;
+    private final Duration timeToLive;
+
+    public PersistentCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                   boolean allowNullValues, PersistentCacheStore store, Duration timeToLive) {
+        super(name, cache, allowNullValues);
+        this.store = store;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Expiry of entries a fixed time after they are created or replaced, as
+     * {@code expireAfterWrite}, which still allows entries to be put with their own expiry.
+     *
+     * @param timeToLive time entries are kept after they are written
+     * @return expiry for the native cache
+     */
+    public static Expiry<Object, Object> expireAfterWrite(Duration timeToLive) {
+        long nanos = timeToLive.toNanos();
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return nanos;
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = super.lookup(key);
+        if (!(key instanceof String)) {
+            return value;
+        }
+        if (value != null) {
+            store.recordHit(getName(), (String) key);
+            return value;
+        }
+        long start = System.nanoTime();
+        StoredEntry entry = store.load(getName(), (String) key);
+        RequestTimings.record(Phase.CACHE, System.nanoTime() - start);
+        if (entry == null) {
+            return null;
+        }
+        Object storeValue = rehydrate(key, entry.getValue(), entry.getExpiresAt());
+        if (storeValue != null) {
+            Span.current()
+                    .setAttribute(Tracing.CACHE_HIT, true)
+                    .setAttribute(Tracing.CACHE_TIER, TIER);
+        }
+        return storeValue;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        if (key instanceof String && value != null) {
+            store.write(getName(), (String) key, value, Instant.now().plus(timeToLive));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        if (key instanceof String) {
+            store.delete(getName(), (String) key);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = super.evictIfPresent(key);
+        if (key instanceof String) {
+            store.delete(getName(), (String) key);
+        }
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        store.clear(getName());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = super.invalidate();
+        store.clear(getName());
+        return notEmpty;
+    }
+
+    /**
+     * Puts a stored entry into memory for the time it has left.
+     *
+     * @param key       cache key
+     * @param value     stored value
+     * @param expiresAt time the entry expires at
+     * @return value as kept in memory, or null if the entry has expired
+     */
+    Object rehydrate(Object key, Object value, Instant expiresAt) {
+        long remaining = Duration.between(Instant.now(), expiresAt).toNanos();
+        if (remaining <= 0) {
+            return null;
+        }
+        Object storeValue = toStoreValue(value);
+        getNativeCache().policy().expireVariably().ifPresentOrElse(
+                expiry -> expiry.put(key, storeValue, remaining, TimeUnit.NANOSECONDS),
+                () -> getNativeCache().put(key, storeValue));
+        return storeValue;
+    }
+}
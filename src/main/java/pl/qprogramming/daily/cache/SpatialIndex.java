@@ -0,0 +1,152 @@
+package pl.qprogramming.daily.cache;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locations of cached entries, answering which cached entries lie within a radius of a location.
+ * <p>
+ * Each layer, e.g. forecasts of one provider and number of days, is a grid of cells about the
+ * radius wide, so a query only reads the cell of the location and the cells around it. Cells are
+ * concurrent maps of cache keys, so entries can be added, replaced and removed while queries run;
+ * adds and purges of a cell are serialized by its layer's map.
+ * Entries expire with the cache entries they point to and are removed by {@link #purge(long)};
+ * entries evicted from the cache earlier are left for the caller to skip.
+ * </p>
+ */
+class SpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    /**
+     * Smallest cosine of latitude used to widen cells, so searches near the poles stay bounded
+     */
+    private static final double MIN_COS_LATITUDE = 0.01;
+
+    private final double radiusKm;
+    private final double cellDegrees;
+    private final Map<String, Map<Long, Map<String, Point>>> layers = new ConcurrentHashMap<>();
+
+    SpatialIndex(double radiusKm) {
+        this.radiusKm = radiusKm;
+        this.cellDegrees = radiusKm / KM_PER_DEGREE;
+    }
+
+    /**
+     * Adds or replaces the location of a cache entry.
+     *
+     * @param layer     entries that can stand in for each other
+     * @param key       cache key of the entry
+     * @param latitude  latitude of the entry
+     * @param longitude longitude of the entry
+     * @param expiresAt epoch millis when the entry expires
+     */
+    void add(String layer, String key, double latitude, double longitude, long expiresAt) {
+        Point point = new Point(key, latitude, longitude, expiresAt);
+        // Inserted while the cell is locked, so a purge cannot drop the cell between lookup and insert
+        layers.computeIfAbsent(layer, l -> new ConcurrentHashMap<>())
+                .compute(cell(row(latitude), column(longitude)), (c, cell) -> {
+                    Map<String, Point> points = cell != null ? cell : new ConcurrentHashMap<>();
+                    points.put(key, point);
+                    return points;
+                });
+    }
+
+    /**
+     * Finds entries of a layer within the radius of a location.
+     *
+     * @param layer     entries that can stand in for each other
+     * @param latitude  latitude of the location
+     * @param longitude longitude of the location
+     * @param now       epoch millis, entries expired by then are skipped
+     * @return entries ordered by distance, the nearest first, empty if there are none
+     */
+    List<Point> nearest(String layer, double latitude, double longitude, long now) {
+        Map<Long, Map<String, Point>> cells = layers.get(layer);
+        if (cells == null) {
+            return List.of();
+        }
+        int row = row(latitude);
+        int column = column(longitude);
+        int columns = (int) Math.ceil(1 / Math.max(Math.cos(Math.toRadians(latitude)), MIN_COS_LATITUDE));
+        List<Point> found = new ArrayList<>();
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = column - columns; c <= column + columns; c++) {
+                Map<String, Point> cell = cells.get(cell(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (Point point : cell.values()) {
+                    if (point.getExpiresAt() > now && distanceKm(latitude, longitude, point) <= radiusKm) {
+                        found.add(point);
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingDouble(point -> distanceKm(latitude, longitude, point)));
+        return found;
+    }
+
+    /**
+     * Removes entries expired by the given time, and cells left empty.
+     *
+     * @param now epoch millis
+     */
+    void purge(long now) {
+        for (Map<Long, Map<String, Point>> cells : layers.values()) {
+            for (Long cell : cells.keySet()) {
+                cells.computeIfPresent(cell, (c, points) -> {
+                    points.values().removeIf(point -> point.getExpiresAt() <= now);
+                    return points.isEmpty() ? null : points;
+                });
+            }
+        }
+    }
+
+    /**
+     * @return number of entries in all layers
+     */
+    int size() {
+        return layers.values().stream()
+                .flatMap(cells -> cells.values().stream())
+                .mapToInt(Map::size)
+                .sum();
+    }
+
+    /**
+     * Equirectangular distance, accurate enough within a few cells
+     */
+    static double distanceKm(double latitude, double longitude, Point point) {
+        double x = Math.toRadians(point.getLongitude() - longitude) * Math.cos(Math.toRadians((latitude + point.getLatitude()) / 2));
+        double y = Math.toRadians(point.getLatitude() - latitude);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS_KM;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long cell(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Location of a cache entry.
+     */
+    @Value
+    static class Point {
+        String key;
+        double latitude;
+        double longitude;
+        long expiresAt;
+    }
+}
@@ -0,0 +1,170 @@
+package pl.qprogramming.daily.capture;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import org.springframework.http.HttpStatus;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig.Mode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Google API client side of {@link UpstreamCapture}.
+ * <p>
+ * The Google transports cannot be wrapped, their requests are built by a protected method, so
+ * recording sends requests with the JDK HTTP client, over HTTP/1.1 as the default transport does,
+ * and replay answers from the archive without sending them.
+ * </p>
+ */
+class CaptureHttpTransport extends HttpTransport {
+
+    /**
+     * Headers set by the JDK HTTP client itself
+     */
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final UpstreamCapture capture;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(20))
+            .build();
+
+    CaptureHttpTransport(UpstreamCapture capture) {
+        this.capture = capture;
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new CaptureRequest(method, url);
+    }
+
+    private final class CaptureRequest extends LowLevelHttpRequest {
+
+        private final String method;
+        private final String url;
+        private final HttpRequest.Builder request;
+
+        private CaptureRequest(String method, String url) {
+            this.method = method;
+            this.url = url;
+            this.request = HttpRequest.newBuilder(URI.create(url));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                request.header(name, value);
+            }
+        }
+
+        @Override
+        public void setTimeout(int connectTimeout, int readTimeout) {
+            if (readTimeout > 0) {
+                request.timeout(Duration.ofMillis(readTimeout));
+            }
+        }
+
+        @Override
+        public LowLevelHttpResponse execute() throws IOException {
+            if (capture.getMode() == Mode.REPLAY) {
+                return new RecordedResponse(capture.replay(method, url));
+            }
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+            if (getStreamingContent() != null) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                getStreamingContent().writeTo(content);
+                body = HttpRequest.BodyPublishers.ofByteArray(content.toByteArray());
+                if (getContentType() != null) {
+                    request.header("Content-Type", getContentType());
+                }
+                if (getContentEncoding() != null) {
+                    request.header("Content-Encoding", getContentEncoding());
+                }
+            }
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response;
+            try {
+                response = client.send(request.method(method, body).build(), HttpResponse.BodyHandlers.ofByteArray());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted calling " + method + " " + UpstreamArchive.scrub(url));
+            }
+            RecordedExchange exchange = new RecordedExchange(method, UpstreamArchive.scrub(url), response.statusCode(),
+                    response.headers().firstValue("Content-Type").orElse(null),
+                    response.headers().firstValue("Content-Encoding").orElse(null),
+                    (System.nanoTime() - start) / 1000, response.body());
+            capture.record(exchange);
+            return new RecordedResponse(exchange);
+        }
+    }
+
+    private static final class RecordedResponse extends LowLevelHttpResponse {
+
+        private final RecordedExchange exchange;
+
+        private RecordedResponse(RecordedExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return new ByteArrayInputStream(exchange.body);
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return exchange.contentEncoding;
+        }
+
+        @Override
+        public long getContentLength() {
+            return exchange.body.length;
+        }
+
+        @Override
+        public String getContentType() {
+            return exchange.contentType;
+        }
+
+        @Override
+        public String getStatusLine() {
+            return "HTTP/1.1 " + exchange.status + " " + getReasonPhrase();
+        }
+
+        @Override
+        public int getStatusCode() {
+            return exchange.status;
+        }
+
+        @Override
+        public String getReasonPhrase() {
+            HttpStatus status = HttpStatus.resolve(exchange.status);
+            return status != null ? status.getReasonPhrase() : "";
+        }
+
+        @Override
+        public int getHeaderCount() {
+            return 0;
+        }
+
+        @Override
+        public String getHeaderName(int index) {
+            return null;
+        }
+
+        @Override
+        public String getHeaderValue(int index) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package pl.qprogramming.daily.capture;
+
+/**
+ * Upstream response as recorded, with the time it took from sending the request to reading the
+ * last byte of the body.
+ */
+final class RecordedExchange {
+
+    final String method;
+    final String url;
+    final int status;
+    final String contentType;
+    final String contentEncoding;
+    final long latencyMicros;
+    final byte[] body;
+
+    /**
+     * @param method          HTTP method
+     * @param url             request URL, with credentials scrubbed
+     * @param status          response status code
+     * @param contentType     response content type, may be null
+     * @param contentEncoding response content encoding, may be null
+     * @param latencyMicros   time to the end of the response body
+     * @param body            response body, as received
+     */
+    RecordedExchange(String method, String url, int status, String contentType, String contentEncoding,
+                     long latencyMicros, byte[] body) {
+        this.method = method;
+        this.url = url;
+        this.status = status;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.latencyMicros = latencyMicros;
+        this.body = body;
+    }
+}
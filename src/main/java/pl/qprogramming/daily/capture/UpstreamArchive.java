@@ -0,0 +1,195 @@
+package pl.qprogramming.daily.capture;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Recorded upstream responses, kept in memory and stored as a gzipped binary file.
+ * <p>
+ * Responses are replayed by exact request, with credentials scrubbed from the URL, and otherwise
+ * by method, path and query without the values of coordinate and time range parameters. The
+ * fallback answers requests for unrecorded Open-Meteo coordinates, AccuWeather geopositions and
+ * Google Calendar time ranges with a response to the same kind of request: other parameters, such
+ * as the Open-Meteo current, daily and hourly fields, must match, and coordinates must list as
+ * many locations. Geocoded names, AccuWeather location keys and Google calendar ids are matched
+ * exactly, so only recorded ones are replayed. Several responses to the same request are served
+ * in recorded order and then from the start again, so a replay run is repeatable.
+ * </p>
+ */
+public class UpstreamArchive {
+
+    /**
+     * Query parameters carrying credentials, never written to the archive
+     */
+    private static final Pattern CREDENTIALS = Pattern.compile(
+            "(?i)([?&](?:apikey|api_key|key|access_token|refresh_token|id_token|client_secret)=)[^&#]*");
+    private static final String SCRUBBED = "SCRUBBED";
+    /**
+     * Query parameters with coordinates, matched by their number of comma separated values
+     */
+    private static final Set<String> COORDINATE_PARAMETERS = Set.of("latitude", "longitude", "lat", "lon", "q");
+    /**
+     * Query parameters with times, matched by name only
+     */
+    private static final Set<String> TIME_PARAMETERS = Set.of("timeMin", "timeMax", "start_date", "end_date");
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile(",|%2C", Pattern.CASE_INSENSITIVE);
+    private static final int MAGIC = 0x44554331; // "DUC1"
+
+    private final List<RecordedExchange> exchanges = new ArrayList<>();
+    private final Map<String, List<RecordedExchange>> byRequest = new ConcurrentHashMap<>();
+    private final Map<String, List<RecordedExchange>> byPath = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+
+    /**
+     * @param url request URL
+     * @return URL with the values of credential parameters replaced
+     */
+    static String scrub(String url) {
+        return CREDENTIALS.matcher(url).replaceAll("$1" + SCRUBBED);
+    }
+
+    synchronized void add(RecordedExchange exchange) {
+        exchanges.add(exchange);
+        byRequest.computeIfAbsent(requestKey(exchange.method, exchange.url), key -> new ArrayList<>()).add(exchange);
+        byPath.computeIfAbsent(pathKey(exchange.method, exchange.url), key -> new ArrayList<>()).add(exchange);
+    }
+
+    public synchronized int size() {
+        return exchanges.size();
+    }
+
+    /**
+     * @param method HTTP method
+     * @param url    request URL, scrubbed or not
+     * @return next recorded response to the request, or to another request differing only in
+     * coordinates and times, or null if none was recorded
+     */
+    RecordedExchange next(String method, String url) {
+        String scrubbedUrl = scrub(url);
+        String requestKey = requestKey(method, scrubbedUrl);
+        List<RecordedExchange> recorded = byRequest.get(requestKey);
+        if (recorded == null) {
+            requestKey = pathKey(method, scrubbedUrl);
+            recorded = byPath.get(requestKey);
+            if (recorded == null) {
+                return null;
+            }
+        }
+        int index = cursors.computeIfAbsent(requestKey, key -> new AtomicInteger()).getAndIncrement();
+        return recorded.get(Math.floorMod(index, recorded.size()));
+    }
+
+    /**
+     * @param file archive file
+     * @return archive with the file's exchanges
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    public static UpstreamArchive read(Path file) throws IOException {
+        UpstreamArchive archive = new UpstreamArchive();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not an upstream capture archive");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String method = in.readUTF();
+                String url = in.readUTF();
+                int status = in.readInt();
+                String contentType = readNullable(in);
+                String contentEncoding = readNullable(in);
+                long latencyMicros = in.readLong();
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                archive.add(new RecordedExchange(method, url, status, contentType, contentEncoding, latencyMicros, body));
+            }
+        }
+        return archive;
+    }
+
+    /**
+     * Writes the exchanges recorded so far, to a temporary file moved over the archive file when
+     * complete, so a crash while writing leaves the previous archive. Exchanges can be added meanwhile.
+     *
+     * @param file archive file, replaced if it exists
+     * @return number of exchanges written
+     * @throws IOException if the file cannot be written
+     */
+    public int write(Path file) throws IOException {
+        List<RecordedExchange> written;
+        synchronized (this) {
+            written = List.copyOf(exchanges);
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporary))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(written.size());
+            for (RecordedExchange exchange : written) {
+                out.writeUTF(exchange.method);
+                out.writeUTF(exchange.url);
+                out.writeInt(exchange.status);
+                writeNullable(out, exchange.contentType);
+                writeNullable(out, exchange.contentEncoding);
+                out.writeLong(exchange.latencyMicros);
+                out.writeInt(exchange.body.length);
+                out.write(exchange.body);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written.size();
+    }
+
+    private static String requestKey(String method, String scrubbedUrl) {
+        return method + " " + scrubbedUrl;
+    }
+
+    /**
+     * Key of requests differing only in coordinates and times, with the query parameters sorted by
+     * name, coordinates replaced by their number of values and times left out.
+     */
+    private static String pathKey(String method, String scrubbedUrl) {
+        int query = scrubbedUrl.indexOf('?');
+        if (query < 0) {
+            return method + " " + scrubbedUrl;
+        }
+        List<String> parameters = new ArrayList<>();
+        for (String parameter : scrubbedUrl.substring(query + 1).split("&")) {
+            int separator = parameter.indexOf('=');
+            String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            if (COORDINATE_PARAMETERS.contains(name)) {
+                parameters.add(name + "=*" + VALUE_SEPARATOR.split(value, -1).length);
+            } else if (TIME_PARAMETERS.contains(name)) {
+                parameters.add(name + "=*");
+            } else {
+                parameters.add(parameter);
+            }
+        }
+        parameters.sort(null);
+        return method + " " + scrubbedUrl.substring(0, query) + "?" + String.join("&", parameters);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package pl.qprogramming.daily.capture;
+
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig.Mode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records upstream responses of the weather services and {@code CalendarService}, or serves them
+ * back, as set by {@code upstream.capture.mode}.
+ * <p>
+ * In record mode, responses and their latencies are added to the archive file, if present. New
+ * responses are written in the background every {@code upstream.capture.flush-interval-ms} and
+ * on shutdown, up to {@code upstream.capture.max-exchanges} of them. Only the method, URL with
+ * credentials scrubbed and the response are kept, request headers such as the Google bearer
+ * token never are. Calendar responses hold the events of the recording user, so archives should
+ * be treated as personal data.
+ * In replay mode, no upstream is called: responses come from the archive after their recorded
+ * latency, unless {@code upstream.capture.replay-latency} is off. OAuth2 login and token refresh
+ * are not captured, use the {@code loadtest} profile's stub server for those.
+ * </p>
+ */
+@Slf4j
+@Component
+public class UpstreamCapture implements DisposableBean {
+
+    private final UpstreamCaptureConfig config;
+    private final UpstreamArchive archive;
+    private final AtomicBoolean full = new AtomicBoolean();
+    private int written;
+    private volatile HttpTransport transport;
+
+    public UpstreamCapture(UpstreamCaptureConfig config) {
+        this.config = config;
+        Path file = Path.of(config.getArchive());
+        try {
+            if (config.getMode() == Mode.REPLAY) {
+                archive = UpstreamArchive.read(file);
+                log.info("Replaying {} upstream responses from {}", archive.size(), file);
+            } else if (config.getMode() == Mode.RECORD && Files.exists(file)) {
+                archive = UpstreamArchive.read(file);
+                log.info("Recording upstream responses, adding to {} in {}", archive.size(), file);
+            } else {
+                archive = new UpstreamArchive();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read upstream capture archive " + file, e);
+        }
+        written = archive.size();
+    }
+
+    public Mode getMode() {
+        return config.getMode();
+    }
+
+    /**
+     * Adds recording or replay to a REST template, after its other interceptors so their timing
+     * includes the replayed latency.
+     *
+     * @param restTemplate template of an upstream API
+     */
+    public void intercept(RestTemplate restTemplate) {
+        if (config.getMode() != Mode.OFF) {
+            restTemplate.getInterceptors().add(new UpstreamCaptureInterceptor(this));
+        }
+    }
+
+    /**
+     * @return transport for Google API clients, recording or replaying when capture is on
+     * @throws GeneralSecurityException if the trusted Google transport cannot be created
+     * @throws IOException              if the trusted Google transport cannot be created
+     */
+    public HttpTransport googleTransport() throws GeneralSecurityException, IOException {
+        if (config.getMode() == Mode.OFF) {
+            return GoogleNetHttpTransport.newTrustedTransport();
+        }
+        if (transport == null) {
+            synchronized (this) {
+                if (transport == null) {
+                    transport = new CaptureHttpTransport(this);
+                }
+            }
+        }
+        return transport;
+    }
+
+    void record(RecordedExchange exchange) {
+        if (archive.size() >= config.getMaxExchanges()) {
+            if (full.compareAndSet(false, true)) {
+                // Written by the next scheduled flush, not on the request thread
+                log.warn("Upstream capture archive reached {} responses, no more are recorded", config.getMaxExchanges());
+            }
+            return;
+        }
+        archive.add(exchange);
+    }
+
+    /**
+     * @param method HTTP method
+     * @param url    request URL
+     * @return recorded response, after its latency when replaying latencies
+     * @throws IOException if no response to the request was recorded, as if the upstream was unreachable
+     */
+    RecordedExchange replay(String method, String url) throws IOException {
+        RecordedExchange exchange = archive.next(method, url);
+        if (exchange == null) {
+            throw new IOException("No recorded response to " + method + " " + UpstreamArchive.scrub(url));
+        }
+        if (config.isReplayLatency()) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(exchange.latencyMicros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted replaying " + method + " " + exchange.url);
+            }
+        }
+        return exchange;
+    }
+
+    /**
+     * Writes the archive when recording and responses were added since it was last written.
+     */
+    @Scheduled(fixedDelayString = "${upstream.capture.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        if (config.getMode() != Mode.RECORD || archive.size() == written) {
+            return;
+        }
+        Path file = Path.of(config.getArchive());
+        try {
+            written = archive.write(file);
+            log.debug("Wrote {} upstream responses to {}", written, file);
+        } catch (IOException e) {
+            log.warn("Could not write upstream capture archive {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        if (config.getMode() == Mode.RECORD) {
+            log.info("Recorded {} upstream responses to {}", written, config.getArchive());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pl.qprogramming.daily.capture;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig.Mode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST template side of {@link UpstreamCapture}: reads the whole response to record it, or
+ * answers from the archive without executing the request.
+ */
+class UpstreamCaptureInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamCapture capture;
+
+    UpstreamCaptureInterceptor(UpstreamCapture capture) {
+        this.capture = capture;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String method = request.getMethodValue();
+        String url = request.getURI().toString();
+        if (capture.getMode() == Mode.REPLAY) {
+            return new RecordedResponse(capture.replay(method, url));
+        }
+        long start = System.nanoTime();
+        RecordedExchange exchange;
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            int status = response.getRawStatusCode();
+            byte[] content;
+            try (InputStream in = response.getBody()) {
+                content = in.readAllBytes();
+            }
+            HttpHeaders headers = response.getHeaders();
+            exchange = new RecordedExchange(method, UpstreamArchive.scrub(url), status,
+                    headers.getFirst(HttpHeaders.CONTENT_TYPE), headers.getFirst(HttpHeaders.CONTENT_ENCODING),
+                    (System.nanoTime() - start) / 1000, content);
+        }
+        capture.record(exchange);
+        return new RecordedResponse(exchange);
+    }
+
+    private static final class RecordedResponse implements ClientHttpResponse {
+
+        private final RecordedExchange exchange;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private RecordedResponse(RecordedExchange exchange) {
+            this.exchange = exchange;
+            if (exchange.contentType != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, exchange.contentType);
+            }
+            if (exchange.contentEncoding != null) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, exchange.contentEncoding);
+            }
+            headers.setContentLength(exchange.body.length);
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.valueOf(exchange.status);
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return exchange.status;
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(exchange.status);
+            return status != null ? status.getReasonPhrase() : "";
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(exchange.body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release, the body is in memory
+        }
+    }
+}
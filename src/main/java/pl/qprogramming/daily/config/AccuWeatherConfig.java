@@ -3,6 +3,8 @@ package pl.qprogramming.daily.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
+
 /**
  * Configuration properties for AccuWeather API.
  */
@@ -10,10 +12,11 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "accuweather")
 public class AccuWeatherConfig {
     private String apiKey;
-    private String locationUrl;
-    private String currentConditionsUrl;
-    private String forecastUrl;
-    private String hourlyForecastUrl;
+    private String locationUrl = ACCU_WEATHER_LOCATION_URL;
+    private String currentConditionsUrl = ACCU_WEATHER_CURRENT_CONDITIONS_URL;
+    private String forecastUrl = ACCU_WEATHER_FORECAST_URL;
+    private String hourlyForecastUrl = ACCU_WEATHER_HOURLY_FORECAST_URL;
+    private double locationCellDegrees = 0.01;
 
     public String getApiKey() {
         return apiKey;
@@ -54,4 +57,12 @@ public class AccuWeatherConfig {
     public void setHourlyForecastUrl(String hourlyForecastUrl) {
         this.hourlyForecastUrl = hourlyForecastUrl;
     }
+
+    public double getLocationCellDegrees() {
+        return locationCellDegrees;
+    }
+
+    public void setLocationCellDegrees(double locationCellDegrees) {
+        this.locationCellDegrees = locationCellDegrees;
+    }
 }
@@ -1,15 +1,21 @@
 package pl.qprogramming.daily.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import pl.qprogramming.daily.cache.PersistentCacheStore;
+import pl.qprogramming.daily.cache.PersistentCaffeineCache;
+import pl.qprogramming.daily.metrics.TimedCaffeineCache;
 
+import java.time.Duration;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration for application caching and related services.
@@ -19,6 +25,10 @@ import java.util.concurrent.TimeUnit;
  * - Cache configuration with different expiration times:
  *   - Weather caches: 1 hour expiration
  *   - Calendar caches: 5 minutes expiration
+ * Statistics are recorded for all caches and published as {@code cache.*} metrics, and the time
+ * of lookups is added to the Server-Timing of the request. Operations and evictions are recorded
+ * as flight recorder events. With {@code cache.persistent.enabled}, weather caches are written
+ * behind to the database and loaded back from it after a restart.
  * </p>
  */
 @Configuration
@@ -34,6 +44,7 @@ public class CacheConfig {
         public static final String CURRENT_WEATHER = "currentWeather";
         public static final String FORECAST = "forecast";
         public static final String AIR_QUALITY = "airQuality";
+        public static final String REGION_WEATHER = "regionWeather";
 
         // Calendar caches - 5 minutes expiration
         public static final String CALENDAR_LIST = "calendarList";
@@ -44,44 +55,94 @@ public class CacheConfig {
         }
     }
 
+    public static final Duration WEATHER_TIME_TO_LIVE = Duration.ofHours(1);
+    public static final Duration CALENDAR_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final long MAXIMUM_SIZE = 100;
     /**
-     * Configures the primary cache manager with 1 hour expiration time for weather data.
+     * Region weather is cached per grid cell, and a single map view covers hundreds of cells
+     */
+    private static final long REGION_WEATHER_MAXIMUM_SIZE = 10000;
+
+    /**
+     * Configures the primary cache manager with 1 hour expiration time for weather data, backed by
+     * the persistent cache store when {@code cache.persistent.enabled} is set.
      *
+     * @param persistentCacheStore store of weather cache entries, if enabled
      * @return CacheManager for weather-related caches
      */
     @Bean
     @Primary
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    public CacheManager cacheManager(ObjectProvider<PersistentCacheStore> persistentCacheStore) {
+        CaffeineCacheManager cacheManager = timedCacheManager(WEATHER_TIME_TO_LIVE, MAXIMUM_SIZE, persistentCacheStore.getIfAvailable());
         cacheManager.setCacheNames(Arrays.asList(
                 CacheNames.GEOCODING,
                 CacheNames.CURRENT_WEATHER,
                 CacheNames.FORECAST,
-                CacheNames.AIR_QUALITY
+                CacheNames.AIR_QUALITY,
+                CacheNames.REGION_WEATHER
         ));
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(1, TimeUnit.HOURS)
-                .initialCapacity(10)
-                .maximumSize(100));
         return cacheManager;
     }
 
     /**
      * Configures a secondary cache manager with 5 minute expiration time for calendar data.
+     * Calendar caches are keyed by access token and never persisted. With background sync, each
+     * run may warm up to {@code calendar.sync.max-calls-per-run} entries on top of the ones of
+     * active users, so the caches grow by that many rather than evicting entries in use.
      *
+     * @param maximumSize entries of each calendar cache for interactive requests
+     * @param syncConfig  background calendar synchronization
      * @return CacheManager for calendar-related caches
      */
     @Bean
-    public CacheManager calendarCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    public CacheManager calendarCacheManager(@Value("${cache.calendar.maximum-size:100}") long maximumSize,
+                                             CalendarSyncConfig syncConfig) {
+        long warmed = syncConfig.isEnabled() ? syncConfig.getMaxCallsPerRun() : 0;
+        CaffeineCacheManager cacheManager = timedCacheManager(CALENDAR_TIME_TO_LIVE, maximumSize + warmed, null);
         cacheManager.setCacheNames(Arrays.asList(
                 CacheNames.CALENDAR_LIST,
                 CacheNames.CALENDAR_EVENTS
         ));
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(5, TimeUnit.MINUTES)
-                .initialCapacity(10)
-                .maximumSize(100));
         return cacheManager;
     }
+
+    /**
+     * Creates a cache manager building each cache from its own builder, so that evictions can be
+     * recorded with the name of the cache.
+     *
+     * @param timeToLive  time entries are kept after they are written
+     * @param maximumSize entries kept in each cache, except the region weather cache
+     * @param store       persistent store backing the caches, or null to keep them in memory only
+     * @return CaffeineCacheManager creating {@link TimedCaffeineCache}s or {@link PersistentCaffeineCache}s
+     */
+    private static CaffeineCacheManager timedCacheManager(Duration timeToLive, long maximumSize, PersistentCacheStore store) {
+        return new CaffeineCacheManager() {
+            @Override
+            protected com.github.benmanes.caffeine.cache.Cache<Object, Object> createNativeCaffeineCache(String name) {
+                Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
+                        .initialCapacity(10)
+                        .maximumSize(CacheNames.REGION_WEATHER.equals(name) ? REGION_WEATHER_MAXIMUM_SIZE : maximumSize)
+                        .recordStats();
+                if (store != null) {
+                    caffeine.expireAfter(PersistentCaffeineCache.expireAfterWrite(timeToLive));
+                } else {
+                    caffeine.expireAfterWrite(timeToLive);
+                }
+                return caffeine
+                        .removalListener(TimedCaffeineCache.evictionRecorder(name))
+                        .build();
+            }
+
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                if (store == null) {
+                    return new TimedCaffeineCache(name, cache, isAllowNullValues());
+                }
+                PersistentCaffeineCache persistentCache = new PersistentCaffeineCache(name, cache, isAllowNullValues(),
+                        store, timeToLive);
+                store.register(persistentCache);
+                return persistentCache;
+            }
+        };
+    }
 }
@@ -0,0 +1,57 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for background calendar synchronization.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "calendar.sync")
+public class CalendarSyncConfig {
+    private boolean enabled = false;
+    private int concurrency = 2;
+    private int maxCallsPerRun = 100;
+    private int leadMinutes = 30;
+    private int activeDays = 14;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getMaxCallsPerRun() {
+        return maxCallsPerRun;
+    }
+
+    public void setMaxCallsPerRun(int maxCallsPerRun) {
+        this.maxCallsPerRun = maxCallsPerRun;
+    }
+
+    public int getLeadMinutes() {
+        return leadMinutes;
+    }
+
+    public void setLeadMinutes(int leadMinutes) {
+        this.leadMinutes = leadMinutes;
+    }
+
+    public int getActiveDays() {
+        return activeDays;
+    }
+
+    public void setActiveDays(int activeDays) {
+        this.activeDays = activeDays;
+    }
+}
@@ -0,0 +1,30 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the local city gazetteer used by location autocomplete.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "gazetteer")
+public class GazetteerConfig {
+    private String location = "classpath:gazetteer/cities.txt";
+    private int maxResults = 20;
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+}
@@ -0,0 +1,23 @@
+package pl.qprogramming.daily.config;
+
+import com.google.api.services.calendar.Calendar;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the Google Calendar API.
+ * The token endpoint is configured on the {@code google} OAuth2 provider.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "google.calendar")
+public class GoogleCalendarConfig {
+    private String rootUrl = Calendar.DEFAULT_ROOT_URL;
+
+    public String getRootUrl() {
+        return rootUrl;
+    }
+
+    public void setRootUrl(String rootUrl) {
+        this.rootUrl = rootUrl;
+    }
+}
@@ -0,0 +1,34 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the account scraping {@code /actuator/prometheus} with HTTP basic.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "metrics.scrape")
+public class MetricsScrapeConfig {
+    private String username = "prometheus";
+    /**
+     * Password with its encoding prefix, e.g. {@code {bcrypt}...} or {@code {noop}...};
+     * scrapes are refused while it is empty
+     */
+    private String password = "";
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
@@ -0,0 +1,77 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for serving weather of the nearest cached location while the exact
+ * location is loaded.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cache.nearby")
+public class NearbyCacheConfig {
+
+    private boolean enabled = false;
+    private double radiusKm = 5;
+    private int refreshThreads = 2;
+    private int queueCapacity = 100;
+    private long purgeIntervalMs = 60000;
+    private long staleTtlHours = 24;
+    private long staleMaximumSize = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getRadiusKm() {
+        return radiusKm;
+    }
+
+    public void setRadiusKm(double radiusKm) {
+        this.radiusKm = radiusKm;
+    }
+
+    public int getRefreshThreads() {
+        return refreshThreads;
+    }
+
+    public void setRefreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getPurgeIntervalMs() {
+        return purgeIntervalMs;
+    }
+
+    public void setPurgeIntervalMs(long purgeIntervalMs) {
+        this.purgeIntervalMs = purgeIntervalMs;
+    }
+
+    public long getStaleTtlHours() {
+        return staleTtlHours;
+    }
+
+    public void setStaleTtlHours(long staleTtlHours) {
+        this.staleTtlHours = staleTtlHours;
+    }
+
+    public long getStaleMaximumSize() {
+        return staleMaximumSize;
+    }
+
+    public void setStaleMaximumSize(long staleMaximumSize) {
+        this.staleMaximumSize = staleMaximumSize;
+    }
+}
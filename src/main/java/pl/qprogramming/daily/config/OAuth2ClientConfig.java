@@ -2,39 +2,60 @@ package pl.qprogramming.daily.config;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProvider;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.endpoint.DefaultRefreshTokenTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2RefreshTokenGrantRequest;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.JdbcOAuth2AuthorizedClientService;
+import pl.qprogramming.daily.auth.CachingOAuth2AuthorizedClientService;
+import pl.qprogramming.daily.auth.SingleFlightOAuth2AuthorizedClientManager;
+import pl.qprogramming.daily.auth.TimedRefreshTokenResponseClient;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+
+import java.time.Duration;
 
 @Configuration
 @Slf4j
 @RequiredArgsConstructor
 public class OAuth2ClientConfig {
 
-    @Bean
-    public OAuth2AuthorizedClientService authorizedClientService(
+    @Bean(destroyMethod = "shutdown")
+    public CachingOAuth2AuthorizedClientService authorizedClientService(
             JdbcTemplate jdbcTemplate,
-            ClientRegistrationRepository clientRegistrationRepository) {
-        // Persist access/refresh tokens in JDBC store
-        return new JdbcOAuth2AuthorizedClientService(jdbcTemplate, clientRegistrationRepository);
+            ClientRegistrationRepository clientRegistrationRepository,
+            @Value("${oauth2.client-cache.maximum-size:1000}") long maximumSize,
+            @Value("${oauth2.client-cache.expire-after-access-minutes:60}") long expireAfterAccessMinutes,
+            @Value("${oauth2.client-cache.expire-after-write-minutes:5}") long expireAfterWriteMinutes) {
+        // Persist access/refresh tokens in JDBC store, serving reads from memory
+        return new CachingOAuth2AuthorizedClientService(
+                new JdbcOAuth2AuthorizedClientService(jdbcTemplate, clientRegistrationRepository),
+                maximumSize, Duration.ofMinutes(expireAfterAccessMinutes), Duration.ofMinutes(expireAfterWriteMinutes));
+    }
+
+    @Bean
+    public OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient(
+            UpstreamMetrics upstreamMetrics) {
+        return new TimedRefreshTokenResponseClient(new DefaultRefreshTokenTokenResponseClient(), upstreamMetrics);
     }
 
     @Bean
-    public OAuth2AuthorizedClientManager authorizedClientManager(
+    public SingleFlightOAuth2AuthorizedClientManager authorizedClientManager(
             ClientRegistrationRepository clientRegistrationRepository,
-            OAuth2AuthorizedClientService authorizedClientService) {
+            OAuth2AuthorizedClientService authorizedClientService,
+            OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient) {
 
         OAuth2AuthorizedClientProvider authorizedClientProvider =
                 OAuth2AuthorizedClientProviderBuilder.builder()
                         .authorizationCode()
-                        .refreshToken()
+                        .refreshToken(refreshToken -> refreshToken.accessTokenResponseClient(refreshTokenResponseClient))
                         .build();
 
         AuthorizedClientServiceOAuth2AuthorizedClientManager authorizedClientManager =
@@ -42,7 +63,8 @@ public class OAuth2ClientConfig {
                         clientRegistrationRepository, authorizedClientService);
         authorizedClientManager.setAuthorizedClientProvider(authorizedClientProvider);
 
-        return authorizedClientManager;
+        // Concurrent requests of the same user share one authorization, and so one token refresh
+        return new SingleFlightOAuth2AuthorizedClientManager(authorizedClientManager);
     }
 
 }
@@ -0,0 +1,39 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for background OAuth2 access token refresh.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "oauth2.token")
+public class OAuth2TokenConfig {
+    private long checkRateMs = 60000;
+    private int refreshLeadMinutes = 5;
+    private int activeHours = 24;
+
+    public long getCheckRateMs() {
+        return checkRateMs;
+    }
+
+    public void setCheckRateMs(long checkRateMs) {
+        this.checkRateMs = checkRateMs;
+    }
+
+    public int getRefreshLeadMinutes() {
+        return refreshLeadMinutes;
+    }
+
+    public void setRefreshLeadMinutes(int refreshLeadMinutes) {
+        this.refreshLeadMinutes = refreshLeadMinutes;
+    }
+
+    public int getActiveHours() {
+        return activeHours;
+    }
+
+    public void setActiveHours(int activeHours) {
+        this.activeHours = activeHours;
+    }
+}
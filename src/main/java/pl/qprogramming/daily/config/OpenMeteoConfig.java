@@ -0,0 +1,41 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
+
+/**
+ * Configuration properties for Open-Meteo APIs.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "open-meteo")
+public class OpenMeteoConfig {
+    private String forecastUrl = OPEN_METEO_FORECAST_URL;
+    private String geocodingUrl = OPEN_METEO_GEOCODING_URL;
+    private String airQualityUrl = OPEN_METEO_AIR_QUALITY_URL;
+
+    public String getForecastUrl() {
+        return forecastUrl;
+    }
+
+    public void setForecastUrl(String forecastUrl) {
+        this.forecastUrl = forecastUrl;
+    }
+
+    public String getGeocodingUrl() {
+        return geocodingUrl;
+    }
+
+    public void setGeocodingUrl(String geocodingUrl) {
+        this.geocodingUrl = geocodingUrl;
+    }
+
+    public String getAirQualityUrl() {
+        return airQualityUrl;
+    }
+
+    public void setAirQualityUrl(String airQualityUrl) {
+        this.airQualityUrl = airQualityUrl;
+    }
+}
@@ -0,0 +1,61 @@
+package pl.qprogramming.daily.config;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration of OpenTelemetry tracing.
+ * <p>
+ * When {@code tracing.enabled} is set, spans are batched and exported over OTLP/HTTP to
+ * {@code tracing.endpoint}, usually a local OpenTelemetry Collector which forwards them to the
+ * tracing backend. Trace context is read from and passed on in W3C {@code traceparent} headers.
+ * Otherwise a no-op implementation is used and the tracing filter and aspect are not registered.
+ * </p>
+ */
+@Slf4j
+@Configuration
+public class OpenTelemetryConfig {
+
+    static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    /**
+     * @param config tracing configuration
+     * @return OpenTelemetry SDK exporting spans, or a no-op implementation when tracing is disabled
+     */
+    @Bean
+    public OpenTelemetry openTelemetry(TracingConfig config) {
+        if (!config.isEnabled()) {
+            return OpenTelemetry.noop();
+        }
+        log.info("Exporting traces of {} to {}", config.getServiceName(), config.getEndpoint());
+        OtlpHttpSpanExporter exporter = OtlpHttpSpanExporter.builder()
+                .setEndpoint(config.getEndpoint())
+                .setTimeout(Duration.ofMillis(config.getExportTimeoutMs()))
+                .build();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(SERVICE_NAME, config.getServiceName()))))
+                // Follow the caller's decision, sample the configured share of new traces
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(config.getSamplingRatio())))
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                .build();
+        // Closed on shutdown, which flushes the spans not exported yet
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+    }
+}
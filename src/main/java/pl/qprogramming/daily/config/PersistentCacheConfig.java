@@ -0,0 +1,40 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the database tier below the in-memory weather caches.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cache.persistent")
+public class PersistentCacheConfig {
+
+    private boolean enabled = false;
+    private long flushIntervalMs = 5000;
+    private int warmEntries = 200;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public int getWarmEntries() {
+        return warmEntries;
+    }
+
+    public void setWarmEntries(int warmEntries) {
+        this.warmEntries = warmEntries;
+    }
+}
@@ -0,0 +1,50 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Positive;
+
+/**
+ * Configuration properties for weather of map regions.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "weather.region")
+@Validated
+public class RegionWeatherConfig {
+
+    /**
+     * Must be positive, the cell size is doubled until a region fits in max-cells
+     */
+    @Positive
+    private double cellDegrees = 0.25;
+    @Positive
+    private int maxCells = 400;
+    @Positive
+    private int batchSize = 100;
+
+    public double getCellDegrees() {
+        return cellDegrees;
+    }
+
+    public void setCellDegrees(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public int getMaxCells() {
+        return maxCells;
+    }
+
+    public void setMaxCells(int maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.metrics.UpstreamMetricsInterceptor;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -14,6 +16,7 @@ import javax.net.ssl.X509TrustManager;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
+import java.util.Map;
 
 /**
  * Configuration for RestTemplate with environment-specific SSL handling.
@@ -23,6 +26,7 @@ import java.security.cert.X509Certificate;
  *   <li>For development profile: A RestTemplate that trusts all SSL certificates</li>
  *   <li>For all other profiles: A standard RestTemplate with proper certificate validation</li>
  * </ul>
+ * Both record their calls in {@link UpstreamMetrics}, under the host of the called URL.
  * </p>
  * <p>
  * The development configuration bypasses SSL certificate validation, which is necessary
@@ -49,29 +53,35 @@ public class RestTemplateConfig {
      * Creates a standard RestTemplate bean with proper SSL certificate validation.
      * This bean is active for all profiles EXCEPT "dev".
      *
+     * @param upstreamMetrics metrics of external service calls
      * @return A RestTemplate instance with standard security settings
      */
     @Bean
     @Profile("!dev")
-    public RestTemplate standardRestTemplate() {
+    public RestTemplate standardRestTemplate(UpstreamMetrics upstreamMetrics) {
         log.info("Creating standard RestTemplate with proper certificate validation");
         SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
         requestFactory.setConnectTimeout(5000); // 5 seconds
         requestFactory.setReadTimeout(5000);    // 5 seconds
-        return new RestTemplate(requestFactory);
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new UpstreamMetricsInterceptor(upstreamMetrics, Map.of()));
+        return restTemplate;
     }
 
     /**
      * Creates a development-only RestTemplate bean with SSL certificate validation disabled.
      * This bean is only active when the "dev" profile is enabled.
      *
+     * @param upstreamMetrics metrics of external service calls
      * @return A RestTemplate instance that trusts all SSL certificates
      */
     @Bean
     @Profile("dev")
-    public RestTemplate devRestTemplate() {
+    public RestTemplate devRestTemplate(UpstreamMetrics upstreamMetrics) {
         log.warn("Creating development RestTemplate that bypasses SSL certificate validation - NOT FOR PRODUCTION USE");
-        return createTrustAllRestTemplate();
+        RestTemplate restTemplate = createTrustAllRestTemplate();
+        restTemplate.getInterceptors().add(new UpstreamMetricsInterceptor(upstreamMetrics, Map.of()));
+        return restTemplate;
     }
 
     /**
@@ -0,0 +1,13 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled background jobs.
+ * Individual jobs are switched on through their own configuration properties.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -3,15 +3,23 @@ package pl.qprogramming.daily.config;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizationRequestResolver;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestResolver;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
-import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.util.StringUtils;
+import pl.qprogramming.daily.auth.CachingOAuth2AuthorizedClientService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,30 +30,120 @@ import java.util.function.Consumer;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final OAuth2AuthorizedClientService authorizedClientService;
+    private final CachingOAuth2AuthorizedClientService authorizedClientService;
     private final ClientRegistrationRepository clientRegistrationRepository;
+    private final MetricsScrapeConfig metricsScrapeConfig;
 
+    /**
+     * Static assets of the frontend, served without authentication.
+     */
+    private static final String[] STATIC_PATHS = {
+            "/",
+            "/index.html",
+            "/static/**",
+            "/assets/**",
+            "/*.js",
+            "/*.css",
+            "/*.json",
+            "/*.ico",
+            "/*.png",
+            "/favicon.svg",
+            "/manifest.json",
+            "/error"
+    };
+
+    /**
+     * Public weather endpoints - with different path patterns.
+     */
+    private static final String[] WEATHER_PATHS = {"/api/weather/**", "/weather/**"};
+
+    private static final String[] ACTUATOR_PATHS = {"/actuator/health"};
+
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
+    private static final String METRICS_ROLE = "METRICS";
+
+    /**
+     * Fast path for public weather endpoints, static assets and health checks, checked before the main chain.
+     * <p>
+     * These requests need neither the user nor the session, so the chain is stateless: the
+     * security context is not loaded from or saved to the session, no session is created, and
+     * login, logout, request cache, anonymous authentication and authorization filters are left out.
+     * Only the security headers are written.
+     * </p>
+     *
+     * @param http HttpSecurity
+     * @return SecurityFilterChain for public paths
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain publicSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .requestMatchers(matchers -> matchers
+                        .antMatchers(WEATHER_PATHS)
+                        .antMatchers(STATIC_PATHS)
+                        .antMatchers(ACTUATOR_PATHS))
+                .sessionManagement()
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                .securityContext()
+                        .securityContextRepository(new NullSecurityContextRepository())
+                .and()
+                .requestCache().disable()
+                .anonymous().disable()
+                .logout().disable()
+                .csrf().disable();
+
+        return http.build();
+    }
+
+    /**
+     * Metrics scrapes, which reveal latencies, error rates, cache sizes and remaining upstream quota.
+     * <p>
+     * Stateless like the public chain, but only the {@code metrics.scrape} account may read them,
+     * with HTTP basic. Scrapes are refused while no password is configured.
+     * </p>
+     *
+     * @param http HttpSecurity
+     * @return SecurityFilterChain for the Prometheus endpoint
+     */
     @Bean
+    @Order(2)
+    public SecurityFilterChain metricsSecurityFilterChain(HttpSecurity http) throws Exception {
+        InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager();
+        if (StringUtils.hasText(metricsScrapeConfig.getPassword())) {
+            scrapers.createUser(User.withUsername(metricsScrapeConfig.getUsername())
+                    .password(metricsScrapeConfig.getPassword())
+                    .roles(METRICS_ROLE)
+                    .build());
+        }
+        http
+                .antMatcher(PROMETHEUS_PATH)
+                .authorizeRequests()
+                        .anyRequest().hasRole(METRICS_ROLE)
+                .and()
+                .httpBasic()
+                .and()
+                .userDetailsService(scrapers)
+                .sessionManagement()
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
+                .securityContext()
+                        .securityContextRepository(new NullSecurityContextRepository())
+                .and()
+                .requestCache().disable()
+                .anonymous().disable()
+                .logout().disable()
+                .csrf().disable();
+
+        return http.build();
+    }
+
+    @Bean
+    @Order(3)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeRequests()
-                        // Allow static resources and public endpoints
-                        .antMatchers(
-                                "/",
-                                "/index.html",
-                                "/static/**",
-                                "/assets/**",
-                                "/*.js",
-                                "/*.css",
-                                "/*.json",
-                                "/*.ico",
-                                "/*.png",
-                                "/favicon.svg",
-                                "/manifest.json",
-                                "/error"
-                        ).permitAll()
-                        // Explicitly permit all weather endpoints - with different path patterns
-                        .antMatchers("/api/weather/**", "/weather/**").permitAll()
                         // Auth endpoints - all public for authentication flow
                         .antMatchers("/api/auth/login", "/api/auth/user", "/api/auth/token", "/auth/login", "/auth/user", "/auth/token").permitAll()
                         // Protected calendar endpoints
@@ -66,6 +164,7 @@ public class SecurityConfig {
                 .and()
                 .logout()
                         .logoutUrl("/api/auth/logout")
+                        .addLogoutHandler(authorizedClientEvictingLogoutHandler())
                         .logoutSuccessUrl("/")
                         .clearAuthentication(true)
                         .invalidateHttpSession(true)
@@ -79,6 +178,21 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Drops the cached authorized client of the user logging out.
+     * The stored client is kept, so background calendar sync still works for the user.
+     *
+     * @return LogoutHandler
+     */
+    private LogoutHandler authorizedClientEvictingLogoutHandler() {
+        return (request, response, authentication) -> {
+            if (authentication instanceof OAuth2AuthenticationToken) {
+                OAuth2AuthenticationToken oauthToken = (OAuth2AuthenticationToken) authentication;
+                authorizedClientService.evict(oauthToken.getAuthorizedClientRegistrationId(), oauthToken.getName());
+            }
+        };
+    }
+
     /**
      * Custom OAuth2AuthorizationRequestResolver to add additional parameters
      * to the authorization request, such as access_type and prompt.
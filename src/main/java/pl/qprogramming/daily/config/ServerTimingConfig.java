@@ -0,0 +1,33 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for per-request phase timing.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "server-timing")
+public class ServerTimingConfig {
+    /**
+     * Off by default, as the header tells any client how long the upstream APIs and the cache took
+     */
+    private boolean headerEnabled = false;
+    private long slowRequestThresholdMs = 1000;
+
+    public boolean isHeaderEnabled() {
+        return headerEnabled;
+    }
+
+    public void setHeaderEnabled(boolean headerEnabled) {
+        this.headerEnabled = headerEnabled;
+    }
+
+    public long getSlowRequestThresholdMs() {
+        return slowRequestThresholdMs;
+    }
+
+    public void setSlowRequestThresholdMs(long slowRequestThresholdMs) {
+        this.slowRequestThresholdMs = slowRequestThresholdMs;
+    }
+}
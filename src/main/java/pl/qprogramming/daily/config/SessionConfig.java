@@ -0,0 +1,41 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import pl.qprogramming.daily.serialization.CompactSerializationConverter;
+
+/**
+ * Configuration of the HTTP session store.
+ * <p>
+ * Sessions are kept by Spring Session in the {@code SPRING_SESSION} tables of the application
+ * database (see {@code spring.session} in application.yml) instead of the servlet container's heap,
+ * so they survive restarts and can be shared by instances using the same database. The store is
+ * selected with {@code spring.session.store-type}, so it can be moved to another shared store.
+ * Expired sessions are rejected when read and swept in bulk by {@code spring.session.jdbc.cleanup-cron}.
+ * </p>
+ */
+@Configuration
+public class SessionConfig implements BeanClassLoaderAware {
+
+    private ClassLoader classLoader;
+
+    /**
+     * Conversion service used by the JDBC session repository to store attributes as compressed bytes.
+     *
+     * @return ConversionService for session attributes
+     */
+    @Bean
+    public ConversionService springSessionConversionService() {
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(new CompactSerializationConverter(classLoader));
+        return conversionService;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+}
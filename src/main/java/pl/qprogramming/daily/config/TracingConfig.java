@@ -0,0 +1,57 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for OpenTelemetry tracing.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tracing")
+public class TracingConfig {
+    private boolean enabled = false;
+    private String endpoint = "http://localhost:4318/v1/traces";
+    private String serviceName = "daily";
+    private double samplingRatio = 1.0;
+    private long exportTimeoutMs = 10000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public double getSamplingRatio() {
+        return samplingRatio;
+    }
+
+    public void setSamplingRatio(double samplingRatio) {
+        this.samplingRatio = samplingRatio;
+    }
+
+    public long getExportTimeoutMs() {
+        return exportTimeoutMs;
+    }
+
+    public void setExportTimeoutMs(long exportTimeoutMs) {
+        this.exportTimeoutMs = exportTimeoutMs;
+    }
+}
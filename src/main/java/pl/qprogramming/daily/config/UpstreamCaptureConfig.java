@@ -0,0 +1,73 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for recording and replaying upstream API traffic.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "upstream.capture")
+public class UpstreamCaptureConfig {
+
+    public enum Mode {
+        /**
+         * Upstream APIs are called as usual
+         */
+        OFF,
+        /**
+         * Upstream APIs are called and their responses and latencies are written to the archive periodically and on shutdown
+         */
+        RECORD,
+        /**
+         * Responses are served from the archive, upstream APIs are not called
+         */
+        REPLAY
+    }
+
+    private Mode mode = Mode.OFF;
+    private String archive = "./data/upstream-capture.bin.gz";
+    private boolean replayLatency = true;
+    private int maxExchanges = 20000;
+    private long flushIntervalMs = 60000;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public String getArchive() {
+        return archive;
+    }
+
+    public void setArchive(String archive) {
+        this.archive = archive;
+    }
+
+    public boolean isReplayLatency() {
+        return replayLatency;
+    }
+
+    public void setReplayLatency(boolean replayLatency) {
+        this.replayLatency = replayLatency;
+    }
+
+    public int getMaxExchanges() {
+        return maxExchanges;
+    }
+
+    public void setMaxExchanges(int maxExchanges) {
+        this.maxExchanges = maxExchanges;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+}
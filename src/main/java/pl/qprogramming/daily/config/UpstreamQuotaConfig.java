@@ -0,0 +1,77 @@
+package pl.qprogramming.daily.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for budgets of calls to upstream weather APIs.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "upstream.quota")
+public class UpstreamQuotaConfig {
+
+    private boolean enabled = false;
+    private long flushIntervalMs = 10000;
+    private double refreshAheadReserve = 0.2;
+    private Map<String, Limit> limits = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public double getRefreshAheadReserve() {
+        return refreshAheadReserve;
+    }
+
+    public void setRefreshAheadReserve(double refreshAheadReserve) {
+        this.refreshAheadReserve = refreshAheadReserve;
+    }
+
+    public Map<String, Limit> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, Limit> limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Calls allowed to one upstream, 0 for no limit.
+     */
+    public static class Limit {
+
+        private long daily;
+        private long perMinute;
+
+        public long getDaily() {
+            return daily;
+        }
+
+        public void setDaily(long daily) {
+            this.daily = daily;
+        }
+
+        public long getPerMinute() {
+            return perMinute;
+        }
+
+        public void setPerMinute(long perMinute) {
+            this.perMinute = perMinute;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package pl.qprogramming.daily.logging;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
@@ -21,11 +21,15 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class EndpointLogger implements ApplicationListener<ApplicationReadyEvent> {
 
     private final RequestMappingHandlerMapping handlerMapping;
 
+    // Actuator registers its own handler mapping for controller endpoints
+    public EndpointLogger(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping) {
+        this.handlerMapping = handlerMapping;
+    }
+
     /**
      * Executes when the application is fully started and ready to serve requests.
      * <p>
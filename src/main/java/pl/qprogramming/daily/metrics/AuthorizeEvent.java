@@ -0,0 +1,43 @@
+package pl.qprogramming.daily.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an {@code OAuth2AuthorizedClientManager.authorize} call, including the
+ * authorized client lookup and a token refresh when one was needed.
+ */
+@Name("pl.qprogramming.daily.Authorize")
+@Label("OAuth2 Authorize")
+@Category({"Daily", "Auth"})
+@Enabled(false)
+@StackTrace(false)
+public class AuthorizeEvent extends Event {
+
+    @Label("Client Registration")
+    String clientRegistrationId;
+
+    @Label("Interactive")
+    @Description("Made for a user request rather than a background job")
+    boolean interactive;
+
+    @Label("Shared")
+    @Description("Waited for the result of a call already in progress for the same user")
+    boolean shared;
+
+    @Label("Authorized")
+    @Description("An authorized client was returned")
+    boolean authorized;
+
+    public void set(String clientRegistrationId, boolean interactive, boolean shared, boolean authorized) {
+        this.clientRegistrationId = clientRegistrationId;
+        this.interactive = interactive;
+        this.shared = shared;
+        this.authorized = authorized;
+    }
+}
@@ -0,0 +1,52 @@
+package pl.qprogramming.daily.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a cache operation: a lookup, a put of a loaded or refreshed value,
+ * or a removal, explicit or by expiry and size.
+ * <p>
+ * Keys are not recorded, calendar caches are keyed by access token.
+ * </p>
+ */
+@Name("pl.qprogramming.daily.CacheOperation")
+@Label("Cache Operation")
+@Category({"Daily", "Cache"})
+@Enabled(false)
+@StackTrace(false)
+public class CacheOperationEvent extends Event {
+
+    static final String HIT = "HIT";
+    static final String MISS = "MISS";
+    static final String PUT = "PUT";
+    static final String EVICT = "EVICT";
+    static final String CLEAR = "CLEAR";
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Operation")
+    @Description("HIT, MISS, PUT, EVICT, CLEAR, or the Caffeine removal cause, e.g. EXPIRED or SIZE")
+    String operation;
+
+    /**
+     * Records an operation without duration, e.g. an eviction by Caffeine.
+     *
+     * @param cache     cache name
+     * @param operation operation
+     */
+    static void commit(String cache, String operation) {
+        CacheOperationEvent event = new CacheOperationEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.operation = operation;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package pl.qprogramming.daily.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import pl.qprogramming.daily.metrics.RequestTimings.Phase;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Flight recorder event of a conversion of provider responses to API DTOs.
+ */
+@Name("pl.qprogramming.daily.Mapping")
+@Label("Mapping")
+@Category({"Daily", "Mapping"})
+@Enabled(false)
+@StackTrace(false)
+public class MappingEvent extends Event {
+
+    @Label("Conversion")
+    String conversion;
+
+    @Label("Items")
+    int items;
+
+    /**
+     * Runs a conversion, recording it as a flight recorder event and in the mapping phase of
+     * the current request.
+     *
+     * @param conversion name of the conversion, e.g. {@code WeatherMapper.toWeatherForecast}
+     * @param mapping    conversion to run
+     * @param <T>        result type
+     * @return result of the conversion
+     */
+    public static <T> T time(String conversion, Supplier<T> mapping) {
+        MappingEvent event = new MappingEvent();
+        event.begin();
+        T result = RequestTimings.time(Phase.MAPPING, mapping);
+        event.end();
+        if (event.shouldCommit()) {
+            event.conversion = conversion;
+            event.items = result instanceof Collection ? ((Collection<?>) result).size() : 1;
+            event.commit();
+        }
+        return result;
+    }
+}
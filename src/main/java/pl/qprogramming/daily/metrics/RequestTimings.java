@@ -0,0 +1,137 @@
+package pl.qprogramming.daily.metrics;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Time spent in each phase of the request handled by the current thread.
+ * <p>
+ * {@link ServerTimingFilter} starts the timings when a request arrives, services add the duration
+ * of their work with {@link #record} or {@link #time}, and the filter reports the totals. Work done
+ * outside a request, e.g. by the background calendar sync or on async threads, is not recorded.
+ * Phases can nest: a token refresh counts in both {@link Phase#AUTH} and {@link Phase#UPSTREAM}.
+ * </p>
+ */
+public final class RequestTimings {
+
+    /**
+     * Phases of request handling, with their Server-Timing metric names.
+     */
+    public enum Phase {
+        AUTH("auth", "Authorization and token lookup"),
+        CACHE("cache", "Cache lookups"),
+        UPSTREAM("upstream", "External service calls"),
+        MAPPING("mapping", "Mapping of responses");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startNanos;
+    private final long[] durations = new long[PHASES.length];
+    private final int[] counts = new int[PHASES.length];
+
+    private RequestTimings(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Starts collecting timings of a request on the current thread.
+     *
+     * @return timings of the request
+     */
+    static RequestTimings start() {
+        RequestTimings timings = new RequestTimings(System.nanoTime());
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Stops collecting timings on the current thread.
+     */
+    static void finish() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Adds a duration to a phase of the current request, if there is one.
+     *
+     * @param phase         phase the work belongs to
+     * @param durationNanos duration of the work
+     */
+    public static void record(Phase phase, long durationNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.durations[phase.ordinal()] += durationNanos;
+            timings.counts[phase.ordinal()]++;
+        }
+    }
+
+    /**
+     * Runs an action and adds its duration to a phase of the current request.
+     *
+     * @param phase  phase the action belongs to
+     * @param action action to run
+     * @param <T>    result type
+     * @return result of the action
+     */
+    public static <T> T time(Phase phase, Supplier<T> action) {
+        if (CURRENT.get() == null) {
+            return action.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    long getDuration(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    int getCount(Phase phase) {
+        return counts[phase.ordinal()];
+    }
+
+    /**
+     * Formats the recorded phases as a {@code Server-Timing} header value, skipping phases with
+     * no work, followed by the total time since the request started.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return header value, e.g. {@code auth;desc="Authorization and token lookup";dur=1.2, total;dur=3.4}
+     */
+    String toServerTiming(long nowNanos) {
+        StringBuilder header = new StringBuilder(128);
+        for (Phase phase : PHASES) {
+            if (counts[phase.ordinal()] > 0) {
+                header.append(phase.metricName)
+                        .append(";desc=\"").append(phase.description).append('"')
+                        .append(";dur=").append(millis(durations[phase.ordinal()]))
+                        .append(", ");
+            }
+        }
+        return header.append("total;dur=").append(millis(nowNanos - startNanos)).toString();
+    }
+
+    static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
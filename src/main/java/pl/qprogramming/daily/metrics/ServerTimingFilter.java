@@ -0,0 +1,139 @@
+package pl.qprogramming.daily.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import pl.qprogramming.daily.config.ServerTimingConfig;
+import pl.qprogramming.daily.metrics.RequestTimings.Phase;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports where the time of each request went.
+ * <p>
+ * Runs before the session and security filters, collects {@link RequestTimings} while the request
+ * is handled and adds them as a {@code Server-Timing} header, shown by browser developer tools.
+ * The header is written when the response body starts, so that nothing is buffered; its total is
+ * the time to the first byte. Serialization of the body, the time from the first byte to the end
+ * of the request, is only known afterwards and is included in the log line written for requests
+ * slower than {@link ServerTimingConfig#getSlowRequestThresholdMs()}.
+ * </p>
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final ServerTimingConfig config;
+
+    public ServerTimingFilter(ServerTimingConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start();
+        TimingResponse timingResponse = new TimingResponse(response, timings, config.isHeaderEnabled());
+        try {
+            filterChain.doFilter(request, timingResponse);
+        } finally {
+            RequestTimings.finish();
+            long end = System.nanoTime();
+            // Responses without a body, e.g. redirects and empty errors
+            timingResponse.startBody();
+            long totalNanos = end - timings.getStartNanos();
+            if (totalNanos >= TimeUnit.MILLISECONDS.toNanos(config.getSlowRequestThresholdMs())) {
+                logSlowRequest(request, response, timings, end - timingResponse.bodyStartNanos, totalNanos);
+            }
+        }
+    }
+
+    private static void logSlowRequest(HttpServletRequest request, HttpServletResponse response,
+                                       RequestTimings timings, long serializationNanos, long totalNanos) {
+        log.warn("Slow request: method={} uri={} status={} totalMs={} authMs={} cacheMs={} cacheLookups={} "
+                        + "upstreamMs={} upstreamCalls={} mappingMs={} serializationMs={} async={}",
+                request.getMethod(), request.getRequestURI(), response.getStatus(),
+                RequestTimings.millis(totalNanos),
+                RequestTimings.millis(timings.getDuration(Phase.AUTH)),
+                RequestTimings.millis(timings.getDuration(Phase.CACHE)), timings.getCount(Phase.CACHE),
+                RequestTimings.millis(timings.getDuration(Phase.UPSTREAM)), timings.getCount(Phase.UPSTREAM),
+                RequestTimings.millis(timings.getDuration(Phase.MAPPING)),
+                RequestTimings.millis(serializationNanos),
+                request.isAsyncStarted());
+    }
+
+    /**
+     * Adds the Server-Timing header just before the response body starts.
+     */
+    private static final class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private final boolean headerEnabled;
+        private long bodyStartNanos;
+
+        private TimingResponse(HttpServletResponse response, RequestTimings timings, boolean headerEnabled) {
+            super(response);
+            this.timings = timings;
+            this.headerEnabled = headerEnabled;
+        }
+
+        private void startBody() {
+            if (bodyStartNanos != 0) {
+                return;
+            }
+            bodyStartNanos = System.nanoTime();
+            if (headerEnabled && !isCommitted()) {
+                setHeader(SERVER_TIMING_HEADER, timings.toServerTiming(bodyStartNanos));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            startBody();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            startBody();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            startBody();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            startBody();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            startBody();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            startBody();
+            super.sendRedirect(location);
+        }
+    }
+}
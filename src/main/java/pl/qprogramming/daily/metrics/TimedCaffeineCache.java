@@ -0,0 +1,88 @@
+package pl.qprogramming.daily.metrics;
+
+import com.github.benmanes.caffeine.cache.RemovalListener;
+import io.opentelemetry.api.trace.Span;
+import org.springframework.cache.caffeine.CaffeineCache;
+import pl.qprogramming.daily.metrics.RequestTimings.Phase;
+import pl.qprogramming.daily.tracing.Tracing;
+
+/**
+ * Caffeine cache adding the time of lookups and puts to the {@link Phase#CACHE} phase of the
+ * current request and recording its operations as {@link CacheOperationEvent}s. Loading of
+ * missing values is not included, the cached method runs in between. Failed operations are timed
+ * and recorded too, a failed lookup as a miss. Lookups mark the current trace span, normally the
+ * span of the cached service call, as a cache hit or miss.
+ */
+public class TimedCaffeineCache extends CaffeineCache {
+
+    public TimedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                              boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    /**
+     * Listener recording entries removed by expiry or size as {@link CacheOperationEvent}s.
+     *
+     * @param cacheName name of the cache the listener is added to
+     * @return removal listener
+     */
+    public static RemovalListener<Object, Object> evictionRecorder(String cacheName) {
+        return (key, value, cause) -> {
+            if (cause.wasEvicted()) {
+                CacheOperationEvent.commit(cacheName, cause.name());
+            }
+        };
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        CacheOperationEvent event = new CacheOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Object value = null;
+        try {
+            value = super.lookup(key);
+            Span.current()
+                    .setAttribute(Tracing.CACHE_NAME, getName())
+                    .setAttribute(Tracing.CACHE_HIT, value != null);
+            return value;
+        } finally {
+            RequestTimings.record(Phase.CACHE, System.nanoTime() - start);
+            commit(event, value != null ? CacheOperationEvent.HIT : CacheOperationEvent.MISS);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        CacheOperationEvent event = new CacheOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            super.put(key, value);
+        } finally {
+            RequestTimings.record(Phase.CACHE, System.nanoTime() - start);
+            commit(event, CacheOperationEvent.PUT);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        CacheOperationEvent.commit(getName(), CacheOperationEvent.EVICT);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        CacheOperationEvent.commit(getName(), CacheOperationEvent.CLEAR);
+    }
+
+    private void commit(CacheOperationEvent event, String operation) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.cache = getName();
+            event.operation = operation;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package pl.qprogramming.daily.metrics;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import io.opentelemetry.api.trace.Span;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+
+import java.io.IOException;
+
+/**
+ * Google API client request initializer recording calls in {@link UpstreamMetrics}, with a client
+ * span, and as {@link UpstreamCallEvent}s.
+ * <p>
+ * Wraps the credentials initializer, starts timing after the credentials were applied and stops
+ * on the response, or on an I/O error when no response arrived.
+ * </p>
+ */
+public class TimedHttpRequestInitializer implements HttpRequestInitializer {
+
+    private final HttpRequestInitializer delegate;
+    private final UpstreamMetrics upstreamMetrics;
+
+    public TimedHttpRequestInitializer(HttpRequestInitializer delegate, UpstreamMetrics upstreamMetrics) {
+        this.delegate = delegate;
+        this.upstreamMetrics = upstreamMetrics;
+    }
+
+    @Override
+    public void initialize(HttpRequest request) throws IOException {
+        delegate.initialize(request);
+        HttpExecuteInterceptor credentialsInterceptor = request.getInterceptor();
+        long[] start = new long[1];
+        UpstreamCallEvent[] event = new UpstreamCallEvent[1];
+        Span[] span = new Span[1];
+        request.setInterceptor(intercepted -> {
+            if (credentialsInterceptor != null) {
+                credentialsInterceptor.intercept(intercepted);
+            }
+            event[0] = new UpstreamCallEvent();
+            event[0].begin();
+            span[0] = upstreamMetrics.startSpan(upstream(intercepted), intercepted.getRequestMethod(), endpoint(intercepted),
+                    intercepted.getHeaders(), (headers, name, value) -> headers.set(name, value));
+            start[0] = System.nanoTime();
+        });
+        request.setResponseInterceptor(response -> {
+            upstreamMetrics.record(upstream(request), System.nanoTime() - start[0], response.getStatusCode());
+            UpstreamMetrics.endSpan(span[0], response.getStatusCode(), null);
+            commit(event[0], request, response);
+        });
+        request.setIOExceptionHandler((failed, supportsRetry) -> {
+            upstreamMetrics.record(upstream(failed), System.nanoTime() - start[0], UpstreamMetrics.IO_ERROR);
+            UpstreamMetrics.endSpan(span[0], 0, new IOException("No response from " + endpoint(failed)));
+            commit(event[0], failed, null);
+            return false;
+        });
+    }
+
+    private static void commit(UpstreamCallEvent event, HttpRequest request, HttpResponse response) throws IOException {
+        event.end();
+        if (event.shouldCommit()) {
+            int status = response != null ? response.getStatusCode() : 0;
+            Long responseBytes = response != null ? response.getHeaders().getContentLength() : null;
+            long requestBytes = request.getContent() != null ? request.getContent().getLength() : 0;
+            event.set(upstream(request), endpoint(request),
+                    status, status == 0 ? UpstreamMetrics.IO_ERROR : Outcome.forStatus(status).name(),
+                    requestBytes, responseBytes != null ? responseBytes : -1);
+            event.commit();
+        }
+    }
+
+    // Calendar IDs in the path are e-mail addresses, so only the host is recorded
+    private static String endpoint(HttpRequest request) {
+        return request.getUrl().getScheme() + "://" + request.getUrl().getHost();
+    }
+
+    private static String upstream(HttpRequest request) {
+        return request.getUrl().getRawPath().contains("/calendarList")
+                ? "google-calendar-list"
+                : "google-calendar-events";
+    }
+}
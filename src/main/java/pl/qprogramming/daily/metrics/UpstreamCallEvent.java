@@ -0,0 +1,57 @@
+package pl.qprogramming.daily.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a call to an external service.
+ * <p>
+ * Disabled unless turned on by a recording, e.g. with the {@code jfr/daily.jfc} settings.
+ * The endpoint never contains the query string, which carries API keys.
+ * </p>
+ */
+@Name("pl.qprogramming.daily.UpstreamCall")
+@Label("Upstream Call")
+@Category({"Daily", "Upstream"})
+@Description("HTTP call to a weather provider, Google Calendar or the OAuth2 token endpoint")
+@Enabled(false)
+@StackTrace(false)
+public class UpstreamCallEvent extends Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Status")
+    @Description("HTTP status, 0 when no response arrived or the client does not expose it")
+    int status;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("Content-Length of the response, -1 when unknown")
+    @DataAmount
+    long responseBytes;
+
+    public void set(String provider, String endpoint, int status, String outcome, long requestBytes, long responseBytes) {
+        this.provider = provider;
+        this.endpoint = endpoint;
+        this.status = status;
+        this.outcome = outcome;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+    }
+}
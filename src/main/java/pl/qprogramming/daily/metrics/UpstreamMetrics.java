@@ -0,0 +1,149 @@
+package pl.qprogramming.daily.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+import pl.qprogramming.daily.tracing.Tracing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records latency, errors and trace spans of calls to external services.
+ * <p>
+ * Every call is timed in {@value #REQUESTS_METRIC} with a percentile histogram, tagged with the
+ * {@code upstream} it went to and its {@code outcome}. Calls not ending with a 2xx response are also
+ * counted in {@value #ERRORS_METRIC}. Instrumentation of the HTTP clients is done by
+ * {@link UpstreamMetricsInterceptor} for RestTemplate and {@link TimedHttpRequestInitializer} for
+ * the Google API client. The duration is also added to the upstream phase of {@link RequestTimings},
+ * and each call gets a client span, whose context is passed on in the request headers.
+ * </p>
+ */
+@Component
+public class UpstreamMetrics {
+
+    public static final String REQUESTS_METRIC = "daily.upstream.requests";
+    public static final String ERRORS_METRIC = "daily.upstream.errors";
+
+    /**
+     * Outcome of calls which failed without a response.
+     */
+    public static final String IO_ERROR = "IO_ERROR";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final OpenTelemetry openTelemetry;
+    private final Tracer tracer;
+
+    /**
+     * Looks the registry up on first use, as the registry binds meters of beans which depend on
+     * this one, e.g. the authorized client manager through its token response client.
+     */
+    @Autowired
+    public UpstreamMetrics(ObjectFactory<MeterRegistry> meterRegistry, OpenTelemetry openTelemetry) {
+        this.meterRegistry = SingletonSupplier.of(meterRegistry::getObject);
+        this.openTelemetry = openTelemetry;
+        this.tracer = openTelemetry.getTracer(Tracing.INSTRUMENTATION_NAME);
+    }
+
+    /**
+     * Records calls in the given registry, without trace spans.
+     */
+    public UpstreamMetrics(MeterRegistry meterRegistry) {
+        this(() -> meterRegistry, OpenTelemetry.noop());
+    }
+
+    /**
+     * Starts the client span of a call and writes its context to the request headers.
+     *
+     * @param upstream name of the external service
+     * @param method   HTTP method
+     * @param url      request URL without the query string, which carries API keys
+     * @param carrier  request headers, or null when they cannot be changed
+     * @param setter   sets a header on the carrier
+     * @param <C>      type of the headers
+     * @return started span, to be ended with {@link #endSpan}
+     */
+    public <C> Span startSpan(String upstream, String method, String url, C carrier, TextMapSetter<C> setter) {
+        Span span = tracer.spanBuilder(method + " " + upstream)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute(Tracing.HTTP_REQUEST_METHOD, method)
+                .setAttribute(Tracing.URL_FULL, url)
+                .setAttribute(Tracing.UPSTREAM, upstream)
+                .startSpan();
+        if (carrier != null) {
+            openTelemetry.getPropagators().getTextMapPropagator().inject(Context.current().with(span), carrier, setter);
+        }
+        return span;
+    }
+
+    /**
+     * Ends the client span of a call.
+     *
+     * @param span    span started by {@link #startSpan}
+     * @param status  HTTP status of the response, 0 when none arrived
+     * @param failure exception of the call, or null
+     */
+    public static void endSpan(Span span, int status, Exception failure) {
+        if (status > 0) {
+            span.setAttribute(Tracing.HTTP_RESPONSE_STATUS_CODE, (long) status);
+        }
+        if (failure != null) {
+            span.recordException(failure);
+            span.setAttribute(Tracing.ERROR_TYPE, failure.getClass().getName());
+            span.setStatus(StatusCode.ERROR);
+        } else if (status >= 400) {
+            span.setAttribute(Tracing.ERROR_TYPE, String.valueOf(status));
+            span.setStatus(StatusCode.ERROR);
+        }
+        span.end();
+    }
+
+    /**
+     * Records a call which received a response.
+     *
+     * @param upstream      name of the external service
+     * @param durationNanos duration of the call
+     * @param status        HTTP status of the response
+     */
+    public void record(String upstream, long durationNanos, int status) {
+        record(upstream, durationNanos, Outcome.forStatus(status).name());
+    }
+
+    /**
+     * Records a call with the given outcome.
+     *
+     * @param upstream      name of the external service
+     * @param durationNanos duration of the call
+     * @param outcome       outcome of the call, e.g. {@code SUCCESS} or {@link #IO_ERROR}
+     */
+    public void record(String upstream, long durationNanos, String outcome) {
+        RequestTimings.record(RequestTimings.Phase.UPSTREAM, durationNanos);
+        Timer.builder(REQUESTS_METRIC)
+                .description("Calls to external services")
+                .tag("upstream", upstream)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry.get())
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        if (!Outcome.SUCCESS.name().equals(outcome)) {
+            Counter.builder(ERRORS_METRIC)
+                    .description("Failed calls to external services")
+                    .tag("upstream", upstream)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry.get())
+                    .increment();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package pl.qprogramming.daily.metrics;
+
+import io.opentelemetry.api.trace.Span;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RestTemplate interceptor recording weather API calls in {@link UpstreamMetrics}, with a client
+ * span, and as {@link UpstreamCallEvent}s.
+ * <p>
+ * The upstream is resolved from the configured endpoint URLs of the service, so that location keys
+ * and query parameters in the URL do not end up as metric tags. Endpoints are matched in the order
+ * they were added; an endpoint configured with the URL of an earlier one keeps the earlier name.
+ * </p>
+ */
+public class UpstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamMetrics upstreamMetrics;
+    private final Map<String, String> upstreams;
+
+    /**
+     * @param upstreamMetrics metrics of external service calls
+     */
+    public UpstreamMetricsInterceptor(UpstreamMetrics upstreamMetrics) {
+        this(upstreamMetrics, Map.of());
+    }
+
+    /**
+     * @param upstreamMetrics metrics of external service calls
+     * @param upstreams       upstream names by endpoint URL, matched as prefix of the request URL
+     */
+    public UpstreamMetricsInterceptor(UpstreamMetrics upstreamMetrics, Map<String, String> upstreams) {
+        this.upstreamMetrics = upstreamMetrics;
+        this.upstreams = new LinkedHashMap<>(upstreams);
+    }
+
+    /**
+     * Adds an endpoint, unless one with the same URL was added before.
+     *
+     * @param url  endpoint URL, matched as prefix of the request URL
+     * @param name name of the upstream
+     * @return this interceptor
+     */
+    public UpstreamMetricsInterceptor withUpstream(String url, String name) {
+        upstreams.putIfAbsent(url, name);
+        return this;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        String upstream = upstream(request.getURI().toString());
+        URI uri = request.getURI();
+        String endpoint = uri.getScheme() + "://" + uri.getHost() + uri.getRawPath();
+        UpstreamCallEvent event = new UpstreamCallEvent();
+        event.begin();
+        Span span = upstreamMetrics.startSpan(upstream, request.getMethodValue(), endpoint,
+                request.getHeaders(), (headers, name, value) -> headers.set(name, value));
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getRawStatusCode();
+            upstreamMetrics.record(upstream, System.nanoTime() - start, status);
+            UpstreamMetrics.endSpan(span, status, null);
+            commit(event, upstream, endpoint, status, body.length, response.getHeaders().getContentLength());
+            return response;
+        } catch (IOException e) {
+            upstreamMetrics.record(upstream, System.nanoTime() - start, UpstreamMetrics.IO_ERROR);
+            UpstreamMetrics.endSpan(span, 0, e);
+            commit(event, upstream, endpoint, 0, body.length, -1);
+            throw e;
+        }
+    }
+
+    private static void commit(UpstreamCallEvent event, String upstream, String endpoint, int status,
+                               long requestBytes, long responseBytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            String outcome = status == 0 ? UpstreamMetrics.IO_ERROR : Outcome.forStatus(status).name();
+            event.set(upstream, endpoint, status, outcome, requestBytes, responseBytes);
+            event.commit();
+        }
+    }
+
+    /**
+     * @param url request URL
+     * @return name of the weather API the URL belongs to, or its host for unknown URLs
+     */
+    String upstream(String url) {
+        for (Map.Entry<String, String> entry : upstreams.entrySet()) {
+            if (url.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return URI.create(url).getHost();
+    }
+}
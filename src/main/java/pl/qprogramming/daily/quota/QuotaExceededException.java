@@ -0,0 +1,27 @@
+package pl.qprogramming.daily.quota;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling an upstream API whose budget is used up, so callers handle it like
+ * any other failed call.
+ */
+public class QuotaExceededException extends IOException {
+
+    public QuotaExceededException(String upstream, UpstreamPriority priority) {
+        super("Budget of " + upstream + " is used up for " + priority + " calls");
+    }
+
+    /**
+     * @param e exception of a failed call, e.g. a {@code ResourceAccessException} of a RestTemplate
+     * @return true if the call failed as its budget is used up
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QuotaExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
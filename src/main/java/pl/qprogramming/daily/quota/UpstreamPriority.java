@@ -0,0 +1,16 @@
+package pl.qprogramming.daily.quota;
+
+/**
+ * Priority of upstream calls when their budget runs low. Lower priorities leave a share of each
+ * budget to the higher ones.
+ */
+public enum UpstreamPriority {
+    /**
+     * A user waits for the response, may use the whole budget
+     */
+    INTERACTIVE,
+    /**
+     * Replaces data already served, e.g. approximate weather of a nearby location
+     */
+    REFRESH_AHEAD
+}
@@ -0,0 +1,334 @@
+package pl.qprogramming.daily.quota;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamQuotaConfig;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Budgets of calls to upstream weather APIs.
+ * <p>
+ * Each upstream with {@code upstream.quota.limits} has a daily budget, reset at midnight UTC, and a
+ * token bucket refilled continuously up to its calls per minute. A call takes one token from both.
+ * Calls of a lower {@link UpstreamPriority} are refused while taking a token would leave less than
+ * {@code refresh-ahead-reserve} of a budget, so users waiting for a response get the last calls of
+ * the day. The priority is set per thread with
+ * {@link #withPriority}, calls are {@link UpstreamPriority#INTERACTIVE} otherwise. A request the
+ * upstream counts as many calls takes them all up front with {@link #tryAcquire(String, int)} and
+ * is sent {@link #prepaid}, so {@link UpstreamQuotaInterceptor} does not take another one.
+ * </p>
+ * <p>
+ * Calls made today are written to the {@code upstream_quota} table in the background and loaded
+ * when the application starts, so restarts do not reset daily budgets. Remaining calls are
+ * published as {@value #REMAINING_METRIC}, tagged with the {@code upstream} and the {@code window}.
+ * </p>
+ * <p>
+ * Budgets are not enforced while {@code upstream.capture.mode} replays recorded responses, as no
+ * upstream is called, so replay benchmarks neither run out of calls nor use up the stored budget.
+ * </p>
+ */
+@Slf4j
+@Component
+public class UpstreamQuota implements DisposableBean {
+
+    public static final String REMAINING_METRIC = "daily.upstream.quota.remaining";
+    public static final String ACCUWEATHER = "accuweather";
+    public static final String OPEN_METEO = "open-meteo";
+
+    private static final ThreadLocal<UpstreamPriority> PRIORITY = ThreadLocal.withInitial(() -> UpstreamPriority.INTERACTIVE);
+    private static final ThreadLocal<Boolean> PREPAID = ThreadLocal.withInitial(() -> false);
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UpstreamQuotaConfig config;
+    private final boolean enabled;
+    private final Clock clock;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UpstreamQuota(JdbcTemplate jdbcTemplate, UpstreamQuotaConfig config, UpstreamCaptureConfig captureConfig,
+                         MeterRegistry meterRegistry) {
+        this(jdbcTemplate, config, captureConfig, meterRegistry, Clock.systemUTC());
+    }
+
+    UpstreamQuota(JdbcTemplate jdbcTemplate, UpstreamQuotaConfig config, UpstreamCaptureConfig captureConfig,
+                  MeterRegistry meterRegistry, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.enabled = config.isEnabled() && captureConfig.getMode() != UpstreamCaptureConfig.Mode.REPLAY;
+        this.clock = clock;
+        if (config.isEnabled() && !enabled) {
+            log.info("Upstream budgets are not enforced while replaying captured responses");
+        }
+        config.getLimits().forEach((upstream, limit) -> {
+            Budget budget = new Budget(limit.getDaily(), limit.getPerMinute(), today(), clock.millis());
+            budgets.put(upstream, budget);
+            if (limit.getDaily() > 0) {
+                Gauge.builder(REMAINING_METRIC, budget, b -> b.remainingToday(today()))
+                        .description("Calls left in the daily budget of an upstream API")
+                        .tag("upstream", upstream)
+                        .tag("window", "day")
+                        .register(meterRegistry);
+            }
+            if (limit.getPerMinute() > 0) {
+                Gauge.builder(REMAINING_METRIC, budget, b -> b.remainingThisMinute(clock.millis()))
+                        .description("Calls left in the per minute budget of an upstream API")
+                        .tag("upstream", upstream)
+                        .tag("window", "minute")
+                        .register(meterRegistry);
+            }
+        });
+    }
+
+    /**
+     * Runs a task making upstream calls of the given priority on the current thread.
+     *
+     * @param priority priority of the calls
+     * @param task     task making the calls
+     * @param <T>      result of the task
+     * @return result of the task
+     */
+    public static <T> T withPriority(UpstreamPriority priority, Supplier<T> task) {
+        UpstreamPriority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try {
+            return task.get();
+        } finally {
+            PRIORITY.set(previous);
+        }
+    }
+
+    /**
+     * @return priority of upstream calls made by the current thread
+     */
+    public static UpstreamPriority currentPriority() {
+        return PRIORITY.get();
+    }
+
+    /**
+     * Runs a task whose upstream calls were already taken from their budget on the current thread.
+     *
+     * @param task task making the calls
+     * @param <T>  result of the task
+     * @return result of the task
+     */
+    public static <T> T prepaid(Supplier<T> task) {
+        boolean previous = PREPAID.get();
+        PREPAID.set(true);
+        try {
+            return task.get();
+        } finally {
+            PREPAID.set(previous);
+        }
+    }
+
+    /**
+     * @return true if upstream calls made by the current thread were already taken from their budget
+     */
+    public static boolean isPrepaid() {
+        return PREPAID.get();
+    }
+
+    /**
+     * Takes a call from the budget of an upstream, at the priority of the current thread.
+     *
+     * @param upstream name of the upstream
+     * @return true if the call may be made
+     */
+    public boolean tryAcquire(String upstream) {
+        return tryAcquire(upstream, 1);
+    }
+
+    /**
+     * Takes calls from the budget of an upstream, at the priority of the current thread, all or
+     * none, e.g. for one request the upstream counts as a call per location.
+     *
+     * @param upstream name of the upstream
+     * @param calls    number of calls
+     * @return true if the calls may be made
+     */
+    public boolean tryAcquire(String upstream, int calls) {
+        Budget budget = budgets.get(upstream);
+        if (!enabled || budget == null) {
+            return true;
+        }
+        UpstreamPriority priority = currentPriority();
+        boolean acquired = budget.tryTake(calls, reserve(priority), today(), clock.millis());
+        if (!acquired) {
+            log.warn("Budget of {} is used up for {} {} calls", upstream, calls, priority);
+        }
+        return acquired;
+    }
+
+    /**
+     * Checks whether a number of calls fits in the budget of an upstream, at the priority of the
+     * current thread, without taking them.
+     *
+     * @param upstream name of the upstream
+     * @param calls    number of calls
+     * @return true if the calls may be made
+     */
+    public boolean hasBudget(String upstream, int calls) {
+        Budget budget = budgets.get(upstream);
+        return !enabled || budget == null
+                || budget.fits(calls, reserve(currentPriority()), today(), clock.millis());
+    }
+
+    /**
+     * Loads calls made today when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            jdbcTemplate.query("SELECT upstream, quota_day, used FROM upstream_quota", rs -> {
+                Budget budget = budgets.get(rs.getString("upstream"));
+                if (budget != null) {
+                    budget.restore(rs.getDate("quota_day").toLocalDate(), rs.getInt("used"), today());
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not load upstream quota: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes calls made today to the database.
+     */
+    @Scheduled(fixedDelayString = "${upstream.quota.flush-interval-ms:10000}")
+    public void flush() {
+        budgets.forEach((upstream, budget) -> {
+            Budget.Usage usage = budget.takeDirtyUsage();
+            if (usage == null) {
+                return;
+            }
+            try {
+                jdbcTemplate.update("MERGE INTO upstream_quota (upstream, quota_day, used) KEY (upstream) VALUES (?, ?, ?)",
+                        upstream, Date.valueOf(usage.getDay()), usage.getUsed());
+            } catch (DataAccessException e) {
+                budget.markDirty();
+                log.warn("Could not store upstream quota of {}: {}", upstream, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private double reserve(UpstreamPriority priority) {
+        switch (priority) {
+            case REFRESH_AHEAD:
+                return config.getRefreshAheadReserve();
+            default:
+                return 0;
+        }
+    }
+
+    private LocalDate today() {
+        return LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    /**
+     * Daily budget and per minute token bucket of one upstream.
+     */
+    static class Budget {
+
+        private final long daily;
+        private final long perMinute;
+        private LocalDate day;
+        private long used;
+        private double tokens;
+        private long refilledAt;
+        private boolean dirty;
+
+        Budget(long daily, long perMinute, LocalDate day, long now) {
+            this.daily = daily;
+            this.perMinute = perMinute;
+            this.day = day;
+            this.tokens = perMinute;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryTake(int calls, double reserve, LocalDate today, long now) {
+            if (!fits(calls, reserve, today, now)) {
+                return false;
+            }
+            used += calls;
+            tokens -= calls;
+            dirty = true;
+            return true;
+        }
+
+        synchronized boolean fits(int calls, double reserve, LocalDate today, long now) {
+            refill(today, now);
+            return (daily <= 0 || daily - used - calls >= reserve * daily)
+                    && (perMinute <= 0 || tokens - calls >= reserve * perMinute);
+        }
+
+        synchronized long remainingToday(LocalDate today) {
+            refill(today, refilledAt);
+            return Math.max(0, daily - used);
+        }
+
+        synchronized long remainingThisMinute(long now) {
+            refill(day, now);
+            return (long) Math.max(0, tokens);
+        }
+
+        synchronized void restore(LocalDate storedDay, long storedUsed, LocalDate today) {
+            refill(today, refilledAt);
+            if (storedDay.equals(day)) {
+                used = Math.max(used, storedUsed);
+            }
+        }
+
+        synchronized Usage takeDirtyUsage() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return new Usage(day, used);
+        }
+
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        private void refill(LocalDate today, long now) {
+            if (today.isAfter(day)) {
+                day = today;
+                used = 0;
+                dirty = true;
+            }
+            if (now > refilledAt) {
+                tokens = Math.min(perMinute, tokens + (double) (now - refilledAt) * perMinute / MILLIS_PER_MINUTE);
+                refilledAt = now;
+            }
+        }
+
+        @Value
+        static class Usage {
+            LocalDate day;
+            long used;
+        }
+    }
+}
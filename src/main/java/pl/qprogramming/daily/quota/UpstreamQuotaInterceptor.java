@@ -0,0 +1,35 @@
+package pl.qprogramming.daily.quota;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * RestTemplate interceptor taking every call from the budget of its upstream, and failing calls
+ * over budget without sending them. Calls sent {@link UpstreamQuota#prepaid} are not taken again.
+ */
+public class UpstreamQuotaInterceptor implements ClientHttpRequestInterceptor {
+
+    private final UpstreamQuota upstreamQuota;
+    private final String upstream;
+
+    /**
+     * @param upstreamQuota budgets of upstream calls
+     * @param upstream      name of the budget all calls of the RestTemplate are taken from
+     */
+    public UpstreamQuotaInterceptor(UpstreamQuota upstreamQuota, String upstream) {
+        this.upstreamQuota = upstreamQuota;
+        this.upstream = upstream;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!UpstreamQuota.isPrepaid() && !upstreamQuota.tryAcquire(upstream)) {
+            throw new QuotaExceededException(upstream, UpstreamQuota.currentPriority());
+        }
+        return execution.execute(request, body);
+    }
+}
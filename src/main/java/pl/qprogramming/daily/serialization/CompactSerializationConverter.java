@@ -0,0 +1,87 @@
+package pl.qprogramming.daily.serialization;
+
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+import org.springframework.core.serializer.DefaultDeserializer;
+import org.springframework.core.serializer.DefaultSerializer;
+import org.springframework.core.serializer.support.SerializationFailedException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Converts values to and from deflated Java serialization, for session attributes in the JDBC
+ * session store and entries of the persistent cache.
+ * <p>
+ * The biggest session attribute is the security context with the {@code OAuth2AuthenticationToken},
+ * which carries the ID token and the user info claims. Java serialization of it is dominated by
+ * class descriptors and claim names, which deflate compresses well, roughly halving the stored
+ * size, so each row stays small to read and write.
+ * </p>
+ */
+public class CompactSerializationConverter implements GenericConverter {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private final DefaultSerializer serializer = new DefaultSerializer();
+    private final DefaultDeserializer deserializer;
+
+    public CompactSerializationConverter(ClassLoader classLoader) {
+        this.deserializer = new DefaultDeserializer(classLoader);
+    }
+
+    @Override
+    public Set<ConvertiblePair> getConvertibleTypes() {
+        return Set.of(new ConvertiblePair(Object.class, byte[].class), new ConvertiblePair(byte[].class, Object.class));
+    }
+
+    @Override
+    public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+        if (source == null) {
+            return null;
+        }
+        if (byte[].class.equals(targetType.getType())) {
+            return serialize(source);
+        }
+        return deserialize((byte[]) source);
+    }
+
+    /**
+     * Serializes and compresses a value.
+     *
+     * @param value value, must be {@link java.io.Serializable}
+     * @return compressed bytes
+     */
+    public byte[] serialize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater, BUFFER_SIZE)) {
+            serializer.serialize(value, out);
+        } catch (IOException e) {
+            throw new SerializationFailedException("Failed to serialize value of type "
+                    + value.getClass().getName(), e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decompresses and deserializes a value.
+     *
+     * @param bytes compressed bytes
+     * @return value
+     */
+    public Object deserialize(byte[] bytes) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+            return deserializer.deserialize(in);
+        } catch (IOException e) {
+            throw new SerializationFailedException("Failed to deserialize value", e);
+        }
+    }
+}
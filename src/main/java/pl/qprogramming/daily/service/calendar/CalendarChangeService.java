@@ -0,0 +1,283 @@
+package pl.qprogramming.daily.service.calendar;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.qprogramming.daily.dto.CalendarEvent;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes calendar changes to subscribed clients over Server-Sent Events.
+ * <p>
+ * Clients subscribe with the calendars and number of days they display and first receive a
+ * {@code snapshot} event with the merged event list. Every check interval the service re-reads
+ * the events of each subscribed calendar set through {@link CalendarService} (so cached data is
+ * reused), compares them with the previous snapshot and sends {@code added}, {@code updated}
+ * and {@code deleted} events. Subscribers sharing the same user and calendar set share one check.
+ * </p>
+ * <p>
+ * The check interval, {@code calendar.changes.check-interval-ms}, defaults to the 5 minute
+ * lifetime of cached calendar events, so each check reads events at most as old as the interval
+ * and a change reaches clients within about two intervals, 10 minutes by default. With
+ * {@code calendar.changes.refresh}, checks reload events from Google Calendar instead, which
+ * also keeps the cache of the polling endpoint warm, and a change arrives within one interval,
+ * at the cost of a Google Calendar call per watched calendar on every check.
+ * </p>
+ * <p>
+ * Emitters are held on the servlet async path, so open connections do not occupy request
+ * threads, and users without open connections are never checked.
+ * </p>
+ */
+@Slf4j
+@Service
+public class CalendarChangeService {
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    private final CalendarService calendarService;
+    private final OAuth2AuthorizedClientManager authorizedClientManager;
+    private final long emitterTimeoutMs;
+    private final boolean refresh;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    public CalendarChangeService(CalendarService calendarService,
+                                 OAuth2AuthorizedClientManager authorizedClientManager,
+                                 @Value("${calendar.changes.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                 @Value("${calendar.changes.refresh:false}") boolean refresh) {
+        this.calendarService = calendarService;
+        this.authorizedClientManager = authorizedClientManager;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.refresh = refresh;
+    }
+
+    /**
+     * Opens a change stream for the user's calendars and sends the initial snapshot.
+     *
+     * @param authorizedClient authorized client of the user
+     * @param calendarIds      calendars to watch
+     * @param days             number of days ahead to watch
+     * @return emitter to be returned from the controller
+     * @throws GeneralSecurityException If there's a security-related error
+     * @throws IOException              If there's an I/O error fetching events or sending the snapshot
+     */
+    public SseEmitter subscribe(OAuth2AuthorizedClient authorizedClient, List<String> calendarIds, int days)
+            throws GeneralSecurityException, IOException {
+        String registrationId = authorizedClient.getClientRegistration().getRegistrationId();
+        String principalName = authorizedClient.getPrincipalName();
+        String key = registrationId + "/" + principalName + "/" + days + "/" + String.join(",", calendarIds);
+        List<String> watchedCalendars = List.copyOf(calendarIds);
+        List<CalendarEvent> events = fetchEvents(authorizedClient, watchedCalendars, days, false);
+
+        SseEmitter emitter = newEmitter();
+        Subscription joined;
+        do {
+            joined = subscriptions.computeIfAbsent(key,
+                    k -> new Subscription(registrationId, principalName, watchedCalendars, days));
+        } while (!join(joined, emitter, events));
+        Subscription subscription = joined;
+        emitter.onCompletion(() -> subscription.emitters.remove(emitter));
+        emitter.onTimeout(() -> subscription.emitters.remove(emitter));
+        emitter.onError(e -> subscription.emitters.remove(emitter));
+        log.debug("Calendar change subscription opened for user: {}, calendars: {}", principalName, calendarIds);
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    /**
+     * Adds an emitter to a subscription and sends it the snapshot the next check compares with,
+     * taking the fetched events as the snapshot if the subscription has none yet. Both happen under
+     * the subscription lock, so no change is sent between the snapshot and the emitter joining.
+     *
+     * @return false if the subscription was closed meanwhile and a new one has to be joined
+     */
+    private static boolean join(Subscription subscription, SseEmitter emitter, List<CalendarEvent> events) throws IOException {
+        synchronized (subscription) {
+            if (subscription.closed) {
+                return false;
+            }
+            if (subscription.snapshot == null) {
+                subscription.snapshot = index(events);
+            }
+            emitter.send(SseEmitter.event().name(SNAPSHOT_EVENT).data(new ArrayList<>(subscription.snapshot.values())));
+            subscription.emitters.add(emitter);
+            return true;
+        }
+    }
+
+    /**
+     * Checks subscribed calendar sets for changes and pushes them to their subscribers.
+     */
+    @Scheduled(fixedDelayString = "${calendar.changes.check-interval-ms:300000}")
+    public void checkForChanges() {
+        for (Map.Entry<String, Subscription> entry : subscriptions.entrySet()) {
+            Subscription subscription = subscriptions.computeIfPresent(entry.getKey(), (key, current) -> {
+                synchronized (current) {
+                    current.closed = current.emitters.isEmpty();
+                    return current.closed ? null : current;
+                }
+            });
+            if (subscription == null) {
+                continue;
+            }
+            try {
+                OAuth2AuthorizedClient authorizedClient = authorizedClientManager.authorize(OAuth2AuthorizeRequest
+                        .withClientRegistrationId(subscription.registrationId)
+                        .principal(subscription.principalName)
+                        .build());
+                if (authorizedClient == null) {
+                    completeAll(subscription);
+                    continue;
+                }
+                List<CalendarEvent> events = fetchEvents(authorizedClient, subscription.calendarIds, subscription.days, refresh);
+                synchronized (subscription) {
+                    List<CalendarChange> changes = diff(subscription.snapshot, events);
+                    subscription.snapshot = index(events);
+                    if (changes.isEmpty()) {
+                        // Keeps proxies from closing idle connections and detects clients that went away
+                        broadcast(subscription, SseEmitter.event().comment("keep-alive"));
+                    }
+                    for (CalendarChange change : changes) {
+                        broadcast(subscription, SseEmitter.event().name(change.getType().getEventName()).data(change.getEvent()));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Error checking calendar changes for user {}: {}", subscription.principalName, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compares two versions of the event list.
+     *
+     * @param previous previous events keyed by calendar and event ID
+     * @param current  current events
+     * @return additions and updates in current order, followed by deletions
+     */
+    static List<CalendarChange> diff(Map<String, CalendarEvent> previous, List<CalendarEvent> current) {
+        List<CalendarChange> changes = new ArrayList<>();
+        Map<String, CalendarEvent> removed = new LinkedHashMap<>(previous);
+        for (CalendarEvent event : current) {
+            CalendarEvent before = removed.remove(eventKey(event));
+            if (before == null) {
+                changes.add(new CalendarChange(CalendarChange.Type.ADDED, event));
+            } else if (!before.equals(event)) {
+                changes.add(new CalendarChange(CalendarChange.Type.UPDATED, event));
+            }
+        }
+        for (CalendarEvent event : removed.values()) {
+            changes.add(new CalendarChange(CalendarChange.Type.DELETED, event));
+        }
+        return changes;
+    }
+
+    static Map<String, CalendarEvent> index(List<CalendarEvent> events) {
+        Map<String, CalendarEvent> indexed = new LinkedHashMap<>();
+        for (CalendarEvent event : events) {
+            indexed.put(eventKey(event), event);
+        }
+        return indexed;
+    }
+
+    private static String eventKey(CalendarEvent event) {
+        return event.getCalendarId() + "/" + event.getId();
+    }
+
+    /**
+     * @param refresh true to reload events from Google Calendar, false to read cached events
+     */
+    private List<CalendarEvent> fetchEvents(OAuth2AuthorizedClient authorizedClient, List<String> calendarIds, int days,
+                                            boolean refresh) throws GeneralSecurityException, IOException {
+        String accessToken = authorizedClient.getAccessToken().getTokenValue();
+        Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
+        String refreshToken = authorizedClient.getRefreshToken() != null ?
+                authorizedClient.getRefreshToken().getTokenValue() : null;
+        List<List<CalendarEvent>> eventsPerCalendar = new ArrayList<>(calendarIds.size());
+        for (String calendarId : calendarIds) {
+            eventsPerCalendar.add(refresh
+                    ? calendarService.refreshCalendarEvents(accessToken, expiresAt, refreshToken, calendarId, days)
+                    : calendarService.getCalendarEvents(accessToken, expiresAt, refreshToken, calendarId, days));
+        }
+        return CalendarEventMerger.merge(eventsPerCalendar);
+    }
+
+    private void broadcast(Subscription subscription, SseEmitter.SseEventBuilder event) {
+        for (SseEmitter emitter : subscription.emitters) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping calendar change subscriber of user {}: {}", subscription.principalName, e.getMessage());
+                subscription.emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void completeAll(Subscription subscription) {
+        for (SseEmitter emitter : subscription.emitters) {
+            emitter.complete();
+        }
+        subscription.emitters.clear();
+    }
+
+    /**
+     * Subscribers watching the same calendars of the same user, with the last seen events.
+     */
+    private static final class Subscription {
+        private final String registrationId;
+        private final String principalName;
+        private final List<String> calendarIds;
+        private final int days;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private Map<String, CalendarEvent> snapshot;
+        /**
+         * Set when the subscription is dropped for having no emitters, so it is not joined anymore
+         */
+        private boolean closed;
+
+        private Subscription(String registrationId, String principalName, List<String> calendarIds, int days) {
+            this.registrationId = registrationId;
+            this.principalName = principalName;
+            this.calendarIds = calendarIds;
+            this.days = days;
+        }
+    }
+
+    /**
+     * Single change of a calendar event.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static final class CalendarChange {
+        private final Type type;
+        private final CalendarEvent event;
+
+        @Getter
+        @RequiredArgsConstructor
+        enum Type {
+            ADDED("added"),
+            UPDATED("updated"),
+            DELETED("deleted");
+
+            private final String eventName;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package pl.qprogramming.daily.service.calendar;
+
+import pl.qprogramming.daily.dto.CalendarEvent;
+import pl.qprogramming.daily.dto.CalendarEventStart;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Merges per-calendar event lists into a single list ordered by start time.
+ * <p>
+ * Ordering is the same as {@link CalendarEventComparator}: timed events first by start instant,
+ * then all-day events by date, then events without any start. Instead of comparing DTO date
+ * objects pairwise, every event is reduced to a single {@code long} sort key split into three bands,
+ * one for each of those groups, so that plain numeric comparison reproduces the comparator.
+ * </p>
+ * <p>
+ * Google returns each calendar already ordered by start time, but places all-day events between
+ * timed ones, which the comparator does not. Each list is therefore cut into its natural ascending
+ * runs and the runs are merged with a heap, giving {@code O(n log k)} for {@code k} runs.
+ * Events with equal keys keep the order they would have after concatenating the lists and
+ * sorting them stably.
+ * </p>
+ */
+public final class CalendarEventMerger {
+
+    private static final long BAND_HALF_WIDTH = 1L << 61;
+    private static final long TIMED_BAND_CENTER = Long.MIN_VALUE + BAND_HALF_WIDTH;
+    private static final long DATE_BAND_CENTER = Long.MIN_VALUE + (1L << 62) + BAND_HALF_WIDTH;
+    private static final long DATE_BAND_START = DATE_BAND_CENTER - BAND_HALF_WIDTH;
+    private static final int TIMED_BAND = 0;
+    private static final int DATE_BAND = 1;
+    private static final int NO_START_BAND = 2;
+    /**
+     * Sort key of events without a start, placed after every other event.
+     */
+    public static final long NO_START_KEY = Long.MAX_VALUE;
+
+    private CalendarEventMerger() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Sort key of a timed event.
+     *
+     * @param epochMilli start instant in milliseconds since epoch
+     * @return sort key within the timed band
+     */
+    public static long timedKey(long epochMilli) {
+        return TIMED_BAND_CENTER + clamp(epochMilli);
+    }
+
+    /**
+     * Sort key of an all-day event.
+     *
+     * @param epochDay start date as days since epoch
+     * @return sort key within the all-day band
+     */
+    public static long dateKey(long epochDay) {
+        return DATE_BAND_CENTER + clamp(epochDay);
+    }
+
+    /**
+     * Returns the sort key of an event, reusing the one computed by {@link CalendarMapper} when present.
+     *
+     * @param event calendar event
+     * @return sort key of the event
+     */
+    public static long sortKey(CalendarEvent event) {
+        if (event instanceof SortableCalendarEvent) {
+            return ((SortableCalendarEvent) event).getSortKey();
+        }
+        CalendarEventStart start = event.getStart();
+        if (start == null) {
+            return NO_START_KEY;
+        }
+        if (start.getDateTime() != null) {
+            return timedKey(start.getDateTime().toInstant().toEpochMilli());
+        }
+        if (start.getDate() != null) {
+            return dateKey(start.getDate().toEpochDay());
+        }
+        return NO_START_KEY;
+    }
+
+    /**
+     * Merges event lists into one list ordered by start time.
+     *
+     * @param eventLists event lists, one per calendar
+     * @return merged list of all events
+     */
+    public static List<CalendarEvent> merge(List<? extends List<? extends CalendarEvent>> eventLists) {
+        int total = 0;
+        for (List<? extends CalendarEvent> events : eventLists) {
+            total += events.size();
+        }
+        List<CalendarEvent> merged = new ArrayList<>(total);
+        PriorityQueue<Run> heap = new PriorityQueue<>(Math.max(1, eventLists.size()),
+                Comparator.comparingLong(Run::headKey).thenComparingInt(Run::ordinal));
+        int ordinal = 0;
+        for (List<? extends CalendarEvent> events : eventLists) {
+            int size = events.size();
+            if (size == 0) {
+                continue;
+            }
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = sortKey(events.get(i));
+            }
+            int runStart = 0;
+            for (int i = 1; i < size; i++) {
+                if (keys[i] < keys[i - 1]) {
+                    heap.add(new Run(events, keys, runStart, i, ordinal++));
+                    runStart = i;
+                }
+            }
+            heap.add(new Run(events, keys, runStart, size, ordinal++));
+        }
+        while (!heap.isEmpty()) {
+            Run run = heap.poll();
+            merged.add(run.next());
+            if (run.hasNext()) {
+                heap.add(run);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Merges paged event sources, handing each event to the sink as soon as ordering allows.
+     * <p>
+     * Within each of the three key bands Google already returns events in ascending order, so
+     * a source only needs to be read as far as its next event of the band being merged.
+     * Timed events are therefore emitted once every source delivered its first page, while
+     * all-day events and events without a start are held back until the timed ones are done.
+     * Apart from those, at most one page per source is kept in memory.
+     * </p>
+     *
+     * @param sources event sources, one per calendar
+     * @param sink    receiver of events in merged order
+     * @throws IOException If a source fails to fetch a page or the sink fails to write
+     */
+    public static void merge(List<? extends EventSource> sources, EventSink sink) throws IOException {
+        List<SourceCursor> cursors = new ArrayList<>(sources.size());
+        for (EventSource source : sources) {
+            cursors.add(new SourceCursor(source, cursors.size()));
+        }
+        for (int band = TIMED_BAND; band <= NO_START_BAND; band++) {
+            PriorityQueue<SourceCursor> heap = new PriorityQueue<>(Math.max(1, cursors.size()),
+                    Comparator.comparingLong(SourceCursor::headKey).thenComparingInt(SourceCursor::ordinal));
+            for (SourceCursor cursor : cursors) {
+                if (cursor.advanceTo(band)) {
+                    heap.add(cursor);
+                }
+            }
+            while (!heap.isEmpty()) {
+                SourceCursor cursor = heap.poll();
+                sink.accept(cursor.next(band));
+                if (cursor.advanceTo(band)) {
+                    heap.add(cursor);
+                }
+            }
+        }
+    }
+
+    private static int band(long key) {
+        if (key == NO_START_KEY) {
+            return NO_START_BAND;
+        }
+        return key < DATE_BAND_START ? TIMED_BAND : DATE_BAND;
+    }
+
+    private static long clamp(long value) {
+        return Math.max(-BAND_HALF_WIDTH, Math.min(BAND_HALF_WIDTH - 1, value));
+    }
+
+    /**
+     * Ascending slice of one calendar's events together with their precomputed keys.
+     */
+    private static final class Run {
+        private final List<? extends CalendarEvent> events;
+        private final long[] keys;
+        private final int end;
+        private final int ordinal;
+        private int position;
+
+        private Run(List<? extends CalendarEvent> events, long[] keys, int start, int end, int ordinal) {
+            this.events = events;
+            this.keys = keys;
+            this.position = start;
+            this.end = end;
+            this.ordinal = ordinal;
+        }
+
+        private long headKey() {
+            return keys[position];
+        }
+
+        private int ordinal() {
+            return ordinal;
+        }
+
+        private boolean hasNext() {
+            return position < end;
+        }
+
+        private CalendarEvent next() {
+            return events.get(position++);
+        }
+    }
+
+    /**
+     * Source of events delivered one page at a time, in Google's start time order.
+     */
+    public interface EventSource {
+
+        /**
+         * @return next page of events, or null when there are no more pages
+         * @throws IOException If the page cannot be fetched
+         */
+        List<? extends CalendarEvent> nextPage() throws IOException;
+    }
+
+    /**
+     * Receiver of merged events.
+     */
+    @FunctionalInterface
+    public interface EventSink {
+
+        void accept(CalendarEvent event) throws IOException;
+    }
+
+    /**
+     * Reading position within one source, with events sorted into per-band queues as pages arrive.
+     */
+    private static final class SourceCursor {
+        private final EventSource source;
+        private final int ordinal;
+        private final List<ArrayDeque<CalendarEvent>> pending = List.of(
+                new ArrayDeque<>(), new ArrayDeque<>(), new ArrayDeque<>());
+        private boolean exhausted;
+        private long headKey;
+
+        private SourceCursor(EventSource source, int ordinal) {
+            this.source = source;
+            this.ordinal = ordinal;
+        }
+
+        /**
+         * Fetches pages until an event of the band is available.
+         *
+         * @return false when the source holds no more events of the band
+         */
+        private boolean advanceTo(int band) throws IOException {
+            ArrayDeque<CalendarEvent> queue = pending.get(band);
+            while (queue.isEmpty() && !exhausted) {
+                List<? extends CalendarEvent> page = source.nextPage();
+                if (page == null) {
+                    exhausted = true;
+                } else {
+                    for (CalendarEvent event : page) {
+                        pending.get(band(sortKey(event))).add(event);
+                    }
+                }
+            }
+            if (queue.isEmpty()) {
+                return false;
+            }
+            headKey = sortKey(queue.peek());
+            return true;
+        }
+
+        private CalendarEvent next(int band) {
+            return pending.get(band).poll();
+        }
+
+        private long headKey() {
+            return headKey;
+        }
+
+        private int ordinal() {
+            return ordinal;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package pl.qprogramming.daily.service.calendar;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import lombok.val;
+import pl.qprogramming.daily.dto.CalendarEvent;
+import pl.qprogramming.daily.metrics.MappingEvent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static pl.qprogramming.daily.service.calendar.CalendarService.EVENTS_FIELDS;
+import static pl.qprogramming.daily.service.calendar.CalendarService.EVENTS_MAX_RESULTS;
+
+/**
+ * Fetches events of a single calendar one page at a time.
+ * <p>
+ * Each call to {@link #nextPage()} issues one Google Calendar request and maps its items,
+ * so callers can process events without waiting for, or holding, the whole time range.
+ * </p>
+ */
+public class CalendarEventPager implements CalendarEventMerger.EventSource {
+
+    private final Calendar calendarClient;
+    private final CalendarMapper calendarMapper;
+    private final String calendarId;
+    private final DateTime timeMin;
+    private final DateTime timeMax;
+    private String pageToken;
+    private boolean exhausted;
+
+    CalendarEventPager(Calendar calendarClient, CalendarMapper calendarMapper, String calendarId,
+                       DateTime timeMin, DateTime timeMax) {
+        this.calendarClient = calendarClient;
+        this.calendarMapper = calendarMapper;
+        this.calendarId = calendarId;
+        this.timeMin = timeMin;
+        this.timeMax = timeMax;
+    }
+
+    /**
+     * Fetches and maps the next page of events.
+     *
+     * @return events of the next page, or null once all pages were fetched
+     * @throws IOException If there's an I/O error during the API call
+     */
+    @Override
+    public List<CalendarEvent> nextPage() throws IOException {
+        if (exhausted) {
+            return null;
+        }
+        val events = calendarClient.events().list(calendarId)
+                .setTimeMin(timeMin)
+                .setTimeMax(timeMax)
+                .setOrderBy("startTime")
+                .setSingleEvents(true)
+                .setFields(EVENTS_FIELDS)
+                .setMaxResults(EVENTS_MAX_RESULTS)
+                .setPageToken(pageToken)
+                .execute();
+        pageToken = events.getNextPageToken();
+        exhausted = pageToken == null;
+        if (events.getItems() == null) {
+            return List.of();
+        }
+        return MappingEvent.time("CalendarMapper.toDto", () -> events.getItems()
+                .stream()
+                .map(event -> calendarMapper.toDto(event, calendarId))
+                .collect(Collectors.toList()));
+    }
+}
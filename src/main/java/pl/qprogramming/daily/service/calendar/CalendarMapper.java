@@ -3,6 +3,8 @@ package pl.qprogramming.daily.service.calendar;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.model.CalendarListEntry;
 import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -21,16 +23,20 @@ public interface CalendarMapper {
     @Mapping(target = "color", source = "backgroundColor")
     Calendar toDto(CalendarListEntry entry);
 
+    @BeanMapping(resultType = SortableCalendarEvent.class)
     @Mapping(target = "start.dateTime", source = "start.dateTime", qualifiedByName = "dateTimeToOffsetDateTime")
     @Mapping(target = "end.dateTime", source = "end.dateTime", qualifiedByName = "dateTimeToOffsetDateTime")
     @Mapping(target = "start.date", source = "start.date", qualifiedByName = "dateTimeToLocalDate")
     @Mapping(target = "end.date", source = "end.date", qualifiedByName = "dateTimeToLocalDate")
+    @Mapping(target = "sortKey", source = "start", qualifiedByName = "eventStartToSortKey")
     CalendarEvent toDto(Event event);
 
+    @BeanMapping(resultType = SortableCalendarEvent.class)
     @Mapping(target = "start.dateTime", source = "event.start.dateTime", qualifiedByName = "dateTimeToOffsetDateTime")
     @Mapping(target = "end.dateTime", source = "event.end.dateTime", qualifiedByName = "dateTimeToOffsetDateTime")
     @Mapping(target = "start.date", source = "event.start.date", qualifiedByName = "dateTimeToLocalDate")
     @Mapping(target = "end.date", source = "event.end.date", qualifiedByName = "dateTimeToLocalDate")
+    @Mapping(target = "sortKey", source = "event.start", qualifiedByName = "eventStartToSortKey")
     @Mapping(target = "calendarId", source = "calendarId")
     CalendarEvent toDto(Event event, String calendarId);
 
@@ -62,4 +68,30 @@ public interface CalendarMapper {
         // For date-only values, Google's DateTime toStringRfc3339() returns YYYY-MM-DD.
         return LocalDate.parse(dateTime.toStringRfc3339().substring(0, 10));
     }
+
+    /**
+     * Computes the primitive sort key of an event start, used by {@link CalendarEventMerger}.
+     * <p>
+     * Reads the epoch milliseconds held by Google's DateTime directly, so no date objects
+     * are parsed to order events.
+     * </p>
+     *
+     * @param start Google Calendar event start
+     * @return sort key of the event
+     */
+    @Named("eventStartToSortKey")
+    default long eventStartToSortKey(EventDateTime start) {
+        if (start == null) {
+            return CalendarEventMerger.NO_START_KEY;
+        }
+        if (start.getDateTime() != null) {
+            return CalendarEventMerger.timedKey(start.getDateTime().getValue());
+        }
+        if (start.getDate() != null) {
+            DateTime date = start.getDate();
+            long localMillis = date.getValue() + date.getTimeZoneShift() * 60_000L;
+            return CalendarEventMerger.dateKey(Math.floorDiv(localMillis, 86_400_000L));
+        }
+        return CalendarEventMerger.NO_START_KEY;
+    }
 }
@@ -1,11 +1,9 @@
 package pl.qprogramming.daily.service.calendar;
 
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.CalendarListEntry;
-import com.google.api.services.calendar.model.Event;
 import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
@@ -14,11 +12,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.GoogleCalendarConfig;
 import pl.qprogramming.daily.dto.CalendarEvent;
+import pl.qprogramming.daily.metrics.TimedHttpRequestInitializer;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
 
 import java.io.IOException;
+import java.net.URI;
 import java.security.GeneralSecurityException;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -26,7 +30,6 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static pl.qprogramming.daily.config.CacheConfig.CacheNames;
 
@@ -43,6 +46,23 @@ import static pl.qprogramming.daily.config.CacheConfig.CacheNames;
 @RequiredArgsConstructor
 public class CalendarService {
 
+    /**
+     * Partial response mask for calendar list requests, limited to what {@link CalendarMapper} reads.
+     */
+    static final String CALENDAR_LIST_FIELDS =
+            "nextPageToken,items(id,summary,description,timeZone,primary,backgroundColor)";
+
+    /**
+     * Partial response mask for event list requests, limited to what {@link CalendarMapper} reads.
+     */
+    static final String EVENTS_FIELDS =
+            "nextPageToken,items(id,summary,description,location,htmlLink,"
+                    + "start(date,dateTime,timeZone),end(date,dateTime,timeZone))";
+
+    // Largest page sizes accepted by the Google Calendar API
+    static final int CALENDAR_LIST_MAX_RESULTS = 250;
+    static final int EVENTS_MAX_RESULTS = 2500;
+
     @Value("${spring.application.name}")
     private String applicationName;
 
@@ -52,7 +72,13 @@ public class CalendarService {
     @Value("${spring.security.oauth2.client.registration.google.client-secret}")
     private String clientSecret;
 
+    @Value("${spring.security.oauth2.client.provider.google.token-uri:https://oauth2.googleapis.com/token}")
+    private String tokenUri;
+
     private final CalendarMapper calendarMapper;
+    private final GoogleCalendarConfig googleCalendarConfig;
+    private final UpstreamMetrics upstreamMetrics;
+    private final UpstreamCapture upstreamCapture;
 
     /**
      * Creates a Google Calendar client with the provided access token.
@@ -82,6 +108,7 @@ public class CalendarService {
                     .setClientSecret(clientSecret)
                     .setAccessToken(new AccessToken(accessToken, expirationTime))
                     .setRefreshToken(refreshToken)
+                    .setTokenServerUri(URI.create(tokenUri))
                     .build();
             log.debug("Created UserCredentials with refresh token capabilities");
         } else {
@@ -90,12 +117,13 @@ public class CalendarService {
             log.debug("Created simple GoogleCredentials without refresh capabilities");
         }
 
-        val requestInitializer = new HttpCredentialsAdapter(credentials);
+        val requestInitializer = new TimedHttpRequestInitializer(new HttpCredentialsAdapter(credentials), upstreamMetrics);
         return new Calendar.Builder(
-                GoogleNetHttpTransport.newTrustedTransport(),
+                upstreamCapture.googleTransport(),
                 GsonFactory.getDefaultInstance(),
                 requestInitializer)
                 .setApplicationName(applicationName)
+                .setRootUrl(googleCalendarConfig.getRootUrl())
                 .build();
     }
 
@@ -104,6 +132,7 @@ public class CalendarService {
      * <p>
      * This method returns all calendar entries that the user has access to, including
      * primary calendar, secondary calendars, and shared calendars.
+     * Only the fields consumed by {@link CalendarMapper} are requested.
      * Results are cached for 5 minutes to reduce API calls.
      * </p>
      *
@@ -118,8 +147,21 @@ public class CalendarService {
     public List<CalendarListEntry> getCalendarList(String accessToken, Instant expiresAt, String refreshToken) throws GeneralSecurityException, IOException {
         log.debug("Fetching calendar list for access token: {}", accessToken);
         val calendarClient = createCalendarClient(accessToken, expiresAt, refreshToken);
-        val calendarList = calendarClient.calendarList().list().execute();
-        return calendarList.getItems();
+        val allEntries = new ArrayList<CalendarListEntry>();
+        String pageToken = null;
+
+        do {
+            val calendarList = calendarClient.calendarList().list()
+                    .setFields(CALENDAR_LIST_FIELDS)
+                    .setMaxResults(CALENDAR_LIST_MAX_RESULTS)
+                    .setPageToken(pageToken)
+                    .execute();
+            if (calendarList.getItems() != null) {
+                allEntries.addAll(calendarList.getItems());
+            }
+            pageToken = calendarList.getNextPageToken();
+        } while (pageToken != null);
+        return allEntries;
     }
 
     /**
@@ -128,7 +170,8 @@ public class CalendarService {
      * This method fetches all events from the specified calendar that fall within
      * the time range from now until the specified number of days in the future.
      * Events are ordered by start time and returned as a list. Pagination is handled
-     * automatically to ensure all matching events are retrieved.
+     * automatically to ensure all matching events are retrieved, using the largest page size
+     * and requesting only the fields consumed by {@link CalendarMapper}.
      * Results are cached for 5 minutes to reduce API calls.
      * </p>
      *
@@ -144,6 +187,59 @@ public class CalendarService {
     @Cacheable(value = CacheNames.CALENDAR_EVENTS, key = "#accessToken + '-' + #calendarId + '-' + #days", cacheManager = "calendarCacheManager")
     public List<CalendarEvent> getCalendarEvents(String accessToken, Instant expiresAt, String refreshToken, String calendarId, int days) throws GeneralSecurityException, IOException {
         log.debug("Fetching calendar events for access token: {}, calendarId: {}, days: {}", accessToken, calendarId, days);
+        return fetchCalendarEvents(accessToken, expiresAt, refreshToken, calendarId, days);
+    }
+
+    /**
+     * Fetches calendar events like {@link #getCalendarEvents}, always calling Google and replacing the cached entry.
+     * <p>
+     * Used by the background sync to keep the cache warm, so the entry is fresh again for its full
+     * lifetime instead of expiring shortly after the user arrives.
+     * </p>
+     *
+     * @param accessToken  OAuth2 access token for Google Calendar API
+     * @param expiresAt    Token's expiration time
+     * @param refreshToken OAuth2 refresh token (optional)
+     * @param calendarId   ID of the calendar to retrieve events from
+     * @param days         Number of days ahead to fetch events for
+     * @return List of calendar events within the specified time range
+     * @throws GeneralSecurityException If there's a security-related error
+     * @throws IOException              If there's an I/O error during the API call
+     */
+    @CachePut(value = CacheNames.CALENDAR_EVENTS, key = "#accessToken + '-' + #calendarId + '-' + #days", cacheManager = "calendarCacheManager")
+    public List<CalendarEvent> refreshCalendarEvents(String accessToken, Instant expiresAt, String refreshToken, String calendarId, int days) throws GeneralSecurityException, IOException {
+        log.debug("Refreshing calendar events for calendarId: {}, days: {}", calendarId, days);
+        return fetchCalendarEvents(accessToken, expiresAt, refreshToken, calendarId, days);
+    }
+
+    private List<CalendarEvent> fetchCalendarEvents(String accessToken, Instant expiresAt, String refreshToken, String calendarId, int days) throws GeneralSecurityException, IOException {
+        val pager = openCalendarEvents(accessToken, expiresAt, refreshToken, calendarId, days);
+        val allEvents = new ArrayList<CalendarEvent>();
+        List<CalendarEvent> page;
+        while ((page = pager.nextPage()) != null) {
+            allEvents.addAll(page);
+        }
+        return allEvents;
+    }
+
+    /**
+     * Opens a page-by-page reader over calendar events for a specific calendar.
+     * <p>
+     * Uses the same time range, ordering and field mask as {@link #getCalendarEvents}, but fetches
+     * pages only when asked and bypasses the cache, so streaming callers never hold the whole
+     * result in memory.
+     * </p>
+     *
+     * @param accessToken  OAuth2 access token for Google Calendar API
+     * @param expiresAt    Token's expiration time
+     * @param refreshToken OAuth2 refresh token (optional)
+     * @param calendarId   ID of the calendar to retrieve events from
+     * @param days         Number of days ahead to fetch events for
+     * @return pager returning mapped events one page at a time
+     * @throws GeneralSecurityException If there's a security-related error
+     * @throws IOException              If there's an I/O error during client creation
+     */
+    public CalendarEventPager openCalendarEvents(String accessToken, Instant expiresAt, String refreshToken, String calendarId, int days) throws GeneralSecurityException, IOException {
         Calendar calendarClient = createCalendarClient(accessToken, expiresAt, refreshToken);
         val now = LocalDateTime.now();
         // Set endDate to the end of the last day (23:59:59) to include all events on that day
@@ -151,23 +247,6 @@ public class CalendarService {
         val startDateTime = new DateTime(Date.from(now.atZone(ZoneId.systemDefault()).toInstant()));
         val endDateTime = new DateTime(Date.from(endDate.atZone(ZoneId.systemDefault()).toInstant()));
         log.debug("Fetching events from {} to {}", startDateTime, endDate);
-        val allEvents = new ArrayList<Event>();
-        String pageToken = null;
-
-        do {
-            val events = calendarClient.events().list(calendarId)
-                    .setTimeMin(startDateTime)
-                    .setTimeMax(endDateTime)
-                    .setOrderBy("startTime")
-                    .setSingleEvents(true)
-                    .setPageToken(pageToken)
-                    .execute();
-            allEvents.addAll(events.getItems());
-            pageToken = events.getNextPageToken();
-        } while (pageToken != null);
-        return allEvents
-                .stream()
-                .map(event -> calendarMapper.toDto(event, calendarId))
-                .collect(Collectors.toList());
+        return new CalendarEventPager(calendarClient, calendarMapper, calendarId, startDateTime, endDateTime);
     }
 }
@@ -0,0 +1,171 @@
+package pl.qprogramming.daily.service.calendar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.stereotype.Service;
+import pl.qprogramming.daily.config.CacheConfig;
+import pl.qprogramming.daily.config.CalendarSyncConfig;
+import pl.qprogramming.daily.config.OAuth2TokenConfig;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background synchronization of stored users' calendars.
+ * <p>
+ * Periodically walks the authorized clients stored in the {@code oauth2_authorized_client} table,
+ * picks users who usually open the dashboard around this time (see {@link CalendarUsageTracker}),
+ * refreshes their access tokens when needed and re-fetches the calendars they last requested
+ * into the events cache. Interactive requests then find their data already cached. The cache is
+ * keyed by access token, so users whose token is refreshed ahead of expiry before the warmed
+ * entries expire are skipped until the next run, when they hold the new token.
+ * </p>
+ * <p>
+ * Enabled with {@code calendar.sync.enabled=true}. Work is spread over
+ * {@code calendar.sync.concurrency} threads and limited to {@code calendar.sync.max-calls-per-run}
+ * Google Calendar calls per run to stay within the API quota.
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "calendar.sync", name = "enabled", havingValue = "true")
+public class CalendarSyncService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OAuth2AuthorizedClientManager authorizedClientManager;
+    private final CalendarService calendarService;
+    private final CalendarUsageTracker usageTracker;
+    private final CalendarSyncConfig config;
+    private final OAuth2TokenConfig tokenConfig;
+    private final ExecutorService executor;
+
+    public CalendarSyncService(JdbcTemplate jdbcTemplate,
+                               OAuth2AuthorizedClientManager authorizedClientManager,
+                               CalendarService calendarService,
+                               CalendarUsageTracker usageTracker,
+                               CalendarSyncConfig config,
+                               OAuth2TokenConfig tokenConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.authorizedClientManager = authorizedClientManager;
+        this.calendarService = calendarService;
+        this.usageTracker = usageTracker;
+        this.config = config;
+        this.tokenConfig = tokenConfig;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, config.getConcurrency()));
+        log.info("Calendar background sync enabled with concurrency: {}, max calls per run: {}",
+                config.getConcurrency(), config.getMaxCallsPerRun());
+    }
+
+    /**
+     * Runs one synchronization pass over all stored users.
+     */
+    @Scheduled(fixedDelayString = "${calendar.sync.interval-ms:240000}",
+            initialDelayString = "${calendar.sync.initial-delay-ms:60000}")
+    public void syncCalendars() {
+        usageTracker.flush();
+        List<CalendarUsage> due = findDueUsers(ZonedDateTime.now());
+        AtomicInteger budget = new AtomicInteger(config.getMaxCallsPerRun());
+        List<Future<Boolean>> results = new ArrayList<>(due.size());
+        for (CalendarUsage usage : due) {
+            results.add(executor.submit(() -> syncUser(usage, budget)));
+        }
+        int synced = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (Boolean.TRUE.equals(result.get())) {
+                    synced++;
+                }
+            } catch (ExecutionException e) {
+                log.warn("Calendar sync task failed: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        log.debug("Calendar sync finished: {} users due, {} synced, {} calls left in budget",
+                due.size(), synced, Math.max(0, budget.get()));
+    }
+
+    /**
+     * Selects stored users who were active recently and usually visit within the lead time.
+     *
+     * @param now current time
+     * @return usage of users whose calendars should be warmed
+     */
+    List<CalendarUsage> findDueUsers(ZonedDateTime now) {
+        Instant activeSince = now.toInstant().minus(Duration.ofDays(config.getActiveDays()));
+        List<CalendarUsage> due = new ArrayList<>();
+        jdbcTemplate.query("SELECT client_registration_id, principal_name FROM oauth2_authorized_client", rs -> {
+            CalendarUsage usage = usageTracker.getUsage(rs.getString("client_registration_id"), rs.getString("principal_name"));
+            if (usage != null
+                    && usage.getLastVisitAt() != null
+                    && usage.getLastVisitAt().isAfter(activeSince)
+                    && usage.isUsuallyActive(now, config.getLeadMinutes())) {
+                due.add(usage);
+            }
+        });
+        return due;
+    }
+
+    /**
+     * Refreshes the user's token if needed and re-fetches their calendars into the cache.
+     *
+     * @param usage  usage of the user to synchronize
+     * @param budget remaining Google Calendar calls of this run
+     * @return true if the user's calendars were refreshed
+     */
+    boolean syncUser(CalendarUsage usage, AtomicInteger budget) {
+        List<String> calendarIds = usage.getCalendarIds();
+        if (budget.addAndGet(-calendarIds.size()) < 0) {
+            log.debug("Calendar sync budget exhausted, skipping user: {}", usage.getPrincipalName());
+            return false;
+        }
+        OAuth2AuthorizeRequest request = OAuth2AuthorizeRequest
+                .withClientRegistrationId(usage.getClientRegistrationId())
+                .principal(usage.getPrincipalName())
+                .build();
+        OAuth2AuthorizedClient authorizedClient = authorizedClientManager.authorize(request);
+        if (authorizedClient == null) {
+            log.debug("No authorized client for user: {}", usage.getPrincipalName());
+            return false;
+        }
+        String accessToken = authorizedClient.getAccessToken().getTokenValue();
+        Instant expiresAt = authorizedClient.getAccessToken().getExpiresAt();
+        if (expiresAt != null && expiresAt.isBefore(Instant.now()
+                .plus(CacheConfig.CALENDAR_TIME_TO_LIVE)
+                .plus(Duration.ofMinutes(tokenConfig.getRefreshLeadMinutes())))) {
+            log.debug("Access token of user {} is replaced before warmed calendars expire, skipping", usage.getPrincipalName());
+            budget.addAndGet(calendarIds.size());
+            return false;
+        }
+        String refreshToken = authorizedClient.getRefreshToken() != null ?
+                authorizedClient.getRefreshToken().getTokenValue() : null;
+        for (String calendarId : calendarIds) {
+            try {
+                calendarService.refreshCalendarEvents(accessToken, expiresAt, refreshToken, calendarId, usage.getDays());
+            } catch (Exception e) {
+                log.warn("Error syncing calendar {} for user {}: {}", calendarId, usage.getPrincipalName(), e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
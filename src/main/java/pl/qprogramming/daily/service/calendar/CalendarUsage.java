@@ -0,0 +1,78 @@
+package pl.qprogramming.daily.service.calendar;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Calendar usage of a single user, used to warm their data before they usually open the dashboard.
+ * <p>
+ * Remembers the calendars and number of days last requested, and counts visits per hour of day
+ * (at most one per clock hour) in the server time zone.
+ * </p>
+ */
+@Getter
+public class CalendarUsage {
+
+    static final int HOURS_PER_DAY = 24;
+
+    private final String clientRegistrationId;
+    private final String principalName;
+    private volatile List<String> calendarIds;
+    private volatile int days;
+    private volatile Instant lastVisitAt;
+    private final AtomicIntegerArray hourlyVisits;
+
+    CalendarUsage(String clientRegistrationId, String principalName, List<String> calendarIds, int days,
+                  Instant lastVisitAt, int[] hourlyVisits) {
+        this.clientRegistrationId = clientRegistrationId;
+        this.principalName = principalName;
+        this.calendarIds = calendarIds;
+        this.days = days;
+        this.lastVisitAt = lastVisitAt;
+        this.hourlyVisits = new AtomicIntegerArray(hourlyVisits);
+    }
+
+    /**
+     * Records a dashboard visit, counting it towards its hour of day once per clock hour.
+     *
+     * @param calendarIds calendars requested
+     * @param days        number of days requested
+     * @param now         time of the visit
+     */
+    synchronized void recordVisit(List<String> calendarIds, int days, Instant now) {
+        this.calendarIds = List.copyOf(calendarIds);
+        this.days = days;
+        Instant previous = lastVisitAt;
+        if (previous == null || !previous.truncatedTo(ChronoUnit.HOURS).equals(now.truncatedTo(ChronoUnit.HOURS))) {
+            hourlyVisits.incrementAndGet(now.atZone(ZoneId.systemDefault()).getHour());
+        }
+        this.lastVisitAt = now;
+    }
+
+    /**
+     * Checks whether the user usually visits in the hour of the given time or the hour
+     * reached after the lead time.
+     *
+     * @param now         current time
+     * @param leadMinutes how far ahead to look for a usual visit
+     * @return true if the user's data should be warmed now
+     */
+    boolean isUsuallyActive(ZonedDateTime now, int leadMinutes) {
+        return hourlyVisits.get(now.getHour()) > 0
+                || hourlyVisits.get(now.plusMinutes(leadMinutes).getHour()) > 0;
+    }
+
+    int[] hourlyVisitsSnapshot() {
+        int[] snapshot = new int[HOURS_PER_DAY];
+        for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+            snapshot[hour] = hourlyVisits.get(hour);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,155 @@
+package pl.qprogramming.daily.service.calendar;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of which calendars users request and at what time of day.
+ * <p>
+ * Visits are recorded in memory on the request path and written to the {@code calendar_usage}
+ * table only when {@link #flush()} is called by the background sync, so dashboard requests
+ * never wait on the database. Stored usage is loaded back when the application starts.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CalendarUsageTracker {
+
+    private static final String CALENDAR_ID_SEPARATOR = "\n";
+    /**
+     * Length of the {@code calendar_ids} column
+     */
+    static final int MAX_CALENDAR_IDS_LENGTH = 4000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, CalendarUsage> usages = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Records that a user requested events of the given calendars.
+     *
+     * @param clientRegistrationId OAuth2 client registration of the user
+     * @param principalName        name of the user
+     * @param calendarIds          calendars requested
+     * @param days                 number of days requested
+     */
+    public void recordVisit(String clientRegistrationId, String principalName, List<String> calendarIds, int days) {
+        String key = key(clientRegistrationId, principalName);
+        usages.computeIfAbsent(key, k -> new CalendarUsage(clientRegistrationId, principalName,
+                        calendarIds, days, null, new int[CalendarUsage.HOURS_PER_DAY]))
+                .recordVisit(calendarIds, days, Instant.now());
+        dirty.add(key);
+    }
+
+    /**
+     * Returns recorded usage of a user.
+     *
+     * @param clientRegistrationId OAuth2 client registration of the user
+     * @param principalName        name of the user
+     * @return usage or null if the user never requested events
+     */
+    public CalendarUsage getUsage(String clientRegistrationId, String principalName) {
+        return usages.get(key(clientRegistrationId, principalName));
+    }
+
+    /**
+     * Loads stored usage when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            jdbcTemplate.query("SELECT client_registration_id, principal_name, calendar_ids, days, hourly_visits, last_visit_at "
+                    + "FROM calendar_usage", rs -> {
+                CalendarUsage usage = new CalendarUsage(
+                        rs.getString("client_registration_id"),
+                        rs.getString("principal_name"),
+                        Arrays.stream(rs.getString("calendar_ids").split(CALENDAR_ID_SEPARATOR))
+                                .filter(calendarId -> !calendarId.isEmpty())
+                                .collect(Collectors.toList()),
+                        rs.getInt("days"),
+                        rs.getTimestamp("last_visit_at").toInstant(),
+                        Arrays.stream(rs.getString("hourly_visits").split(",")).mapToInt(Integer::parseInt).toArray());
+                usages.putIfAbsent(key(usage.getClientRegistrationId(), usage.getPrincipalName()), usage);
+            });
+            log.debug("Loaded calendar usage of {} users", usages.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load stored calendar usage: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writes usage recorded since the last flush to the database. Users whose usage could not be
+     * written are written again by the next flush.
+     */
+    public void flush() {
+        List<String> keys = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (String key : new ArrayList<>(dirty)) {
+            dirty.remove(key);
+            CalendarUsage usage = usages.get(key);
+            if (usage == null) {
+                continue;
+            }
+            keys.add(key);
+            rows.add(new Object[]{
+                    usage.getClientRegistrationId(),
+                    usage.getPrincipalName(),
+                    joinCalendarIds(usage.getCalendarIds()),
+                    usage.getDays(),
+                    Arrays.stream(usage.hourlyVisitsSnapshot()).mapToObj(String::valueOf).collect(Collectors.joining(",")),
+                    Timestamp.from(usage.getLastVisitAt())
+            });
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("MERGE INTO calendar_usage "
+                    + "(client_registration_id, principal_name, calendar_ids, days, hourly_visits, last_visit_at) "
+                    + "KEY (client_registration_id, principal_name) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            log.debug("Stored calendar usage of {} users", rows.size());
+        } catch (DataAccessException e) {
+            dirty.addAll(keys);
+            log.warn("Could not store calendar usage of {} users: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Joins calendar ids to fit the {@code calendar_ids} column, leaving out ids past its length.
+     * Only leftover calendars are then not warmed; they are still fetched when requested.
+     */
+    static String joinCalendarIds(List<String> calendarIds) {
+        StringBuilder joined = new StringBuilder();
+        for (String calendarId : calendarIds) {
+            int length = joined.length() + (joined.length() > 0 ? CALENDAR_ID_SEPARATOR.length() : 0) + calendarId.length();
+            if (length > MAX_CALENDAR_IDS_LENGTH) {
+                break;
+            }
+            if (joined.length() > 0) {
+                joined.append(CALENDAR_ID_SEPARATOR);
+            }
+            joined.append(calendarId);
+        }
+        return joined.toString();
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + "/" + principalName;
+    }
+}
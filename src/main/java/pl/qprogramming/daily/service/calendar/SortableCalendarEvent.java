@@ -0,0 +1,29 @@
+package pl.qprogramming.daily.service.calendar;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import pl.qprogramming.daily.dto.CalendarEvent;
+
+/**
+ * Calendar event DTO carrying a precomputed primitive sort key.
+ * <p>
+ * The key is computed once by {@link CalendarMapper} when the Google event is converted,
+ * so merging events from several calendars compares plain longs instead of walking
+ * {@code OffsetDateTime}/{@code LocalDate} values on every comparison.
+ * The key is never serialized to API clients.
+ * </p>
+ */
+public class SortableCalendarEvent extends CalendarEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private long sortKey;
+
+    @JsonIgnore
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    public void setSortKey(long sortKey) {
+        this.sortKey = sortKey;
+    }
+}
@@ -0,0 +1,124 @@
+package pl.qprogramming.daily.service.weather;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import pl.qprogramming.daily.config.AccuWeatherConfig;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation.AccuWeatherAdministrativeArea;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation.AccuWeatherCountry;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation.AccuWeatherGeoPosition;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AccuWeather locations resolved so far, by coordinate cell.
+ * <p>
+ * The location key of a geoposition practically never changes, so each cell of
+ * {@code accuweather.location-cell-degrees} is resolved once and kept in the
+ * {@code accuweather_location} table. All stored locations are loaded into memory when the
+ * application starts, so later lookups never wait on the database or the location API. Rows
+ * record the cell size they were keyed with, and rows of another size are left out, since their
+ * cells cover other coordinates; they are replaced as their cells are resolved again.
+ * </p>
+ */
+@Slf4j
+@Component
+public class AccuWeatherLocationIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double cellDegrees;
+    private final Map<Long, AccuWeatherLocation> locations = new ConcurrentHashMap<>();
+
+    public AccuWeatherLocationIndex(JdbcTemplate jdbcTemplate, AccuWeatherConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cellDegrees = config.getLocationCellDegrees();
+    }
+
+    /**
+     * Returns the location resolved for the cell of the given coordinates.
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @return location or null if none was resolved in the cell
+     */
+    public AccuWeatherLocation find(double latitude, double longitude) {
+        return locations.get(cell(cell(latitude), cell(longitude)));
+    }
+
+    /**
+     * Stores the location resolved for the given coordinates for their whole cell.
+     *
+     * @param latitude  latitude the location was resolved for
+     * @param longitude longitude the location was resolved for
+     * @param location  location returned by the location API
+     */
+    public void store(double latitude, double longitude, AccuWeatherLocation location) {
+        if (location == null || location.getKey() == null) {
+            return;
+        }
+        int cellLat = cell(latitude);
+        int cellLon = cell(longitude);
+        locations.put(cell(cellLat, cellLon), location);
+        try {
+            jdbcTemplate.update("MERGE INTO accuweather_location "
+                            + "(cell_lat, cell_lon, location_key, localized_name, country, administrative_area, latitude, longitude, "
+                            + "resolved_at, cell_degrees) KEY (cell_lat, cell_lon) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    cellLat, cellLon, location.getKey(), location.getLocalizedName(),
+                    location.getCountry() != null ? location.getCountry().getLocalizedName() : null,
+                    location.getAdministrativeArea() != null ? location.getAdministrativeArea().getLocalizedName() : null,
+                    location.getGeoPosition() != null ? location.getGeoPosition().getLatitude() : latitude,
+                    location.getGeoPosition() != null ? location.getGeoPosition().getLongitude() : longitude,
+                    Timestamp.from(Instant.now()), cellDegrees);
+        } catch (DataAccessException e) {
+            log.warn("Could not store AccuWeather location {}: {}", location.getKey(), e.getMessage());
+        }
+    }
+
+    /**
+     * Loads stored locations when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            jdbcTemplate.query("SELECT cell_lat, cell_lon, location_key, localized_name, country, administrative_area, "
+                    + "latitude, longitude FROM accuweather_location WHERE cell_degrees = ?", rs -> {
+                AccuWeatherLocation location = new AccuWeatherLocation();
+                location.setKey(rs.getString("location_key"));
+                location.setLocalizedName(rs.getString("localized_name"));
+                if (rs.getString("country") != null) {
+                    AccuWeatherCountry country = new AccuWeatherCountry();
+                    country.setLocalizedName(rs.getString("country"));
+                    location.setCountry(country);
+                }
+                if (rs.getString("administrative_area") != null) {
+                    AccuWeatherAdministrativeArea area = new AccuWeatherAdministrativeArea();
+                    area.setLocalizedName(rs.getString("administrative_area"));
+                    location.setAdministrativeArea(area);
+                }
+                AccuWeatherGeoPosition geoPosition = new AccuWeatherGeoPosition();
+                geoPosition.setLatitude(rs.getDouble("latitude"));
+                geoPosition.setLongitude(rs.getDouble("longitude"));
+                location.setGeoPosition(geoPosition);
+                locations.putIfAbsent(cell(rs.getInt("cell_lat"), rs.getInt("cell_lon")), location);
+            }, cellDegrees);
+            log.debug("Loaded {} AccuWeather locations", locations.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not load stored AccuWeather locations: {}", e.getMessage());
+        }
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long cell(int cellLat, int cellLon) {
+        return ((long) cellLat << 32) | (cellLon & 0xFFFFFFFFL);
+    }
+}
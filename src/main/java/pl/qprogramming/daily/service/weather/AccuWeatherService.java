@@ -6,8 +6,16 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import pl.qprogramming.daily.cache.NearbyCache;
+import pl.qprogramming.daily.capture.UpstreamCapture;
 import pl.qprogramming.daily.config.AccuWeatherConfig;
 import pl.qprogramming.daily.dto.WeatherForecast;
+import pl.qprogramming.daily.metrics.MappingEvent;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.metrics.UpstreamMetricsInterceptor;
+import pl.qprogramming.daily.quota.QuotaExceededException;
+import pl.qprogramming.daily.quota.UpstreamQuota;
+import pl.qprogramming.daily.quota.UpstreamQuotaInterceptor;
 import pl.qprogramming.daily.service.weather.mapper.AccuWeatherMapper;
 import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherCurrentConditions;
 import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherDailyForecast;
@@ -28,40 +36,72 @@ import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
  *     <li>Daily forecast - get daily weather forecasts</li>
  *     <li>Hourly forecast - get hourly weather forecasts</li>
  * </ul>
- * Methods use caching to minimize API calls and improve performance.
+ * Methods use caching to minimize API calls and improve performance. Location keys are kept in
+ * the {@link AccuWeatherLocationIndex} and requested only once per coordinate cell. Forecasts not
+ * cached yet can be served from a {@link NearbyCache nearby location} while they load.
  * </p>
  */
 @Service
 @Slf4j
 public class AccuWeatherService {
 
+    private static final String NEARBY_LAYER = "accuweather";
+    /**
+     * Calls of a forecast: location, current conditions, daily and hourly forecast
+     */
+    private static final int FORECAST_CALLS = 4;
+
     private final RestTemplate restTemplate;
     private final AccuWeatherConfig config;
     private final AccuWeatherMapper mapper;
+    private final AccuWeatherLocationIndex locationIndex;
+    private final NearbyCache nearbyCache;
+    private final UpstreamQuota upstreamQuota;
 
     /**
      * Constructor for AccuWeatherService.
      *
      * @param config AccuWeather API configuration
      * @param mapper MapStruct mapper for converting between API response models and DTOs
+     * @param upstreamMetrics metrics of external service calls
+     * @param upstreamCapture recording or replay of upstream responses
+     * @param locationIndex locations already resolved, by coordinate cell
+     * @param nearbyCache weather cached for nearby locations
+     * @param upstreamQuota budgets of upstream calls
      */
-    public AccuWeatherService(AccuWeatherConfig config, AccuWeatherMapper mapper) {
+    public AccuWeatherService(AccuWeatherConfig config, AccuWeatherMapper mapper, UpstreamMetrics upstreamMetrics,
+                              UpstreamCapture upstreamCapture, AccuWeatherLocationIndex locationIndex,
+                              NearbyCache nearbyCache, UpstreamQuota upstreamQuota) {
         this.restTemplate = new RestTemplate();
+        this.restTemplate.getInterceptors().add(new UpstreamQuotaInterceptor(upstreamQuota, UpstreamQuota.ACCUWEATHER));
+        this.restTemplate.getInterceptors().add(new UpstreamMetricsInterceptor(upstreamMetrics)
+                .withUpstream(config.getLocationUrl(), "accuweather-location")
+                .withUpstream(config.getCurrentConditionsUrl(), "accuweather-current-conditions")
+                .withUpstream(config.getForecastUrl(), "accuweather-daily-forecast")
+                .withUpstream(config.getHourlyForecastUrl(), "accuweather-hourly-forecast"));
+        upstreamCapture.intercept(this.restTemplate);
         this.config = config;
         this.mapper = mapper;
+        this.locationIndex = locationIndex;
+        this.nearbyCache = nearbyCache;
+        this.upstreamQuota = upstreamQuota;
     }
 
     /**
-     * Gets the location key for the given coordinates from AccuWeather API.
+     * Gets the location key for the given coordinates from the location index, or from AccuWeather
+     * API the first time coordinates of the same cell are requested.
      *
      * @param latitude  Latitude of the location
      * @param longitude Longitude of the location
      * @return AccuWeatherLocation containing the location key and other details
      */
-    @Cacheable(value = "accuweatherLocation", key = "#latitude + '-' + #longitude")
     public AccuWeatherLocation getLocationKey(double latitude, double longitude) {
+        AccuWeatherLocation indexed = locationIndex.find(latitude, longitude);
+        if (indexed != null) {
+            return indexed;
+        }
         try {
-            String url = UriComponentsBuilder.fromUriString(ACCU_WEATHER_LOCATION_URL)
+            String url = UriComponentsBuilder.fromUriString(config.getLocationUrl())
                     .queryParam("apikey", config.getApiKey())
                     .queryParam("q", latitude + "," + longitude)
                     .encode()
@@ -70,9 +110,10 @@ public class AccuWeatherService {
             log.debug("Requesting location key from AccuWeather for lat: {}, lon: {}", latitude, longitude);
             val response = restTemplate.getForObject(url, AccuWeatherLocation.class);
             log.debug("Response from AccuWeather Location API: {}", response);
+            locationIndex.store(latitude, longitude, response);
             return response;
         } catch (Exception e) {
-            log.error("Error fetching location key from AccuWeather for lat: {}, lon: {}: {}", latitude, longitude, e.getMessage());
+            logFailure(e, "Error fetching location key from AccuWeather for lat: {}, lon: {}: {}", latitude, longitude, e.getMessage());
             return null;
         }
     }
@@ -83,10 +124,10 @@ public class AccuWeatherService {
      * @param locationKey AccuWeather location key
      * @return AccuWeatherCurrentConditions containing current weather data
      */
-    @Cacheable(value = "accuweatherCurrentConditions", key = "#locationKey")
+    @Cacheable(value = "accuweatherCurrentConditions", key = "#locationKey", unless = "#result == null")
     public AccuWeatherCurrentConditions getCurrentConditions(String locationKey) {
         try {
-            String url = UriComponentsBuilder.fromUriString(ACCU_WEATHER_CURRENT_CONDITIONS_URL + "/" + locationKey)
+            String url = UriComponentsBuilder.fromUriString(config.getCurrentConditionsUrl() + "/" + locationKey)
                     .queryParam("apikey", config.getApiKey())
                     .queryParam("details", true)
                     .encode()
@@ -102,7 +143,7 @@ public class AccuWeatherService {
             }
             return null;
         } catch (Exception e) {
-            log.error("Error fetching current conditions from AccuWeather for location key: {}: {}", locationKey, e.getMessage());
+            logFailure(e, "Error fetching current conditions from AccuWeather for location key: {}: {}", locationKey, e.getMessage());
             return null;
         }
     }
@@ -114,13 +155,13 @@ public class AccuWeatherService {
      * @param days Number of days (default is 5, max is 5 for free accounts)
      * @return AccuWeatherDailyForecast containing daily forecast data
      */
-    @Cacheable(value = "accuweatherDailyForecast", key = "#locationKey + '-' + #days")
+    @Cacheable(value = "accuweatherDailyForecast", key = "#locationKey + '-' + #days", unless = "#result == null")
     public AccuWeatherDailyForecast getDailyForecast(String locationKey, Integer days) {
         try {
             // AccuWeather free tier only supports 5-day forecasts
             int forecastDays = Math.min(days != null ? days : 5, 5);
 
-            String url = UriComponentsBuilder.fromUriString(ACCU_WEATHER_FORECAST_URL + "/" + locationKey)
+            String url = UriComponentsBuilder.fromUriString(config.getForecastUrl() + "/" + locationKey)
                     .queryParam("apikey", config.getApiKey())
                     .queryParam("details", true)
                     .queryParam("metric", true)
@@ -132,7 +173,7 @@ public class AccuWeatherService {
             log.debug("Response from AccuWeather Daily Forecast API: {}", response);
             return response;
         } catch (Exception e) {
-            log.error("Error fetching daily forecast from AccuWeather for location key: {}, days: {}: {}", locationKey, days, e.getMessage());
+            logFailure(e, "Error fetching daily forecast from AccuWeather for location key: {}, days: {}: {}", locationKey, days, e.getMessage());
             return null;
         }
     }
@@ -144,13 +185,13 @@ public class AccuWeatherService {
      * @param hours Number of hours (default is 12, max is 12 for free accounts)
      * @return AccuWeatherHourlyForecast containing hourly forecast data
      */
-    @Cacheable(value = "accuweatherHourlyForecast", key = "#locationKey + '-' + #hours")
+    @Cacheable(value = "accuweatherHourlyForecast", key = "#locationKey + '-' + #hours", unless = "#result == null")
     public AccuWeatherHourlyForecast getHourlyForecast(String locationKey, Integer hours) {
         try {
             // AccuWeather free tier only supports 12-hour forecasts
             int forecastHours = Math.min(hours != null ? hours : 12, 12);
 
-            String url = UriComponentsBuilder.fromUriString(ACCU_WEATHER_HOURLY_FORECAST_URL + "/" + locationKey)
+            String url = UriComponentsBuilder.fromUriString(config.getHourlyForecastUrl() + "/" + locationKey)
                     .queryParam("apikey", config.getApiKey())
                     .queryParam("details", true)
                     .queryParam("metric", true)
@@ -168,7 +209,7 @@ public class AccuWeatherService {
             }
             return null;
         } catch (Exception e) {
-            log.error("Error fetching hourly forecast from AccuWeather for location key: {}, hours: {}: {}", locationKey, hours, e.getMessage());
+            logFailure(e, "Error fetching hourly forecast from AccuWeather for location key: {}, hours: {}: {}", locationKey, hours, e.getMessage());
             return null;
         }
     }
@@ -177,17 +218,43 @@ public class AccuWeatherService {
      * Gets complete weather forecast for a geographic location.
      * <p>
      * This method retrieves location key, current conditions, daily forecast, and hourly forecast
-     * from AccuWeather APIs and combines them into a single WeatherForecast object.
+     * from AccuWeather APIs and combines them into a single WeatherForecast object. Until the
+     * location is cached, a forecast of a nearby cached location may be returned flagged as approximate.
+     * When the AccuWeather budget cannot cover the calls of a forecast, none are made, and when
+     * any of the calls fails, e.g. as the budget ran out meanwhile, no partial forecast is returned.
      * </p>
      *
      * @param latitude Latitude of the location
      * @param longitude Longitude of the location
      * @param days Number of days to forecast
      * @param hours Number of hours to forecast
-     * @return WeatherForecast containing current, daily, and hourly weather data
+     * @return WeatherForecast containing current, daily, and hourly weather data, or null if over budget or any call failed
      */
-    @Cacheable(value = FORECAST_CACHE, key = "'accu-' + #latitude + '-' + #longitude + '-' + #days")
+    @Cacheable(value = FORECAST_CACHE, key = "'accu-' + #latitude + '-' + #longitude + '-' + #days",
+            unless = "#result == null || #result.approximate == true")
     public WeatherForecast getWeatherForecast(double latitude, double longitude, Integer days, Integer hours) {
+        String key = "accu-" + latitude + "-" + longitude + "-" + days;
+        String layer = NEARBY_LAYER + "-" + days;
+        WeatherForecast nearby = nearbyCache.find(FORECAST_CACHE, layer, key, latitude, longitude, WeatherForecast.class,
+                mapper::toApproximate, () -> fetchWeatherForecast(latitude, longitude, days, hours));
+        if (nearby != null) {
+            return nearby;
+        }
+        WeatherForecast forecast = fetchWeatherForecast(latitude, longitude, days, hours);
+        if (forecast != null) {
+            nearbyCache.add(FORECAST_CACHE, layer, key, latitude, longitude, forecast);
+        }
+        return forecast;
+    }
+
+    /**
+     * @return forecast with all its parts, or null if over budget or any call failed
+     */
+    private WeatherForecast fetchWeatherForecast(double latitude, double longitude, Integer days, Integer hours) {
+        if (!upstreamQuota.hasBudget(UpstreamQuota.ACCUWEATHER, FORECAST_CALLS)) {
+            log.warn("AccuWeather budget cannot cover a forecast for lat: {}, lon: {}", latitude, longitude);
+            return null;
+        }
         try {
             log.info("Fetching weather forecast from AccuWeather for lat: {}, lon: {}, days: {}, hours: {}",
                     latitude, longitude, days, hours);
@@ -195,8 +262,8 @@ public class AccuWeatherService {
             // Step 1: Get location key
             AccuWeatherLocation location = getLocationKey(latitude, longitude);
             if (location == null) {
-                log.error("Failed to get location key from AccuWeather for lat: {}, lon: {}", latitude, longitude);
-                return new WeatherForecast();
+                log.warn("Failed to get location key from AccuWeather for lat: {}, lon: {}", latitude, longitude);
+                return null;
             }
 
             String locationKey = location.getKey();
@@ -210,13 +277,31 @@ public class AccuWeatherService {
             // Step 4: Get hourly forecast
             AccuWeatherHourlyForecast hourlyForecast = getHourlyForecast(locationKey, hours);
 
+            // A forecast missing parts would be cached for an hour, fail instead so the caller can fall back
+            if (currentConditions == null || dailyForecast == null || hourlyForecast == null) {
+                log.warn("Incomplete weather forecast from AccuWeather for lat: {}, lon: {}", latitude, longitude);
+                return null;
+            }
+
             // Step 5: Use MapStruct mapper to combine everything into a WeatherForecast object
-            return mapper.createWeatherForecast(location, currentConditions, dailyForecast, hourlyForecast);
+            return MappingEvent.time("AccuWeatherMapper.createWeatherForecast",
+                    () -> mapper.createWeatherForecast(location, currentConditions, dailyForecast, hourlyForecast));
 
         } catch (Exception e) {
-            log.error("Error fetching weather forecast from AccuWeather for lat: {}, lon: {}: {}",
+            logFailure(e, "Error fetching weather forecast from AccuWeather for lat: {}, lon: {}: {}",
                     latitude, longitude, e.getMessage());
-            return new WeatherForecast();
+            return null;
+        }
+    }
+
+    /**
+     * Logs a failed call, at debug level if the budget refused it, as {@link UpstreamQuota} logged that already.
+     */
+    private static void logFailure(Exception e, String format, Object... arguments) {
+        if (QuotaExceededException.isCause(e)) {
+            log.debug(format, arguments);
+        } else {
+            log.error(format, arguments);
         }
     }
 }
@@ -1,13 +1,36 @@
 package pl.qprogramming.daily.service.weather;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.OpenMeteoConfig;
 import pl.qprogramming.daily.dto.GeocodingResult;
+import pl.qprogramming.daily.metrics.MappingEvent;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.metrics.UpstreamMetricsInterceptor;
+import pl.qprogramming.daily.quota.QuotaExceededException;
+import pl.qprogramming.daily.quota.UpstreamQuota;
+import pl.qprogramming.daily.quota.UpstreamQuotaInterceptor;
+import pl.qprogramming.daily.service.weather.gazetteer.Gazetteer;
 import pl.qprogramming.daily.service.weather.mapper.GeoCodingMapper;
 import pl.qprogramming.daily.service.weather.model.GeocodingResponse;
+import pl.qprogramming.daily.service.weather.model.LocalizedGeocodingResults;
+
+import java.net.URI;
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
 
@@ -15,46 +38,194 @@ import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
 @Service
 public class GeoCodingService {
 
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     private final RestTemplate restTemplate;
     private final GeoCodingMapper geoCodingMapper;
+    private final OpenMeteoConfig config;
+    private final Gazetteer gazetteer;
+    private final CacheManager cacheManager;
+    /**
+     * Folded queries of three or more characters the geocoder found nothing for, so that typing on
+     * does not call it again. Two character queries are only matched exactly by the geocoder, so
+     * longer texts may still be found.
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, Boolean> unmatchedQueries = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .maximumSize(10000)
+            .build();
 
-    public GeoCodingService(GeoCodingMapper goecodingMapper) {
+    public GeoCodingService(GeoCodingMapper goecodingMapper, OpenMeteoConfig config, UpstreamMetrics upstreamMetrics,
+                            UpstreamCapture upstreamCapture, Gazetteer gazetteer, CacheManager cacheManager,
+                            UpstreamQuota upstreamQuota) {
         this.restTemplate = new RestTemplate();
+        this.restTemplate.getInterceptors().add(new UpstreamQuotaInterceptor(upstreamQuota, UpstreamQuota.OPEN_METEO));
+        this.restTemplate.getInterceptors().add(new UpstreamMetricsInterceptor(upstreamMetrics)
+                .withUpstream(config.getGeocodingUrl(), "open-meteo-geocoding"));
+        upstreamCapture.intercept(this.restTemplate);
         this.geoCodingMapper = goecodingMapper;
+        this.config = config;
+        this.gazetteer = gazetteer;
+        this.cacheManager = cacheManager;
     }
 
     /**
-     * Gets geocoding data for a city name.
+     * Gets geocoding data of the best match for a city name.
      *
      * @param cityName Name of the city to geocode
      * @param language Language code for the response (defaults to "en" if null)
-     * @param count Maximum number of results to return
      * @return GeocodingResult containing location data or null if not found or error occurs
      */
-    @Cacheable(value = GEOCODING_CACHE, key = "#cityName + '-' + #language")
-    public GeocodingResult geocodeLocation(String cityName, String language, int count) {
-        if (cityName == null || cityName.trim().isEmpty()) {
-            return null;
+    public GeocodingResult geocodeLocation(String cityName, String language) {
+        List<GeocodingResult> results = geocodeLocations(cityName, language, 1);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Gets geocoding data of all places matching a city name.
+     * <p>
+     * Names are trimmed, case folded and stripped of diacritics for the cache key, so differently
+     * typed names of a place share one upstream call. Up to {@link WeatherConstants#GEOCODING_RESULT_COUNT}
+     * results are requested and cached, and sliced per request.
+     * </p>
+     *
+     * @param cityName Name of the city to geocode
+     * @param language Language code for the response (defaults to "en" if null)
+     * @param count Maximum number of results to return
+     * @return matching places, empty if none are found or an error occurs
+     */
+    public List<GeocodingResult> geocodeLocations(String cityName, String language, int count) {
+        List<GeocodingResult> results = lookup(cityName, normalizeLanguage(language), count);
+        return results != null ? results : List.of();
+    }
+
+    /**
+     * Gets the most populous cities with a name starting with the given text from the gazetteer.
+     * Only when the gazetteer has none, the geocoder is asked and the cities it finds are merged
+     * into the gazetteer, so the gazetteer should cover the cities users look for, see
+     * {@code gazetteer.location}.
+     *
+     * @param prefix   Beginning of a city name
+     * @param language Language code for country names and geocoder results (defaults to "en" if null)
+     * @param count    Maximum number of results to return
+     * @return matching cities, most populous first, empty if none are found or an error occurs
+     */
+    public List<GeocodingResult> autocompleteLocation(String prefix, String language, int count) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return List.of();
+        }
+        String lang = normalizeLanguage(language);
+        List<Gazetteer.Match> matches = gazetteer.search(prefix, count);
+        if (matches.isEmpty()) {
+            return autocompleteUpstream(prefix, lang, count);
         }
+        return MappingEvent.time("GeoCodingMapper.toGeocodingResult", () -> matches.stream()
+                .map(match -> geoCodingMapper.toGeocodingResult(match, lang))
+                .collect(Collectors.toList()));
+    }
 
-        // Build the URL manually to preserve Polish characters instead of encoding them
-        String baseUrl = OPEN_METEO_GEOCODING_URL + "?";
-        String params = PARAM_NAME + "=" + cityName + "&" +
-                PARAM_LANGUAGE + "=" + (language != null ? language : DEFAULT_LANGUAGE) + "&" +
-                PARAM_COUNT + "=" + count;
-        String url = baseUrl + params;
+    private List<GeocodingResult> autocompleteUpstream(String prefix, String language, int count) {
+        String key = Gazetteer.fold(prefix);
+        // The geocoder needs at least two characters, and finds nothing for texts extending one it found nothing for
+        if (key.length() < 2 || hasUnmatchedPrefix(key)) {
+            return List.of();
+        }
+        List<GeocodingResult> results = lookup(prefix, language, count);
+        if (results == null) {
+            return List.of();
+        }
+        if (results.isEmpty() && key.length() > 2) {
+            unmatchedQueries.put(key, Boolean.TRUE);
+        }
+        return results;
+    }
 
+    /**
+     * Looks up a name in the geocoding cache, or the geocoder if it is not cached. Places found by
+     * the geocoder are merged into the gazetteer, and cached with the coordinates it knew first, so
+     * all languages of a place share them.
+     *
+     * @return matching places, or null if the geocoder failed
+     */
+    private List<GeocodingResult> lookup(String cityName, String language, int count) {
+        String folded = Gazetteer.fold(cityName);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        String key = folded + "-" + language;
+        Cache cache = cacheManager.getCache(GEOCODING_CACHE);
+        LocalizedGeocodingResults cached = cache != null ? cache.get(key, LocalizedGeocodingResults.class) : null;
+        if (cached != null) {
+            return resolve(cached, count);
+        }
         try {
-            val response = restTemplate.getForObject(url, GeocodingResponse.class);
-            log.debug("Response from Open-Meteo Geocoding API: {}", response);
-            if (response != null && response.getResults() != null && !response.getResults().isEmpty()) {
-                val result = response.getResults().get(0);
-                return geoCodingMapper.toGeocodingResponse(result);
+            val response = requestGeocoding(normalizeQuery(cityName), language, GEOCODING_RESULT_COUNT);
+            // Results without an id cannot be told apart, and are skipped
+            List<GeocodingResponse.GeocodingResult> found = response != null && response.getResults() != null
+                    ? response.getResults().stream().filter(result -> result.getId() != null).collect(Collectors.toList())
+                    : List.of();
+            Map<Long, Gazetteer.Place> places = new LinkedHashMap<>();
+            found.forEach(result -> places.putIfAbsent(result.getId(), geoCodingMapper.toPlace(result)));
+            gazetteer.merge(places.values());
+            LocalizedGeocodingResults localized = new LocalizedGeocodingResults(found.stream()
+                    .map(result -> {
+                        Gazetteer.Place known = gazetteer.find(result.getId());
+                        return geoCodingMapper.toLocalizedPlace(result, known != null ? known : places.get(result.getId()));
+                    })
+                    .collect(Collectors.toList()));
+            if (cache != null) {
+                cache.put(key, localized);
             }
-            return null;
+            return resolve(localized, count);
         } catch (Exception e) {
+            if (QuotaExceededException.isCause(e)) {
+                // Already logged by the budget
+                log.debug("Not geocoding location '{}', the budget is used up", cityName);
+                return null;
+            }
             log.error("Error geocoding location '{}': {}", cityName, e.getMessage());
             return null;
         }
     }
+
+    private List<GeocodingResult> resolve(LocalizedGeocodingResults localized, int count) {
+        return MappingEvent.time("GeoCodingMapper.toGeocodingResult", () -> localized.getPlaces().stream()
+                .limit(count)
+                .map(geoCodingMapper::toGeocodingResult)
+                .collect(Collectors.toList()));
+    }
+
+    private boolean hasUnmatchedPrefix(String key) {
+        for (int length = 3; length <= key.length(); length++) {
+            if (unmatchedQueries.getIfPresent(key.substring(0, length)) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private GeocodingResponse requestGeocoding(String name, String language, int count) {
+        // Encoded once here and passed as a URI, so names with '&' or diacritics are not split or encoded twice
+        URI uri = UriComponentsBuilder.fromUriString(config.getGeocodingUrl())
+                .queryParam(PARAM_NAME, name)
+                .queryParam(PARAM_LANGUAGE, language)
+                .queryParam(PARAM_COUNT, count)
+                .encode()
+                .build()
+                .toUri();
+        val response = restTemplate.getForObject(uri, GeocodingResponse.class);
+        log.debug("Response from Open-Meteo Geocoding API: {}", response);
+        return response;
+    }
+
+    /**
+     * Normalizes a name for the geocoder, keeping its diacritics, which the geocoder matches better with.
+     */
+    private static String normalizeQuery(String name) {
+        return WHITESPACE.matcher(Normalizer.normalize(name, Normalizer.Form.NFKC).trim()).replaceAll(" ");
+    }
+
+    private static String normalizeLanguage(String language) {
+        return language != null && !language.trim().isEmpty() ? language.trim().toLowerCase(Locale.ROOT) : DEFAULT_LANGUAGE;
+    }
 }
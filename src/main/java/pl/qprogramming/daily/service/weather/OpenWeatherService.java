@@ -1,18 +1,35 @@
 package pl.qprogramming.daily.service.weather;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import pl.qprogramming.daily.cache.NearbyCache;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.OpenMeteoConfig;
 import pl.qprogramming.daily.dto.AirQualityData;
 import pl.qprogramming.daily.dto.WeatherData;
 import pl.qprogramming.daily.dto.WeatherForecast;
+import pl.qprogramming.daily.metrics.MappingEvent;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.metrics.UpstreamMetricsInterceptor;
+import pl.qprogramming.daily.quota.QuotaExceededException;
+import pl.qprogramming.daily.quota.UpstreamQuota;
+import pl.qprogramming.daily.quota.UpstreamQuotaInterceptor;
 import pl.qprogramming.daily.service.weather.mapper.WeatherMapper;
 import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoAirQuality;
 import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoWeatherResponse;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
 
 /**
@@ -23,47 +40,100 @@ import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
  *     <li>Current weather - get current weather conditions for a location</li>
  *     <li>Weather forecast - get daily and hourly weather forecasts</li>
  *     <li>Air quality - get air quality metrics for a location</li>
+ *     <li>Region forecasts - get current weather and today's forecast for many locations at once</li>
  * </ul>
- * All methods use caching to minimize API calls and improve performance.
+ * All methods use caching to minimize API calls and improve performance. Current weather and
+ * forecasts not cached yet can be served from a {@link NearbyCache nearby location} while they load.
+ * While the Open-Meteo budget is used up, current weather, forecasts and air quality are served
+ * from their expired entry or the nearest cached location, flagged as approximate.
  * </p>
  */
 @Service
 @Slf4j
 public class OpenWeatherService {
 
+    private static final String NEARBY_LAYER = "openmeteo";
+    /**
+     * Open-Meteo answers with an array for many locations, but with a single object for one
+     */
+    private static final ObjectReader REGION_READER = Jackson2ObjectMapperBuilder.json()
+            .featuresToEnable(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY)
+            .build()
+            .readerFor(OpenMeteoWeatherResponse[].class);
+
     private final RestTemplate restTemplate;
     private final WeatherMapper weatherMapper;
+    private final OpenMeteoConfig config;
+    private final NearbyCache nearbyCache;
+    private final UpstreamQuota upstreamQuota;
 
     /**
      * Constructor for OpenWeatherService.
      * Initializes a RestTemplate for making HTTP requests to weather APIs.
      *
      * @param weatherMapper Mapper for converting between API response models and DTOs
+     * @param config Open-Meteo API configuration
+     * @param upstreamMetrics metrics of external service calls
+     * @param upstreamCapture recording or replay of upstream responses
+     * @param nearbyCache weather cached for nearby locations
+     * @param upstreamQuota budgets of upstream calls
      */
-    public OpenWeatherService(WeatherMapper weatherMapper) {
+    public OpenWeatherService(WeatherMapper weatherMapper, OpenMeteoConfig config, UpstreamMetrics upstreamMetrics,
+                              UpstreamCapture upstreamCapture, NearbyCache nearbyCache, UpstreamQuota upstreamQuota) {
         this.restTemplate = new RestTemplate();
+        this.restTemplate.getInterceptors().add(new UpstreamQuotaInterceptor(upstreamQuota, UpstreamQuota.OPEN_METEO));
+        this.restTemplate.getInterceptors().add(new UpstreamMetricsInterceptor(upstreamMetrics)
+                .withUpstream(config.getForecastUrl(), "open-meteo-forecast")
+                .withUpstream(config.getAirQualityUrl(), "open-meteo-air-quality"));
+        upstreamCapture.intercept(this.restTemplate);
         this.weatherMapper = weatherMapper;
+        this.config = config;
+        this.nearbyCache = nearbyCache;
+        this.upstreamQuota = upstreamQuota;
     }
 
-
-
     /**
      * Gets current weather data for a geographic location.
      * <p>
      * This method retrieves the current weather conditions for the specified
      * coordinates by calling the Open-Meteo Forecast API. The data includes
      * temperature, weather code, wind speed, and humidity. Results are cached
-     * to reduce API calls.
+     * to reduce API calls. Until the location is cached, or while the budget is used up,
+     * weather of a nearby cached location may be returned flagged as approximate.
      * </p>
      *
      * @param latitude Latitude of the location
      * @param longitude Longitude of the location
      * @return WeatherData containing current weather conditions or null if error occurs
      */
-    @Cacheable(value = CURRENT_WEATHER_CACHE, key = "#latitude + '-' + #longitude")
+    @Cacheable(value = CURRENT_WEATHER_CACHE, key = "#latitude + '-' + #longitude", unless = "#result == null || #result.approximate == true")
     public WeatherData getCurrentWeather(double latitude, double longitude) {
+        String key = latitude + "-" + longitude;
+        WeatherData nearby = nearbyCache.find(CURRENT_WEATHER_CACHE, NEARBY_LAYER, key, latitude, longitude, WeatherData.class,
+                weatherMapper::toApproximate, () -> fetchCurrentWeather(latitude, longitude));
+        if (nearby != null) {
+            return nearby;
+        }
         try {
-            String url = UriComponentsBuilder.fromUriString(OPEN_METEO_FORECAST_URL)
+            WeatherData data = fetchCurrentWeather(latitude, longitude);
+            if (data != null) {
+                nearbyCache.add(CURRENT_WEATHER_CACHE, NEARBY_LAYER, key, latitude, longitude, data);
+            }
+            return data;
+        } catch (RuntimeException e) {
+            // Only calls refused by the budget get here
+            return nearbyCache.fallback(CURRENT_WEATHER_CACHE, NEARBY_LAYER, key, latitude, longitude, WeatherData.class,
+                    weatherMapper::toApproximate);
+        }
+    }
+
+    /**
+     * @return current weather, or null if error occurs
+     * @throws RuntimeException if the call was refused as the budget is used up
+     */
+    private WeatherData fetchCurrentWeather(double latitude, double longitude) {
+        try {
+            String url = UriComponentsBuilder.fromUriString(config.getForecastUrl())
                     .queryParam(PARAM_LATITUDE, latitude)
                     .queryParam(PARAM_LONGITUDE, longitude)
                     .queryParam(PARAM_CURRENT, CURRENT_WEATHER_PARAMS)
@@ -76,8 +146,12 @@ public class OpenWeatherService {
             if (response == null || response.getCurrent() == null) {
                 return null;
             }
-            return weatherMapper.toWeatherData(response);
+            return MappingEvent.time("WeatherMapper.toWeatherData", () -> weatherMapper.toWeatherData(response));
         } catch (Exception e) {
+            if (QuotaExceededException.isCause(e)) {
+                // Already logged by the budget, the caller serves cached weather instead
+                throw e;
+            }
             log.error("Error fetching current weather for lat: {}, lon: {}: {}", latitude, longitude, e.getMessage());
             return null;
         }
@@ -90,6 +164,8 @@ public class OpenWeatherService {
      * specified coordinates by calling the Open-Meteo Forecast API. The data
      * includes temperature, weather code, wind speed, and humidity. The forecast
      * can be limited by number of days and hours. Results are cached to reduce API calls.
+     * Until the location is cached, or while the budget is used up, a forecast of a nearby
+     * cached location may be returned flagged as approximate.
      * </p>
      *
      * @param latitude Latitude of the location
@@ -98,10 +174,35 @@ public class OpenWeatherService {
      * @param hours Number of hours to forecast
      * @return WeatherForecast containing daily and hourly forecast data or null if error occurs
      */
-    @Cacheable(value = FORECAST_CACHE, key = "#latitude + '-' + #longitude + '-' + #days")
+    @Cacheable(value = FORECAST_CACHE, key = "#latitude + '-' + #longitude + '-' + #days", unless = "#result == null || #result.approximate == true")
     public WeatherForecast getWeatherForecast(double latitude, double longitude, Integer days, Integer hours) {
+        String key = latitude + "-" + longitude + "-" + days;
+        String layer = NEARBY_LAYER + "-" + days;
+        WeatherForecast nearby = nearbyCache.find(FORECAST_CACHE, layer, key, latitude, longitude, WeatherForecast.class,
+                weatherMapper::toApproximate, () -> fetchWeatherForecast(latitude, longitude, days, hours));
+        if (nearby != null) {
+            return nearby;
+        }
+        try {
+            WeatherForecast forecast = fetchWeatherForecast(latitude, longitude, days, hours);
+            if (forecast != null) {
+                nearbyCache.add(FORECAST_CACHE, layer, key, latitude, longitude, forecast);
+            }
+            return forecast;
+        } catch (RuntimeException e) {
+            // Only calls refused by the budget get here
+            return nearbyCache.fallback(FORECAST_CACHE, layer, key, latitude, longitude, WeatherForecast.class,
+                    weatherMapper::toApproximate);
+        }
+    }
+
+    /**
+     * @return forecast, or null if error occurs
+     * @throws RuntimeException if the call was refused as the budget is used up
+     */
+    private WeatherForecast fetchWeatherForecast(double latitude, double longitude, Integer days, Integer hours) {
         try {
-            String url = UriComponentsBuilder.fromUriString(OPEN_METEO_FORECAST_URL)
+            String url = UriComponentsBuilder.fromUriString(config.getForecastUrl())
                     .queryParam(PARAM_LATITUDE, latitude)
                     .queryParam(PARAM_LONGITUDE, longitude)
                     .queryParam(PARAM_CURRENT, CURRENT_WEATHER_PARAMS)
@@ -121,29 +222,107 @@ public class OpenWeatherService {
             // Create context wrapper objects and pass them to the mapper
             val daysContext = new WeatherMapper.DaysContext(days);
             val hoursContext = new WeatherMapper.HoursContext(hours);
-            return weatherMapper.toWeatherForecast(response, daysContext, hoursContext);
+            return MappingEvent.time("WeatherMapper.toWeatherForecast",
+                    () -> weatherMapper.toWeatherForecast(response, daysContext, hoursContext));
         } catch (Exception e) {
+            if (QuotaExceededException.isCause(e)) {
+                // Already logged by the budget, the caller serves a cached forecast instead
+                throw e;
+            }
             log.error("Error fetching weather forecast for lat: {}, lon: {}, days: {}: {}", latitude, longitude, days, e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Gets current weather and today's forecast for many locations with a single call.
+     * <p>
+     * All coordinates are sent in one request to the Open-Meteo Forecast API, which returns
+     * the locations in the same order. Hourly forecasts are not requested. Results are not
+     * cached here; callers cache them per location. Open-Meteo counts every location as a call,
+     * so the request takes one call per location from the budget, or is not sent.
+     * </p>
+     *
+     * @param latitudes Latitudes of the locations
+     * @param longitudes Longitudes of the locations, in the order of latitudes
+     * @return forecasts in the order of the coordinates, or null if error occurs
+     */
+    public List<WeatherForecast> getRegionForecasts(double[] latitudes, double[] longitudes) {
+        if (!upstreamQuota.tryAcquire(UpstreamQuota.OPEN_METEO, latitudes.length)) {
+            return null;
+        }
+        return UpstreamQuota.prepaid(() -> fetchRegionForecasts(latitudes, longitudes));
+    }
+
+    private List<WeatherForecast> fetchRegionForecasts(double[] latitudes, double[] longitudes) {
+        try {
+            String url = UriComponentsBuilder.fromUriString(config.getForecastUrl())
+                    .queryParam(PARAM_LATITUDE, coordinates(latitudes))
+                    .queryParam(PARAM_LONGITUDE, coordinates(longitudes))
+                    .queryParam(PARAM_CURRENT, CURRENT_WEATHER_PARAMS)
+                    .queryParam(PARAM_DAILY, DAILY_WEATHER_PARAMS)
+                    .queryParam(PARAM_FORECAST_DAYS, 1)
+                    .queryParam(PARAM_TIMEZONE, TIMEZONE_AUTO)
+                    .encode()
+                    .toUriString();
+
+            String body = restTemplate.getForObject(url, String.class);
+            if (body == null) {
+                return null;
+            }
+            OpenMeteoWeatherResponse[] responses = REGION_READER.readValue(body);
+            if (responses.length != latitudes.length) {
+                log.error("Open-Meteo returned {} forecasts for {} locations", responses.length, latitudes.length);
+                return null;
+            }
+            val daysContext = new WeatherMapper.DaysContext(1);
+            val hoursContext = new WeatherMapper.HoursContext(0);
+            return MappingEvent.time("WeatherMapper.toWeatherForecast", () -> Arrays.stream(responses)
+                    .map(response -> weatherMapper.toWeatherForecast(response, daysContext, hoursContext))
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Error fetching region forecasts for {} locations: {}", latitudes.length, e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Gets air quality data for a geographic location.
      * <p>
      * This method retrieves current air quality metrics for the specified
      * coordinates by calling the Open-Meteo Air Quality API. The data includes
      * PM10, PM2.5, and European Air Quality Index. Results are cached to reduce API calls.
+     * While the budget is used up, the expired entry or air quality of a nearby cached location
+     * may be returned flagged as approximate.
      * </p>
      *
      * @param latitude Latitude of the location
      * @param longitude Longitude of the location
      * @return AirQualityData containing air quality metrics or null if error occurs
      */
-    @Cacheable(value = AIR_QUALITY_CACHE, key = "#latitude + '-' + #longitude")
+    @Cacheable(value = AIR_QUALITY_CACHE, key = "#latitude + '-' + #longitude", unless = "#result == null || #result.approximate == true")
     public AirQualityData getAirQuality(double latitude, double longitude) {
+        String key = latitude + "-" + longitude;
+        try {
+            AirQualityData data = fetchAirQuality(latitude, longitude);
+            if (data != null) {
+                nearbyCache.add(AIR_QUALITY_CACHE, NEARBY_LAYER, key, latitude, longitude, data);
+            }
+            return data;
+        } catch (RuntimeException e) {
+            // Only calls refused by the budget get here
+            return nearbyCache.fallback(AIR_QUALITY_CACHE, NEARBY_LAYER, key, latitude, longitude, AirQualityData.class,
+                    weatherMapper::toApproximate);
+        }
+    }
+
+    /**
+     * @return air quality, or null if error occurs
+     * @throws RuntimeException if the call was refused as the budget is used up
+     */
+    private AirQualityData fetchAirQuality(double latitude, double longitude) {
         try {
-            String url = UriComponentsBuilder.fromUriString(OPEN_METEO_AIR_QUALITY_URL)
+            String url = UriComponentsBuilder.fromUriString(config.getAirQualityUrl())
                     .queryParam(PARAM_LATITUDE, latitude)
                     .queryParam(PARAM_LONGITUDE, longitude)
                     .queryParam(PARAM_CURRENT, AIR_QUALITY_PARAMS)
@@ -154,10 +333,20 @@ public class OpenWeatherService {
             if (response == null || response.getCurrent() == null) {
                 return null;
             }
-            return weatherMapper.toAirQualityData(response);
+            return MappingEvent.time("WeatherMapper.toAirQualityData", () -> weatherMapper.toAirQualityData(response));
         } catch (Exception e) {
+            if (QuotaExceededException.isCause(e)) {
+                // Already logged by the budget, the caller serves cached air quality instead
+                throw e;
+            }
             log.error("Error fetching air quality data for lat: {}, lon: {}: {}", latitude, longitude, e.getMessage());
             return null;
         }
     }
+
+    private static String coordinates(double[] degrees) {
+        return Arrays.stream(degrees)
+                .mapToObj(value -> BigDecimal.valueOf(value).toPlainString())
+                .collect(Collectors.joining(","));
+    }
 }
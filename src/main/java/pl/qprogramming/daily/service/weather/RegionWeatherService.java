@@ -0,0 +1,203 @@
+package pl.qprogramming.daily.service.weather;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import pl.qprogramming.daily.config.RegionWeatherConfig;
+import pl.qprogramming.daily.dto.CurrentWeather;
+import pl.qprogramming.daily.dto.Forecast;
+import pl.qprogramming.daily.dto.RegionWeather;
+import pl.qprogramming.daily.dto.WeatherForecast;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static pl.qprogramming.daily.service.weather.WeatherConstants.REGION_WEATHER_CACHE;
+
+/**
+ * Service building weather maps of a region.
+ * <p>
+ * A bounding box is split into cells of a global grid, {@code weather.region.cell-degrees} wide and
+ * doubled until the box fits in {@code weather.region.max-cells}, so boxes of neighbouring or
+ * overlapping map views share cells. The weather of each cell centre is cached by its coordinates,
+ * and cells missing from the cache are loaded from Open-Meteo with one call per
+ * {@code weather.region.batch-size} cells. The result is packed into one array per value.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RegionWeatherService {
+
+    /**
+     * Decimal places of cell centres, so equal cells of different boxes get equal keys
+     */
+    private static final int COORDINATE_SCALE = 6;
+
+    private final OpenWeatherService openWeatherService;
+    private final RegionWeatherConfig config;
+    private final CacheManager cacheManager;
+
+    public RegionWeatherService(OpenWeatherService openWeatherService, RegionWeatherConfig config, CacheManager cacheManager) {
+        this.openWeatherService = openWeatherService;
+        this.config = config;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Gets weather of the grid cells covering a bounding box.
+     *
+     * @param south latitude of the southern edge
+     * @param west  longitude of the western edge
+     * @param north latitude of the northern edge, greater than south
+     * @param east  longitude of the eastern edge, greater than west
+     * @return packed weather of the cells, with null values for cells that could not be loaded
+     */
+    public RegionWeather getRegionWeather(double south, double west, double north, double east) {
+        double cellDegrees = config.getCellDegrees();
+        Grid grid = new Grid(south, west, north, east, cellDegrees);
+        while ((long) grid.rows * grid.columns > config.getMaxCells()) {
+            cellDegrees *= 2;
+            grid = new Grid(south, west, north, east, cellDegrees);
+        }
+        int cells = grid.rows * grid.columns;
+        double[] latitudes = new double[cells];
+        double[] longitudes = new double[cells];
+        WeatherForecast[] forecasts = new WeatherForecast[cells];
+        Cache cache = cacheManager.getCache(REGION_WEATHER_CACHE);
+        List<Integer> missing = new ArrayList<>();
+        for (int row = 0; row < grid.rows; row++) {
+            for (int column = 0; column < grid.columns; column++) {
+                int cell = row * grid.columns + column;
+                latitudes[cell] = grid.latitude(grid.firstRow + row);
+                longitudes[cell] = grid.longitude(grid.firstColumn + column);
+                forecasts[cell] = cache != null ? cache.get(key(latitudes[cell], longitudes[cell]), WeatherForecast.class) : null;
+                if (forecasts[cell] == null) {
+                    missing.add(cell);
+                }
+            }
+        }
+        log.debug("Region of {} cells of {} degrees, {} not cached", cells, cellDegrees, missing.size());
+        int batchSize = Math.max(1, config.getBatchSize());
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            load(missing.subList(from, Math.min(from + batchSize, missing.size())), latitudes, longitudes, forecasts, cache);
+        }
+        return pack(grid, forecasts);
+    }
+
+    private void load(List<Integer> batch, double[] latitudes, double[] longitudes, WeatherForecast[] forecasts, Cache cache) {
+        double[] batchLatitudes = batch.stream().mapToDouble(cell -> latitudes[cell]).toArray();
+        double[] batchLongitudes = batch.stream().mapToDouble(cell -> longitudes[cell]).toArray();
+        List<WeatherForecast> loaded = openWeatherService.getRegionForecasts(batchLatitudes, batchLongitudes);
+        if (loaded == null) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            WeatherForecast forecast = loaded.get(i);
+            int cell = batch.get(i);
+            forecasts[cell] = forecast;
+            if (forecast != null && cache != null) {
+                cache.put(key(latitudes[cell], longitudes[cell]), forecast);
+            }
+        }
+    }
+
+    private static RegionWeather pack(Grid grid, WeatherForecast[] forecasts) {
+        Integer[] temperature = new Integer[forecasts.length];
+        Integer[] windSpeed = new Integer[forecasts.length];
+        Integer[] weatherCode = new Integer[forecasts.length];
+        Integer[] tempMin = new Integer[forecasts.length];
+        Integer[] tempMax = new Integer[forecasts.length];
+        Integer[] forecastWeatherCode = new Integer[forecasts.length];
+        for (int cell = 0; cell < forecasts.length; cell++) {
+            WeatherForecast forecast = forecasts[cell];
+            if (forecast == null) {
+                continue;
+            }
+            CurrentWeather current = forecast.getCurrent();
+            if (current != null) {
+                temperature[cell] = tenths(current.getTemperature());
+                windSpeed[cell] = tenths(current.getWindSpeed());
+                weatherCode[cell] = current.getWeatherCode();
+            }
+            if (forecast.getForecast() != null && !forecast.getForecast().isEmpty()) {
+                Forecast today = forecast.getForecast().get(0);
+                tempMin[cell] = tenths(today.getTempMin());
+                tempMax[cell] = tenths(today.getTempMax());
+                forecastWeatherCode[cell] = today.getWeatherCode();
+            }
+        }
+        return new RegionWeather()
+                .south(grid.firstRow * grid.cellDegrees)
+                .west(grid.firstColumn * grid.cellDegrees)
+                .cellDegrees(grid.cellDegrees)
+                .rows(grid.rows)
+                .columns(grid.columns)
+                .temperature(Arrays.asList(temperature))
+                .windSpeed(Arrays.asList(windSpeed))
+                .weatherCode(Arrays.asList(weatherCode))
+                .tempMin(Arrays.asList(tempMin))
+                .tempMax(Arrays.asList(tempMax))
+                .forecastWeatherCode(Arrays.asList(forecastWeatherCode));
+    }
+
+    private static Integer tenths(Double value) {
+        return value != null ? (int) Math.round(value * 10) : null;
+    }
+
+    private static String key(double latitude, double longitude) {
+        return latitude + "-" + longitude;
+    }
+
+    /**
+     * Cells of the global grid covering a bounding box.
+     */
+    private static class Grid {
+        private final double cellDegrees;
+        private final int firstRow;
+        private final int firstColumn;
+        private final int rows;
+        private final int columns;
+
+        Grid(double south, double west, double north, double east, double cellDegrees) {
+            this.cellDegrees = cellDegrees;
+            this.firstRow = (int) Math.floor(south / cellDegrees);
+            this.firstColumn = (int) Math.floor(west / cellDegrees);
+            this.rows = Math.max(1, (int) Math.ceil(north / cellDegrees) - firstRow);
+            this.columns = Math.max(1, (int) Math.ceil(east / cellDegrees) - firstColumn);
+        }
+
+        /**
+         * Latitude of the centre of a row, clamped to the poles for cells reaching past them
+         */
+        double latitude(int row) {
+            return round(Math.max(-90, Math.min(90, centre(row))));
+        }
+
+        /**
+         * Longitude of the centre of a column, wrapped across the antimeridian into [-180, 180)
+         */
+        double longitude(int column) {
+            double longitude = centre(column) % 360;
+            if (longitude >= 180) {
+                longitude -= 360;
+            } else if (longitude < -180) {
+                longitude += 360;
+            }
+            return round(longitude);
+        }
+
+        private double centre(int index) {
+            return (index + 0.5) * cellDegrees;
+        }
+
+        private static double round(double coordinate) {
+            return BigDecimal.valueOf(coordinate)
+                    .setScale(COORDINATE_SCALE, RoundingMode.HALF_UP)
+                    .doubleValue();
+        }
+    }
+}
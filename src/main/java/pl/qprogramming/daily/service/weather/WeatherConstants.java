@@ -13,12 +13,12 @@ public class WeatherConstants {
         // Prevent instantiation
     }
 
-    // Open-Meteo API URLs
+    // Open-Meteo API URLs, defaults of OpenMeteoConfig
     public static final String OPEN_METEO_FORECAST_URL = "https://api.open-meteo.com/v1/forecast";
     public static final String OPEN_METEO_GEOCODING_URL = "https://geocoding-api.open-meteo.com/v1/search";
     public static final String OPEN_METEO_AIR_QUALITY_URL = "https://air-quality-api.open-meteo.com/v1/air-quality";
 
-    // AccuWeather API URLs
+    // AccuWeather API URLs, defaults of AccuWeatherConfig
     public static final String ACCU_WEATHER_LOCATION_URL = "http://dataservice.accuweather.com/locations/v1/cities/geoposition/search";
     public static final String ACCU_WEATHER_CURRENT_CONDITIONS_URL = "http://dataservice.accuweather.com/currentconditions/v1";
     public static final String ACCU_WEATHER_FORECAST_URL = "http://dataservice.accuweather.com/forecasts/v1/daily/5day";
@@ -30,12 +30,14 @@ public class WeatherConstants {
     public static final String CURRENT_WEATHER_CACHE = "currentWeather";
     public static final String FORECAST_CACHE = "forecast";
     public static final String AIR_QUALITY_CACHE = "airQuality";
+    public static final String REGION_WEATHER_CACHE = "regionWeather";
 
     // Geocoding parameters
     public static final String PARAM_NAME = "name";
     public static final String PARAM_LANGUAGE = "language";
     public static final String PARAM_COUNT = "count";
     public static final String DEFAULT_LANGUAGE = "en";
+    public static final int GEOCODING_RESULT_COUNT = 20; // Results requested and cached per query, sliced per request
 
     // Weather parameters
     public static final String PARAM_LATITUDE = "latitude";
@@ -0,0 +1,339 @@
+package pl.qprogramming.daily.service.weather.gazetteer;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import pl.qprogramming.daily.config.GazetteerConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Local index of cities answering name prefix queries for location autocomplete.
+ * <p>
+ * Cities are read from {@code gazetteer.location}, a file in the GeoNames {@code cities*.txt}
+ * tab separated format, so the bundled extract can be replaced by a full GeoNames dump. Each
+ * name, ASCII name and alternate name of a city is {@link #fold(String) folded} and kept in one
+ * sorted array, so a prefix query is a binary search followed by a scan of the matching range,
+ * and matches are ranked by population. Ranges of prefixes up to {@value #SHORT_PREFIX_LENGTH}
+ * characters span a large part of the index, so their most populous {@code gazetteer.max-results}
+ * cities are ranked once when the index is loaded. Cities found by the upstream geocoder can be
+ * {@link #merge(Collection) merged} into the index at runtime.
+ * </p>
+ */
+@Slf4j
+@Component
+public class Gazetteer {
+
+    /**
+     * Limit of cities merged at runtime, so repeated upstream fallbacks cannot grow the index without bound
+     */
+    static final int MAX_MERGED_PLACES = 10000;
+
+    /**
+     * Longest folded prefix whose matches are ranked when the index is loaded
+     */
+    static final int SHORT_PREFIX_LENGTH = 2;
+
+    private static final int GEONAMES_COLUMNS = 18;
+
+    private final String[] keys;
+    private final String[] names;
+    private final int[] placeIndexes;
+    private final Place[] places;
+    private final Map<Long, Place> placesById = new HashMap<>();
+    private final Map<String, List<Match>> shortPrefixMatches = new HashMap<>();
+    private final ConcurrentSkipListMap<String, Map<Long, Match>> merged = new ConcurrentSkipListMap<>();
+    private final Map<Long, Place> mergedById = new ConcurrentHashMap<>();
+    private final AtomicInteger mergedCount = new AtomicInteger();
+
+    public Gazetteer(GazetteerConfig config, ResourceLoader resourceLoader) {
+        Resource resource = resourceLoader.getResource(config.getLocation());
+        List<Place> placeList = new ArrayList<>();
+        List<Match> entries = new ArrayList<>();
+        List<String> entryKeys = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t", -1);
+                if (columns.length < GEONAMES_COLUMNS || placesById.containsKey(Long.parseLong(columns[0]))) {
+                    continue;
+                }
+                Place place = new Place(Long.parseLong(columns[0]), columns[1], columns[8], null, null,
+                        Double.parseDouble(columns[4]), Double.parseDouble(columns[5]),
+                        columns[14].isEmpty() ? 0 : Long.parseLong(columns[14]), columns[17]);
+                placesById.put(place.getId(), place);
+                placeList.add(place);
+                Set<String> variants = new LinkedHashSet<>();
+                variants.add(columns[1]);
+                variants.add(columns[2]);
+                for (String alternate : columns[3].split(",")) {
+                    if (isName(alternate)) {
+                        variants.add(alternate);
+                    }
+                }
+                Set<String> folded = new HashSet<>();
+                for (String variant : variants) {
+                    String key = fold(variant);
+                    if (!key.isEmpty() && folded.add(key)) {
+                        entries.add(new Match(place, variant));
+                        entryKeys.add(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read gazetteer " + config.getLocation(), e);
+        }
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(entryKeys::get));
+        Map<Place, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < placeList.size(); i++) {
+            indexOf.put(placeList.get(i), i);
+        }
+        keys = new String[order.length];
+        names = new String[order.length];
+        placeIndexes = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            Match entry = entries.get(order[i]);
+            keys[i] = entryKeys.get(order[i]);
+            names[i] = entry.getName();
+            placeIndexes[i] = indexOf.get(entry.getPlace());
+        }
+        places = placeList.toArray(new Place[0]);
+        for (String entryKey : keys) {
+            for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, entryKey.length()); length++) {
+                String prefix = entryKey.substring(0, length);
+                if (!shortPrefixMatches.containsKey(prefix)) {
+                    shortPrefixMatches.put(prefix, byPopulation(scan(prefix).values(), config.getMaxResults()));
+                }
+            }
+        }
+        log.info("Loaded gazetteer of {} cities and {} names from {}", places.length, keys.length, config.getLocation());
+    }
+
+    /**
+     * Finds the most populous cities with a name starting with the given text.
+     *
+     * @param prefix beginning of a city name, in any case and with or without diacritics
+     * @param count  maximum number of cities to return, at most {@code gazetteer.max-results} of
+     *               the loaded index are returned for prefixes of {@value #SHORT_PREFIX_LENGTH} characters or less
+     * @return matches ordered by population, with the name that matched, empty if there are none
+     */
+    public List<Match> search(String prefix, int count) {
+        String key = fold(prefix);
+        if (key.isEmpty() || count <= 0) {
+            return List.of();
+        }
+        Map<Long, Match> found;
+        if (key.length() <= SHORT_PREFIX_LENGTH) {
+            found = new HashMap<>();
+            for (Match match : shortPrefixMatches.getOrDefault(key, List.of())) {
+                found.put(match.getPlace().getId(), match);
+            }
+        } else {
+            found = scan(key);
+        }
+        for (Map<Long, Match> matches : merged.subMap(key, true, key + Character.MAX_VALUE, true).values()) {
+            for (Match match : matches.values()) {
+                found.putIfAbsent(match.getPlace().getId(), match);
+            }
+        }
+        return byPopulation(found.values(), count);
+    }
+
+    /**
+     * Returns a city of the index or merged into it.
+     *
+     * @param id GeoNames id of the city
+     * @return city or null if it is not known
+     */
+    public Place find(long id) {
+        Place place = placesById.get(id);
+        return place != null ? place : mergedById.get(id);
+    }
+
+    /**
+     * Adds cities found elsewhere, e.g. by the upstream geocoder, under their name. Cities already
+     * in the index are skipped.
+     *
+     * @param found cities to add
+     */
+    public void merge(Collection<Place> found) {
+        for (Place place : found) {
+            String key = fold(place.getName());
+            if (key.isEmpty() || placesById.containsKey(place.getId()) || mergedById.putIfAbsent(place.getId(), place) != null) {
+                continue;
+            }
+            if (mergedCount.incrementAndGet() > MAX_MERGED_PLACES) {
+                mergedCount.decrementAndGet();
+                mergedById.remove(place.getId());
+                log.debug("Gazetteer reached {} merged cities, {} is not added", MAX_MERGED_PLACES, place.getName());
+                continue;
+            }
+            merged.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).put(place.getId(), new Match(place, place.getName()));
+        }
+    }
+
+    /**
+     * Folds a name for comparison: compatibility characters are decomposed, diacritics are removed,
+     * letters are lower-cased and every run of other characters becomes a single space, so
+     * {@code " Bielsko-Biała"} and {@code "BIELSKO BIALA"} both become {@code "bielsko biala"}.
+     *
+     * @param text name or query
+     * @return folded text, empty if it has no letters or digits
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean separator = false;
+        for (int i = 0; i < decomposed.length(); ) {
+            int codePoint = decomposed.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int type = Character.getType(codePoint);
+            if (type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK || type == Character.ENCLOSING_MARK) {
+                continue;
+            }
+            if (!Character.isLetterOrDigit(codePoint)) {
+                separator = folded.length() > 0;
+                continue;
+            }
+            if (separator) {
+                folded.append(' ');
+                separator = false;
+            }
+            appendFolded(folded, Character.toLowerCase(codePoint));
+        }
+        return folded.toString();
+    }
+
+    private static void appendFolded(StringBuilder folded, int codePoint) {
+        // Letters with strokes and ligatures have no decomposition
+        switch (codePoint) {
+            case 'ł':
+                folded.append('l');
+                break;
+            case 'ø':
+                folded.append('o');
+                break;
+            case 'đ':
+                folded.append('d');
+                break;
+            case 'ı':
+                folded.append('i');
+                break;
+            case 'ß':
+                folded.append("ss");
+                break;
+            case 'æ':
+                folded.append("ae");
+                break;
+            case 'œ':
+                folded.append("oe");
+                break;
+            default:
+                folded.appendCodePoint(codePoint);
+        }
+    }
+
+    /**
+     * Collects cities of the loaded index with a name starting with a folded prefix, one match per city.
+     */
+    private Map<Long, Match> scan(String key) {
+        Map<Long, Match> found = new HashMap<>();
+        for (int i = lowerBound(key); i < keys.length && keys[i].startsWith(key); i++) {
+            Place place = places[placeIndexes[i]];
+            found.merge(place.getId(), new Match(place, names[i]), Gazetteer::preferMainName);
+        }
+        return found;
+    }
+
+    private static List<Match> byPopulation(Collection<Match> matches, int count) {
+        return matches.stream()
+                .sorted(Comparator.comparingLong((Match match) -> match.getPlace().getPopulation()).reversed())
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static Match preferMainName(Match current, Match other) {
+        return other.getName().equals(other.getPlace().getName()) ? other : current;
+    }
+
+    /**
+     * Skips GeoNames alternate names which are codes or links rather than names.
+     */
+    private static boolean isName(String alternate) {
+        return alternate.length() > 1 && !alternate.contains("://") && alternate.chars().anyMatch(Character::isLetter)
+                && !alternate.equals(alternate.toUpperCase());
+    }
+
+    /**
+     * City of the gazetteer.
+     */
+    @Value
+    public static class Place {
+        long id;
+        String name;
+        String countryCode;
+        /**
+         * Country name, when known, otherwise the name is derived from the country code
+         */
+        String country;
+        /**
+         * First level administrative division, when known
+         */
+        String state;
+        double latitude;
+        double longitude;
+        long population;
+        String timezone;
+    }
+
+    /**
+     * City found by a query, with the name that matched it.
+     */
+    @Value
+    public static class Match {
+        Place place;
+        String name;
+    }
+}
@@ -74,6 +74,12 @@ public interface AccuWeatherMapper {
 
     List<Forecast> mapDailyForecasts(List<AccuWeatherDailyForecast.DailyForecast> dailyForecasts);
 
+    /**
+     * Copies a forecast of a nearby location, flagged as approximate.
+     */
+    @Mapping(target = "approximate", constant = "true")
+    WeatherForecast toApproximate(WeatherForecast forecast);
+
     /**
      * Creates a complete WeatherForecast from AccuWeather API data.
      */
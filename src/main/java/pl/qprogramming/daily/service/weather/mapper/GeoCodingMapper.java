@@ -4,13 +4,72 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 import pl.qprogramming.daily.dto.GeocodingResult;
+import pl.qprogramming.daily.service.weather.gazetteer.Gazetteer;
 import pl.qprogramming.daily.service.weather.model.GeocodingResponse;
+import pl.qprogramming.daily.service.weather.model.LocalizedGeocodingResults;
+
+import java.util.Locale;
+
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface GeoCodingMapper {
-    @Mapping(source = "name", target = "name")
-    @Mapping(source = "latitude", target = "latitude")
-    @Mapping(source = "longitude", target = "longitude")
-    @Mapping(source = "country", target = "country")
-    @Mapping(source = "timezone", target = "timezone")
-    GeocodingResult toGeocodingResponse(GeocodingResponse.GeocodingResult response);
+    /**
+     * Maps the names of a geocoder result with the coordinates of the place, as the gazetteer knows it.
+     */
+    @Mapping(source = "place.id", target = "id")
+    @Mapping(source = "result.name", target = "name")
+    @Mapping(source = "result.country", target = "country")
+    @Mapping(source = "result.admin1", target = "state")
+    @Mapping(source = "place.latitude", target = "latitude")
+    @Mapping(source = "place.longitude", target = "longitude")
+    @Mapping(source = "place.population", target = "population")
+    @Mapping(source = "place.timezone", target = "timezone")
+    LocalizedGeocodingResults.LocalizedPlace toLocalizedPlace(GeocodingResponse.GeocodingResult result, Gazetteer.Place place);
+
+    /**
+     * Maps a cached place with its names in the language it was geocoded in.
+     */
+    default GeocodingResult toGeocodingResult(LocalizedGeocodingResults.LocalizedPlace place) {
+        return new GeocodingResult()
+                .name(place.getName())
+                .country(place.getCountry())
+                .state(place.getState())
+                .latitude(place.getLatitude())
+                .longitude(place.getLongitude())
+                .timezone(place.getTimezone())
+                .population((int) Math.min(place.getPopulation(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Maps a gazetteer match, named as it matched, with the country named in the given language
+     * when the gazetteer only knows its code.
+     */
+    default GeocodingResult toGeocodingResult(Gazetteer.Match match, String language) {
+        Gazetteer.Place place = match.getPlace();
+        String country = place.getCountry();
+        if (country == null && place.getCountryCode() != null && !place.getCountryCode().isEmpty()) {
+            country = new Locale("", place.getCountryCode()).getDisplayCountry(Locale.forLanguageTag(language));
+        }
+        return new GeocodingResult()
+                .name(match.getName())
+                .country(country)
+                .state(place.getState())
+                .latitude(place.getLatitude())
+                .longitude(place.getLongitude())
+                .timezone(place.getTimezone())
+                .population((int) Math.min(place.getPopulation(), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Maps an Open-Meteo result to a gazetteer city.
+     *
+     * @return city, or null if the result has no id
+     */
+    default Gazetteer.Place toPlace(GeocodingResponse.GeocodingResult result) {
+        if (result.getId() == null) {
+            return null;
+        }
+        return new Gazetteer.Place(result.getId(), result.getName(), result.getCountry_code(), result.getCountry(),
+                result.getAdmin1(), result.getLatitude(), result.getLongitude(),
+                result.getPopulation() != null ? result.getPopulation() : 0, result.getTimezone());
+    }
 }
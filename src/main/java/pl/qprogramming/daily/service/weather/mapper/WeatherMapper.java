@@ -53,6 +53,24 @@ public interface WeatherMapper {
     @Mapping(source = "response.current.relative_humidity_2m", target = "current.humidity")
     WeatherData toWeatherData(OpenMeteoWeatherResponse response);
 
+    /**
+     * Copies weather of a nearby location, flagged as approximate.
+     */
+    @Mapping(target = "approximate", constant = "true")
+    WeatherData toApproximate(WeatherData data);
+
+    /**
+     * Copies a forecast of a nearby location, flagged as approximate.
+     */
+    @Mapping(target = "approximate", constant = "true")
+    WeatherForecast toApproximate(WeatherForecast forecast);
+
+    /**
+     * Copies air quality of an expired entry or a nearby location, flagged as approximate.
+     */
+    @Mapping(target = "approximate", constant = "true")
+    AirQualityData toApproximate(AirQualityData data);
+
     @Named("dailyToForecastList")
     default List<Forecast> dailyToForecastList(OpenMeteoDailyWeather daily, @Context DaysContext daysContext) {
         if (daily == null || daily.getTime() == null || daily.getTime().isEmpty()) {
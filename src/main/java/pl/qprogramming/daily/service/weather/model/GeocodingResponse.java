@@ -12,7 +12,7 @@ public class GeocodingResponse {
 
     @Data
     public static class GeocodingResult {
-        private long id;
+        private Long id;
         private String name;
         private double latitude;
         private double longitude;
@@ -20,5 +20,6 @@ public class GeocodingResponse {
         private String country_code;
         private String admin1;
         private String timezone;
+        private Long population;
     }
 }
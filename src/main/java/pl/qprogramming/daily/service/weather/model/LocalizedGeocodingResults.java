@@ -0,0 +1,38 @@
+package pl.qprogramming.daily.service.weather.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Geocoding results of a query in one language, as cached. Each place keeps its localized names
+ * and the coordinates the gazetteer knew when it was geocoded, so a cached query resolves without
+ * the gazetteer, which may have dropped the place or restarted since.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocalizedGeocodingResults implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<LocalizedPlace> places;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LocalizedPlace implements Serializable {
+        private static final long serialVersionUID = 2L;
+
+        private long id;
+        private String name;
+        private String country;
+        private String state;
+        private double latitude;
+        private double longitude;
+        private long population;
+        private String timezone;
+    }
+}
@@ -0,0 +1,30 @@
+package pl.qprogramming.daily.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+
+/**
+ * Names shared by the tracing instrumentation.
+ */
+public final class Tracing {
+
+    public static final String INSTRUMENTATION_NAME = "pl.qprogramming.daily";
+
+    // OpenTelemetry semantic conventions for HTTP spans
+    public static final AttributeKey<String> HTTP_REQUEST_METHOD = AttributeKey.stringKey("http.request.method");
+    public static final AttributeKey<Long> HTTP_RESPONSE_STATUS_CODE = AttributeKey.longKey("http.response.status_code");
+    public static final AttributeKey<String> HTTP_ROUTE = AttributeKey.stringKey("http.route");
+    public static final AttributeKey<String> URL_PATH = AttributeKey.stringKey("url.path");
+    public static final AttributeKey<String> URL_FULL = AttributeKey.stringKey("url.full");
+    public static final AttributeKey<String> SERVER_ADDRESS = AttributeKey.stringKey("server.address");
+    public static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+
+    // Application attributes
+    public static final AttributeKey<String> UPSTREAM = AttributeKey.stringKey("daily.upstream");
+    public static final AttributeKey<String> CACHE_NAME = AttributeKey.stringKey("daily.cache.name");
+    public static final AttributeKey<Boolean> CACHE_HIT = AttributeKey.booleanKey("daily.cache.hit");
+    public static final AttributeKey<String> CACHE_TIER = AttributeKey.stringKey("daily.cache.tier");
+
+    private Tracing() {
+        // Prevent instantiation
+    }
+}
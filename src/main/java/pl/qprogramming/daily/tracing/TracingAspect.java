@@ -0,0 +1,54 @@
+package pl.qprogramming.daily.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Creates an internal span for each call of an API controller, API delegate or service, named
+ * {@code Class.method}, so the trace shows which service calls run one after another.
+ * <p>
+ * Runs outside the caching advice, so a cached service call still gets a span, marked with the
+ * cache attributes recorded by the cache lookup. Calls within the same bean are not proxied and
+ * do not get spans of their own.
+ * </p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "tracing", name = "enabled", havingValue = "true")
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(OpenTelemetry openTelemetry) {
+        this.tracer = openTelemetry.getTracer(Tracing.INSTRUMENTATION_NAME);
+    }
+
+    @Around("execution(public * pl.qprogramming.daily.api.*Controller.*(..))"
+            + " || execution(public * pl.qprogramming.daily..*DelegateImpl.*(..))"
+            + " || execution(public * pl.qprogramming.daily.service..*Service.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        Span span = tracer.spanBuilder(ClassUtils.getUserClass(joinPoint.getTarget()).getSimpleName()
+                + "." + joinPoint.getSignature().getName()).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
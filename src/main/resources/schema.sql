@@ -21,3 +21,71 @@ CREATE TABLE IF NOT EXISTS persistent_logins (
   last_used TIMESTAMP NOT NULL
 );
 
+
+-- Per-user calendar usage, used by the background sync to warm calendars ahead of usual visits
+CREATE TABLE IF NOT EXISTS calendar_usage (
+  client_registration_id VARCHAR(100) NOT NULL,
+  principal_name VARCHAR(200) NOT NULL,
+  calendar_ids VARCHAR(4000) NOT NULL,
+  days INT NOT NULL,
+  hourly_visits VARCHAR(200) NOT NULL,
+  last_visit_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (client_registration_id, principal_name)
+);
+
+-- AccuWeather locations by coordinate cell, so each cell's location key is requested only once
+CREATE TABLE IF NOT EXISTS accuweather_location (
+  cell_lat INT NOT NULL,
+  cell_lon INT NOT NULL,
+  location_key VARCHAR(50) NOT NULL,
+  localized_name VARCHAR(200),
+  country VARCHAR(200),
+  administrative_area VARCHAR(200),
+  latitude DOUBLE NOT NULL,
+  longitude DOUBLE NOT NULL,
+  resolved_at TIMESTAMP NOT NULL,
+  cell_degrees DOUBLE NOT NULL,
+  PRIMARY KEY (cell_lat, cell_lon)
+);
+
+-- Weather cache entries kept across restarts, written behind the in-memory caches
+CREATE TABLE IF NOT EXISTS cache_entry (
+  cache_name VARCHAR(100) NOT NULL,
+  cache_key VARCHAR(500) NOT NULL,
+  entry_value BLOB NOT NULL,
+  expires_at TIMESTAMP NOT NULL,
+  hits INT DEFAULT 0 NOT NULL,
+  PRIMARY KEY (cache_name, cache_key)
+);
+CREATE INDEX IF NOT EXISTS cache_entry_expires_at ON cache_entry (expires_at);
+
+-- Calls made to each upstream API today, so daily budgets survive restarts
+CREATE TABLE IF NOT EXISTS upstream_quota (
+  upstream VARCHAR(100) NOT NULL,
+  quota_day DATE NOT NULL,
+  used INT NOT NULL,
+  PRIMARY KEY (upstream)
+);
+
+-- Schema for Spring Session JDBC, HTTP sessions shared by all application instances
+CREATE TABLE IF NOT EXISTS SPRING_SESSION (
+  PRIMARY_ID CHAR(36) NOT NULL,
+  SESSION_ID CHAR(36) NOT NULL,
+  CREATION_TIME BIGINT NOT NULL,
+  LAST_ACCESS_TIME BIGINT NOT NULL,
+  MAX_INACTIVE_INTERVAL INT NOT NULL,
+  EXPIRY_TIME BIGINT NOT NULL,
+  PRINCIPAL_NAME VARCHAR(100),
+  CONSTRAINT SPRING_SESSION_PK PRIMARY KEY (PRIMARY_ID)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS SPRING_SESSION_IX1 ON SPRING_SESSION (SESSION_ID);
+CREATE INDEX IF NOT EXISTS SPRING_SESSION_IX2 ON SPRING_SESSION (EXPIRY_TIME);
+CREATE INDEX IF NOT EXISTS SPRING_SESSION_IX3 ON SPRING_SESSION (PRINCIPAL_NAME);
+
+CREATE TABLE IF NOT EXISTS SPRING_SESSION_ATTRIBUTES (
+  SESSION_PRIMARY_ID CHAR(36) NOT NULL,
+  ATTRIBUTE_NAME VARCHAR(200) NOT NULL,
+  ATTRIBUTE_BYTES LONGVARBINARY NOT NULL,
+  CONSTRAINT SPRING_SESSION_ATTRIBUTES_PK PRIMARY KEY (SESSION_PRIMARY_ID, ATTRIBUTE_NAME),
+  CONSTRAINT SPRING_SESSION_ATTRIBUTES_FK FOREIGN KEY (SESSION_PRIMARY_ID) REFERENCES SPRING_SESSION(PRIMARY_ID) ON DELETE CASCADE
+);
@@ -0,0 +1,1565 @@
+/* tslint:disable */
+/* eslint-disable */
+/**
+ * Daily API
+ * API for daily application with weather, location, authentication, and calendar functionality
+ *
+ * The version of the OpenAPI document: 1.0.0
+ * 
+ *
+ * NOTE: This class is auto generated by OpenAPI Generator (https://openapi-generator.tech).
+ * https://openapi-generator.tech
+ * Do not edit the class manually.
+ */
+
+
+import type { Configuration } from './configuration';
+import type { AxiosPromise, AxiosInstance, AxiosRequestConfig } from 'axios';
+import globalAxios from 'axios';
+// Some imports not used depending on template conditions
+// @ts-ignore
+import { DUMMY_BASE_URL, assertParamExists, setApiKeyToObject, setBasicAuthToObject, setBearerAuthToObject, setOAuthToObject, setSearchParams, serializeDataIfNeeded, toPathString, createRequestFunction } from './common';
+import type { RequestArgs } from './base';
+// @ts-ignore
+import { BASE_PATH, COLLECTION_FORMATS, BaseAPI, RequiredError } from './base';
+
+/**
+ * 
+ * @export
+ * @interface AirQuality
+ */
+export interface AirQuality {
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'aqi'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'pm10'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'pm2_5'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'o3'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'no2'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'so2'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'co'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof AirQuality
+     */
+    'nh3'?: number;
+    /**
+     * 
+     * @type {string}
+     * @memberof AirQuality
+     */
+    'description'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof AirQuality
+     */
+    'icon'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof AirQuality
+     */
+    'timestamp'?: string;
+}
+/**
+ * 
+ * @export
+ * @interface AirQualityData
+ */
+export interface AirQualityData {
+    /**
+     * 
+     * @type {Location}
+     * @memberof AirQualityData
+     */
+    'location'?: Location;
+    /**
+     * 
+     * @type {AirQuality}
+     * @memberof AirQualityData
+     */
+    'airQuality'?: AirQuality;
+    /**
+     * Served from expired or nearby data while the weather API budget is used up
+     * @type {boolean}
+     * @memberof AirQualityData
+     */
+    'approximate'?: boolean;
+}
+/**
+ * 
+ * @export
+ * @interface Calendar
+ */
+export interface Calendar {
+    /**
+     * 
+     * @type {string}
+     * @memberof Calendar
+     */
+    'id': string;
+    /**
+     * 
+     * @type {string}
+     * @memberof Calendar
+     */
+    'summary': string;
+    /**
+     * 
+     * @type {string}
+     * @memberof Calendar
+     */
+    'description'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof Calendar
+     */
+    'timeZone'?: string;
+    /**
+     * 
+     * @type {boolean}
+     * @memberof Calendar
+     */
+    'primary'?: boolean;
+    /**
+     * 
+     * @type {string}
+     * @memberof Calendar
+     */
+    'color'?: string;
+}
+/**
+ * 
+ * @export
+ * @interface CalendarEvent
+ */
+export interface CalendarEvent {
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'id'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'summary'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'description'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'location'?: string;
+    /**
+     * 
+     * @type {CalendarEventStart}
+     * @memberof CalendarEvent
+     */
+    'start'?: CalendarEventStart;
+    /**
+     * 
+     * @type {CalendarEventStart}
+     * @memberof CalendarEvent
+     */
+    'end'?: CalendarEventStart;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'htmlLink'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'calendarId'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEvent
+     */
+    'calendarColor'?: string;
+}
+/**
+ * 
+ * @export
+ * @interface CalendarEventStart
+ */
+export interface CalendarEventStart {
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEventStart
+     */
+    'date'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEventStart
+     */
+    'dateTime'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof CalendarEventStart
+     */
+    'timeZone'?: string;
+}
+/**
+ * 
+ * @export
+ * @interface CurrentWeather
+ */
+export interface CurrentWeather {
+    /**
+     * 
+     * @type {number}
+     * @memberof CurrentWeather
+     */
+    'temperature'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof CurrentWeather
+     */
+    'humidity'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof CurrentWeather
+     */
+    'windSpeed'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof CurrentWeather
+     */
+    'weatherCode'?: number;
+}
+/**
+ * 
+ * @export
+ * @interface Forecast
+ */
+export interface Forecast {
+    /**
+     * 
+     * @type {string}
+     * @memberof Forecast
+     */
+    'date'?: string;
+    /**
+     * 
+     * @type {number}
+     * @memberof Forecast
+     */
+    'tempMin'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof Forecast
+     */
+    'tempMax'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof Forecast
+     */
+    'humidity'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof Forecast
+     */
+    'pressure'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof Forecast
+     */
+    'weatherCode'?: number;
+    /**
+     * 
+     * @type {string}
+     * @memberof Forecast
+     */
+    'icon'?: string;
+}
+/**
+ * 
+ * @export
+ * @interface GeocodingResult
+ */
+export interface GeocodingResult {
+    /**
+     * 
+     * @type {string}
+     * @memberof GeocodingResult
+     */
+    'name'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof GeocodingResult
+     */
+    'country'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof GeocodingResult
+     */
+    'state'?: string;
+    /**
+     * 
+     * @type {number}
+     * @memberof GeocodingResult
+     */
+    'latitude'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof GeocodingResult
+     */
+    'longitude'?: number;
+    /**
+     * 
+     * @type {string}
+     * @memberof GeocodingResult
+     */
+    'timezone'?: string;
+    /**
+     * 
+     * @type {number}
+     * @memberof GeocodingResult
+     */
+    'population'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof GeocodingResult
+     */
+    'area'?: number;
+}
+/**
+ * 
+ * @export
+ * @interface HourlyForecast
+ */
+export interface HourlyForecast {
+    /**
+     * 
+     * @type {string}
+     * @memberof HourlyForecast
+     */
+    'time'?: string;
+    /**
+     * 
+     * @type {number}
+     * @memberof HourlyForecast
+     */
+    'temperature'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof HourlyForecast
+     */
+    'humidity'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof HourlyForecast
+     */
+    'windSpeed'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof HourlyForecast
+     */
+    'weatherCode'?: number;
+}
+/**
+ * 
+ * @export
+ * @interface Location
+ */
+export interface Location {
+    /**
+     * 
+     * @type {string}
+     * @memberof Location
+     */
+    'id'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof Location
+     */
+    'name'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof Location
+     */
+    'country'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof Location
+     */
+    'state'?: string;
+    /**
+     * 
+     * @type {number}
+     * @memberof Location
+     */
+    'lat'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof Location
+     */
+    'lon'?: number;
+}
+/**
+ * Weather of a grid of cells covering a bounding box, packed by column. The value of the cell in row r and column c is at index r * columns + c of each array, rows going north from the south edge and columns going east from the west edge. Values of cells that could not be loaded are null. 
+ * @export
+ * @interface RegionWeather
+ */
+export interface RegionWeather {
+    /**
+     * Latitude of the southern edge of the first row
+     * @type {number}
+     * @memberof RegionWeather
+     */
+    'south'?: number;
+    /**
+     * Longitude of the western edge of the first column
+     * @type {number}
+     * @memberof RegionWeather
+     */
+    'west'?: number;
+    /**
+     * Width and height of a cell in degrees
+     * @type {number}
+     * @memberof RegionWeather
+     */
+    'cellDegrees'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof RegionWeather
+     */
+    'rows'?: number;
+    /**
+     * 
+     * @type {number}
+     * @memberof RegionWeather
+     */
+    'columns'?: number;
+    /**
+     * Current temperature at the cell centre in tenths of a degree
+     * @type {Array<number>}
+     * @memberof RegionWeather
+     */
+    'temperature'?: Array<number>;
+    /**
+     * Current wind speed in tenths of km/h
+     * @type {Array<number>}
+     * @memberof RegionWeather
+     */
+    'windSpeed'?: Array<number>;
+    /**
+     * Current weather code
+     * @type {Array<number>}
+     * @memberof RegionWeather
+     */
+    'weatherCode'?: Array<number>;
+    /**
+     * Today\'s minimum temperature in tenths of a degree
+     * @type {Array<number>}
+     * @memberof RegionWeather
+     */
+    'tempMin'?: Array<number>;
+    /**
+     * Today\'s maximum temperature in tenths of a degree
+     * @type {Array<number>}
+     * @memberof RegionWeather
+     */
+    'tempMax'?: Array<number>;
+    /**
+     * Today\'s weather code
+     * @type {Array<number>}
+     * @memberof RegionWeather
+     */
+    'forecastWeatherCode'?: Array<number>;
+}
+/**
+ * 
+ * @export
+ * @interface TokenInfo
+ */
+export interface TokenInfo {
+    /**
+     * 
+     * @type {string}
+     * @memberof TokenInfo
+     */
+    'token_type'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof TokenInfo
+     */
+    'access_token'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof TokenInfo
+     */
+    'expires_at'?: string;
+    /**
+     * Indicates if the user needs to re-authenticate (e.g., when token has expired and no refresh token is available)
+     * @type {boolean}
+     * @memberof TokenInfo
+     */
+    'requires_reauthentication'?: boolean;
+}
+/**
+ * 
+ * @export
+ * @interface UserInfo
+ */
+export interface UserInfo {
+    /**
+     * 
+     * @type {boolean}
+     * @memberof UserInfo
+     */
+    'authenticated'?: boolean;
+    /**
+     * 
+     * @type {string}
+     * @memberof UserInfo
+     */
+    'name'?: string;
+    /**
+     * 
+     * @type {string}
+     * @memberof UserInfo
+     */
+    'email'?: string;
+    /**
+     * Indicates if the user\'s access token is missing or has expired; calendar requests refresh it, or ask to sign in again when they cannot
+     * @type {boolean}
+     * @memberof UserInfo
+     */
+    'token_expired'?: boolean;
+}
+/**
+ * 
+ * @export
+ * @interface WeatherData
+ */
+export interface WeatherData {
+    /**
+     * 
+     * @type {Location}
+     * @memberof WeatherData
+     */
+    'location'?: Location;
+    /**
+     * 
+     * @type {CurrentWeather}
+     * @memberof WeatherData
+     */
+    'current'?: CurrentWeather;
+    /**
+     * Served from the nearest cached location while this location is loaded, or from expired or nearby data while the weather API budget is used up
+     * @type {boolean}
+     * @memberof WeatherData
+     */
+    'approximate'?: boolean;
+}
+/**
+ * 
+ * @export
+ * @interface WeatherForecast
+ */
+export interface WeatherForecast {
+    /**
+     * 
+     * @type {Location}
+     * @memberof WeatherForecast
+     */
+    'location'?: Location;
+    /**
+     * 
+     * @type {CurrentWeather}
+     * @memberof WeatherForecast
+     */
+    'current'?: CurrentWeather;
+    /**
+     * 
+     * @type {Array<HourlyForecast>}
+     * @memberof WeatherForecast
+     */
+    'hourly'?: Array<HourlyForecast>;
+    /**
+     * 
+     * @type {Array<Forecast>}
+     * @memberof WeatherForecast
+     */
+    'forecast'?: Array<Forecast>;
+    /**
+     * 
+     * @type {WeatherProvider}
+     * @memberof WeatherForecast
+     */
+    'provider'?: WeatherProvider;
+    /**
+     * Served from the nearest cached location while this location is loaded, or from expired or nearby data while the weather API budget is used up
+     * @type {boolean}
+     * @memberof WeatherForecast
+     */
+    'approximate'?: boolean;
+}
+
+
+/**
+ * 
+ * @export
+ * @enum {string}
+ */
+
+export const WeatherProvider = {
+    Openweather: 'openweather',
+    Accuweather: 'accuweather'
+} as const;
+
+export type WeatherProvider = typeof WeatherProvider[keyof typeof WeatherProvider];
+
+
+
+/**
+ * AuthApi - axios parameter creator
+ * @export
+ */
+export const AuthApiAxiosParamCreator = function (configuration?: Configuration) {
+    return {
+        /**
+         * Get current user information
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCurrentUser: async (options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            const localVarPath = `/auth/user`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+    }
+};
+
+/**
+ * AuthApi - functional programming interface
+ * @export
+ */
+export const AuthApiFp = function(configuration?: Configuration) {
+    const localVarAxiosParamCreator = AuthApiAxiosParamCreator(configuration)
+    return {
+        /**
+         * Get current user information
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getCurrentUser(options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<UserInfo>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getCurrentUser(options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+    }
+};
+
+/**
+ * AuthApi - factory interface
+ * @export
+ */
+export const AuthApiFactory = function (configuration?: Configuration, basePath?: string, axios?: AxiosInstance) {
+    const localVarFp = AuthApiFp(configuration)
+    return {
+        /**
+         * Get current user information
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCurrentUser(options?: any): AxiosPromise<UserInfo> {
+            return localVarFp.getCurrentUser(options).then((request) => request(axios, basePath));
+        },
+    };
+};
+
+/**
+ * AuthApi - object-oriented interface
+ * @export
+ * @class AuthApi
+ * @extends {BaseAPI}
+ */
+export class AuthApi extends BaseAPI {
+    /**
+     * Get current user information
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof AuthApi
+     */
+    public getCurrentUser(options?: AxiosRequestConfig) {
+        return AuthApiFp(this.configuration).getCurrentUser(options).then((request) => request(this.axios, this.basePath));
+    }
+}
+
+
+/**
+ * CalendarApi - axios parameter creator
+ * @export
+ */
+export const CalendarApiAxiosParamCreator = function (configuration?: Configuration) {
+    return {
+        /**
+         * Get calendar events for multiple calendars
+         * @param {Array<string>} [calendarId] ID of the calendar to fetch events from
+         * @param {number} [days] Number of days to fetch events for
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getAllCalendarEvents: async (calendarId?: Array<string>, days?: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            const localVarPath = `/calendar/all-events`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            // authentication oauth2 required
+            // oauth required
+            await setOAuthToObject(localVarHeaderParameter, "oauth2", [], configuration)
+
+            if (calendarId) {
+                localVarQueryParameter['calendarId'] = calendarId;
+            }
+
+            if (days !== undefined) {
+                localVarQueryParameter['days'] = days;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get calendar events
+         * @param {string} [calendarId] ID of the calendar to fetch events from
+         * @param {number} [days] Number of days to fetch events for
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCalendarEvents: async (calendarId?: string, days?: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            const localVarPath = `/calendar/events`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            // authentication oauth2 required
+            // oauth required
+            await setOAuthToObject(localVarHeaderParameter, "oauth2", [], configuration)
+
+            if (calendarId !== undefined) {
+                localVarQueryParameter['calendarId'] = calendarId;
+            }
+
+            if (days !== undefined) {
+                localVarQueryParameter['days'] = days;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get list of user\'s calendars
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCalendarList: async (options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            const localVarPath = `/calendar/list`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            // authentication oauth2 required
+            // oauth required
+            await setOAuthToObject(localVarHeaderParameter, "oauth2", [], configuration)
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+    }
+};
+
+/**
+ * CalendarApi - functional programming interface
+ * @export
+ */
+export const CalendarApiFp = function(configuration?: Configuration) {
+    const localVarAxiosParamCreator = CalendarApiAxiosParamCreator(configuration)
+    return {
+        /**
+         * Get calendar events for multiple calendars
+         * @param {Array<string>} [calendarId] ID of the calendar to fetch events from
+         * @param {number} [days] Number of days to fetch events for
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getAllCalendarEvents(calendarId?: Array<string>, days?: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<CalendarEvent>>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getAllCalendarEvents(calendarId, days, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get calendar events
+         * @param {string} [calendarId] ID of the calendar to fetch events from
+         * @param {number} [days] Number of days to fetch events for
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getCalendarEvents(calendarId?: string, days?: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<CalendarEvent>>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getCalendarEvents(calendarId, days, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get list of user\'s calendars
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getCalendarList(options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<Calendar>>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getCalendarList(options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+    }
+};
+
+/**
+ * CalendarApi - factory interface
+ * @export
+ */
+export const CalendarApiFactory = function (configuration?: Configuration, basePath?: string, axios?: AxiosInstance) {
+    const localVarFp = CalendarApiFp(configuration)
+    return {
+        /**
+         * Get calendar events for multiple calendars
+         * @param {Array<string>} [calendarId] ID of the calendar to fetch events from
+         * @param {number} [days] Number of days to fetch events for
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getAllCalendarEvents(calendarId?: Array<string>, days?: number, options?: any): AxiosPromise<Array<CalendarEvent>> {
+            return localVarFp.getAllCalendarEvents(calendarId, days, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get calendar events
+         * @param {string} [calendarId] ID of the calendar to fetch events from
+         * @param {number} [days] Number of days to fetch events for
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCalendarEvents(calendarId?: string, days?: number, options?: any): AxiosPromise<Array<CalendarEvent>> {
+            return localVarFp.getCalendarEvents(calendarId, days, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get list of user\'s calendars
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCalendarList(options?: any): AxiosPromise<Array<Calendar>> {
+            return localVarFp.getCalendarList(options).then((request) => request(axios, basePath));
+        },
+    };
+};
+
+/**
+ * CalendarApi - object-oriented interface
+ * @export
+ * @class CalendarApi
+ * @extends {BaseAPI}
+ */
+export class CalendarApi extends BaseAPI {
+    /**
+     * Get calendar events for multiple calendars
+     * @param {Array<string>} [calendarId] ID of the calendar to fetch events from
+     * @param {number} [days] Number of days to fetch events for
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof CalendarApi
+     */
+    public getAllCalendarEvents(calendarId?: Array<string>, days?: number, options?: AxiosRequestConfig) {
+        return CalendarApiFp(this.configuration).getAllCalendarEvents(calendarId, days, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get calendar events
+     * @param {string} [calendarId] ID of the calendar to fetch events from
+     * @param {number} [days] Number of days to fetch events for
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof CalendarApi
+     */
+    public getCalendarEvents(calendarId?: string, days?: number, options?: AxiosRequestConfig) {
+        return CalendarApiFp(this.configuration).getCalendarEvents(calendarId, days, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get list of user\'s calendars
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof CalendarApi
+     */
+    public getCalendarList(options?: AxiosRequestConfig) {
+        return CalendarApiFp(this.configuration).getCalendarList(options).then((request) => request(this.axios, this.basePath));
+    }
+}
+
+
+/**
+ * WeatherApi - axios parameter creator
+ * @export
+ */
+export const WeatherApiAxiosParamCreator = function (configuration?: Configuration) {
+    return {
+        /**
+         * Get cities with a name starting with the given text, most populous first
+         * @param {string} name Beginning of a city name
+         * @param {string} [language] Language for the country names and for cities looked up by the geocoder
+         * @param {number} [count] Maximum number of results to return
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        autocompleteLocation: async (name: string, language?: string, count?: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            // verify required parameter 'name' is not null or undefined
+            assertParamExists('autocompleteLocation', 'name', name)
+            const localVarPath = `/weather/location/autocomplete`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            if (name !== undefined) {
+                localVarQueryParameter['name'] = name;
+            }
+
+            if (language !== undefined) {
+                localVarQueryParameter['language'] = language;
+            }
+
+            if (count !== undefined) {
+                localVarQueryParameter['count'] = count;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get geocoding data for a city name
+         * @param {string} name City name to geocode
+         * @param {string} [language] Language for the results
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        geocodeLocation: async (name: string, language?: string, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            // verify required parameter 'name' is not null or undefined
+            assertParamExists('geocodeLocation', 'name', name)
+            const localVarPath = `/weather/location`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            if (name !== undefined) {
+                localVarQueryParameter['name'] = name;
+            }
+
+            if (language !== undefined) {
+                localVarQueryParameter['language'] = language;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get air quality data for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getAirQuality: async (lat: number, lon: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            // verify required parameter 'lat' is not null or undefined
+            assertParamExists('getAirQuality', 'lat', lat)
+            // verify required parameter 'lon' is not null or undefined
+            assertParamExists('getAirQuality', 'lon', lon)
+            const localVarPath = `/weather/air-quality`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            if (lat !== undefined) {
+                localVarQueryParameter['lat'] = lat;
+            }
+
+            if (lon !== undefined) {
+                localVarQueryParameter['lon'] = lon;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get current weather for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCurrentWeather: async (lat: number, lon: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            // verify required parameter 'lat' is not null or undefined
+            assertParamExists('getCurrentWeather', 'lat', lat)
+            // verify required parameter 'lon' is not null or undefined
+            assertParamExists('getCurrentWeather', 'lon', lon)
+            const localVarPath = `/weather/current`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            if (lat !== undefined) {
+                localVarQueryParameter['lat'] = lat;
+            }
+
+            if (lon !== undefined) {
+                localVarQueryParameter['lon'] = lon;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get current weather and today\'s forecast for a grid of cells covering a bounding box, for weather maps
+         * @param {number} south Latitude of the southern edge of the box
+         * @param {number} west Longitude of the western edge of the box
+         * @param {number} north Latitude of the northern edge of the box
+         * @param {number} east Longitude of the eastern edge of the box
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getRegionWeather: async (south: number, west: number, north: number, east: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            // verify required parameter 'south' is not null or undefined
+            assertParamExists('getRegionWeather', 'south', south)
+            // verify required parameter 'west' is not null or undefined
+            assertParamExists('getRegionWeather', 'west', west)
+            // verify required parameter 'north' is not null or undefined
+            assertParamExists('getRegionWeather', 'north', north)
+            // verify required parameter 'east' is not null or undefined
+            assertParamExists('getRegionWeather', 'east', east)
+            const localVarPath = `/weather/region`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            if (south !== undefined) {
+                localVarQueryParameter['south'] = south;
+            }
+
+            if (west !== undefined) {
+                localVarQueryParameter['west'] = west;
+            }
+
+            if (north !== undefined) {
+                localVarQueryParameter['north'] = north;
+            }
+
+            if (east !== undefined) {
+                localVarQueryParameter['east'] = east;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+        /**
+         * Get weather forecast for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {number} [days] Number of days for forecast
+         * @param {number} [hours] Number of hours for forecast
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getWeatherForecast: async (lat: number, lon: number, days?: number, hours?: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+            // verify required parameter 'lat' is not null or undefined
+            assertParamExists('getWeatherForecast', 'lat', lat)
+            // verify required parameter 'lon' is not null or undefined
+            assertParamExists('getWeatherForecast', 'lon', lon)
+            const localVarPath = `/weather/forecast`;
+            // use dummy base URL string because the URL constructor only accepts absolute URLs.
+            const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
+            let baseOptions;
+            if (configuration) {
+                baseOptions = configuration.baseOptions;
+            }
+
+            const localVarRequestOptions = { method: 'GET', ...baseOptions, ...options};
+            const localVarHeaderParameter = {} as any;
+            const localVarQueryParameter = {} as any;
+
+            if (lat !== undefined) {
+                localVarQueryParameter['lat'] = lat;
+            }
+
+            if (lon !== undefined) {
+                localVarQueryParameter['lon'] = lon;
+            }
+
+            if (days !== undefined) {
+                localVarQueryParameter['days'] = days;
+            }
+
+            if (hours !== undefined) {
+                localVarQueryParameter['hours'] = hours;
+            }
+
+
+    
+            setSearchParams(localVarUrlObj, localVarQueryParameter);
+            let headersFromBaseOptions = baseOptions && baseOptions.headers ? baseOptions.headers : {};
+            localVarRequestOptions.headers = {...localVarHeaderParameter, ...headersFromBaseOptions, ...options.headers};
+
+            return {
+                url: toPathString(localVarUrlObj),
+                options: localVarRequestOptions,
+            };
+        },
+    }
+};
+
+/**
+ * WeatherApi - functional programming interface
+ * @export
+ */
+export const WeatherApiFp = function(configuration?: Configuration) {
+    const localVarAxiosParamCreator = WeatherApiAxiosParamCreator(configuration)
+    return {
+        /**
+         * Get cities with a name starting with the given text, most populous first
+         * @param {string} name Beginning of a city name
+         * @param {string} [language] Language for the country names and for cities looked up by the geocoder
+         * @param {number} [count] Maximum number of results to return
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async autocompleteLocation(name: string, language?: string, count?: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<GeocodingResult>>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.autocompleteLocation(name, language, count, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get geocoding data for a city name
+         * @param {string} name City name to geocode
+         * @param {string} [language] Language for the results
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async geocodeLocation(name: string, language?: string, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<GeocodingResult>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.geocodeLocation(name, language, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get air quality data for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getAirQuality(lat: number, lon: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<AirQualityData>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getAirQuality(lat, lon, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get current weather for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getCurrentWeather(lat: number, lon: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<WeatherData>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getCurrentWeather(lat, lon, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get current weather and today\'s forecast for a grid of cells covering a bounding box, for weather maps
+         * @param {number} south Latitude of the southern edge of the box
+         * @param {number} west Longitude of the western edge of the box
+         * @param {number} north Latitude of the northern edge of the box
+         * @param {number} east Longitude of the eastern edge of the box
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getRegionWeather(south: number, west: number, north: number, east: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<RegionWeather>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getRegionWeather(south, west, north, east, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+        /**
+         * Get weather forecast for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {number} [days] Number of days for forecast
+         * @param {number} [hours] Number of hours for forecast
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        async getWeatherForecast(lat: number, lon: number, days?: number, hours?: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<WeatherForecast>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.getWeatherForecast(lat, lon, days, hours, options);
+            return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
+        },
+    }
+};
+
+/**
+ * WeatherApi - factory interface
+ * @export
+ */
+export const WeatherApiFactory = function (configuration?: Configuration, basePath?: string, axios?: AxiosInstance) {
+    const localVarFp = WeatherApiFp(configuration)
+    return {
+        /**
+         * Get cities with a name starting with the given text, most populous first
+         * @param {string} name Beginning of a city name
+         * @param {string} [language] Language for the country names and for cities looked up by the geocoder
+         * @param {number} [count] Maximum number of results to return
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        autocompleteLocation(name: string, language?: string, count?: number, options?: any): AxiosPromise<Array<GeocodingResult>> {
+            return localVarFp.autocompleteLocation(name, language, count, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get geocoding data for a city name
+         * @param {string} name City name to geocode
+         * @param {string} [language] Language for the results
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        geocodeLocation(name: string, language?: string, options?: any): AxiosPromise<GeocodingResult> {
+            return localVarFp.geocodeLocation(name, language, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get air quality data for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getAirQuality(lat: number, lon: number, options?: any): AxiosPromise<AirQualityData> {
+            return localVarFp.getAirQuality(lat, lon, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get current weather for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getCurrentWeather(lat: number, lon: number, options?: any): AxiosPromise<WeatherData> {
+            return localVarFp.getCurrentWeather(lat, lon, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get current weather and today\'s forecast for a grid of cells covering a bounding box, for weather maps
+         * @param {number} south Latitude of the southern edge of the box
+         * @param {number} west Longitude of the western edge of the box
+         * @param {number} north Latitude of the northern edge of the box
+         * @param {number} east Longitude of the eastern edge of the box
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getRegionWeather(south: number, west: number, north: number, east: number, options?: any): AxiosPromise<RegionWeather> {
+            return localVarFp.getRegionWeather(south, west, north, east, options).then((request) => request(axios, basePath));
+        },
+        /**
+         * Get weather forecast for a location
+         * @param {number} lat Latitude coordinate
+         * @param {number} lon Longitude coordinate
+         * @param {number} [days] Number of days for forecast
+         * @param {number} [hours] Number of hours for forecast
+         * @param {*} [options] Override http request option.
+         * @throws {RequiredError}
+         */
+        getWeatherForecast(lat: number, lon: number, days?: number, hours?: number, options?: any): AxiosPromise<WeatherForecast> {
+            return localVarFp.getWeatherForecast(lat, lon, days, hours, options).then((request) => request(axios, basePath));
+        },
+    };
+};
+
+/**
+ * WeatherApi - object-oriented interface
+ * @export
+ * @class WeatherApi
+ * @extends {BaseAPI}
+ */
+export class WeatherApi extends BaseAPI {
+    /**
+     * Get cities with a name starting with the given text, most populous first
+     * @param {string} name Beginning of a city name
+     * @param {string} [language] Language for the country names and for cities looked up by the geocoder
+     * @param {number} [count] Maximum number of results to return
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof WeatherApi
+     */
+    public autocompleteLocation(name: string, language?: string, count?: number, options?: AxiosRequestConfig) {
+        return WeatherApiFp(this.configuration).autocompleteLocation(name, language, count, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get geocoding data for a city name
+     * @param {string} name City name to geocode
+     * @param {string} [language] Language for the results
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof WeatherApi
+     */
+    public geocodeLocation(name: string, language?: string, options?: AxiosRequestConfig) {
+        return WeatherApiFp(this.configuration).geocodeLocation(name, language, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get air quality data for a location
+     * @param {number} lat Latitude coordinate
+     * @param {number} lon Longitude coordinate
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof WeatherApi
+     */
+    public getAirQuality(lat: number, lon: number, options?: AxiosRequestConfig) {
+        return WeatherApiFp(this.configuration).getAirQuality(lat, lon, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get current weather for a location
+     * @param {number} lat Latitude coordinate
+     * @param {number} lon Longitude coordinate
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof WeatherApi
+     */
+    public getCurrentWeather(lat: number, lon: number, options?: AxiosRequestConfig) {
+        return WeatherApiFp(this.configuration).getCurrentWeather(lat, lon, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get current weather and today\'s forecast for a grid of cells covering a bounding box, for weather maps
+     * @param {number} south Latitude of the southern edge of the box
+     * @param {number} west Longitude of the western edge of the box
+     * @param {number} north Latitude of the northern edge of the box
+     * @param {number} east Longitude of the eastern edge of the box
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof WeatherApi
+     */
+    public getRegionWeather(south: number, west: number, north: number, east: number, options?: AxiosRequestConfig) {
+        return WeatherApiFp(this.configuration).getRegionWeather(south, west, north, east, options).then((request) => request(this.axios, this.basePath));
+    }
+
+    /**
+     * Get weather forecast for a location
+     * @param {number} lat Latitude coordinate
+     * @param {number} lon Longitude coordinate
+     * @param {number} [days] Number of days for forecast
+     * @param {number} [hours] Number of hours for forecast
+     * @param {*} [options] Override http request option.
+     * @throws {RequiredError}
+     * @memberof WeatherApi
+     */
+    public getWeatherForecast(lat: number, lon: number, days?: number, hours?: number, options?: AxiosRequestConfig) {
+        return WeatherApiFp(this.configuration).getWeatherForecast(lat, lon, days, hours, options).then((request) => request(this.axios, this.basePath));
+    }
+}
+
+
@@ -0,0 +1,173 @@
+package pl.qprogramming.daily.auth;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingOAuth2AuthorizedClientServiceTest {
+
+    private static final String REGISTRATION_ID = "google";
+    private static final String PRINCIPAL = "user-1";
+
+    @Mock
+    private OAuth2AuthorizedClientService delegate;
+
+    @Mock
+    private ScheduledExecutorService writer;
+
+    private CachingOAuth2AuthorizedClientService service;
+
+    @BeforeEach
+    void setUp() {
+        // Writes stay pending until flush(), as the mocked writer never runs them
+        service = new CachingOAuth2AuthorizedClientService(delegate, 100, Duration.ofMinutes(10), Duration.ofMinutes(5), writer);
+    }
+
+    @Test
+    void load_ReadsStoreOnceThenServesFromMemory() {
+        OAuth2AuthorizedClient stored = authorizedClient("stored-token");
+        when(delegate.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL)).thenReturn(stored);
+
+        assertSame(stored, service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL));
+        assertSame(stored, service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL));
+
+        verify(delegate, times(1)).loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+        assertEquals(1, service.getStats().hitCount());
+        assertEquals(1, service.getStats().loadCount());
+    }
+
+    @Test
+    void save_WritesLoginThrough() {
+        OAuth2AuthorizedClient login = authorizedClient("token", "refresh-token");
+        Authentication principal = principal();
+
+        service.saveAuthorizedClient(login, principal);
+
+        verify(delegate).saveAuthorizedClient(login, principal);
+        verifyNoInteractions(writer);
+        assertSame(login, service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL));
+        assertEquals(1, service.getWrites());
+    }
+
+    @Test
+    void save_RefreshIsVisibleImmediatelyAndWrittenAsynchronously() {
+        Authentication principal = principal();
+        service.saveAuthorizedClient(authorizedClient("token", "refresh-token"), principal);
+        OAuth2AuthorizedClient refreshed = authorizedClient("refreshed-token", "refresh-token");
+
+        service.saveAuthorizedClient(refreshed, principal);
+
+        assertSame(refreshed, service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL));
+        verify(writer).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+        verify(delegate, never()).saveAuthorizedClient(refreshed, principal);
+
+        service.flush();
+
+        verify(delegate).saveAuthorizedClient(refreshed, principal);
+        assertEquals(2, service.getWrites());
+    }
+
+    @Test
+    void save_CoalescesRefreshesOfSameUser() {
+        Authentication principal = principal();
+        service.saveAuthorizedClient(authorizedClient("token", "refresh-token"), principal);
+        OAuth2AuthorizedClient first = authorizedClient("first-token", "refresh-token");
+        OAuth2AuthorizedClient second = authorizedClient("second-token", "refresh-token");
+
+        service.saveAuthorizedClient(first, principal);
+        service.saveAuthorizedClient(second, principal);
+        service.flush();
+
+        verify(delegate, never()).saveAuthorizedClient(first, principal);
+        verify(delegate).saveAuthorizedClient(second, principal);
+        assertEquals(1, service.getCoalescedWrites());
+    }
+
+    @Test
+    void remove_WritesThroughAndReplacesPendingRefresh() {
+        Authentication principal = principal();
+        service.saveAuthorizedClient(authorizedClient("token", "refresh-token"), principal);
+        OAuth2AuthorizedClient refreshed = authorizedClient("refreshed-token", "refresh-token");
+        service.saveAuthorizedClient(refreshed, principal);
+
+        service.removeAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+
+        verify(delegate).removeAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+        assertNull(service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL));
+
+        service.flush();
+
+        verify(delegate, never()).saveAuthorizedClient(refreshed, principal);
+    }
+
+    @Test
+    void evict_ReloadsFromStore() {
+        OAuth2AuthorizedClient stored = authorizedClient("stored-token");
+        when(delegate.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL)).thenReturn(stored);
+        service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+
+        service.evict(REGISTRATION_ID, PRINCIPAL);
+        service.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+
+        verify(delegate, times(2)).loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+    }
+
+    @Test
+    void save_RetriesFailedWriteThroughLater() {
+        OAuth2AuthorizedClient client = authorizedClient("token", "refresh-token");
+        Authentication principal = principal();
+        doThrow(new IllegalStateException("Database unavailable"))
+                .doNothing()
+                .when(delegate).saveAuthorizedClient(client, principal);
+
+        service.saveAuthorizedClient(client, principal);
+
+        verify(writer).schedule(any(Runnable.class), eq(2000L), eq(TimeUnit.MILLISECONDS));
+        assertEquals(0, service.getWrites());
+
+        service.flush();
+
+        verify(delegate, times(2)).saveAuthorizedClient(client, principal);
+        assertEquals(1, service.getWrites());
+    }
+
+    private static Authentication principal() {
+        return new TestingAuthenticationToken(PRINCIPAL, null);
+    }
+
+    private static OAuth2AuthorizedClient authorizedClient(String tokenValue) {
+        return authorizedClient(tokenValue, null);
+    }
+
+    private static OAuth2AuthorizedClient authorizedClient(String tokenValue, String refreshTokenValue) {
+        ClientRegistration registration = ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .clientId("client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("https://accounts.example.com/auth")
+                .tokenUri("https://accounts.example.com/token")
+                .build();
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, tokenValue, null, null);
+        OAuth2RefreshToken refreshToken = refreshTokenValue != null ? new OAuth2RefreshToken(refreshTokenValue, null) : null;
+        return new OAuth2AuthorizedClient(registration, PRINCIPAL, accessToken, refreshToken);
+    }
+}
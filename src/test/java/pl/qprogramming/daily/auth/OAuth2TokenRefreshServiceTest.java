@@ -0,0 +1,188 @@
+package pl.qprogramming.daily.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2RefreshTokenGrantRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import pl.qprogramming.daily.auth.SingleFlightOAuth2AuthorizedClientManager.AuthorizedPrincipal;
+import pl.qprogramming.daily.config.OAuth2TokenConfig;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OAuth2TokenRefreshServiceTest {
+
+    private static final String REGISTRATION_ID = "google";
+    private static final String PRINCIPAL = "user-1";
+    private static final AuthorizedPrincipal USER = new AuthorizedPrincipal(REGISTRATION_ID, PRINCIPAL);
+
+    @Mock
+    private SingleFlightOAuth2AuthorizedClientManager authorizedClientManager;
+
+    @Mock
+    private OAuth2AuthorizedClientService authorizedClientService;
+
+    @Mock
+    private OAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest> refreshTokenResponseClient;
+
+    private OAuth2TokenRefreshService refreshService;
+
+    @BeforeEach
+    void setUp() {
+        ClientRegistrationRepository repository = new InMemoryClientRegistrationRepository(registration());
+        refreshService = new OAuth2TokenRefreshService(
+                authorizedClientManager, authorizedClientService, repository, refreshTokenResponseClient,
+                new OAuth2TokenConfig());
+    }
+
+    @AfterEach
+    void tearDown() {
+        refreshService.shutdown();
+    }
+
+    @Test
+    void checkExpiry_ValidTokenOnlyRecordsUse() {
+        when(authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL))
+                .thenReturn(authorizedClient(Instant.now().plus(1, ChronoUnit.HOURS), true));
+
+        assertTrue(refreshService.checkExpiry(authentication()));
+
+        verify(authorizedClientManager).recordInteractiveUse(USER);
+        verify(authorizedClientManager, never()).authorize(any());
+    }
+
+    @Test
+    void checkExpiry_ReportsMissingAndExpiredClients() {
+        when(authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL))
+                .thenReturn(null, authorizedClient(Instant.now().minus(1, ChronoUnit.MINUTES), false));
+
+        assertFalse(refreshService.checkExpiry(authentication()));
+        assertFalse(refreshService.checkExpiry(authentication()));
+    }
+
+    @Test
+    void checkExpiry_QueuesOneRefreshPerUser() throws Exception {
+        when(authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL))
+                .thenReturn(authorizedClient(Instant.now().plus(3, ChronoUnit.MINUTES), true));
+        CountDownLatch release = new CountDownLatch(1);
+        when(authorizedClientManager.authorizeWith(any(), any())).thenAnswer(invocation -> {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return null;
+        });
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(refreshService.checkExpiry(authentication()));
+        }
+        release.countDown();
+
+        verify(authorizedClientManager, timeout(5000)).authorizeWith(any(), any());
+        verify(authorizedClientManager, after(200).times(1)).authorizeWith(any(), any());
+    }
+
+    @Test
+    void refreshIfExpiring_SkipsTokensValidBeyondRefreshWindow() {
+        Instant now = Instant.now();
+        when(authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL))
+                .thenReturn(authorizedClient(now.plus(1, ChronoUnit.HOURS), true));
+
+        assertFalse(refreshService.refreshIfExpiring(USER, now.plus(6, ChronoUnit.MINUTES)));
+
+        verify(authorizedClientService, times(1)).loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+        verifyNoMoreInteractions(authorizedClientService);
+    }
+
+    @Test
+    void refreshIfExpiring_SkipsClientsWithoutRefreshToken() {
+        Instant now = Instant.now();
+        when(authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL))
+                .thenReturn(authorizedClient(now.plus(1, ChronoUnit.MINUTES), false));
+
+        assertFalse(refreshService.refreshIfExpiring(USER, now.plus(6, ChronoUnit.MINUTES)));
+
+        verify(authorizedClientService, times(1)).loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL);
+        verifyNoMoreInteractions(authorizedClientService);
+    }
+
+    @Test
+    void refreshIfExpiring_RenewsTokenBeforeExpiry() {
+        Instant now = Instant.now();
+        when(authorizedClientService.loadAuthorizedClient(REGISTRATION_ID, PRINCIPAL))
+                .thenReturn(authorizedClient(now.plus(3, ChronoUnit.MINUTES), true));
+        when(refreshTokenResponseClient.getTokenResponse(any())).thenReturn(OAuth2AccessTokenResponse
+                .withToken("renewed-token")
+                .tokenType(OAuth2AccessToken.TokenType.BEARER)
+                .expiresIn(3600)
+                .build());
+        OAuth2TokenRefreshService service = new OAuth2TokenRefreshService(
+                new SingleFlightOAuth2AuthorizedClientManager(mock(OAuth2AuthorizedClientManager.class)),
+                authorizedClientService, new InMemoryClientRegistrationRepository(registration()),
+                refreshTokenResponseClient, new OAuth2TokenConfig());
+        try {
+            assertTrue(service.refreshIfExpiring(USER, now.plus(6, ChronoUnit.MINUTES)));
+        } finally {
+            service.shutdown();
+        }
+
+        ArgumentCaptor<OAuth2AuthorizedClient> saved = ArgumentCaptor.forClass(OAuth2AuthorizedClient.class);
+        verify(authorizedClientService).saveAuthorizedClient(saved.capture(), any());
+        assertEquals("renewed-token", saved.getValue().getAccessToken().getTokenValue());
+        assertTrue(saved.getValue().getAccessToken().getExpiresAt().isAfter(now.plus(50, ChronoUnit.MINUTES)));
+    }
+
+    @Test
+    void refreshExpiringTokens_ChecksOnlyActiveUsers() {
+        when(authorizedClientManager.getActivePrincipals(any())).thenReturn(List.of());
+
+        refreshService.refreshExpiringTokens();
+
+        verifyNoInteractions(authorizedClientService);
+    }
+
+    private static OAuth2AuthenticationToken authentication() {
+        DefaultOAuth2User user = new DefaultOAuth2User(List.of(), Map.of("sub", PRINCIPAL), "sub");
+        return new OAuth2AuthenticationToken(user, List.of(), REGISTRATION_ID);
+    }
+
+    private static OAuth2AuthorizedClient authorizedClient(Instant expiresAt, boolean withRefreshToken) {
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-token",
+                expiresAt.minus(1, ChronoUnit.HOURS), expiresAt);
+        OAuth2RefreshToken refreshToken = withRefreshToken ? new OAuth2RefreshToken("refresh-token", null) : null;
+        return new OAuth2AuthorizedClient(registration(), PRINCIPAL, accessToken, refreshToken);
+    }
+
+    private static ClientRegistration registration() {
+        return ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .clientId("client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("https://accounts.example.com/auth")
+                .tokenUri("https://accounts.example.com/token")
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package pl.qprogramming.daily.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import pl.qprogramming.daily.auth.SingleFlightOAuth2AuthorizedClientManager.AuthorizedPrincipal;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightOAuth2AuthorizedClientManagerTest {
+
+    private static final String REGISTRATION_ID = "google";
+    private static final String PRINCIPAL = "user-1";
+
+    @Mock
+    private OAuth2AuthorizedClientManager delegate;
+
+    @Test
+    void authorize_ConcurrentCallsShareOneDelegateCall() throws Exception {
+        OAuth2AuthorizedClient authorizedClient = mock(OAuth2AuthorizedClient.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.authorize(any())).thenAnswer(invocation -> {
+            entered.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return authorizedClient;
+        });
+        SingleFlightOAuth2AuthorizedClientManager manager = new SingleFlightOAuth2AuthorizedClientManager(delegate);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<OAuth2AuthorizedClient> first = executor.submit(() -> manager.authorize(request(PRINCIPAL)));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<OAuth2AuthorizedClient> second = executor.submit(() -> manager.authorize(request(PRINCIPAL)));
+            // Give the second call time to join the first one before it completes
+            while (manager.getSharedResults() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertSame(authorizedClient, first.get(5, TimeUnit.SECONDS));
+            assertSame(authorizedClient, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(delegate, times(1)).authorize(any());
+    }
+
+    @Test
+    void authorizeWith_RequestsShareBackgroundRefreshInProgress() throws Exception {
+        OAuth2AuthorizedClient refreshed = mock(OAuth2AuthorizedClient.class);
+        OAuth2AuthorizedClientManager refreshingManager = mock(OAuth2AuthorizedClientManager.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(refreshingManager.authorize(any())).thenAnswer(invocation -> {
+            entered.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return refreshed;
+        });
+        SingleFlightOAuth2AuthorizedClientManager manager = new SingleFlightOAuth2AuthorizedClientManager(delegate);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<OAuth2AuthorizedClient> background = executor.submit(() -> manager.authorizeWith(refreshingManager,
+                    OAuth2AuthorizeRequest.withClientRegistrationId(REGISTRATION_ID).principal(PRINCIPAL).build()));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<OAuth2AuthorizedClient> interactive = executor.submit(() -> manager.authorize(request(PRINCIPAL)));
+            while (manager.getSharedResults() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertSame(refreshed, background.get(5, TimeUnit.SECONDS));
+            assertSame(refreshed, interactive.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    void authorize_SequentialCallsReachDelegate() {
+        SingleFlightOAuth2AuthorizedClientManager manager = new SingleFlightOAuth2AuthorizedClientManager(delegate);
+
+        manager.authorize(request(PRINCIPAL));
+        manager.authorize(request(PRINCIPAL));
+
+        verify(delegate, times(2)).authorize(any());
+        assertEquals(0, manager.getSharedResults());
+    }
+
+    @Test
+    void authorize_PropagatesDelegateException() {
+        when(delegate.authorize(any())).thenThrow(new IllegalStateException("Token endpoint unavailable"));
+        SingleFlightOAuth2AuthorizedClientManager manager = new SingleFlightOAuth2AuthorizedClientManager(delegate);
+
+        assertThrows(IllegalStateException.class, () -> manager.authorize(request(PRINCIPAL)));
+    }
+
+    @Test
+    void getActivePrincipals_TracksOnlyInteractiveRequests() {
+        SingleFlightOAuth2AuthorizedClientManager manager = new SingleFlightOAuth2AuthorizedClientManager(delegate);
+        Instant before = Instant.now().minusSeconds(1);
+
+        manager.authorize(request(PRINCIPAL));
+        manager.authorize(OAuth2AuthorizeRequest.withClientRegistrationId(REGISTRATION_ID)
+                .principal("background-user")
+                .build());
+
+        assertEquals(List.of(new AuthorizedPrincipal(REGISTRATION_ID, PRINCIPAL)), manager.getActivePrincipals(before));
+        assertTrue(manager.getActivePrincipals(Instant.now().plusSeconds(1)).isEmpty());
+    }
+
+    private static OAuth2AuthorizeRequest request(String principalName) {
+        DefaultOAuth2User user = new DefaultOAuth2User(List.of(), Map.of("sub", principalName), "sub");
+        OAuth2AuthenticationToken token = new OAuth2AuthenticationToken(user, List.of(), REGISTRATION_ID);
+        return OAuth2AuthorizeRequest.withClientRegistrationId(REGISTRATION_ID)
+                .principal(token)
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package pl.qprogramming.daily.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import pl.qprogramming.daily.config.NearbyCacheConfig;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearbyCacheTest {
+
+    private static final String CACHE = "forecast";
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager(CACHE);
+    private NearbyCacheConfig config;
+    private NearbyCache nearbyCache;
+
+    @BeforeEach
+    void setUp() {
+        config = new NearbyCacheConfig();
+        config.setEnabled(true);
+        nearbyCache = new NearbyCache(config, cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nearbyCache.shutdown();
+    }
+
+    @Test
+    void find_ServesNearestCachedEntryAndLoadsExactOne() throws InterruptedException {
+        Cache cache = cacheManager.getCache(CACHE);
+        cache.put("52.23-21.01-7", "warsaw");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.23-21.01-7", 52.23, 21.01, "warsaw");
+        cache.put("52.25-21.04-7", "praga");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.25-21.04-7", 52.25, 21.04, "praga");
+
+        CountDownLatch loaded = new CountDownLatch(1);
+        String nearby = nearbyCache.find(CACHE, "openmeteo-7", "52.24-21.0-7", 52.24, 21.0, String.class,
+                value -> "~" + value, () -> {
+                    loaded.countDown();
+                    return "exact";
+                });
+
+        assertEquals("~warsaw", nearby);
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertEquals("exact", awaitCached(cache, "52.24-21.0-7"));
+    }
+
+    @Test
+    void find_SkipsOtherLayersDistantAndEvictedEntries() {
+        Cache cache = cacheManager.getCache(CACHE);
+        cache.put("52.23-21.01-3", "three days");
+        nearbyCache.add(CACHE, "openmeteo-3", "52.23-21.01-3", 52.23, 21.01, "three days");
+        cache.put("52.41-16.93-7", "poznan");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.41-16.93-7", 52.41, 16.93, "poznan");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.23-21.01-7", 52.23, 21.01, "evicted");
+
+        assertNull(nearbyCache.find(CACHE, "openmeteo-7", "52.24-21.0-7", 52.24, 21.0, String.class,
+                value -> value, () -> fail("Nothing should be loaded")));
+    }
+
+    @Test
+    void find_IsMissWhenDisabled() {
+        config.setEnabled(false);
+        cacheManager.getCache(CACHE).put("52.23-21.01-7", "warsaw");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.23-21.01-7", 52.23, 21.01, "warsaw");
+
+        assertNull(nearbyCache.find(CACHE, "openmeteo-7", "52.24-21.0-7", 52.24, 21.0, String.class,
+                value -> value, () -> "exact"));
+    }
+
+    @Test
+    void fallback_ServesExpiredEntryOrNearestCachedOneWhenDisabled() {
+        config.setEnabled(false);
+        Cache cache = cacheManager.getCache(CACHE);
+        nearbyCache.add(CACHE, "openmeteo-7", "52.23-21.01-7", 52.23, 21.01, "warsaw");
+        cache.put("52.25-21.04-7", "praga");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.25-21.04-7", 52.25, 21.04, "praga");
+
+        assertEquals("~warsaw", nearbyCache.fallback(CACHE, "openmeteo-7", "52.23-21.01-7", 52.23, 21.01, String.class,
+                value -> "~" + value));
+        assertEquals("~praga", nearbyCache.fallback(CACHE, "openmeteo-7", "52.24-21.0-7", 52.24, 21.0, String.class,
+                value -> "~" + value));
+        assertNull(nearbyCache.fallback(CACHE, "openmeteo-7", "52.41-16.93-7", 52.41, 16.93, String.class,
+                value -> "~" + value));
+        assertNull(cache.get("52.24-21.0-7"));
+    }
+
+    @Test
+    void find_SkipsLoadWhenLoaderQueueIsFullAndRetriesOnNextRequest() throws InterruptedException {
+        nearbyCache.shutdown();
+        config.setRefreshThreads(1);
+        config.setQueueCapacity(1);
+        nearbyCache = new NearbyCache(config, cacheManager);
+        Cache cache = cacheManager.getCache(CACHE);
+        cache.put("52.23-21.01-7", "warsaw");
+        nearbyCache.add(CACHE, "openmeteo-7", "52.23-21.01-7", 52.23, 21.01, "warsaw");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        find("52.24-21.0-7", () -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "first";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        find("52.24-21.02-7", () -> "queued");
+        find("52.22-21.0-7", () -> "rejected " + loads.incrementAndGet());
+        release.countDown();
+        assertEquals("queued", awaitCached(cache, "52.24-21.02-7"));
+        find("52.22-21.0-7", () -> "loaded " + loads.incrementAndGet());
+
+        assertEquals("loaded 1", awaitCached(cache, "52.22-21.0-7"));
+    }
+
+    @Test
+    void spatialIndex_ToleratesConcurrentAddsAndPurges() throws InterruptedException {
+        SpatialIndex index = new SpatialIndex(5);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger failures = new AtomicInteger();
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread;
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        double latitude = 50 + (i % 100) * 0.01;
+                        index.add("forecast/openmeteo-7", offset + "-" + i, latitude, 20 + offset * 0.01, i % 2 == 0 ? 0 : Long.MAX_VALUE);
+                        index.nearest("forecast/openmeteo-7", latitude, 20, 1);
+                        index.purge(1);
+                    }
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        index.purge(1);
+
+        assertEquals(0, failures.get());
+        assertEquals(2000, index.size());
+        List<SpatialIndex.Point> nearest = index.nearest("forecast/openmeteo-7", 50.51, 20, 1);
+        assertFalse(nearest.isEmpty());
+        assertEquals(50.51, nearest.get(0).getLatitude(), 0.001);
+        assertEquals(20, nearest.get(0).getLongitude(), 0.001);
+    }
+
+    private void find(String key, Supplier<String> exact) {
+        assertNotNull(nearbyCache.find(CACHE, "openmeteo-7", key, 52.24, 21.0, String.class,
+                value -> value, exact));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Object awaitCached(Cache cache, String key) throws InterruptedException {
+        for (int i = 0; i < 100 && cache.get(key) == null; i++) {
+            Thread.sleep(50);
+        }
+        Cache.ValueWrapper value = cache.get(key);
+        return value != null ? value.get() : null;
+    }
+}
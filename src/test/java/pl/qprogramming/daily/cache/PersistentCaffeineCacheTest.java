@@ -0,0 +1,151 @@
+package pl.qprogramming.daily.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import pl.qprogramming.daily.config.PersistentCacheConfig;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentCaffeineCacheTest {
+
+    private static final String CACHE = "forecast";
+    private static final Duration TIME_TO_LIVE = Duration.ofHours(1);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PersistentCacheConfig config;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        config = new PersistentCacheConfig();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void put_IsLoadedAfterRestartWithRemainingTimeToLive() {
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        cache(store).put("52.0-21.0-7", "forecast");
+        store.destroy();
+
+        PersistentCaffeineCache restarted = cache(new PersistentCacheStore(jdbcTemplate, config));
+        assertNull(restarted.getNativeCache().getIfPresent("52.0-21.0-7"));
+
+        assertEquals("forecast", restarted.get("52.0-21.0-7", String.class));
+        Duration remaining = restarted.getNativeCache().policy().expireVariably().orElseThrow()
+                .getExpiresAfter("52.0-21.0-7").orElseThrow();
+        assertTrue(remaining.compareTo(TIME_TO_LIVE) <= 0 && remaining.compareTo(TIME_TO_LIVE.minusMinutes(1)) > 0);
+    }
+
+    @Test
+    void put_IsReadFromPendingWritesBeforeFlush() {
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        cache(store).put("52.0-21.0", "current");
+
+        assertEquals("current", cache(store).get("52.0-21.0", String.class));
+        assertEquals(0, count());
+    }
+
+    @Test
+    void flush_QueuesWritesOfFailedBatchAgain() {
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        store.write(CACHE, "52.0-21.0-7", "forecast", Instant.now().plusSeconds(60));
+        jdbcTemplate.execute("ALTER TABLE cache_entry RENAME TO cache_entry_moved");
+
+        store.flush();
+
+        jdbcTemplate.execute("ALTER TABLE cache_entry_moved RENAME TO cache_entry");
+        assertEquals("forecast", store.load(CACHE, "52.0-21.0-7").getValue());
+        store.flush();
+        assertEquals(1, count());
+    }
+
+    @Test
+    void flush_SkipsEntryThatCannotBeSerialized() {
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        store.write(CACHE, "52.0-21.0-7", new ArrayList<>(List.of(new Object())), Instant.now().plusSeconds(60));
+        store.write(CACHE, "52.0-21.0-3", "forecast", Instant.now().plusSeconds(60));
+
+        store.flush();
+
+        assertEquals(1, count());
+        assertNull(store.load(CACHE, "52.0-21.0-7"));
+    }
+
+    @Test
+    void expiredEntry_IsNotLoadedAndDeletedOnFlush() {
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        store.write(CACHE, "52.0-21.0-7", "forecast", Instant.now().plusSeconds(60));
+        store.flush();
+        jdbcTemplate.update("UPDATE cache_entry SET expires_at = ?", Timestamp.from(Instant.now().minusSeconds(1)));
+
+        assertNull(cache(store).get("52.0-21.0-7"));
+        store.flush();
+        assertEquals(0, count());
+    }
+
+    @Test
+    void evict_DeletesStoredEntry() {
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        PersistentCaffeineCache cache = cache(store);
+        cache.put("52.0-21.0-7", "forecast");
+        store.flush();
+
+        cache.evict("52.0-21.0-7");
+        assertNull(cache.get("52.0-21.0-7"));
+        store.flush();
+        assertEquals(0, count());
+    }
+
+    @Test
+    void warm_LoadsMostUsedEntries() {
+        config.setWarmEntries(1);
+        PersistentCacheStore store = new PersistentCacheStore(jdbcTemplate, config);
+        PersistentCaffeineCache cache = cache(store);
+        cache.put("cold", "cold forecast");
+        cache.put("hot", "hot forecast");
+        cache.get("hot");
+        cache.get("hot");
+        store.flush();
+
+        PersistentCacheStore restartedStore = new PersistentCacheStore(jdbcTemplate, config);
+        PersistentCaffeineCache restarted = cache(restartedStore);
+        restartedStore.register(restarted);
+        restartedStore.warm();
+
+        assertEquals("hot forecast", restarted.getNativeCache().getIfPresent("hot"));
+        assertNull(restarted.getNativeCache().getIfPresent("cold"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT hits FROM cache_entry WHERE cache_key = 'hot'", Integer.class));
+    }
+
+    private PersistentCaffeineCache cache(PersistentCacheStore store) {
+        return new PersistentCaffeineCache(CACHE, Caffeine.newBuilder()
+                .expireAfter(PersistentCaffeineCache.expireAfterWrite(TIME_TO_LIVE))
+                .build(), false, store, TIME_TO_LIVE);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cache_entry", Integer.class);
+    }
+}
@@ -0,0 +1,169 @@
+package pl.qprogramming.daily.capture;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpTransport;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig.Mode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamCaptureTest {
+
+    private static final long UPSTREAM_DELAY_MS = 100;
+
+    @TempDir
+    Path directory;
+
+    private HttpServer upstream;
+    private final AtomicInteger calls = new AtomicInteger();
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        upstream.createContext("/", exchange -> {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(UPSTREAM_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"path\":\"" + exchange.getRequestURI().getPath() + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        upstream.start();
+        baseUrl = "http://localhost:" + upstream.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.stop(0);
+    }
+
+    @Test
+    void recordAndReplay_RestTemplate() throws IOException {
+        UpstreamCapture recorder = capture(Mode.RECORD);
+        RestTemplate recording = restTemplate(recorder);
+        assertEquals("{\"path\":\"/forecast\"}", recording.getForObject(baseUrl + "/forecast?lat=52.0&apikey=secret-key", String.class));
+        recorder.destroy();
+        upstream.stop(0);
+
+        RestTemplate replaying = restTemplate(capture(Mode.REPLAY));
+        long start = System.nanoTime();
+        String replayed = replaying.getForObject(baseUrl + "/forecast?lat=52.0&apikey=other-key", String.class);
+
+        assertEquals("{\"path\":\"/forecast\"}", replayed);
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= UPSTREAM_DELAY_MS, "Replay should keep the recorded latency");
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void record_ScrubsCredentials() throws IOException {
+        UpstreamCapture recorder = capture(Mode.RECORD);
+        restTemplate(recorder).getForObject(baseUrl + "/forecast?apikey=secret-key&lat=52.0", String.class);
+        recorder.destroy();
+
+        String archive;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve("capture.bin.gz")))) {
+            archive = new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+        assertFalse(archive.contains("secret-key"));
+        assertTrue(archive.contains("/forecast?apikey=SCRUBBED&lat=52.0"));
+    }
+
+    @Test
+    void replay_FallsBackToSameRequestWithOtherCoordinatesOnly() throws IOException {
+        UpstreamCapture recorder = capture(Mode.RECORD);
+        RestTemplate recording = restTemplate(recorder);
+        recording.getForObject(baseUrl + "/forecast?latitude=52.0&longitude=21.0&current=temperature_2m", String.class);
+        recording.getForObject(baseUrl + "/search?name=Warsaw", String.class);
+        recorder.destroy();
+
+        RestTemplate replaying = restTemplate(capture(Mode.REPLAY));
+
+        assertEquals("{\"path\":\"/forecast\"}",
+                replaying.getForObject(baseUrl + "/forecast?current=temperature_2m&longitude=19.9&latitude=50.1", String.class));
+        // Other fields, more locations, other names and other paths were not recorded
+        assertThrows(ResourceAccessException.class, () -> replaying.getForObject(
+                baseUrl + "/forecast?latitude=50.1&longitude=19.9&daily=temperature_2m_max", String.class));
+        assertThrows(ResourceAccessException.class, () -> replaying.getForObject(
+                baseUrl + "/forecast?latitude=50.1,52.0&longitude=19.9,21.0&current=temperature_2m", String.class));
+        assertThrows(ResourceAccessException.class, () -> replaying.getForObject(baseUrl + "/search?name=Krakow", String.class));
+        assertThrows(ResourceAccessException.class, () -> replaying.getForObject(baseUrl + "/air-quality", String.class));
+    }
+
+    @Test
+    void record_WritesArchiveOnFlushUpToLimit() throws IOException {
+        UpstreamCaptureConfig config = config(Mode.RECORD);
+        config.setMaxExchanges(2);
+        UpstreamCapture recorder = new UpstreamCapture(config);
+        RestTemplate recording = restTemplate(recorder);
+        recording.getForObject(baseUrl + "/forecast?lat=52.0", String.class);
+        recorder.flush();
+        assertEquals(1, UpstreamArchive.read(directory.resolve("capture.bin.gz")).size());
+
+        recording.getForObject(baseUrl + "/forecast?lat=53.0", String.class);
+        recording.getForObject(baseUrl + "/forecast?lat=54.0", String.class);
+
+        // Requests do not write the archive, the limit is applied by the next flush
+        assertEquals(1, UpstreamArchive.read(directory.resolve("capture.bin.gz")).size());
+        recorder.flush();
+        assertEquals(2, UpstreamArchive.read(directory.resolve("capture.bin.gz")).size());
+    }
+
+    @Test
+    void recordAndReplay_GoogleTransport() throws Exception {
+        UpstreamCapture recorder = capture(Mode.RECORD);
+        String url = baseUrl + "/calendar/v3/users/me/calendarList?maxResults=250";
+        HttpResponse recorded = recorder.googleTransport().createRequestFactory()
+                .buildGetRequest(new GenericUrl(url)).execute();
+        assertEquals("{\"path\":\"/calendar/v3/users/me/calendarList\"}", recorded.parseAsString());
+        recorder.destroy();
+        upstream.stop(0);
+
+        HttpTransport replaying = capture(Mode.REPLAY).googleTransport();
+        HttpResponse replayed = replaying.createRequestFactory().buildGetRequest(new GenericUrl(url)).execute();
+
+        assertEquals(200, replayed.getStatusCode());
+        assertEquals("application/json", replayed.getContentType());
+        assertEquals("{\"path\":\"/calendar/v3/users/me/calendarList\"}", replayed.parseAsString());
+        assertEquals(1, calls.get());
+    }
+
+    private UpstreamCapture capture(Mode mode) {
+        return new UpstreamCapture(config(mode));
+    }
+
+    private UpstreamCaptureConfig config(Mode mode) {
+        UpstreamCaptureConfig config = new UpstreamCaptureConfig();
+        config.setMode(mode);
+        config.setArchive(directory.resolve("capture.bin.gz").toString());
+        return config;
+    }
+
+    private static RestTemplate restTemplate(UpstreamCapture capture) {
+        RestTemplate restTemplate = new RestTemplate();
+        capture.intercept(restTemplate);
+        return restTemplate;
+    }
+}
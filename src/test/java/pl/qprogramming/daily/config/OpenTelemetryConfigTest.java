@@ -0,0 +1,52 @@
+package pl.qprogramming.daily.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenTelemetryConfigTest {
+
+    private final OpenTelemetryConfig openTelemetryConfig = new OpenTelemetryConfig();
+
+    @Test
+    void openTelemetry_DisabledIsNoop() {
+        OpenTelemetry openTelemetry = openTelemetryConfig.openTelemetry(new TracingConfig());
+
+        assertFalse(openTelemetry.getTracer("test").spanBuilder("span").startSpan().getSpanContext().isValid());
+    }
+
+    @Test
+    void openTelemetry_ExportsSpansToCollector() throws Exception {
+        // Stand-in for the OpenTelemetry Collector, accepting OTLP/HTTP exports
+        HttpServer collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        CompletableFuture<String> contentType = new CompletableFuture<>();
+        collector.createContext("/v1/traces", exchange -> {
+            contentType.complete(exchange.getRequestHeaders().getFirst("Content-Type"));
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        collector.start();
+        try {
+            TracingConfig config = new TracingConfig();
+            config.setEnabled(true);
+            config.setEndpoint("http://localhost:" + collector.getAddress().getPort() + "/v1/traces");
+            OpenTelemetrySdk openTelemetry = (OpenTelemetrySdk) openTelemetryConfig.openTelemetry(config);
+
+            openTelemetry.getTracer("test").spanBuilder("span").startSpan().end();
+            openTelemetry.getSdkTracerProvider().forceFlush().join(10, TimeUnit.SECONDS);
+
+            assertEquals("application/x-protobuf", contentType.get(10, TimeUnit.SECONDS));
+            openTelemetry.close();
+        } finally {
+            collector.stop(0);
+        }
+    }
+}
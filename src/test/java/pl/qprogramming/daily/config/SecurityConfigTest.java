@@ -0,0 +1,71 @@
+package pl.qprogramming.daily.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.qprogramming.daily.dto.GeocodingResult;
+import pl.qprogramming.daily.service.weather.GeoCodingService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "metrics.scrape.password={noop}scrape-secret")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private GeoCodingService geoCodingService;
+
+    @Test
+    void weatherRequestsDoNotCreateSession() throws Exception {
+        when(geoCodingService.geocodeLocation(anyString(), anyString())).thenReturn(new GeocodingResult());
+
+        MvcResult result = mockMvc.perform(get("/api/weather/location").param("name", "Warsaw"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+        assertNull(result.getResponse().getHeader("Set-Cookie"));
+        // Security headers are still written on the fast path
+        assertEquals("nosniff", result.getResponse().getHeader("X-Content-Type-Options"));
+    }
+
+    @Test
+    void prometheusScrapeDoesNotCreateSession() throws Exception {
+        MvcResult result = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "scrape-secret")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+        assertTrue(result.getResponse().getContentAsString().contains("jvm_memory_used_bytes"));
+    }
+
+    @Test
+    void prometheusScrapeRequiresScrapeAccount() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("prometheus", "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void calendarRequestsStillRequireLogin() throws Exception {
+        mockMvc.perform(get("/api/calendar/list"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,107 @@
+package pl.qprogramming.daily.metrics;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.qprogramming.daily.service.weather.WeatherConstants.OPEN_METEO_FORECAST_URL;
+
+class FlightRecorderEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void eventsAreRecordedWhenEnabled() throws Exception {
+        Path file = tempDir.resolve("daily.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(UpstreamCallEvent.class).withoutThreshold();
+            recording.enable(CacheOperationEvent.class).withoutThreshold();
+            recording.enable(MappingEvent.class).withoutThreshold();
+            recording.start();
+
+            UpstreamMetricsInterceptor interceptor = new UpstreamMetricsInterceptor(new UpstreamMetrics(new SimpleMeterRegistry()),
+                    Map.of(OPEN_METEO_FORECAST_URL, "open-meteo-forecast"));
+            MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET,
+                    URI.create("https://api.open-meteo.com/v1/forecast?latitude=52.2&apikey=secret"));
+            MockClientHttpResponse response = new MockClientHttpResponse("{}".getBytes(), HttpStatus.OK);
+            response.getHeaders().setContentLength(2);
+            interceptor.intercept(request, new byte[0], (req, body) -> response);
+
+            TimedCaffeineCache cache = new TimedCaffeineCache("forecast", Caffeine.newBuilder().build(), true);
+            cache.get("key");
+            cache.put("key", "value");
+            cache.get("key");
+            cache.evict("key");
+
+            MappingEvent.time("Test.toList", () -> List.of(1, 2, 3));
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        RecordedEvent call = single(events, "pl.qprogramming.daily.UpstreamCall");
+        assertEquals("open-meteo-forecast", call.getString("provider"));
+        assertEquals("https://api.open-meteo.com/v1/forecast", call.getString("endpoint"));
+        assertEquals(200, call.getInt("status"));
+        assertEquals("SUCCESS", call.getString("outcome"));
+        assertEquals(2, call.getLong("responseBytes"));
+
+        List<String> operations = events.stream()
+                .filter(event -> event.getEventType().getName().equals("pl.qprogramming.daily.CacheOperation"))
+                .map(event -> event.getString("operation"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("MISS", "PUT", "HIT", "EVICT"), operations);
+
+        RecordedEvent mapping = single(events, "pl.qprogramming.daily.Mapping");
+        assertEquals("Test.toList", mapping.getString("conversion"));
+        assertEquals(3, mapping.getInt("items"));
+    }
+
+    @Test
+    void failedCachePutIsTimedAndRecorded() throws Exception {
+        Path file = tempDir.resolve("daily.jfr");
+        RequestTimings timings = RequestTimings.start();
+        try (Recording recording = new Recording()) {
+            recording.enable(CacheOperationEvent.class).withoutThreshold();
+            recording.start();
+
+            TimedCaffeineCache cache = new TimedCaffeineCache("forecast", Caffeine.newBuilder().build(), false);
+            assertThrows(IllegalArgumentException.class, () -> cache.put("key", null));
+
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            RequestTimings.finish();
+        }
+
+        assertEquals(1, timings.getCount(RequestTimings.Phase.CACHE));
+        assertEquals("PUT", single(RecordingFile.readAllEvents(file), "pl.qprogramming.daily.CacheOperation")
+                .getString("operation"));
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,72 @@
+package pl.qprogramming.daily.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import pl.qprogramming.daily.config.ServerTimingConfig;
+import pl.qprogramming.daily.metrics.RequestTimings.Phase;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    @Test
+    void doFilter_AddsRecordedPhasesBeforeBody() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(headerEnabled());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (request, servletResponse) -> {
+            RequestTimings.record(Phase.UPSTREAM, TimeUnit.MILLISECONDS.toNanos(120));
+            RequestTimings.record(Phase.UPSTREAM, TimeUnit.MILLISECONDS.toNanos(30));
+            RequestTimings.time(Phase.MAPPING, () -> "mapped");
+            servletResponse.getWriter().write("{}");
+            // Work after the body started is not in the header
+            RequestTimings.record(Phase.CACHE, 1000);
+        };
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/weather/forecast"), response, chain);
+
+        String serverTiming = response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER);
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.startsWith("upstream;desc=\"External service calls\";dur=150.0, mapping;"));
+        assertFalse(serverTiming.contains("auth;"));
+        assertFalse(serverTiming.contains("cache;"));
+        assertTrue(serverTiming.contains(", total;dur="));
+        assertEquals("{}", response.getContentAsString());
+    }
+
+    @Test
+    void doFilter_AddsTotalToResponsesWithoutBody() throws Exception {
+        ServerTimingFilter filter = new ServerTimingFilter(headerEnabled());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/calendar/list"), response,
+                (request, servletResponse) -> RequestTimings.record(Phase.AUTH, 2_000_000));
+
+        assertTrue(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER).startsWith("auth;desc="));
+    }
+
+    @Test
+    void doFilter_HeaderIsDisabledByDefault() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ServerTimingFilter(new ServerTimingConfig()).doFilter(new MockHttpServletRequest("GET", "/api/weather/forecast"), response,
+                (request, servletResponse) -> servletResponse.getWriter().write("{}"));
+
+        assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER));
+    }
+
+    @Test
+    void record_OutsideRequestIsIgnored() {
+        RequestTimings.record(Phase.UPSTREAM, 1000);
+        assertEquals("value", RequestTimings.time(Phase.MAPPING, () -> "value"));
+    }
+
+    private static ServerTimingConfig headerEnabled() {
+        ServerTimingConfig config = new ServerTimingConfig();
+        config.setHeaderEnabled(true);
+        return config;
+    }
+}
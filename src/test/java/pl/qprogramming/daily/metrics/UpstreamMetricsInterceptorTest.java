@@ -0,0 +1,130 @@
+package pl.qprogramming.daily.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import pl.qprogramming.daily.tracing.Tracing;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
+
+class UpstreamMetricsInterceptorTest {
+
+    private static final Map<String, String> UPSTREAMS = Map.of(
+            OPEN_METEO_FORECAST_URL, "open-meteo-forecast",
+            ACCU_WEATHER_CURRENT_CONDITIONS_URL, "accuweather-current-conditions",
+            ACCU_WEATHER_FORECAST_URL, "accuweather-daily-forecast");
+
+    private SimpleMeterRegistry registry;
+    private UpstreamMetricsInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        interceptor = new UpstreamMetricsInterceptor(new UpstreamMetrics(registry), UPSTREAMS);
+    }
+
+    @Test
+    void upstream_ResolvedFromEndpointWithoutPathParameters() {
+        assertEquals("accuweather-current-conditions",
+                interceptor.upstream("http://dataservice.accuweather.com/currentconditions/v1/274663?apikey=key"));
+        assertEquals("open-meteo-forecast",
+                interceptor.upstream("https://api.open-meteo.com/v1/forecast?latitude=52.2"));
+        assertEquals("example.com", interceptor.upstream("https://example.com/other"));
+    }
+
+    @Test
+    void withUpstream_KeepsFirstNameOfSameUrl() {
+        UpstreamMetricsInterceptor shared = new UpstreamMetricsInterceptor(new UpstreamMetrics(registry))
+                .withUpstream(OPEN_METEO_FORECAST_URL, "open-meteo-forecast")
+                .withUpstream(OPEN_METEO_FORECAST_URL, "open-meteo-air-quality");
+
+        assertEquals("open-meteo-forecast", shared.upstream("https://api.open-meteo.com/v1/forecast?latitude=52.2"));
+    }
+
+    @Test
+    void intercept_RecordsSuccessfulCall() throws IOException {
+        ClientHttpRequestExecution execution = (request, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+
+        interceptor.intercept(request("https://api.open-meteo.com/v1/forecast?latitude=52.2"), new byte[0], execution);
+
+        assertEquals(1, registry.get(UpstreamMetrics.REQUESTS_METRIC)
+                .tag("upstream", "open-meteo-forecast").tag("outcome", "SUCCESS").timer().count());
+        assertTrue(registry.find(UpstreamMetrics.ERRORS_METRIC).counters().isEmpty());
+    }
+
+    @Test
+    void intercept_CountsErrorResponsesAndIoErrors() throws IOException {
+        String url = "http://dataservice.accuweather.com/forecasts/v1/daily/5day/274663";
+        interceptor.intercept(request(url), new byte[0],
+                (request, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE));
+        assertThrows(IOException.class, () -> interceptor.intercept(request(url), new byte[0], (request, body) -> {
+            throw new IOException("Connection reset");
+        }));
+
+        assertEquals(1, registry.get(UpstreamMetrics.ERRORS_METRIC)
+                .tag("upstream", "accuweather-daily-forecast").tag("outcome", "SERVER_ERROR").counter().count());
+        assertEquals(1, registry.get(UpstreamMetrics.ERRORS_METRIC)
+                .tag("upstream", "accuweather-daily-forecast").tag("outcome", UpstreamMetrics.IO_ERROR).counter().count());
+        assertEquals(2, registry.get(UpstreamMetrics.REQUESTS_METRIC)
+                .tag("upstream", "accuweather-daily-forecast").timers().stream().mapToLong(t -> t.count()).sum());
+    }
+
+    @Test
+    void intercept_CreatesClientSpanAndPassesTraceContext() throws IOException {
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder().addSpanProcessor(SimpleSpanProcessor.create(exporter)).build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+        UpstreamMetricsInterceptor traced = new UpstreamMetricsInterceptor(new UpstreamMetrics(() -> registry, openTelemetry), UPSTREAMS);
+        MockClientHttpRequest request = request("http://dataservice.accuweather.com/forecasts/v1/daily/5day/274663?apikey=key");
+
+        Span parent = openTelemetry.getTracer("test").spanBuilder("parent").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            traced.intercept(request, new byte[0],
+                    (req, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE));
+        } finally {
+            parent.end();
+        }
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        SpanData client = spans.get(0);
+        assertEquals(SpanKind.CLIENT, client.getKind());
+        assertEquals(parent.getSpanContext().getSpanId(), client.getParentSpanId());
+        assertEquals("accuweather-daily-forecast", client.getAttributes().get(Tracing.UPSTREAM));
+        // The query string with the API key is left out
+        assertEquals("http://dataservice.accuweather.com/forecasts/v1/daily/5day/274663",
+                client.getAttributes().get(Tracing.URL_FULL));
+        assertEquals(503L, client.getAttributes().get(Tracing.HTTP_RESPONSE_STATUS_CODE));
+        assertEquals(StatusCode.ERROR, client.getStatus().getStatusCode());
+        String traceparent = request.getHeaders().getFirst("traceparent");
+        assertNotNull(traceparent);
+        assertTrue(traceparent.contains(client.getTraceId() + "-" + client.getSpanId()));
+    }
+
+    private static MockClientHttpRequest request(String url) {
+        return new MockClientHttpRequest(HttpMethod.GET, URI.create(url));
+    }
+}
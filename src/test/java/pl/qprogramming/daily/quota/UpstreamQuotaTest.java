@@ -0,0 +1,176 @@
+package pl.qprogramming.daily.quota;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamQuotaConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamQuotaTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-14T23:58:00Z");
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private UpstreamQuotaConfig config;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        config = new UpstreamQuotaConfig();
+        config.setEnabled(true);
+        UpstreamQuotaConfig.Limit limit = new UpstreamQuotaConfig.Limit();
+        limit.setDaily(10);
+        limit.setPerMinute(4);
+        config.getLimits().put(UpstreamQuota.ACCUWEATHER, limit);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void tryAcquire_RefillsPerMinuteBucketAndResetsDailyBudgetAtMidnight() {
+        MutableClock clock = new MutableClock(NOW);
+        meterRegistry.clear();
+        UpstreamQuota quota = new UpstreamQuota(jdbcTemplate, config, new UpstreamCaptureConfig(), meterRegistry, clock);
+
+        assertEquals(4, acquire(quota, 10));
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(2, acquire(quota, 10));
+        clock.advance(Duration.ofSeconds(60));
+        assertEquals(4, acquire(quota, 10));
+        assertEquals(0, remaining("day"));
+        clock.advance(Duration.ofSeconds(20));
+        assertEquals(1, remaining("minute"));
+        assertEquals(0, acquire(quota, 10));
+        clock.advance(Duration.ofSeconds(60));
+        assertEquals(4, acquire(quota, 10));
+        assertEquals(6, remaining("day"));
+    }
+
+    @Test
+    void tryAcquire_LeavesReserveToHigherPriorities() {
+        config.getLimits().get(UpstreamQuota.ACCUWEATHER).setPerMinute(0);
+        UpstreamQuota quota = quota(NOW);
+
+        assertEquals(8, UpstreamQuota.withPriority(UpstreamPriority.REFRESH_AHEAD, () -> acquire(quota, 10)));
+        assertFalse(UpstreamQuota.withPriority(UpstreamPriority.REFRESH_AHEAD, () -> quota.hasBudget(UpstreamQuota.ACCUWEATHER, 1)));
+        assertTrue(quota.hasBudget(UpstreamQuota.ACCUWEATHER, 2));
+        assertEquals(2, acquire(quota, 10));
+        assertFalse(quota.hasBudget(UpstreamQuota.ACCUWEATHER, 1));
+        assertTrue(quota.tryAcquire(UpstreamQuota.OPEN_METEO));
+    }
+
+    @Test
+    void tryAcquire_TakesAllCallsOfBulkRequestOrNone() {
+        UpstreamQuota quota = quota(NOW);
+
+        assertTrue(quota.tryAcquire(UpstreamQuota.ACCUWEATHER, 3));
+        assertFalse(quota.tryAcquire(UpstreamQuota.ACCUWEATHER, 2));
+        assertEquals(1, remaining("minute"));
+        assertEquals(7, remaining("day"));
+    }
+
+    @Test
+    void flush_RestoresCallsMadeTodayAfterRestart() {
+        UpstreamQuota quota = quota(NOW);
+        acquire(quota, 3);
+        quota.destroy();
+
+        UpstreamQuota restarted = quota(NOW.plusSeconds(60));
+        restarted.load();
+        assertEquals(7, remaining("day"));
+
+        UpstreamQuota tomorrow = quota(NOW.plus(Duration.ofMinutes(3)));
+        tomorrow.load();
+        assertEquals(10, remaining("day"));
+    }
+
+    @Test
+    void tryAcquire_AlwaysSucceedsWhenDisabled() {
+        config.setEnabled(false);
+
+        assertEquals(10, acquire(quota(NOW), 10));
+    }
+
+    @Test
+    void tryAcquire_TakesNothingWhileReplaying() {
+        UpstreamCaptureConfig captureConfig = new UpstreamCaptureConfig();
+        captureConfig.setMode(UpstreamCaptureConfig.Mode.REPLAY);
+        UpstreamQuota replaying = new UpstreamQuota(jdbcTemplate, config, captureConfig, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertEquals(20, acquire(replaying, 20));
+        assertTrue(replaying.hasBudget(UpstreamQuota.ACCUWEATHER, 100));
+        replaying.flush();
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM upstream_quota", Integer.class));
+    }
+
+    private UpstreamQuota quota(Instant now) {
+        meterRegistry.clear();
+        return new UpstreamQuota(jdbcTemplate, config, new UpstreamCaptureConfig(), meterRegistry, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static int acquire(UpstreamQuota quota, int calls) {
+        int acquired = 0;
+        while (acquired < calls && quota.tryAcquire(UpstreamQuota.ACCUWEATHER)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    private double remaining(String window) {
+        return meterRegistry.get(UpstreamQuota.REMAINING_METRIC)
+                .tag("upstream", UpstreamQuota.ACCUWEATHER)
+                .tag("window", window)
+                .gauge()
+                .value();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package pl.qprogramming.daily.serialization;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUserAuthority;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactSerializationConverterTest {
+
+    private final CompactSerializationConverter converter =
+            new CompactSerializationConverter(getClass().getClassLoader());
+
+    @Test
+    void securityContextRoundTrip() {
+        SecurityContext context = securityContext();
+
+        SecurityContext restored = (SecurityContext) converter.deserialize(converter.serialize(context));
+
+        OAuth2AuthenticationToken authentication = (OAuth2AuthenticationToken) restored.getAuthentication();
+        assertEquals("google", authentication.getAuthorizedClientRegistrationId());
+        assertEquals("108234567890123456789", authentication.getName());
+        assertEquals("Jane Doe", authentication.getPrincipal().getAttribute("name"));
+    }
+
+    @Test
+    void securityContextIsSmallerThanPlainSerialization() {
+        SecurityContext context = securityContext();
+
+        int plain = new SerializingConverter().convert(context).length;
+        int compact = converter.serialize(context).length;
+
+        assertTrue(compact < plain * 2 / 3, "compact " + compact + " bytes, plain " + plain + " bytes");
+    }
+
+    @Test
+    void convertsThroughConversionServiceTypes() {
+        byte[] bytes = (byte[]) converter.convert("value",
+                TypeDescriptor.valueOf(Object.class),
+                TypeDescriptor.valueOf(byte[].class));
+
+        assertEquals("value", converter.convert(bytes,
+                TypeDescriptor.valueOf(byte[].class),
+                TypeDescriptor.valueOf(Object.class)));
+    }
+
+    private static SecurityContext securityContext() {
+        Instant issuedAt = Instant.parse("2025-08-19T07:00:00Z");
+        Map<String, Object> claims = Map.of(
+                "sub", "108234567890123456789",
+                "iss", "https://accounts.google.com",
+                "aud", List.of("client-id.apps.googleusercontent.com"),
+                "email", "jane.doe@example.com",
+                "email_verified", true,
+                "name", "Jane Doe",
+                "picture", "https://lh3.googleusercontent.com/a/photo",
+                "given_name", "Jane",
+                "family_name", "Doe");
+        // Random token body, so that compression gains come from the serialization format only
+        byte[] tokenBody = new byte[450];
+        new Random(42).nextBytes(tokenBody);
+        String tokenValue = "eyJhbGciOiJSUzI1NiJ9." + Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBody);
+        OidcIdToken idToken = new OidcIdToken(tokenValue,
+                issuedAt, issuedAt.plusSeconds(3600), claims);
+        OidcUserInfo userInfo = new OidcUserInfo(claims);
+        DefaultOidcUser user = new DefaultOidcUser(
+                List.of(new OidcUserAuthority(idToken, userInfo)), idToken, userInfo, "sub");
+        return new SecurityContextImpl(new OAuth2AuthenticationToken(user, user.getAuthorities(), "google"));
+    }
+}
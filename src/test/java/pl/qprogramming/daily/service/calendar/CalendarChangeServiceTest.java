@@ -0,0 +1,257 @@
+package pl.qprogramming.daily.service.calendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.qprogramming.daily.dto.CalendarEvent;
+import pl.qprogramming.daily.service.calendar.CalendarChangeService.CalendarChange;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarChangeServiceTest {
+
+    private static final String PRIMARY = "primary";
+
+    @Mock
+    private CalendarService calendarService;
+
+    @Mock
+    private OAuth2AuthorizedClientManager authorizedClientManager;
+
+    private CalendarChangeService changeService;
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        changeService = changeService(false);
+    }
+
+    @Test
+    void diff_NoChanges() {
+        List<CalendarEvent> events = List.of(event(PRIMARY, "a", "Standup"), event(PRIMARY, "b", "Lunch"));
+
+        assertTrue(CalendarChangeService.diff(CalendarChangeService.index(events), copyOf(events)).isEmpty());
+    }
+
+    @Test
+    void diff_DetectsAddedUpdatedAndDeleted() {
+        CalendarEvent kept = event(PRIMARY, "a", "Standup");
+        CalendarEvent renamed = event(PRIMARY, "b", "Lunch");
+        CalendarEvent removed = event(PRIMARY, "c", "Review");
+        Map<String, CalendarEvent> previous = CalendarChangeService.index(List.of(kept, renamed, removed));
+        CalendarEvent renamedNow = event(PRIMARY, "b", "Team lunch");
+        CalendarEvent added = event(PRIMARY, "d", "Retro");
+
+        List<CalendarChange> changes = CalendarChangeService.diff(previous, List.of(kept, renamedNow, added));
+
+        assertEquals(3, changes.size());
+        assertEquals(CalendarChange.Type.UPDATED, changes.get(0).getType());
+        assertSame(renamedNow, changes.get(0).getEvent());
+        assertEquals(CalendarChange.Type.ADDED, changes.get(1).getType());
+        assertSame(added, changes.get(1).getEvent());
+        assertEquals(CalendarChange.Type.DELETED, changes.get(2).getType());
+        assertSame(removed, changes.get(2).getEvent());
+    }
+
+    @Test
+    void diff_DistinguishesSameEventIdInDifferentCalendars() {
+        CalendarEvent primary = event(PRIMARY, "a", "Standup");
+        CalendarEvent shared = event("shared", "a", "Standup");
+
+        List<CalendarChange> changes = CalendarChangeService.diff(
+                CalendarChangeService.index(List.of(primary)), List.of(primary, shared));
+
+        assertEquals(1, changes.size());
+        assertEquals(CalendarChange.Type.ADDED, changes.get(0).getType());
+        assertSame(shared, changes.get(0).getEvent());
+    }
+
+    @Test
+    void subscribe_SecondSubscriberGetsSharedSnapshot() throws Exception {
+        CalendarEvent standup = event(PRIMARY, "a", "Standup");
+        CalendarEvent lunch = event(PRIMARY, "b", "Lunch");
+        when(calendarService.getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7)))
+                .thenReturn(List.of(standup))
+                .thenReturn(List.of(standup, lunch));
+
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+
+        assertEquals(List.of("snapshot " + List.of(standup)), emitters.get(0).sent);
+        assertEquals(List.of("snapshot " + List.of(standup)), emitters.get(1).sent);
+    }
+
+    @Test
+    void checkForChanges_BroadcastsAddedUpdatedAndDeletedFromCachedEvents() throws Exception {
+        CalendarEvent standup = event(PRIMARY, "a", "Standup");
+        CalendarEvent lunch = event(PRIMARY, "b", "Lunch");
+        CalendarEvent review = event(PRIMARY, "c", "Review");
+        CalendarEvent teamLunch = event(PRIMARY, "b", "Team lunch");
+        CalendarEvent retro = event(PRIMARY, "d", "Retro");
+        when(calendarService.getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7)))
+                .thenReturn(List.of(standup, lunch, review))
+                .thenReturn(List.of(standup, lunch, review))
+                .thenReturn(List.of(standup, teamLunch, retro));
+        when(authorizedClientManager.authorize(any())).thenReturn(authorizedClient());
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+
+        changeService.checkForChanges();
+
+        List<String> changes = List.of("updated " + teamLunch, "added " + retro, "deleted " + review);
+        assertEquals(changes, emitters.get(0).sent.subList(1, 4));
+        assertEquals(changes, emitters.get(1).sent.subList(1, 4));
+        verify(authorizedClientManager, times(1)).authorize(any());
+        verify(calendarService, times(3)).getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7));
+        verify(calendarService, never()).refreshCalendarEvents(anyString(), any(), any(), anyString(), anyInt());
+    }
+
+    @Test
+    void checkForChanges_ReloadsEventsWhenRefreshIsEnabled() throws Exception {
+        changeService = changeService(true);
+        CalendarEvent standup = event(PRIMARY, "a", "Standup");
+        CalendarEvent retro = event(PRIMARY, "d", "Retro");
+        when(calendarService.getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7)))
+                .thenReturn(List.of(standup));
+        when(calendarService.refreshCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7)))
+                .thenReturn(List.of(standup, retro));
+        when(authorizedClientManager.authorize(any())).thenReturn(authorizedClient());
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+
+        changeService.checkForChanges();
+
+        assertEquals(List.of("snapshot " + List.of(standup), "added " + retro), emitters.get(0).sent);
+        verify(calendarService, times(1)).getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7));
+        verify(calendarService, times(1)).refreshCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7));
+    }
+
+    @Test
+    void checkForChanges_ClosesSubscriptionWithoutEmittersAndDoesNotJoinIt() throws Exception {
+        CalendarEvent standup = event(PRIMARY, "a", "Standup");
+        CalendarEvent lunch = event(PRIMARY, "b", "Lunch");
+        when(calendarService.getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7)))
+                .thenReturn(List.of(standup))
+                .thenReturn(List.of(standup))
+                .thenReturn(List.of(lunch));
+        when(authorizedClientManager.authorize(any())).thenReturn(authorizedClient());
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+        emitters.get(0).disconnected = true;
+
+        // Keep-alive fails and drops the emitter, the next check closes the subscription
+        changeService.checkForChanges();
+        changeService.checkForChanges();
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+
+        verify(authorizedClientManager, times(1)).authorize(any());
+        assertEquals(List.of("snapshot " + List.of(lunch)), emitters.get(1).sent);
+    }
+
+    @Test
+    void checkForChanges_CompletesEmittersWhenClientIsNoLongerAuthorized() throws Exception {
+        when(calendarService.getCalendarEvents(anyString(), any(), any(), eq(PRIMARY), eq(7)))
+                .thenReturn(List.of(event(PRIMARY, "a", "Standup")));
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+        changeService.subscribe(authorizedClient(), List.of(PRIMARY), 7);
+
+        changeService.checkForChanges();
+        changeService.checkForChanges();
+
+        assertTrue(emitters.get(0).completed);
+        assertTrue(emitters.get(1).completed);
+        assertEquals(1, emitters.get(0).sent.size());
+        verify(authorizedClientManager, times(1)).authorize(any());
+        verify(calendarService, never()).refreshCalendarEvents(anyString(), any(), any(), anyString(), anyInt());
+    }
+
+    private CalendarChangeService changeService(boolean refresh) {
+        return new CalendarChangeService(calendarService, authorizedClientManager, 1000, refresh) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static OAuth2AuthorizedClient authorizedClient() {
+        ClientRegistration registration = ClientRegistration.withRegistrationId("google")
+                .clientId("client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("https://accounts.example.com/auth")
+                .tokenUri("https://accounts.example.com/token")
+                .build();
+        Instant now = Instant.now();
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-token",
+                now, now.plus(1, ChronoUnit.HOURS));
+        return new OAuth2AuthorizedClient(registration, "user-1", accessToken);
+    }
+
+    private static CalendarEvent event(String calendarId, String id, String summary) {
+        return new CalendarEvent()
+                .calendarId(calendarId)
+                .id(id)
+                .summary(summary);
+    }
+
+    private static List<CalendarEvent> copyOf(List<CalendarEvent> events) {
+        return events.stream()
+                .map(event -> event(event.getCalendarId(), event.getId(), event.getSummary()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Emitter recording named events as "name data", failing sends once disconnected.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new ArrayList<>();
+        private boolean disconnected;
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            String name = null;
+            Object data = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (!(part.getData() instanceof String)) {
+                    data = part.getData();
+                } else if (((String) part.getData()).startsWith("event:")) {
+                    String text = (String) part.getData();
+                    name = text.substring("event:".length(), text.indexOf('\n'));
+                }
+            }
+            if (name != null) {
+                sent.add(name + " " + data);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package pl.qprogramming.daily.service.calendar;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import org.junit.jupiter.api.Test;
+import pl.qprogramming.daily.dto.CalendarEvent;
+import pl.qprogramming.daily.dto.CalendarEventStart;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarEventMergerTest {
+
+    private final CalendarMapper calendarMapper = new CalendarMapperImpl();
+
+    @Test
+    void mergeOrdersTimedThenAllDayThenWithoutStart() {
+        CalendarEvent neither = event("neither", null, null);
+        CalendarEvent timedLate = event("timedLate", OffsetDateTime.parse("2023-08-20T10:00:00Z"), null);
+        CalendarEvent allDay = event("allDay", null, LocalDate.parse("2023-08-20"));
+        CalendarEvent timedEarly = event("timedEarly", OffsetDateTime.parse("2023-08-20T09:00:00Z"), null);
+
+        List<CalendarEvent> merged = CalendarEventMerger.merge(List.of(
+                List.of(neither, timedLate),
+                List.of(allDay, timedEarly)));
+
+        assertEquals(List.of(timedEarly, timedLate, allDay, neither), merged);
+    }
+
+    @Test
+    void mergeKeepsCalendarOrderForEqualStarts() {
+        OffsetDateTime sameTime = OffsetDateTime.parse("2023-08-20T10:00:00Z");
+        CalendarEvent first = event("first", sameTime, null);
+        CalendarEvent second = event("second", sameTime, null);
+        CalendarEvent third = event("third", sameTime, null);
+
+        List<CalendarEvent> merged = CalendarEventMerger.merge(List.of(List.of(first), List.of(second, third)));
+
+        assertSame(first, merged.get(0));
+        assertSame(second, merged.get(1));
+        assertSame(third, merged.get(2));
+    }
+
+    @Test
+    void mergeComparesOffsetsByInstant() {
+        CalendarEvent warsaw = event("warsaw", OffsetDateTime.parse("2023-08-20T11:00:00+02:00"), null);
+        CalendarEvent utc = event("utc", OffsetDateTime.parse("2023-08-20T09:30:00Z"), null);
+
+        List<CalendarEvent> merged = CalendarEventMerger.merge(List.of(List.of(utc), List.of(warsaw)));
+
+        assertSame(warsaw, merged.get(0));
+        assertSame(utc, merged.get(1));
+    }
+
+    @Test
+    void mergeEmptyLists() {
+        assertTrue(CalendarEventMerger.merge(List.of()).isEmpty());
+        assertTrue(CalendarEventMerger.merge(List.of(List.of(), List.of())).isEmpty());
+    }
+
+    @Test
+    void mapperSortKeyMatchesDtoSortKey() {
+        CalendarEvent timed = calendarMapper.toDto(googleEvent(new DateTime("2025-08-19T10:00:00+02:00"), null), "primary");
+        CalendarEvent allDay = calendarMapper.toDto(googleEvent(null, new DateTime("2025-08-19")), "primary");
+        CalendarEvent noStart = calendarMapper.toDto(new Event(), "primary");
+
+        assertInstanceOf(SortableCalendarEvent.class, timed);
+        assertEquals(CalendarEventMerger.sortKey(copyOf(timed)), CalendarEventMerger.sortKey(timed));
+        assertEquals(CalendarEventMerger.sortKey(copyOf(allDay)), CalendarEventMerger.sortKey(allDay));
+        assertEquals(CalendarEventMerger.NO_START_KEY, CalendarEventMerger.sortKey(noStart));
+    }
+
+    @Test
+    void mergeMatchesComparatorOnGoogleOrderedCalendars() {
+        Random random = new Random(42);
+        List<List<CalendarEvent>> calendars = new ArrayList<>();
+        List<CalendarEvent> concatenated = new ArrayList<>();
+        for (int c = 0; c < 5; c++) {
+            // Google orders all-day events among timed events of the same day
+            List<CalendarEvent> events = new ArrayList<>();
+            for (int day = 0; day < 14; day++) {
+                LocalDate date = LocalDate.parse("2025-08-01").plusDays(day);
+                if (random.nextBoolean()) {
+                    events.add(calendarMapper.toDto(googleEvent(null, new DateTime(date.toString())), "cal" + c));
+                }
+                int hour = 6;
+                while (hour < 22 && random.nextInt(3) > 0) {
+                    hour += random.nextInt(4);
+                    String start = date + "T" + String.format("%02d", hour) + ":00:00+02:00";
+                    events.add(calendarMapper.toDto(googleEvent(new DateTime(start), null), "cal" + c));
+                }
+            }
+            calendars.add(events);
+            concatenated.addAll(events);
+        }
+        concatenated.sort(new CalendarEventComparator());
+
+        List<CalendarEvent> merged = CalendarEventMerger.merge(calendars);
+
+        assertEquals(concatenated.size(), merged.size());
+        for (int i = 0; i < merged.size(); i++) {
+            assertSame(concatenated.get(i), merged.get(i));
+        }
+    }
+
+    @Test
+    void streamingMergeMatchesListMerge() throws IOException {
+        CalendarEvent timed1 = event("timed1", OffsetDateTime.parse("2023-08-20T09:00:00Z"), null);
+        CalendarEvent timed2 = event("timed2", OffsetDateTime.parse("2023-08-21T09:00:00Z"), null);
+        CalendarEvent timed3 = event("timed3", OffsetDateTime.parse("2023-08-20T12:00:00Z"), null);
+        CalendarEvent allDay1 = event("allDay1", null, LocalDate.parse("2023-08-21"));
+        CalendarEvent allDay2 = event("allDay2", null, LocalDate.parse("2023-08-20"));
+        CalendarEvent neither = event("neither", null, null);
+        // Google order: all-day events placed among timed events of the same day
+        List<List<CalendarEvent>> firstCalendar = List.of(List.of(timed1), List.of(allDay1, timed2));
+        List<List<CalendarEvent>> secondCalendar = List.of(List.of(allDay2, timed3, neither));
+
+        List<CalendarEvent> streamed = new ArrayList<>();
+        CalendarEventMerger.merge(List.of(new PagedSource(firstCalendar), new PagedSource(secondCalendar)), streamed::add);
+
+        List<CalendarEvent> expected = CalendarEventMerger.merge(List.of(
+                List.of(timed1, allDay1, timed2),
+                List.of(allDay2, timed3, neither)));
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void streamingMergeEmitsBeforeFetchingLaterPages() throws IOException {
+        CalendarEvent early = event("early", OffsetDateTime.parse("2023-08-20T09:00:00Z"), null);
+        CalendarEvent late = event("late", OffsetDateTime.parse("2023-08-22T09:00:00Z"), null);
+        CalendarEvent middle = event("middle", OffsetDateTime.parse("2023-08-21T09:00:00Z"), null);
+        PagedSource first = new PagedSource(List.of(List.of(early), List.of(late)));
+        PagedSource second = new PagedSource(List.of(List.of(middle)));
+        List<Integer> fetchedPagesAtEmit = new ArrayList<>();
+
+        CalendarEventMerger.merge(List.of(first, second), event -> fetchedPagesAtEmit.add(first.fetched));
+
+        // The earliest event is emitted while the first calendar delivered only its first page
+        assertEquals(1, fetchedPagesAtEmit.get(0));
+        assertEquals(3, fetchedPagesAtEmit.size());
+    }
+
+    private static CalendarEvent event(String id, OffsetDateTime dateTime, LocalDate date) {
+        return new CalendarEvent()
+                .id(id)
+                .start(new CalendarEventStart().dateTime(dateTime).date(date));
+    }
+
+    private static CalendarEvent copyOf(CalendarEvent event) {
+        return event(event.getId(), event.getStart().getDateTime(), event.getStart().getDate());
+    }
+
+    private static Event googleEvent(DateTime dateTime, DateTime date) {
+        Event event = new Event();
+        EventDateTime start = new EventDateTime();
+        start.setDateTime(dateTime);
+        start.setDate(date);
+        event.setStart(start);
+        return event;
+    }
+
+    private static class PagedSource implements CalendarEventMerger.EventSource {
+        private final Iterator<List<CalendarEvent>> pages;
+        private int fetched;
+
+        private PagedSource(List<List<CalendarEvent>> pages) {
+            this.pages = pages.iterator();
+        }
+
+        @Override
+        public List<CalendarEvent> nextPage() {
+            if (!pages.hasNext()) {
+                return null;
+            }
+            fetched++;
+            return pages.next();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package pl.qprogramming.daily.service.calendar;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.*;
@@ -14,10 +16,15 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ClassPathResource;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.GoogleCalendarConfig;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,6 +61,12 @@ class CalendarServiceTest {
     @Spy
     private CalendarMapperImpl calendarMapper;
 
+    @Spy
+    private GoogleCalendarConfig googleCalendarConfig = new GoogleCalendarConfig();
+
+    @Spy
+    private UpstreamCapture upstreamCapture = new UpstreamCapture(new UpstreamCaptureConfig());
+
     private CalendarList testCalendarList;
     private Events testEvents;
 
@@ -186,6 +199,9 @@ class CalendarServiceTest {
         // Setup calendar list mocks
         when(calendarClient.calendarList()).thenReturn(mockCalendarList);
         when(mockCalendarList.list()).thenReturn(mockCalendarListRequest);
+        when(mockCalendarListRequest.setFields(anyString())).thenReturn(mockCalendarListRequest);
+        when(mockCalendarListRequest.setMaxResults(anyInt())).thenReturn(mockCalendarListRequest);
+        when(mockCalendarListRequest.setPageToken(any())).thenReturn(mockCalendarListRequest);
         when(mockCalendarListRequest.execute()).thenReturn(testCalendarList);
 
         // Execute test
@@ -201,6 +217,8 @@ class CalendarServiceTest {
         verify(serviceSpy).createCalendarClient(TEST_ACCESS_TOKEN, null, null);
         verify(calendarClient).calendarList();
         verify(mockCalendarList).list();
+        verify(mockCalendarListRequest).setFields(CalendarService.CALENDAR_LIST_FIELDS);
+        verify(mockCalendarListRequest).setMaxResults(CalendarService.CALENDAR_LIST_MAX_RESULTS);
         verify(mockCalendarListRequest).execute();
     }
 
@@ -215,6 +233,9 @@ class CalendarServiceTest {
         // Setup calendar list mocks to throw exception
         when(calendarClient.calendarList()).thenReturn(mockCalendarList);
         when(mockCalendarList.list()).thenReturn(mockCalendarListRequest);
+        when(mockCalendarListRequest.setFields(anyString())).thenReturn(mockCalendarListRequest);
+        when(mockCalendarListRequest.setMaxResults(anyInt())).thenReturn(mockCalendarListRequest);
+        when(mockCalendarListRequest.setPageToken(any())).thenReturn(mockCalendarListRequest);
         when(mockCalendarListRequest.execute()).thenThrow(new IOException("Test exception"));
 
         // Execute test and verify exception is thrown
@@ -242,6 +263,8 @@ class CalendarServiceTest {
         when(mockEventsList.setTimeMax(any())).thenReturn(mockEventsList);
         when(mockEventsList.setOrderBy(anyString())).thenReturn(mockEventsList);
         when(mockEventsList.setSingleEvents(anyBoolean())).thenReturn(mockEventsList);
+        when(mockEventsList.setFields(anyString())).thenReturn(mockEventsList);
+        when(mockEventsList.setMaxResults(anyInt())).thenReturn(mockEventsList);
         when(mockEventsList.setPageToken(any())).thenReturn(mockEventsList);
         when(mockEventsList.execute()).thenReturn(testEvents);
 
@@ -262,6 +285,8 @@ class CalendarServiceTest {
         verify(mockEventsList).setTimeMax(any());
         verify(mockEventsList).setOrderBy("startTime");
         verify(mockEventsList).setSingleEvents(true);
+        verify(mockEventsList).setFields(CalendarService.EVENTS_FIELDS);
+        verify(mockEventsList).setMaxResults(CalendarService.EVENTS_MAX_RESULTS);
         verify(mockEventsList).execute();
     }
 
@@ -280,6 +305,8 @@ class CalendarServiceTest {
         when(mockEventsList.setTimeMax(any())).thenReturn(mockEventsList);
         when(mockEventsList.setOrderBy(anyString())).thenReturn(mockEventsList);
         when(mockEventsList.setSingleEvents(anyBoolean())).thenReturn(mockEventsList);
+        when(mockEventsList.setFields(anyString())).thenReturn(mockEventsList);
+        when(mockEventsList.setMaxResults(anyInt())).thenReturn(mockEventsList);
         when(mockEventsList.setPageToken(any())).thenReturn(mockEventsList);
         when(mockEventsList.execute()).thenThrow(new IOException("Test exception"));
 
@@ -322,6 +349,8 @@ class CalendarServiceTest {
         when(mockEventsList.setTimeMax(any())).thenReturn(mockEventsList);
         when(mockEventsList.setOrderBy(anyString())).thenReturn(mockEventsList);
         when(mockEventsList.setSingleEvents(anyBoolean())).thenReturn(mockEventsList);
+        when(mockEventsList.setFields(anyString())).thenReturn(mockEventsList);
+        when(mockEventsList.setMaxResults(anyInt())).thenReturn(mockEventsList);
         when(mockEventsList.setPageToken(null)).thenReturn(mockEventsList);
         when(mockEventsList.execute()).thenReturn(firstPageEvents, secondPageEvents);
         when(mockEventsList.setPageToken("next-page-token")).thenReturn(mockEventsList);
@@ -344,5 +373,99 @@ class CalendarServiceTest {
     void createCalendarClient_CanBeCalledDirectly() {
         assertDoesNotThrow(() -> calendarService.createCalendarClient(TEST_ACCESS_TOKEN, null, null));
     }
-}
 
+    @Test
+    void eventsFieldMask_CoversEverythingMapperReads() throws IOException {
+        Events fullEvents = GsonFactory.getDefaultInstance().fromInputStream(
+                new ClassPathResource("calendar/events.json").getInputStream(), Events.class);
+        Events maskedEvents = applyFieldMask(fullEvents, CalendarService.EVENTS_FIELDS);
+
+        // The mask must actually drop the heavy parts of the resource
+        assertNull(maskedEvents.getItems().get(0).getAttendees());
+        assertNull(maskedEvents.getItems().get(0).getConferenceData());
+        assertNull(maskedEvents.getItems().get(1).getReminders());
+
+        assertEquals(fullEvents.getItems().size(), maskedEvents.getItems().size());
+        for (int i = 0; i < fullEvents.getItems().size(); i++) {
+            val fromFull = calendarMapper.toDto(fullEvents.getItems().get(i), TEST_CALENDAR_ID);
+            val fromMasked = calendarMapper.toDto(maskedEvents.getItems().get(i), TEST_CALENDAR_ID);
+            assertEquals(fromFull, fromMasked);
+            assertEquals(CalendarEventMerger.sortKey(fromFull), CalendarEventMerger.sortKey(fromMasked));
+        }
+    }
+
+    @Test
+    void calendarListFieldMask_CoversEverythingMapperReads() throws IOException {
+        CalendarList fullList = GsonFactory.getDefaultInstance().fromInputStream(
+                new ClassPathResource("calendar/calendar_list.json").getInputStream(), CalendarList.class);
+        CalendarList maskedList = applyFieldMask(fullList, CalendarService.CALENDAR_LIST_FIELDS);
+
+        assertNull(maskedList.getItems().get(0).getDefaultReminders());
+        assertNull(maskedList.getItems().get(0).getAccessRole());
+
+        assertEquals(fullList.getItems().size(), maskedList.getItems().size());
+        for (int i = 0; i < fullList.getItems().size(); i++) {
+            assertEquals(calendarMapper.toDto(fullList.getItems().get(i)),
+                    calendarMapper.toDto(maskedList.getItems().get(i)));
+        }
+    }
+
+    /**
+     * Simulates a Google partial response by keeping only the fields selected by the mask.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends GenericJson> T applyFieldMask(T source, String mask) {
+        T copy = (T) source.clone();
+        retainFields(copy, parseFieldMask(mask, new int[]{0}));
+        return copy;
+    }
+
+    private static void retainFields(GenericJson json, Map<String, Map<String, ?>> selection) {
+        for (String key : new HashSet<>(json.keySet())) {
+            if (!selection.containsKey(key)) {
+                json.set(key, null);
+                continue;
+            }
+            Map<String, Map<String, ?>> nested = (Map<String, Map<String, ?>>) selection.get(key);
+            if (nested == null) {
+                continue;
+            }
+            Object value = json.get(key);
+            if (value instanceof GenericJson) {
+                retainFields((GenericJson) value, nested);
+            } else if (value instanceof List) {
+                for (Object item : (List<?>) value) {
+                    if (item instanceof GenericJson) {
+                        retainFields((GenericJson) item, nested);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, Map<String, ?>> parseFieldMask(String mask, int[] position) {
+        Map<String, Map<String, ?>> selection = new LinkedHashMap<>();
+        StringBuilder name = new StringBuilder();
+        while (position[0] < mask.length()) {
+            char c = mask.charAt(position[0]++);
+            if (c == '(') {
+                selection.put(name.toString(), parseFieldMask(mask, position));
+                name.setLength(0);
+            } else if (c == ',' || c == ')') {
+                if (name.length() > 0) {
+                    selection.put(name.toString(), null);
+                    name.setLength(0);
+                }
+                if (c == ')') {
+                    return selection;
+                }
+            } else {
+                name.append(c);
+            }
+        }
+        if (name.length() > 0) {
+            selection.put(name.toString(), null);
+        }
+        return selection;
+    }
+}
@@ -0,0 +1,176 @@
+package pl.qprogramming.daily.service.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import pl.qprogramming.daily.config.CalendarSyncConfig;
+import pl.qprogramming.daily.config.OAuth2TokenConfig;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CalendarSyncServiceTest {
+
+    private static final String REGISTRATION_ID = "google";
+    private static final String PRINCIPAL = "user-1";
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2025, 8, 19, 7, 40, 0, 0, ZoneId.systemDefault());
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private OAuth2AuthorizedClientManager authorizedClientManager;
+
+    @Mock
+    private CalendarService calendarService;
+
+    @Mock
+    private CalendarUsageTracker usageTracker;
+
+    private CalendarSyncConfig config;
+    private CalendarSyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        config = new CalendarSyncConfig();
+        config.setLeadMinutes(30);
+        config.setActiveDays(14);
+        syncService = new CalendarSyncService(jdbcTemplate, authorizedClientManager, calendarService, usageTracker, config,
+                new OAuth2TokenConfig());
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncService.shutdown();
+    }
+
+    @Test
+    void findDueUsers_SelectsUsersUsuallyActiveWithinLeadTime() throws Exception {
+        // Usually visits at 8:00, which is within 30 minutes of 7:40
+        CalendarUsage usage = usageVisitedAt(NOW.withHour(8).minusDays(1));
+        stubStoredClients();
+        when(usageTracker.getUsage(REGISTRATION_ID, PRINCIPAL)).thenReturn(usage);
+
+        assertEquals(List.of(usage), syncService.findDueUsers(NOW));
+    }
+
+    @Test
+    void findDueUsers_SkipsUsersUsuallyActiveLater() throws Exception {
+        CalendarUsage usage = usageVisitedAt(NOW.withHour(12).minusDays(1));
+        stubStoredClients();
+        when(usageTracker.getUsage(REGISTRATION_ID, PRINCIPAL)).thenReturn(usage);
+
+        assertTrue(syncService.findDueUsers(NOW).isEmpty());
+    }
+
+    @Test
+    void findDueUsers_SkipsInactiveAndUnknownUsers() throws Exception {
+        CalendarUsage usage = usageVisitedAt(NOW.withHour(8).minusDays(30));
+        stubStoredClients();
+        when(usageTracker.getUsage(REGISTRATION_ID, PRINCIPAL)).thenReturn(usage, (CalendarUsage) null);
+
+        assertTrue(syncService.findDueUsers(NOW).isEmpty());
+        assertTrue(syncService.findDueUsers(NOW).isEmpty());
+    }
+
+    @Test
+    void syncUser_RefreshesEveryRequestedCalendar() throws Exception {
+        CalendarUsage usage = usageVisitedAt(NOW.minusDays(1));
+        when(authorizedClientManager.authorize(any(OAuth2AuthorizeRequest.class))).thenReturn(authorizedClient());
+        AtomicInteger budget = new AtomicInteger(10);
+
+        assertTrue(syncService.syncUser(usage, budget));
+
+        verify(calendarService).refreshCalendarEvents("access-token", null, null, "primary", 7);
+        verify(calendarService).refreshCalendarEvents("access-token", null, null, "holidays", 7);
+        assertEquals(8, budget.get());
+    }
+
+    @Test
+    void syncUser_SkipsTokenReplacedBeforeWarmedEntriesExpire() {
+        CalendarUsage usage = usageVisitedAt(NOW.minusDays(1));
+        when(authorizedClientManager.authorize(any(OAuth2AuthorizeRequest.class)))
+                .thenReturn(authorizedClient(Instant.now().plus(8, ChronoUnit.MINUTES)));
+        AtomicInteger budget = new AtomicInteger(10);
+
+        assertFalse(syncService.syncUser(usage, budget));
+
+        verifyNoInteractions(calendarService);
+        assertEquals(10, budget.get());
+    }
+
+    @Test
+    void syncUser_SkipsWhenBudgetExhausted() throws Exception {
+        CalendarUsage usage = usageVisitedAt(NOW.minusDays(1));
+
+        assertFalse(syncService.syncUser(usage, new AtomicInteger(1)));
+
+        verifyNoInteractions(authorizedClientManager, calendarService);
+    }
+
+    @Test
+    void recordVisit_CountsOncePerClockHour() {
+        CalendarUsage usage = new CalendarUsage(REGISTRATION_ID, PRINCIPAL, List.of("primary"), 7, null, new int[24]);
+        Instant visit = NOW.toInstant().truncatedTo(ChronoUnit.HOURS);
+
+        usage.recordVisit(List.of("primary"), 7, visit);
+        usage.recordVisit(List.of("primary"), 7, visit.plus(20, ChronoUnit.MINUTES));
+        usage.recordVisit(List.of("primary"), 7, visit.plus(1, ChronoUnit.DAYS));
+
+        assertEquals(2, usage.hourlyVisitsSnapshot()[NOW.getHour()]);
+    }
+
+    private static CalendarUsage usageVisitedAt(ZonedDateTime visit) {
+        CalendarUsage usage = new CalendarUsage(REGISTRATION_ID, PRINCIPAL, List.of(), 7, null, new int[24]);
+        usage.recordVisit(List.of("primary", "holidays"), 7, visit.toInstant());
+        return usage;
+    }
+
+    private void stubStoredClients() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("client_registration_id")).thenReturn(REGISTRATION_ID);
+        when(resultSet.getString("principal_name")).thenReturn(PRINCIPAL);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    private static OAuth2AuthorizedClient authorizedClient() {
+        return authorizedClient(null);
+    }
+
+    private static OAuth2AuthorizedClient authorizedClient(Instant expiresAt) {
+        ClientRegistration registration = ClientRegistration.withRegistrationId(REGISTRATION_ID)
+                .clientId("client-id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("https://accounts.example.com/auth")
+                .tokenUri("https://accounts.example.com/token")
+                .build();
+        OAuth2AccessToken accessToken = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access-token",
+                expiresAt != null ? expiresAt.minus(1, ChronoUnit.HOURS) : null, expiresAt);
+        return new OAuth2AuthorizedClient(registration, PRINCIPAL, accessToken);
+    }
+}
@@ -0,0 +1,60 @@
+package pl.qprogramming.daily.service.calendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarUsageTrackerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void flush_LeavesOutCalendarIdsPastColumnLength() {
+        String longId = "x".repeat(1500) + "@group.calendar.google.com";
+        CalendarUsageTracker tracker = new CalendarUsageTracker(jdbcTemplate);
+        tracker.recordVisit("google", "user", List.of("primary", longId, longId + "2", longId + "3"), 3);
+
+        tracker.flush();
+
+        CalendarUsageTracker restarted = new CalendarUsageTracker(jdbcTemplate);
+        restarted.load();
+        assertEquals(List.of("primary", longId, longId + "2"), restarted.getUsage("google", "user").getCalendarIds());
+    }
+
+    @Test
+    void flush_WritesUsageAgainAfterFailedWrite() {
+        CalendarUsageTracker tracker = new CalendarUsageTracker(jdbcTemplate);
+        tracker.recordVisit("google", "user", List.of("primary"), 3);
+        jdbcTemplate.execute("ALTER TABLE calendar_usage RENAME TO calendar_usage_moved");
+
+        tracker.flush();
+
+        jdbcTemplate.execute("ALTER TABLE calendar_usage_moved RENAME TO calendar_usage");
+        tracker.flush();
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM calendar_usage", Integer.class));
+    }
+}
@@ -0,0 +1,92 @@
+package pl.qprogramming.daily.service.weather;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import pl.qprogramming.daily.config.AccuWeatherConfig;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccuWeatherLocationIndexTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final AccuWeatherConfig config = new AccuWeatherConfig();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(EmbeddedDatabaseType.H2)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void store_FindsLocationInSameCell() {
+        AccuWeatherLocationIndex index = new AccuWeatherLocationIndex(jdbcTemplate, config);
+        index.store(52.2316, 21.0062, warsaw());
+
+        assertEquals("274663", index.find(52.2341, 21.0089).getKey());
+        assertNull(index.find(52.2416, 21.0062));
+        assertNull(index.find(-52.2316, 21.0062));
+    }
+
+    @Test
+    void load_RestoresStoredLocations() {
+        new AccuWeatherLocationIndex(jdbcTemplate, config).store(52.2316, 21.0062, warsaw());
+
+        AccuWeatherLocationIndex restarted = new AccuWeatherLocationIndex(jdbcTemplate, config);
+        assertNull(restarted.find(52.2316, 21.0062));
+        restarted.load();
+
+        AccuWeatherLocation location = restarted.find(52.2316, 21.0062);
+        assertEquals("274663", location.getKey());
+        assertEquals("Warsaw", location.getLocalizedName());
+        assertEquals("Poland", location.getCountry().getLocalizedName());
+        assertEquals("Masovia", location.getAdministrativeArea().getLocalizedName());
+        assertEquals(52.23, location.getGeoPosition().getLatitude());
+    }
+
+    @Test
+    void load_SkipsLocationsOfAnotherCellSize() {
+        new AccuWeatherLocationIndex(jdbcTemplate, config).store(52.2316, 21.0062, warsaw());
+        AccuWeatherConfig coarser = new AccuWeatherConfig();
+        coarser.setLocationCellDegrees(config.getLocationCellDegrees() * 10);
+
+        AccuWeatherLocationIndex restarted = new AccuWeatherLocationIndex(jdbcTemplate, coarser);
+        restarted.load();
+
+        assertNull(restarted.find(52.2316, 21.0062));
+        // Cell numbers of the stored row, read with the coarser size
+        assertNull(restarted.find(522.35, 210.05));
+    }
+
+    private static AccuWeatherLocation warsaw() {
+        AccuWeatherLocation location = new AccuWeatherLocation();
+        location.setKey("274663");
+        location.setLocalizedName("Warsaw");
+        AccuWeatherLocation.AccuWeatherCountry country = new AccuWeatherLocation.AccuWeatherCountry();
+        country.setLocalizedName("Poland");
+        location.setCountry(country);
+        AccuWeatherLocation.AccuWeatherAdministrativeArea area = new AccuWeatherLocation.AccuWeatherAdministrativeArea();
+        area.setLocalizedName("Masovia");
+        location.setAdministrativeArea(area);
+        AccuWeatherLocation.AccuWeatherGeoPosition geoPosition = new AccuWeatherLocation.AccuWeatherGeoPosition();
+        geoPosition.setLatitude(52.23);
+        geoPosition.setLongitude(21.01);
+        location.setGeoPosition(geoPosition);
+        return location;
+    }
+}
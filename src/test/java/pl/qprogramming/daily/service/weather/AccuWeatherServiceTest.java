@@ -0,0 +1,77 @@
+package pl.qprogramming.daily.service.weather;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import pl.qprogramming.daily.cache.NearbyCache;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.AccuWeatherConfig;
+import pl.qprogramming.daily.config.NearbyCacheConfig;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamQuotaConfig;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.quota.UpstreamQuota;
+import pl.qprogramming.daily.service.weather.mapper.AccuWeatherMapperImpl;
+import pl.qprogramming.daily.service.weather.model.accuweather.AccuWeatherLocation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
+
+class AccuWeatherServiceTest {
+
+    private static final double TEST_LATITUDE = 52.2316;
+    private static final double TEST_LONGITUDE = 21.0062;
+
+    private final AccuWeatherLocationIndex locationIndex = mock(AccuWeatherLocationIndex.class);
+    private UpstreamQuota upstreamQuota;
+    private AccuWeatherService accuWeatherService;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        UpstreamQuotaConfig quotaConfig = new UpstreamQuotaConfig();
+        quotaConfig.setEnabled(true);
+        UpstreamQuotaConfig.Limit limit = new UpstreamQuotaConfig.Limit();
+        limit.setDaily(2);
+        quotaConfig.getLimits().put(UpstreamQuota.ACCUWEATHER, limit);
+        upstreamQuota = spy(new UpstreamQuota(null, quotaConfig, new UpstreamCaptureConfig(), new SimpleMeterRegistry()));
+        accuWeatherService = new AccuWeatherService(new AccuWeatherConfig(), new AccuWeatherMapperImpl(),
+                new UpstreamMetrics(new SimpleMeterRegistry()), new UpstreamCapture(new UpstreamCaptureConfig()),
+                locationIndex, new NearbyCache(new NearbyCacheConfig(), new ConcurrentMapCacheManager()), upstreamQuota);
+        server = MockRestServiceServer.bindTo((RestTemplate) ReflectionTestUtils.getField(accuWeatherService, "restTemplate")).build();
+        AccuWeatherLocation location = new AccuWeatherLocation();
+        location.setKey("274663");
+        location.setLocalizedName("Warsaw");
+        when(locationIndex.find(anyDouble(), anyDouble())).thenReturn(location);
+    }
+
+    @Test
+    void getWeatherForecast_BudgetRunningOutPartwayReturnsNoForecast() {
+        // Another request takes the budget between the check and the last call
+        doReturn(true).when(upstreamQuota).hasBudget(eq(UpstreamQuota.ACCUWEATHER), anyInt());
+        server.expect(requestTo(Matchers.startsWith(ACCU_WEATHER_CURRENT_CONDITIONS_URL + "/274663")))
+                .andRespond(withSuccess("[{}]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(Matchers.startsWith(ACCU_WEATHER_FORECAST_URL + "/274663")))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        assertNull(accuWeatherService.getWeatherForecast(TEST_LATITUDE, TEST_LONGITUDE, 5, 12));
+        server.verify();
+    }
+
+    @Test
+    void getWeatherForecast_OverBudgetMakesNoCalls() {
+        assertNull(accuWeatherService.getWeatherForecast(TEST_LATITUDE, TEST_LONGITUDE, 5, 12));
+        server.verify();
+        verifyNoInteractions(locationIndex);
+    }
+}
@@ -2,6 +2,8 @@ package pl.qprogramming.daily.service.weather;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,38 +12,71 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.GazetteerConfig;
+import pl.qprogramming.daily.config.OpenMeteoConfig;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamQuotaConfig;
 import pl.qprogramming.daily.dto.GeocodingResult;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.quota.UpstreamQuota;
+import pl.qprogramming.daily.service.weather.gazetteer.Gazetteer;
 import pl.qprogramming.daily.service.weather.mapper.GeoCodingMapper;
+import pl.qprogramming.daily.service.weather.mapper.GeoCodingMapperImpl;
 import pl.qprogramming.daily.service.weather.mapper.WeatherMapper;
 import pl.qprogramming.daily.service.weather.model.GeocodingResponse;
+import pl.qprogramming.daily.service.weather.model.LocalizedGeocodingResults;
 
 import java.io.IOException;
+import java.net.URI;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static pl.qprogramming.daily.service.weather.WeatherConstants.GEOCODING_CACHE;
 import static pl.qprogramming.daily.service.weather.WeatherConstants.OPEN_METEO_GEOCODING_URL;
 
 @ExtendWith(MockitoExtension.class)
 class GeoCodingServiceTest {
     private static final String TEST_CITY = "Warsaw";
     private static final String TEST_LANGUAGE = "pl";
-    private static final int TEST_COUNT = 1;
-    private static final double TEST_LATITUDE = 52.2316;
-    private static final double TEST_LONGITUDE = 21.0062;
+    // Warsaw is in the bundled gazetteer, whose coordinates are shared by all languages
+    private static final double TEST_LATITUDE = 52.22977;
+    private static final double TEST_LONGITUDE = 21.01178;
     private ObjectMapper objectMapper;
     private GeocodingResponse geocodingResponse;
-    private GeocodingResult geocodingResult;
 
     @Mock
     private RestTemplate restTemplate;
 
-    @Mock
-    private GeoCodingMapper geoCodingMapper;
+    @Spy
+    private GeoCodingMapper geoCodingMapper = new GeoCodingMapperImpl();
+
+    @Spy
+    private OpenMeteoConfig openMeteoConfig = new OpenMeteoConfig();
+
+    @Spy
+    private UpstreamCapture upstreamCapture = new UpstreamCapture(new UpstreamCaptureConfig());
 
+    @Spy
+    private UpstreamQuota upstreamQuota = new UpstreamQuota(null, new UpstreamQuotaConfig(), new UpstreamCaptureConfig(), new SimpleMeterRegistry());
+
+    @Spy
+    private Gazetteer gazetteer = new Gazetteer(new GazetteerConfig(), new DefaultResourceLoader());
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(GEOCODING_CACHE);
 
     @Spy
     @InjectMocks
@@ -56,11 +91,6 @@ class GeoCodingServiceTest {
         geocodingResponse = objectMapper.readValue(
                 new ClassPathResource("weather/geocoding_response.json").getInputStream(),
                 GeocodingResponse.class);
-        geocodingResult = new GeocodingResult()
-                .name("Warsaw")
-                .latitude(TEST_LATITUDE)
-                .longitude(TEST_LONGITUDE)
-                .country("Poland");
         // Replace the injected RestTemplate with our mock
         ReflectionTestUtils.setField(geoCodingService, "restTemplate", restTemplate);
     }
@@ -68,12 +98,11 @@ class GeoCodingServiceTest {
     @Test
     void geocodeLocation_Success() {
         // Setup mocks
-        when(restTemplate.getForObject(contains(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
                 .thenReturn(geocodingResponse);
-        when(geoCodingMapper.toGeocodingResponse(any())).thenReturn(geocodingResult);
 
         // Execute test
-        GeocodingResult result = geoCodingService.geocodeLocation(TEST_CITY, TEST_LANGUAGE, TEST_COUNT);
+        GeocodingResult result = geoCodingService.geocodeLocation(TEST_CITY, TEST_LANGUAGE);
 
         // Verify results
         assertNotNull(result);
@@ -83,14 +112,14 @@ class GeoCodingServiceTest {
         assertEquals("Poland", result.getCountry());
 
         // Verify interactions
-        verify(restTemplate).getForObject(contains(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
-        verify(geoCodingMapper).toGeocodingResponse(any());
+        verify(restTemplate).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+        verify(geoCodingMapper).toLocalizedPlace(any(), any());
     }
 
     @Test
     void geocodeLocation_NullCityName() {
         // Execute test with null city name
-        GeocodingResult result = geoCodingService.geocodeLocation(null, TEST_LANGUAGE, TEST_COUNT);
+        GeocodingResult result = geoCodingService.geocodeLocation(null, TEST_LANGUAGE);
 
         // Verify result is null
         assertNull(result);
@@ -103,7 +132,7 @@ class GeoCodingServiceTest {
     @Test
     void geocodeLocation_EmptyCityName() {
         // Execute test with empty city name
-        GeocodingResult result = geoCodingService.geocodeLocation("", TEST_LANGUAGE, TEST_COUNT);
+        GeocodingResult result = geoCodingService.geocodeLocation("", TEST_LANGUAGE);
 
         // Verify result is null
         assertNull(result);
@@ -116,17 +145,17 @@ class GeoCodingServiceTest {
     @Test
     void geocodeLocation_ApiError() {
         // Setup mocks to simulate API error
-        when(restTemplate.getForObject(contains(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
                 .thenThrow(new RuntimeException("API Error"));
 
         // Execute test
-        GeocodingResult result = geoCodingService.geocodeLocation(TEST_CITY, TEST_LANGUAGE, TEST_COUNT);
+        GeocodingResult result = geoCodingService.geocodeLocation(TEST_CITY, TEST_LANGUAGE);
 
         // Verify result is null due to error
         assertNull(result);
 
         // Verify interactions
-        verify(restTemplate).getForObject(contains(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+        verify(restTemplate).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
         verifyNoInteractions(geoCodingMapper);
     }
 
@@ -137,18 +166,201 @@ class GeoCodingServiceTest {
         emptyResponse.setResults(java.util.Collections.emptyList());
 
         // Setup mocks
-        when(restTemplate.getForObject(contains(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
                 .thenReturn(emptyResponse);
 
         // Execute test
-        GeocodingResult result = geoCodingService.geocodeLocation(TEST_CITY, TEST_LANGUAGE, TEST_COUNT);
+        GeocodingResult result = geoCodingService.geocodeLocation(TEST_CITY, TEST_LANGUAGE);
 
         // Verify result is null due to empty results
         assertNull(result);
 
         // Verify interactions
-        verify(restTemplate).getForObject(contains(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+        verify(restTemplate).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
         verifyNoInteractions(geoCodingMapper);
     }
 
-}
\ No newline at end of file
+    @Test
+    void autocompleteLocation_FromGazetteer() {
+        List<GeocodingResult> results = geoCodingService.autocompleteLocation("wars", TEST_LANGUAGE, 1);
+
+        assertEquals(1, results.size());
+        assertEquals("Warsaw", results.get(0).getName());
+        assertEquals("Polska", results.get(0).getCountry());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void autocompleteLocation_KeepsFewGazetteerMatchesFromGeocoder() {
+        List<GeocodingResult> results = geoCodingService.autocompleteLocation("wars", TEST_LANGUAGE, 5);
+
+        assertEquals(List.of("Warsaw"), results.stream().map(GeocodingResult::getName).collect(java.util.stream.Collectors.toList()));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void autocompleteLocation_AsksGeocoderForTextExtendingTwoCharacterQuery() {
+        doReturn(List.of()).when(gazetteer).search("wa", 5);
+        GeocodingResponse exactMatch = new GeocodingResponse();
+        exactMatch.setResults(List.of(result(5, "Wa", 10.1)));
+        geocodingResponse.getResults().get(0).setId(1L);
+        geocodingResponse.getResults().get(0).setName("Warszawka");
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(exactMatch)
+                .thenReturn(geocodingResponse);
+
+        assertEquals(1, geoCodingService.autocompleteLocation("wa", TEST_LANGUAGE, 5).size());
+        List<GeocodingResult> typedOn = geoCodingService.autocompleteLocation("warszawk", TEST_LANGUAGE, 5);
+
+        assertEquals("Warszawka", typedOn.get(0).getName());
+        verify(restTemplate, times(2)).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void autocompleteLocation_FallsBackToGeocoderAndMergesResults() {
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(geocodingResponse);
+        geocodingResponse.getResults().get(0).setId(1L);
+        geocodingResponse.getResults().get(0).setName("Warszawka");
+
+        List<GeocodingResult> results = geoCodingService.autocompleteLocation("Warszawk", TEST_LANGUAGE, 5);
+        List<GeocodingResult> merged = geoCodingService.autocompleteLocation("warszawka", TEST_LANGUAGE, 5);
+
+        assertEquals("Warszawka", results.get(0).getName());
+        assertEquals("Warszawka", merged.get(0).getName());
+        verify(restTemplate, times(1)).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void autocompleteLocation_SkipsGeocoderForExtendedUnmatchedText() {
+        GeocodingResponse emptyResponse = new GeocodingResponse();
+        emptyResponse.setResults(java.util.Collections.emptyList());
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(emptyResponse);
+
+        assertTrue(geoCodingService.autocompleteLocation("Qxz", TEST_LANGUAGE, 5).isEmpty());
+        assertTrue(geoCodingService.autocompleteLocation("Qxzy", TEST_LANGUAGE, 5).isEmpty());
+
+        verify(restTemplate, times(1)).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void geocodeLocation_NormalizedNamesShareCacheEntry() {
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(geocodingResponse);
+
+        assertEquals("Warsaw", geoCodingService.geocodeLocation("Warsaw", TEST_LANGUAGE).getName());
+        assertEquals("Warsaw", geoCodingService.geocodeLocation(" warsaw ", TEST_LANGUAGE).getName());
+        assertEquals("Warsaw", geoCodingService.geocodeLocation("WARSAW", "PL").getName());
+
+        verify(restTemplate, times(1)).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void geocodeLocations_SlicesCachedResults() {
+        GeocodingResponse response = new GeocodingResponse();
+        response.setResults(List.of(result(1, "Springfield", 39.8), result(2, "Springfield", 37.2), result(3, "Springfield", 42.1)));
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(response);
+
+        assertEquals(1, geoCodingService.geocodeLocations("Springfield", "en", 1).size());
+        List<GeocodingResult> results = geoCodingService.geocodeLocations("springfield", "en", 5);
+
+        assertEquals(List.of(39.8, 37.2, 42.1), results.stream().map(GeocodingResult::getLatitude).collect(java.util.stream.Collectors.toList()));
+        verify(restTemplate, times(1)).getForObject(uriContaining("count=" + WeatherConstants.GEOCODING_RESULT_COUNT), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void geocodeLocations_KeepsOnlyLocalizedNamesPerLanguage() {
+        GeocodingResponse english = new GeocodingResponse();
+        english.setResults(List.of(result(7, "Springfield", 39.8)));
+        GeocodingResponse polish = new GeocodingResponse();
+        polish.setResults(List.of(result(7, "Springfield PL", 0.0)));
+        when(restTemplate.getForObject(uriContaining("language=en"), eq(GeocodingResponse.class))).thenReturn(english);
+        when(restTemplate.getForObject(uriContaining("language=pl"), eq(GeocodingResponse.class))).thenReturn(polish);
+
+        geoCodingService.geocodeLocations("Springfield", "en", 1);
+        GeocodingResult result = geoCodingService.geocodeLocations("Springfield", "pl", 1).get(0);
+
+        assertEquals("Springfield PL", result.getName());
+        assertEquals(39.8, result.getLatitude());
+        LocalizedGeocodingResults cached = cacheManager.getCache(GEOCODING_CACHE)
+                .get("springfield-pl", LocalizedGeocodingResults.class);
+        assertEquals("Springfield PL", cached.getPlaces().get(0).getName());
+    }
+
+    @Test
+    void geocodeLocations_ResolvesCachedPlacesMissingFromGazetteer() {
+        GeocodingResponse response = new GeocodingResponse();
+        response.setResults(List.of(result(8, "Shelbyville", 39.4)));
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(response);
+        geoCodingService.geocodeLocations("Shelbyville", "en", 1);
+        clearInvocations(gazetteer);
+
+        GeocodingResult result = geoCodingService.geocodeLocations("Shelbyville", "en", 1).get(0);
+
+        // The gazetteer may have been full when the place was geocoded, or reloaded since
+        verify(gazetteer, never()).find(anyLong());
+        assertEquals(39.4, result.getLatitude());
+        assertEquals(-89.6, result.getLongitude());
+        verify(restTemplate, times(1)).getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void geocodeLocation_EncodesQueryParameters() {
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(geocodingResponse);
+
+        geoCodingService.geocodeLocation("Kraków & Co", TEST_LANGUAGE);
+
+        verify(restTemplate).getForObject(uriContaining("name=Krak%C3%B3w%20%26%20Co&language=pl"), eq(GeocodingResponse.class));
+    }
+
+    @Test
+    void geocodeLocations_SkipsResultsWithoutId() {
+        GeocodingResponse response = new GeocodingResponse();
+        GeocodingResponse.GeocodingResult withoutId = result(1, "Springfield", 39.8);
+        withoutId.setId(null);
+        response.setResults(List.of(withoutId, result(2, "Springfield", 37.2)));
+        when(restTemplate.getForObject(uriContaining(OPEN_METEO_GEOCODING_URL), eq(GeocodingResponse.class)))
+                .thenReturn(response);
+
+        List<GeocodingResult> results = geoCodingService.geocodeLocations("Springfield", "en", 5);
+
+        assertEquals(1, results.size());
+        assertEquals(37.2, results.get(0).getLatitude());
+    }
+
+    @Test
+    void restTemplate_RecordsGeocodingCalls() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GeoCodingService service = new GeoCodingService(geoCodingMapper, openMeteoConfig, new UpstreamMetrics(registry),
+                upstreamCapture, gazetteer, cacheManager, upstreamQuota);
+        MockRestServiceServer server = MockRestServiceServer
+                .bindTo((RestTemplate) ReflectionTestUtils.getField(service, "restTemplate"))
+                .build();
+        server.expect(requestTo(Matchers.startsWith(OPEN_METEO_GEOCODING_URL)))
+                .andRespond(withSuccess("{\"results\": []}", MediaType.APPLICATION_JSON));
+
+        service.geocodeLocation(TEST_CITY, TEST_LANGUAGE);
+
+        server.verify();
+        assertEquals(1, registry.get(UpstreamMetrics.REQUESTS_METRIC).tag("upstream", "open-meteo-geocoding").timer().count());
+    }
+
+    private static URI uriContaining(String text) {
+        return argThat(uri -> uri != null && uri.toString().contains(text));
+    }
+
+    private static GeocodingResponse.GeocodingResult result(long id, String name, double latitude) {
+        GeocodingResponse.GeocodingResult result = new GeocodingResponse.GeocodingResult();
+        result.setId(id);
+        result.setName(name);
+        result.setLatitude(latitude);
+        result.setLongitude(-89.6);
+        result.setCountry("United States");
+        result.setCountry_code("US");
+        return result;
+    }
+}
@@ -2,6 +2,8 @@ package pl.qprogramming.daily.service.weather;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,10 +11,24 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import pl.qprogramming.daily.cache.NearbyCache;
+import pl.qprogramming.daily.capture.UpstreamCapture;
+import pl.qprogramming.daily.config.NearbyCacheConfig;
+import pl.qprogramming.daily.config.OpenMeteoConfig;
+import pl.qprogramming.daily.config.UpstreamCaptureConfig;
+import pl.qprogramming.daily.config.UpstreamQuotaConfig;
 import pl.qprogramming.daily.dto.*;
+import pl.qprogramming.daily.metrics.UpstreamMetrics;
+import pl.qprogramming.daily.quota.QuotaExceededException;
+import pl.qprogramming.daily.quota.UpstreamPriority;
+import pl.qprogramming.daily.quota.UpstreamQuota;
 import pl.qprogramming.daily.service.weather.mapper.WeatherMapper;
 import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoAirQuality;
 import pl.qprogramming.daily.service.weather.model.openweather.OpenMeteoWeatherResponse;
@@ -24,6 +40,8 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static pl.qprogramming.daily.service.weather.WeatherConstants.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,6 +58,18 @@ class OpenWeatherServiceTest {
     @Mock
     private WeatherMapper weatherMapper;
 
+    @Spy
+    private OpenMeteoConfig openMeteoConfig = new OpenMeteoConfig();
+
+    @Spy
+    private UpstreamCapture upstreamCapture = new UpstreamCapture(new UpstreamCaptureConfig());
+
+    @Spy
+    private UpstreamQuota upstreamQuota = new UpstreamQuota(null, new UpstreamQuotaConfig(), new UpstreamCaptureConfig(), new SimpleMeterRegistry());
+
+    @Spy
+    private NearbyCache nearbyCache = new NearbyCache(new NearbyCacheConfig(), new ConcurrentMapCacheManager());
+
 
     @Spy
     @InjectMocks
@@ -175,6 +205,28 @@ class OpenWeatherServiceTest {
         verifyNoInteractions(weatherMapper);
     }
 
+    @Test
+    void getCurrentWeather_ServesLastWeatherWhenOverBudget() {
+        WeatherData approximate = new WeatherData().current(weatherData.getCurrent()).approximate(true);
+        when(restTemplate.getForObject(contains(OPEN_METEO_FORECAST_URL), eq(OpenMeteoWeatherResponse.class)))
+                .thenReturn(currentWeatherResponse)
+                .thenThrow(new ResourceAccessException("I/O error", new QuotaExceededException(UpstreamQuota.OPEN_METEO, UpstreamPriority.INTERACTIVE)));
+        when(weatherMapper.toWeatherData(any())).thenReturn(weatherData);
+        when(weatherMapper.toApproximate(weatherData)).thenReturn(approximate);
+
+        assertSame(weatherData, openWeatherService.getCurrentWeather(TEST_LATITUDE, TEST_LONGITUDE));
+        assertSame(approximate, openWeatherService.getCurrentWeather(TEST_LATITUDE, TEST_LONGITUDE));
+    }
+
+    @Test
+    void getAirQuality_NothingToServeWhenOverBudget() {
+        when(restTemplate.getForObject(contains(OPEN_METEO_AIR_QUALITY_URL), eq(OpenMeteoAirQuality.class)))
+                .thenThrow(new ResourceAccessException("I/O error", new QuotaExceededException(UpstreamQuota.OPEN_METEO, UpstreamPriority.INTERACTIVE)));
+
+        assertNull(openWeatherService.getAirQuality(TEST_LATITUDE, TEST_LONGITUDE));
+        verifyNoInteractions(weatherMapper);
+    }
+
     @Test
     void getWeatherForecast_Success() {
         // Setup mocks
@@ -286,4 +338,81 @@ class OpenWeatherServiceTest {
         verify(restTemplate).getForObject(contains(OPEN_METEO_AIR_QUALITY_URL), eq(OpenMeteoAirQuality.class));
         verifyNoInteractions(weatherMapper);
     }
+
+    @Test
+    void getRegionForecasts_ReadsArrayOrSingleResponse() throws IOException {
+        String forecastJson = new String(new ClassPathResource("weather/weather_forecast.json").getInputStream().readAllBytes());
+        when(restTemplate.getForObject(contains("latitude=52.125,52.375"), eq(String.class)))
+                .thenReturn("[" + forecastJson + "," + forecastJson + "]");
+        when(restTemplate.getForObject(contains("latitude=52.125&"), eq(String.class)))
+                .thenReturn(forecastJson);
+        when(weatherMapper.toWeatherForecast(any(), any(), any())).thenReturn(weatherForecast);
+
+        assertEquals(2, openWeatherService.getRegionForecasts(new double[]{52.125, 52.375}, new double[]{21.125, 21.125}).size());
+        assertEquals(1, openWeatherService.getRegionForecasts(new double[]{52.125}, new double[]{21.125}).size());
+        verify(weatherMapper, times(3)).toWeatherForecast(any(), argThat(days -> days.getDays() == 1), argThat(hours -> hours.getHours() == 0));
+    }
+
+    @Test
+    void getRegionForecasts_TakesCallPerLocationFromBudget() {
+        doReturn(false).when(upstreamQuota).tryAcquire(UpstreamQuota.OPEN_METEO, 3);
+
+        assertNull(openWeatherService.getRegionForecasts(new double[]{52.125, 52.375, 52.625}, new double[]{21.125, 21.125, 21.125}));
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void getRegionForecasts_TakesNoCallsWhenPerMinuteBudgetIsOneShort() throws IOException {
+        UpstreamQuotaConfig quotaConfig = new UpstreamQuotaConfig();
+        quotaConfig.setEnabled(true);
+        UpstreamQuotaConfig.Limit limit = new UpstreamQuotaConfig.Limit();
+        limit.setDaily(100);
+        limit.setPerMinute(2);
+        quotaConfig.getLimits().put(UpstreamQuota.OPEN_METEO, limit);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamQuota quota = new UpstreamQuota(null, quotaConfig, new UpstreamCaptureConfig(), registry);
+        OpenWeatherService service = new OpenWeatherService(weatherMapper, openMeteoConfig, new UpstreamMetrics(registry),
+                upstreamCapture, nearbyCache, quota);
+        MockRestServiceServer server = MockRestServiceServer
+                .bindTo((RestTemplate) ReflectionTestUtils.getField(service, "restTemplate"))
+                .build();
+        String forecastJson = new String(new ClassPathResource("weather/weather_forecast.json").getInputStream().readAllBytes());
+        server.expect(requestTo(Matchers.containsString("latitude=52.125,52.375&")))
+                .andRespond(withSuccess("[" + forecastJson + "," + forecastJson + "]", MediaType.APPLICATION_JSON));
+        when(weatherMapper.toWeatherForecast(any(), any(), any())).thenReturn(weatherForecast);
+
+        assertNull(service.getRegionForecasts(new double[]{52.125, 52.375, 52.625}, new double[]{21.125, 21.125, 21.125}));
+        assertEquals(100, registry.get(UpstreamQuota.REMAINING_METRIC).tag("window", "day").gauge().value());
+        assertEquals(2, service.getRegionForecasts(new double[]{52.125, 52.375}, new double[]{21.125, 21.125}).size());
+        server.verify();
+        assertEquals(98, registry.get(UpstreamQuota.REMAINING_METRIC).tag("window", "day").gauge().value());
+    }
+
+    @Test
+    void getRegionForecasts_MismatchedCount() {
+        when(restTemplate.getForObject(contains(OPEN_METEO_FORECAST_URL), eq(String.class))).thenReturn("[]");
+
+        assertNull(openWeatherService.getRegionForecasts(new double[]{52.125}, new double[]{21.125}));
+    }
+
+    @Test
+    void restTemplate_RecordsForecastAndAirQualityCalls() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OpenWeatherService service = new OpenWeatherService(weatherMapper, openMeteoConfig, new UpstreamMetrics(registry),
+                upstreamCapture, nearbyCache, upstreamQuota);
+        MockRestServiceServer server = MockRestServiceServer
+                .bindTo((RestTemplate) ReflectionTestUtils.getField(service, "restTemplate"))
+                .build();
+        server.expect(requestTo(Matchers.startsWith(OPEN_METEO_FORECAST_URL)))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(Matchers.startsWith(OPEN_METEO_AIR_QUALITY_URL)))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        service.getCurrentWeather(TEST_LATITUDE, TEST_LONGITUDE);
+        service.getAirQuality(TEST_LATITUDE, TEST_LONGITUDE);
+
+        server.verify();
+        assertEquals(1, registry.get(UpstreamMetrics.REQUESTS_METRIC).tag("upstream", "open-meteo-forecast").timer().count());
+        assertEquals(1, registry.get(UpstreamMetrics.REQUESTS_METRIC).tag("upstream", "open-meteo-air-quality").timer().count());
+    }
 }
@@ -0,0 +1,114 @@
+package pl.qprogramming.daily.service.weather;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import pl.qprogramming.daily.config.RegionWeatherConfig;
+import pl.qprogramming.daily.dto.CurrentWeather;
+import pl.qprogramming.daily.dto.Forecast;
+import pl.qprogramming.daily.dto.RegionWeather;
+import pl.qprogramming.daily.dto.WeatherForecast;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static pl.qprogramming.daily.service.weather.WeatherConstants.REGION_WEATHER_CACHE;
+
+@ExtendWith(MockitoExtension.class)
+class RegionWeatherServiceTest {
+
+    @Mock
+    private OpenWeatherService openWeatherService;
+
+    @Spy
+    private RegionWeatherConfig config = new RegionWeatherConfig();
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(REGION_WEATHER_CACHE);
+
+    @InjectMocks
+    private RegionWeatherService regionWeatherService;
+
+    @Test
+    void getRegionWeather_PacksCellsOfGlobalGrid() {
+        when(openWeatherService.getRegionForecasts(any(), any())).thenAnswer(invocation -> forecasts(invocation.getArgument(0)));
+
+        RegionWeather region = regionWeatherService.getRegionWeather(52.1, 20.9, 52.6, 21.2);
+
+        assertEquals(52.0, region.getSouth());
+        assertEquals(20.75, region.getWest());
+        assertEquals(0.25, region.getCellDegrees());
+        assertEquals(3, region.getRows());
+        assertEquals(2, region.getColumns());
+        assertEquals(List.of(521, 521, 524, 524, 526, 526), region.getTemperature());
+        assertEquals(List.of(31, 31, 31, 31, 31, 31), region.getWindSpeed());
+        assertEquals(List.of(-15, -15, -15, -15, -15, -15), region.getTempMin());
+        assertEquals(List.of(3, 3, 3, 3, 3, 3), region.getForecastWeatherCode());
+        verify(openWeatherService).getRegionForecasts(
+                new double[]{52.125, 52.125, 52.375, 52.375, 52.625, 52.625},
+                new double[]{20.875, 21.125, 20.875, 21.125, 20.875, 21.125});
+    }
+
+    @Test
+    void getRegionWeather_LoadsOnlyCellsMissingFromCacheInBatches() {
+        config.setBatchSize(2);
+        when(openWeatherService.getRegionForecasts(any(), any())).thenAnswer(invocation -> forecasts(invocation.getArgument(0)));
+        regionWeatherService.getRegionWeather(52.1, 20.9, 52.4, 21.2);
+        reset(openWeatherService);
+        when(openWeatherService.getRegionForecasts(any(), any())).thenAnswer(invocation -> forecasts(invocation.getArgument(0)));
+
+        RegionWeather region = regionWeatherService.getRegionWeather(52.1, 20.9, 52.6, 21.2);
+
+        assertEquals(6, region.getTemperature().size());
+        verify(openWeatherService).getRegionForecasts(new double[]{52.625, 52.625}, new double[]{20.875, 21.125});
+        verifyNoMoreInteractions(openWeatherService);
+    }
+
+    @Test
+    void getRegionWeather_WidensCellsOfLargeBoxes() {
+        config.setMaxCells(100);
+        when(openWeatherService.getRegionForecasts(any(), any())).thenReturn(null);
+
+        RegionWeather region = regionWeatherService.getRegionWeather(49.0, 14.1, 54.9, 24.2);
+
+        assertEquals(1.0, region.getCellDegrees());
+        assertEquals(6, region.getRows());
+        assertEquals(11, region.getColumns());
+        assertTrue(region.getTemperature().stream().allMatch(value -> value == null));
+    }
+
+    @Test
+    void getRegionWeather_KeepsCellCentresOnTheGlobe() {
+        when(openWeatherService.getRegionForecasts(any(), any())).thenReturn(null);
+
+        config.setMaxCells(8);
+        assertEquals(128.0, regionWeatherService.getRegionWeather(-90, -180, 90, 180).getCellDegrees());
+        config.setMaxCells(4);
+        assertEquals(256.0, regionWeatherService.getRegionWeather(-90, -180, 90, 180).getCellDegrees());
+
+        // Longitudes wrap across the antimeridian, latitudes stop at the poles
+        verify(openWeatherService).getRegionForecasts(
+                new double[]{-64.0, -64.0, -64.0, -64.0, 64.0, 64.0, 64.0, 64.0},
+                new double[]{168.0, -64.0, 64.0, -168.0, 168.0, -64.0, 64.0, -168.0});
+        verify(openWeatherService).getRegionForecasts(
+                new double[]{-90.0, -90.0, 90.0, 90.0},
+                new double[]{-128.0, 128.0, -128.0, 128.0});
+    }
+
+    private static List<WeatherForecast> forecasts(double[] latitudes) {
+        return Arrays.stream(latitudes)
+                .mapToObj(latitude -> new WeatherForecast()
+                        .current(new CurrentWeather().temperature(latitude).windSpeed(3.14).weatherCode(1))
+                        .forecast(List.of(new Forecast().tempMin(-1.5).tempMax(4.0).weatherCode(3))))
+                .collect(Collectors.toList());
+    }
+}
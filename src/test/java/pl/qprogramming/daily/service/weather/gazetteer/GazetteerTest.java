@@ -0,0 +1,90 @@
+package pl.qprogramming.daily.service.weather.gazetteer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import pl.qprogramming.daily.config.GazetteerConfig;
+import pl.qprogramming.daily.service.weather.gazetteer.Gazetteer.Match;
+import pl.qprogramming.daily.service.weather.gazetteer.Gazetteer.Place;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GazetteerTest {
+
+    private final Gazetteer gazetteer = new Gazetteer(new GazetteerConfig(), new DefaultResourceLoader());
+
+    @Test
+    void fold_RemovesDiacriticsAndSeparators() {
+        assertEquals("bielsko biala", Gazetteer.fold("  Bielsko-Biała "));
+        assertEquals("lodz", Gazetteer.fold("ŁÓDŹ"));
+        assertEquals("zurich", Gazetteer.fold("Zürich"));
+        assertEquals("", Gazetteer.fold("-"));
+    }
+
+    @Test
+    void search_MatchesFoldedPrefixesByPopulation() {
+        assertEquals(List.of("Łódź"), names(gazetteer.search("lod", 5)));
+        assertEquals(List.of("Kraków"), names(gazetteer.search("Krako", 5)));
+        assertEquals(List.of("Bielsko-Biała"), names(gazetteer.search("bielsko b", 5)));
+        assertEquals(List.of("Beijing", "Berlin", "Budapest"), names(gazetteer.search("b", 3)));
+    }
+
+    @Test
+    void search_RanksShortPrefixesWhenLoaded() {
+        GazetteerConfig config = new GazetteerConfig();
+        config.setMaxResults(2);
+        Gazetteer limited = new Gazetteer(config, new DefaultResourceLoader());
+        Place bytom = new Place(3101950, "Bytom", "PL", "Polska", "Śląskie", 50.34802, 18.93282, 189000000, "Europe/Warsaw");
+
+        assertEquals(List.of("Beijing", "Berlin"), names(limited.search("B", 5)));
+        assertEquals(names(gazetteer.search("be", 2)), names(limited.search("be", 5)));
+        limited.merge(List.of(bytom));
+        assertEquals(List.of("Bytom", "Beijing"), names(limited.search("b", 2)));
+    }
+
+    @Test
+    void search_ReturnsMatchingAlternateName() {
+        assertEquals(List.of("Varsovie"), names(gazetteer.search("Varsovie", 5)));
+        assertEquals(List.of("Warsaw"), names(gazetteer.search("Wars", 5)));
+        assertTrue(gazetteer.search("Qxz", 5).isEmpty());
+        assertTrue(gazetteer.search("", 5).isEmpty());
+    }
+
+    @Test
+    void merge_AddsUnknownCities() {
+        Place zakopane = new Place(3080866, "Zakopane", "PL", "Polska", "Małopolskie", 49.29899, 19.94885, 27266, "Europe/Warsaw");
+        Place warsaw = new Place(756135, "Warszawa", "PL", "Polska", "Mazowieckie", 52.22977, 21.01178, 1702139, "Europe/Warsaw");
+
+        gazetteer.merge(List.of(zakopane, warsaw));
+
+        List<Match> matches = gazetteer.search("zakop", 5);
+        assertEquals(1, matches.size());
+        assertSame(zakopane, matches.get(0).getPlace());
+        matches = gazetteer.search("warsz", 5);
+        assertEquals(1, matches.size());
+        assertNotSame(warsaw, matches.get(0).getPlace());
+    }
+
+    @Test
+    void merge_SkipsCitiesOverLimitButKeepsKnownOnes() {
+        List<Place> filler = IntStream.range(0, Gazetteer.MAX_MERGED_PLACES)
+                .mapToObj(i -> new Place(-1 - i, "Filler " + i, "PL", null, null, 50, 20, 0, "Europe/Warsaw"))
+                .collect(Collectors.toList());
+        gazetteer.merge(filler);
+        Place zakopane = new Place(3080866, "Zakopane", "PL", "Polska", "Małopolskie", 49.29899, 19.94885, 27266, "Europe/Warsaw");
+        Place sopot = new Place(3085450, "Sopot", "PL", "Polska", "Pomorskie", 54.4418, 18.56003, 37654, "Europe/Warsaw");
+
+        gazetteer.merge(List.of(zakopane, filler.get(0), sopot));
+
+        assertNull(gazetteer.find(zakopane.getId()));
+        assertNull(gazetteer.find(sopot.getId()));
+        assertSame(filler.get(0), gazetteer.find(-1));
+    }
+
+    private static List<String> names(List<Match> matches) {
+        return matches.stream().map(Match::getName).collect(Collectors.toList());
+    }
+}